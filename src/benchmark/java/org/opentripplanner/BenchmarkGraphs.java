@@ -0,0 +1,40 @@
+package org.opentripplanner;
+
+import org.opentripplanner.routing.algorithm.raptor.transit.TransitLayer;
+import org.opentripplanner.routing.algorithm.raptor.transit.TransitTuningParameters;
+import org.opentripplanner.routing.algorithm.raptor.transit.mappers.TransitLayerMapper;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
+
+/**
+ * The graphs used by the benchmarks. The Portland graph is built from the test resources the
+ * first time it is requested, indexed and given a transit layer, and then shared by all the
+ * benchmarks running in the same JVM.
+ */
+public class BenchmarkGraphs {
+
+    private static Graph portlandGraph = null;
+
+    /** Return the indexed Portland graph with a transit layer. */
+    public static synchronized Graph portlandGraph() {
+        if (portlandGraph == null) {
+            Graph graph = ConstantsForTests.getInstance().getPortlandGraph();
+            graph.index();
+            graph.setTransitLayer(TransitLayerMapper.map(TransitTuningParameters.FOR_TEST, graph));
+            portlandGraph = graph;
+        }
+        return portlandGraph;
+    }
+
+    /** Return the transit layer of the Portland graph. */
+    public static TransitLayer portlandTransitLayer() {
+        return portlandGraph().getTransitLayer();
+    }
+
+    /** Return the vertex of a Portland transit stop, like {@code "10579"}. */
+    public static Vertex portlandStopVertex(String stopId) {
+        Graph graph = portlandGraph();
+        String feedId = graph.getFeedIds().iterator().next();
+        return graph.getVertex(feedId + ":" + stopId);
+    }
+}
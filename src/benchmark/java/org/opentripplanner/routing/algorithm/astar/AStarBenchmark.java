@@ -0,0 +1,61 @@
+package org.opentripplanner.routing.algorithm.astar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opentripplanner.BenchmarkGraphs;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.spt.GraphPath;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the time it takes to find a walking path between two transit stops in the Portland
+ * graph. The search is run with and without reusing the {@link AStarSearchContext} of the
+ * current thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AStarBenchmark {
+
+    @Param({ "true", "false" })
+    public boolean reuseSearchContext;
+
+    private RoutingRequest options;
+
+    @Setup
+    public void setup() {
+        Graph graph = BenchmarkGraphs.portlandGraph();
+        options = new RoutingRequest(TraverseMode.WALK);
+        options.setRoutingContext(
+                graph,
+                BenchmarkGraphs.portlandStopVertex("10579"),
+                BenchmarkGraphs.portlandStopVertex("8371")
+        );
+    }
+
+    @Benchmark
+    public List<GraphPath> search() {
+        AStar aStar = new AStar();
+        if (reuseSearchContext) {
+            aStar.setSearchContext(AStarSearchContext.forCurrentThread());
+        }
+        aStar.getShortestPathTree(options);
+        return aStar.getPathsToTarget();
+    }
+}
@@ -0,0 +1,71 @@
+package org.opentripplanner.routing.algorithm.astar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opentripplanner.BenchmarkGraphs;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.edgetype.StreetTransitLink;
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.spt.GraphPath;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the time it takes to find a bicycle or car path across the Portland graph, between the
+ * street vertices the transit stops are linked to. Every street edge traversal in these modes
+ * checks the turn restrictions of the previous edge.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreetSearchBenchmark {
+
+    @Param({ "BICYCLE", "CAR" })
+    public TraverseMode mode;
+
+    private RoutingRequest options;
+
+    @Setup
+    public void setup() {
+        Graph graph = BenchmarkGraphs.portlandGraph();
+        options = new RoutingRequest(mode);
+        options.setRoutingContext(
+                graph,
+                linkedStreetVertex(BenchmarkGraphs.portlandStopVertex("10579")),
+                linkedStreetVertex(BenchmarkGraphs.portlandStopVertex("8371"))
+        );
+    }
+
+    @Benchmark
+    public List<GraphPath> search() {
+        AStar aStar = new AStar();
+        aStar.setSearchContext(AStarSearchContext.forCurrentThread());
+        aStar.getShortestPathTree(options);
+        return aStar.getPathsToTarget();
+    }
+
+    private static Vertex linkedStreetVertex(Vertex stop) {
+        for (Edge e : stop.getOutgoing()) {
+            if (e instanceof StreetTransitLink) {
+                return e.getToVertex();
+            }
+        }
+        throw new IllegalStateException("Stop is not linked to the streets: " + stop);
+    }
+}
@@ -0,0 +1,59 @@
+package org.opentripplanner.routing.algorithm.mapping;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opentripplanner.BenchmarkGraphs;
+import org.opentripplanner.model.plan.Itinerary;
+import org.opentripplanner.routing.algorithm.astar.AStar;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.spt.GraphPath;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the time it takes to map a walking path between two transit stops in the Portland
+ * graph to an itinerary, including the generation of walk steps. The path is found during
+ * setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItineraryMappingBenchmark {
+
+    private RoutingRequest options;
+    private List<GraphPath> paths;
+
+    @Setup
+    public void setup() {
+        options = new RoutingRequest(TraverseMode.WALK);
+        options.setRoutingContext(
+                BenchmarkGraphs.portlandGraph(),
+                BenchmarkGraphs.portlandStopVertex("10579"),
+                BenchmarkGraphs.portlandStopVertex("8371")
+        );
+        AStar aStar = new AStar();
+        aStar.getShortestPathTree(options);
+        paths = aStar.getPathsToTarget();
+        if (paths.isEmpty()) {
+            throw new IllegalStateException("No path found between the benchmark stops.");
+        }
+    }
+
+    @Benchmark
+    public List<Itinerary> mapItineraries() {
+        return GraphPathToItineraryMapper.mapItineraries(paths, options);
+    }
+}
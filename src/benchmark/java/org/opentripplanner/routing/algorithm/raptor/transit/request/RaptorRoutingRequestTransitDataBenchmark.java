@@ -0,0 +1,74 @@
+package org.opentripplanner.routing.algorithm.raptor.transit.request;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opentripplanner.BenchmarkGraphs;
+import org.opentripplanner.model.TransitMode;
+import org.opentripplanner.routing.algorithm.raptor.transit.TransitLayer;
+import org.opentripplanner.util.TestUtils;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the time it takes to create the transit data for a Raptor search in the Portland
+ * graph. The {@code cached} benchmark measure the normal case, where the active trip patterns
+ * and transfers are found in the {@link RaptorRoutingRequestTransitDataCache}. The
+ * {@code uncached} benchmark clear the cache before each request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RaptorRoutingRequestTransitDataBenchmark {
+
+    private static final Set<TransitMode> ALL_MODES = EnumSet.allOf(TransitMode.class);
+    private static final double WALK_SPEED = 1.33;
+
+    private TransitLayer transitLayer;
+    private Instant departureTime;
+
+    @Setup
+    public void setup() {
+        transitLayer = BenchmarkGraphs.portlandTransitLayer();
+        departureTime = Instant.ofEpochSecond(
+                TestUtils.dateInSeconds("America/Los_Angeles", 2009, 11, 1, 12, 0, 0)
+        );
+    }
+
+    @Benchmark
+    public RaptorRoutingRequestTransitData cached() {
+        return createTransitData();
+    }
+
+    @Benchmark
+    public RaptorRoutingRequestTransitData uncached() {
+        transitLayer.getRequestTransitDataCache().clear();
+        return createTransitData();
+    }
+
+    private RaptorRoutingRequestTransitData createTransitData() {
+        return new RaptorRoutingRequestTransitData(
+                transitLayer,
+                departureTime,
+                1,
+                1,
+                ALL_MODES,
+                Collections.emptySet(),
+                WALK_SPEED
+        );
+    }
+}
@@ -0,0 +1,80 @@
+package org.opentripplanner.routing.edgetype;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.opentripplanner.BenchmarkGraphs;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.graph.Graph;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measure the time it takes to traverse {@value #N_EDGES} street edges in the Portland graph.
+ * The edges are sorted by the labels of their vertices, so each run traverse the same edges.
+ * The initial state of each traversal is created during setup.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreetEdgeTraverseBenchmark {
+
+    private static final int N_EDGES = 1000;
+
+    @Param({ "WALK", "BICYCLE", "CAR" })
+    public TraverseMode mode;
+
+    private StreetEdge[] edges;
+    private State[] states;
+
+    @Setup
+    public void setup() {
+        Graph graph = BenchmarkGraphs.portlandGraph();
+        List<StreetEdge> sorted = graph.getStreetEdges().stream()
+                .sorted(
+                        Comparator.comparing((StreetEdge e) -> e.getFromVertex().getLabel())
+                                .thenComparing(e -> e.getToVertex().getLabel())
+                )
+                .limit(N_EDGES)
+                .collect(Collectors.toList());
+
+        RoutingRequest options = new RoutingRequest(mode);
+        options.setRoutingContext(
+                graph,
+                BenchmarkGraphs.portlandStopVertex("10579"),
+                BenchmarkGraphs.portlandStopVertex("8371")
+        );
+
+        edges = sorted.toArray(new StreetEdge[0]);
+        states = new State[edges.length];
+        for (int i = 0; i < edges.length; ++i) {
+            states[i] = new State(
+                    edges[i].getFromVertex(),
+                    options
+            );
+        }
+    }
+
+    @Benchmark
+    public void traverse(Blackhole blackhole) {
+        for (int i = 0; i < edges.length; ++i) {
+            blackhole.consume(edges[i].traverse(states[i]));
+        }
+    }
+}
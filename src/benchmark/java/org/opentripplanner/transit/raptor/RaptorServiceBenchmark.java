@@ -0,0 +1,131 @@
+package org.opentripplanner.transit.raptor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opentripplanner.BenchmarkGraphs;
+import org.opentripplanner.model.FeedScopedId;
+import org.opentripplanner.model.TransferPriority;
+import org.opentripplanner.model.TransitMode;
+import org.opentripplanner.routing.algorithm.raptor.transit.TransitLayer;
+import org.opentripplanner.routing.algorithm.raptor.transit.TransitTuningParameters;
+import org.opentripplanner.routing.algorithm.raptor.transit.TripSchedule;
+import org.opentripplanner.routing.algorithm.raptor.transit.mappers.DateMapper;
+import org.opentripplanner.routing.algorithm.raptor.transit.mappers.TransitLayerMapper;
+import org.opentripplanner.routing.algorithm.raptor.transit.request.RaptorRoutingRequestTransitData;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.transit.raptor._shared.TestRaptorTransfer;
+import org.opentripplanner.transit.raptor.api.request.RaptorProfile;
+import org.opentripplanner.transit.raptor.api.request.RaptorRequest;
+import org.opentripplanner.transit.raptor.api.request.RaptorRequestBuilder;
+import org.opentripplanner.transit.raptor.api.request.RaptorTuningParameters;
+import org.opentripplanner.transit.raptor.api.response.RaptorResponse;
+import org.opentripplanner.transit.raptor.rangeraptor.configure.RaptorConfig;
+import org.opentripplanner.util.TestUtils;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the time it takes to route between two transit stops in the Portland graph, with a
+ * one hour search window. The multi-criteria profile exercise the {@code McTransitWorker}, while
+ * the standard profile is included as a reference. The search is run with the stops numbered
+ * in the order of the graph, and with the locality aware stop index.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RaptorServiceBenchmark {
+
+    private static final String FROM_STOP = "10579";
+    private static final String TO_STOP = "8371";
+    private static final int ACCESS_EGRESS_DURATION = 120;
+    private static final int SEARCH_WINDOW = 3600;
+
+    private static final TransitTuningParameters LOCALITY_AWARE_STOP_INDEX =
+            new TransitTuningParameters() {
+                @Override public boolean enableStopTransferPriority() {
+                    return TransitTuningParameters.FOR_TEST.enableStopTransferPriority();
+                }
+                @Override public Integer stopTransferCost(TransferPriority key) {
+                    return TransitTuningParameters.FOR_TEST.stopTransferCost(key);
+                }
+                @Override public boolean localityAwareStopIndex() { return true; }
+            };
+
+    @Param({ "MULTI_CRITERIA", "STANDARD" })
+    public RaptorProfile profile;
+
+    @Param({ "false", "true" })
+    public boolean localityAwareStopIndex;
+
+    private RaptorService<TripSchedule> service;
+    private RaptorRoutingRequestTransitData transitData;
+    private RaptorRequest<TripSchedule> request;
+
+    @Setup
+    public void setup() {
+        Graph graph = BenchmarkGraphs.portlandGraph();
+        TransitLayer transitLayer = localityAwareStopIndex
+                ? TransitLayerMapper.map(LOCALITY_AWARE_STOP_INDEX, graph)
+                : graph.getTransitLayer();
+        Instant departureTime = Instant.ofEpochSecond(
+                TestUtils.dateInSeconds("America/Los_Angeles", 2009, 11, 1, 12, 0, 0)
+        );
+
+        service = new RaptorService<>(new RaptorConfig<>(new RaptorTuningParameters() {}));
+        transitData = new RaptorRoutingRequestTransitData(
+                transitLayer,
+                departureTime,
+                1,
+                1,
+                EnumSet.allOf(TransitMode.class),
+                Collections.emptySet(),
+                1.33
+        );
+
+        RaptorRequestBuilder<TripSchedule> builder = new RaptorRequestBuilder<>();
+        builder.profile(profile)
+                .searchParams()
+                .earliestDepartureTime(
+                        DateMapper.secondsSinceStartOfTime(
+                                transitData.getStartOfTime(),
+                                departureTime
+                        )
+                )
+                .searchWindowInSeconds(SEARCH_WINDOW)
+                .timetableEnabled(true)
+                .addAccessStop(
+                        new TestRaptorTransfer(stopIndex(graph, transitLayer, FROM_STOP), ACCESS_EGRESS_DURATION)
+                )
+                .addEgressStop(
+                        new TestRaptorTransfer(stopIndex(graph, transitLayer, TO_STOP), ACCESS_EGRESS_DURATION)
+                );
+        request = builder.build();
+    }
+
+    @Benchmark
+    public RaptorResponse<TripSchedule> route() {
+        return service.route(request, transitData);
+    }
+
+    private static int stopIndex(Graph graph, TransitLayer transitLayer, String stopId) {
+        String feedId = graph.getFeedIds().iterator().next();
+        return transitLayer.getIndexByStop(
+                graph.index.getStopForId(new FeedScopedId(feedId, stopId))
+        );
+    }
+}
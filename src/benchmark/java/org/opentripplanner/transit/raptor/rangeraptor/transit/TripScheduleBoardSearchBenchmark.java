@@ -0,0 +1,81 @@
+package org.opentripplanner.transit.raptor.rangeraptor.transit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opentripplanner.transit.raptor._shared.TestRaptorTripSchedule;
+import org.opentripplanner.transit.raptor._shared.TestRoute;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the time it takes to find the first trip to board in a timetable. The timetable has
+ * {@code nTrips} trips, departing every 5 minutes. The board times and stop positions are drawn
+ * from a random sequence with a fixed seed, so each run search for the same trips.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TripScheduleBoardSearchBenchmark {
+
+    private static final int N_STOPS = 20;
+    private static final int HEADWAY = 300;
+    private static final int TIME_BETWEEN_STOPS = 120;
+    private static final int START_TIME = 6 * 3600;
+    private static final int BINARY_SEARCH_THRESHOLD = 50;
+
+    /** Must be a power of 2 */
+    private static final int N_SAMPLES = 1024;
+
+    @Param({ "10", "60", "300" })
+    public int nTrips;
+
+    private TripScheduleBoardSearch<TestRaptorTripSchedule> subject;
+    private final int[] boardTimes = new int[N_SAMPLES];
+    private final int[] stopPositions = new int[N_SAMPLES];
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        TestRaptorTripSchedule[] trips = new TestRaptorTripSchedule[nTrips];
+
+        for (int i = 0; i < nTrips; ++i) {
+            int[] times = new int[N_STOPS];
+            for (int s = 0; s < N_STOPS; ++s) {
+                times[s] = START_TIME + i * HEADWAY + s * TIME_BETWEEN_STOPS;
+            }
+            trips[i] = TestRaptorTripSchedule.create("T" + i).withBoardTimes(times).build();
+        }
+        subject = new TripScheduleBoardSearch<>(
+                BINARY_SEARCH_THRESHOLD,
+                new TestRoute(trips).timetable()
+        );
+
+        Random random = new Random(42);
+        int lastDeparture = START_TIME + nTrips * HEADWAY;
+        for (int i = 0; i < N_SAMPLES; ++i) {
+            boardTimes[i] = START_TIME + random.nextInt(lastDeparture - START_TIME);
+            stopPositions[i] = random.nextInt(N_STOPS);
+        }
+    }
+
+    @Benchmark
+    public int boardSearch() {
+        int i = index++ & (N_SAMPLES - 1);
+        return subject.search(boardTimes[i], stopPositions[i])
+                ? subject.getCandidateTripIndex()
+                : -1;
+    }
+}
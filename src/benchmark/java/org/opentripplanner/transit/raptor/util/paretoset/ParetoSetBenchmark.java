@@ -0,0 +1,63 @@
+package org.opentripplanner.transit.raptor.util.paretoset;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the time it takes to add {@code nElements} vectors to an empty {@link ParetoSet}. The
+ * vectors have 3 criteria, similar to the arrival time, number of transfers and cost used by the
+ * multi-criteria Range Raptor. The vectors are created from a random sequence with a fixed seed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParetoSetBenchmark {
+
+    private static final ParetoComparator<Vector> COMPARATOR = (l, r) ->
+            l.v1 < r.v1 ||
+            l.v2 < r.v2 ||
+            l.v3 < r.v3;
+
+    @Param({ "10", "100", "1000" })
+    public int nElements;
+
+    private Vector[] vectors;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        vectors = new Vector[nElements];
+        for (int i = 0; i < nElements; ++i) {
+            vectors[i] = new Vector(
+                    "V" + i,
+                    3600 + random.nextInt(3600),
+                    random.nextInt(5),
+                    random.nextInt(10_000)
+            );
+        }
+    }
+
+    @Benchmark
+    public ParetoSet<Vector> add() {
+        ParetoSet<Vector> set = new ParetoSet<>(COMPARATOR);
+        for (Vector v : vectors) {
+            set.add(v);
+        }
+        return set;
+    }
+}
@@ -0,0 +1,88 @@
+package org.opentripplanner.updater.stoptime;
+
+import com.google.transit.realtime.GtfsRealtime.TripDescriptor;
+import com.google.transit.realtime.GtfsRealtime.TripUpdate;
+import com.google.transit.realtime.GtfsRealtime.TripUpdate.StopTimeEvent;
+import com.google.transit.realtime.GtfsRealtime.TripUpdate.StopTimeUpdate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opentripplanner.BenchmarkGraphs;
+import org.opentripplanner.model.TripPattern;
+import org.opentripplanner.model.calendar.ServiceDate;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.trippattern.TripTimes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the time it takes to apply a full dataset of GTFS-RT trip updates to a new
+ * {@link TimetableSnapshotSource} and publish the snapshot.
+ * <p>
+ * Set the {@code feedFile} parameter to a recorded GTFS-RT feed file to benchmark real updates,
+ * the file is read with the {@link GtfsRealtimeFileTripUpdateSource}. The feed must match the
+ * Portland test data. Without a file, a delay update is generated for each scheduled trip in the
+ * Portland graph.
+ * <pre>
+ * mvn -P benchmark test-compile exec:exec -Dbenchmark.args="TripUpdateBenchmark -p feedFile=/path/to/feed.pb"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TripUpdateBenchmark {
+
+    @Param({ "" })
+    public String feedFile;
+
+    private Graph graph;
+    private String feedId;
+    private List<TripUpdate> updates;
+
+    @Setup
+    public void setup() {
+        graph = BenchmarkGraphs.portlandGraph();
+        feedId = graph.getFeedIds().iterator().next();
+        updates = feedFile.isEmpty()
+                ? generateDelayUpdates(graph)
+                : new GtfsRealtimeFileTripUpdateSource(() -> feedFile).getUpdates();
+    }
+
+    @Benchmark
+    public TripUpdateMetrics applyTripUpdates() {
+        TimetableSnapshotSource source = new TimetableSnapshotSource(graph);
+        source.applyTripUpdates(graph, true, updates, feedId);
+        return source.getTripUpdateMetrics();
+    }
+
+    private static List<TripUpdate> generateDelayUpdates(Graph graph) {
+        String startDate = new ServiceDate().asCompactString();
+        List<TripUpdate> updates = new ArrayList<>();
+        for (TripPattern pattern : graph.tripPatternForId.values()) {
+            for (TripTimes tripTimes : pattern.scheduledTimetable.tripTimes) {
+                updates.add(TripUpdate.newBuilder()
+                        .setTrip(TripDescriptor.newBuilder()
+                                .setTripId(tripTimes.trip.getId().getId())
+                                .setStartDate(startDate))
+                        .addStopTimeUpdate(StopTimeUpdate.newBuilder()
+                                .setStopSequence(tripTimes.getStopSequence(0))
+                                .setDeparture(StopTimeEvent.newBuilder().setDelay(60)))
+                        .build());
+            }
+        }
+        return updates;
+    }
+}
@@ -1,5 +1,6 @@
 package org.opentripplanner.api.common;
 
+import org.opentripplanner.routing.error.RoutingRequestRejectedException;
 import org.opentripplanner.util.OtpAppException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,6 +30,15 @@ public class OTPExceptionMapper implements ExceptionMapper<Exception> {
                     .entity(header + ex.getMessage())
                     .build();
         }
+        if(ex instanceof RoutingRequestRejectedException) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(
+                            "Retry-After",
+                            ((RoutingRequestRejectedException) ex).getRetryAfterSeconds()
+                    )
+                    .entity("OTP is busy: " + ex.getMessage())
+                    .type("text/plain").build();
+        }
         if(ex instanceof OtpAppException) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("OTP Application error: " + ex.getMessage())
@@ -11,6 +11,7 @@ import org.opentripplanner.model.plan.Itinerary;
 import org.opentripplanner.routing.RoutingService;
 import org.opentripplanner.routing.api.request.RoutingRequest;
 import org.opentripplanner.routing.api.response.RoutingResponse;
+import org.opentripplanner.routing.error.RoutingRequestRejectedException;
 import org.opentripplanner.standalone.server.Router;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -92,6 +93,10 @@ public class PlannerResource extends RoutingResource {
 
             response.debugOutput = res.getDebugAggregator().finishedRendering();
         }
+        catch (RoutingRequestRejectedException e) {
+            // Let the exception mapper return a "503 Service Unavailable" response
+            throw e;
+        }
         catch (Exception e) {
             LOG.error("System error", e);
             PlannerError error = new PlannerError();
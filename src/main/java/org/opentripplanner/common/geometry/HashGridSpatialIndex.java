@@ -6,10 +6,19 @@ import gnu.trove.set.hash.TLongHashSet;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ToDoubleFunction;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,8 +37,10 @@ import org.locationtech.jts.index.SpatialIndex;
  * querying, and it's up to the client to filter them out (with whatever knowledge it has on the
  * location of the object).
  * 
- * Note: For performance reasons, write operation are not synchronized, it must be taken care by the
- * client. Read-only operation are multi-thread-safe though.
+ * All operations are multi-thread-safe. The bins are spread over a fixed number of lock stripes,
+ * each with its own hashtable and read-write lock, so queries run concurrently and writes only
+ * block the operations touching bins in the same stripe. A large number of objects can be inserted
+ * at once with {@link #insertAll(Collection, Function)}, which takes each lock only once.
  * 
  * @author laurent
  * 
@@ -50,25 +61,35 @@ public class HashGridSpatialIndex<T> implements SpatialIndex, Serializable {
     // private static final double DEFAULT_X_BIN_SIZE = 0.007; // ~1km
     private static final double DEFAULT_X_BIN_SIZE = 0.0035; // ~500m
 
+    /* The smallest longitude scale used by nearest(), to avoid a division by 0 at the poles. */
+    private static final double MIN_XSCALE = 1e-9;
+
+    /* The bins are spread over 2^STRIPE_BITS lock stripes. */
+    private static final int STRIPE_BITS = 6;
+
     /* Size of bin in X and Y direction, in coordinates units. */
     private final double xBinSize, yBinSize;
 
-    /* The map of all bins. Please see visit() and xKey/yKey for details on the key. */
-    private final TLongObjectHashMap<List<T>> bins;
+    /* The bins of each lock stripe. Please see visit() and mapKey() for details on the key. */
+    private final Stripe<T>[] stripes;
 
-    private int nBins = 0;
+    private final AtomicInteger nBins = new AtomicInteger();
 
-    private int nObjects = 0;
+    private final AtomicInteger nObjects = new AtomicInteger();
 
-    private int nEntries = 0;
+    private final AtomicInteger nEntries = new AtomicInteger();
 
+    @SuppressWarnings("unchecked")
     public HashGridSpatialIndex(double xBinSize, double yBinSize) {
         if (xBinSize <= 0 || yBinSize <= 0)
             throw new IllegalStateException("bin size must be positive.");
         this.xBinSize = xBinSize;
         this.yBinSize = yBinSize;
         // For 200m bins, 500x500 = 100x100km = 250000 bins
-        bins = new TLongObjectHashMap<>();
+        stripes = new Stripe[1 << STRIPE_BITS];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe<>();
+        }
     }
 
     /** Create a HashGrid with the default grid dimensions. */
@@ -77,8 +98,9 @@ public class HashGridSpatialIndex<T> implements SpatialIndex, Serializable {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public final void insert(Envelope envelope, final Object item) {
-        visit(envelope, true, (bin, mapKey) -> {
+        visit(envelope, true, true, (bin, mapKey) -> {
             /*
              * Note: here we can end-up having several time the same object in the same bin, if
              * the client insert multiple times the same object with different envelopes.
@@ -87,49 +109,221 @@ public class HashGridSpatialIndex<T> implements SpatialIndex, Serializable {
              * list.
              */
             bin.add((T) item);
-            nEntries++;
+            nEntries.incrementAndGet();
             return false;
         });
-        nObjects++;
+        nObjects.incrementAndGet();
     }
 
+    @SuppressWarnings("unchecked")
     public final void insert(LineString geom, final Object item) {
-        Coordinate[] coord = geom.getCoordinates();
-        final TLongSet keys = new TLongHashSet(coord.length * 8);
-        for (int i = 0; i < coord.length - 1; i++) {
-            // TODO Cut the segment if longer than bin size
-            // to reduce the number of wrong bins
-            Envelope env = new Envelope(coord[i], coord[i + 1]);
-            visit(env, true, (bin, mapKey) -> {
-                keys.add(mapKey);
-                return false;
-            });
-        }
+        TLongSet keys = keys(geom);
         keys.forEach(key -> {
-            // Note: bins have been initialized in the previous visit
-            bins.get(key).add((T) item);
-            nEntries++;
+            Stripe<T> stripe = stripe(key);
+            stripe.lock.writeLock().lock();
+            try {
+                stripe.getOrCreateBin(key, nBins).add((T) item);
+            } finally {
+                stripe.lock.writeLock().unlock();
+            }
+            nEntries.incrementAndGet();
             return true;
         });
-        nObjects++;
+        nObjects.incrementAndGet();
+    }
+
+    /**
+     * Insert all the items using the given geometry of each item, as
+     * {@link #insert(LineString, Object)} does. The write lock of each stripe is taken once for
+     * all the items, so this is faster than inserting the items one at a time when building the
+     * index, but blocks all other operations while the items are inserted.
+     */
+    public final void insertAll(
+            Collection<? extends T> items,
+            Function<? super T, LineString> geometry
+    ) {
+        for (Stripe<T> stripe : stripes) {
+            stripe.lock.writeLock().lock();
+        }
+        try {
+            for (T item : items) {
+                TLongSet keys = keys(geometry.apply(item));
+                keys.forEach(key -> {
+                    stripe(key).getOrCreateBin(key, nBins).add(item);
+                    return true;
+                });
+                nEntries.addAndGet(keys.size());
+            }
+            nObjects.addAndGet(items.size());
+        } finally {
+            for (Stripe<T> stripe : stripes) {
+                stripe.lock.writeLock().unlock();
+            }
+        }
     }
 
     @Override
     public final List<T> query(Envelope envelope) {
         final Set<T> ret = new HashSet<>(1024);
-        visit(envelope, false, (bin, mapKey) -> {
+        visit(envelope, false, false, (bin, mapKey) -> {
             ret.addAll(bin);
             return false;
         });
         return new ArrayList<>(ret);
     }
 
+    /**
+     * Visit each object in the bins touching the envelope once, without collecting them in a
+     * list. The visitor is called while holding the read lock of a bin, so it must not modify
+     * this index.
+     */
     @Override
+    @SuppressWarnings("unchecked")
     public final void query(Envelope envelope, ItemVisitor visitor) {
-        // We are cheating a bit here... But who cares? Never called in OTP.
-        List<T> tlist = query(envelope);
-        for (T t : tlist) {
-            visitor.visitItem(t);
+        // An object is in all the bins it touches, keep track of the objects already visited
+        final VisitedMarker visited = VisitedMarker.acquire();
+        try {
+            visit(envelope, false, false, (bin, mapKey) -> {
+                for (T t : bin) {
+                    if (visited.mark(t)) {
+                        visitor.visitItem(t);
+                    }
+                }
+                return false;
+            });
+        } finally {
+            visited.release();
+        }
+    }
+
+    /**
+     * Find the k objects closest to the center, within the radius, and return them ordered by
+     * distance. See {@link #nearest(Coordinate, double, int, ToDoubleFunction, ObjDoubleConsumer)}.
+     */
+    public final List<T> nearest(
+            Coordinate center,
+            double radius,
+            int k,
+            ToDoubleFunction<? super T> distance
+    ) {
+        List<T> result = new ArrayList<>();
+        nearest(center, radius, k, distance, (item, d) -> result.add(item));
+        return result;
+    }
+
+    /**
+     * Find the k objects closest to the center, within the radius, and visit them ordered by
+     * distance. Use {@code Integer.MAX_VALUE} as k to find all objects within the radius.
+     * <p>
+     * The bins are searched in rings of increasing size around the center, and the search stops
+     * as soon as no object in the remaining bins can be closer than the k closest objects found.
+     * The index does not know the geometry of the objects, so the distance to each object is
+     * given by the client. The distance must be expressed in degrees latitude in an
+     * equirectangular projection around the center, longitudes are scaled by the cosine of the
+     * latitude of the center, and it must not be less than the distance to the closest point of
+     * the geometry the object was inserted with. An object is skipped if its distance is greater
+     * than the radius, so the client can skip objects by returning {@code Double.POSITIVE_INFINITY}.
+     *
+     * @param radius the maximum distance, in degrees latitude.
+     * @param visitor called with each object and its distance, ordered by distance. Objects at
+     *                the same distance are visited in the order they are found.
+     */
+    public final void nearest(
+            Coordinate center,
+            double radius,
+            int k,
+            ToDoubleFunction<? super T> distance,
+            ObjDoubleConsumer<? super T> visitor
+    ) {
+        if (!(radius >= 0 && radius < Double.POSITIVE_INFINITY)) {
+            throw new IllegalArgumentException("The radius must be a finite number: " + radius);
+        }
+        if (k <= 0) {
+            return;
+        }
+        Coordinate c = clamp(center);
+        final double xscale = Math.cos(c.y * Math.PI / 180);
+        final double xBinDistance = xBinSize * xscale;
+        // The distance across the smallest side of a bin
+        final double binDistance = Math.min(xBinDistance, yBinSize);
+        final long cxKey = Math.round(c.x / xBinSize);
+        final long cyKey = Math.round(c.y / yBinSize);
+
+        // Objects at the same distance are ordered by the order they were found
+        final Comparator<DistanceTo<T>> closestFirst = Comparator
+                .<DistanceTo<T>>comparingDouble(it -> it.distance)
+                .thenComparingInt(it -> it.order);
+        // The k closest objects found so far, the farthest on top, so it is dropped first
+        final PriorityQueue<DistanceTo<T>> candidates = new PriorityQueue<>(
+                Math.min(k, 64),
+                closestFirst.reversed()
+        );
+        final VisitedMarker visited = VisitedMarker.acquire();
+        final BinVisitor<T> binVisitor = (bin, mapKey) -> {
+            for (T t : bin) {
+                if (visited.mark(t)) {
+                    double d = distance.applyAsDouble(t);
+                    if (d > radius) {
+                        continue;
+                    }
+                    if (candidates.size() < k) {
+                        candidates.add(new DistanceTo<>(t, d, visited.size()));
+                    }
+                    else if (d < candidates.peek().distance) {
+                        candidates.poll();
+                        candidates.add(new DistanceTo<>(t, d, visited.size()));
+                    }
+                }
+            }
+            return false;
+        };
+
+        // The center is in the bin in ring 0. A point in a bin in ring r is at least
+        // (r - 1) * binDistance from the center, so after visiting ring r, the objects not yet
+        // visited are at least r * binDistance from the center.
+        // Near the poles the bins are very narrow, so the rings are capped to the bins that can
+        // be within the radius: the radius in degrees longitude, which is never more than 360,
+        // and the radius in degrees latitude.
+        final double xRadius = Math.min(radius / Math.max(xscale, MIN_XSCALE), 360);
+        final long maxDx = (long) Math.floor(xRadius / xBinSize) + 1;
+        final long maxDy = (long) Math.floor(radius / yBinSize) + 1;
+        final long maxRing = Math.max(maxDx, maxDy);
+        try {
+            for (long ring = 0; ring <= maxRing; ring++) {
+                // The bottom and top rows of the ring
+                if (ring <= maxDy) {
+                    long xRange = Math.min(ring, maxDx);
+                    for (long dx = -xRange; dx <= xRange; dx++) {
+                        visitBinWithinRadius(cxKey, cyKey, dx, -ring, xBinDistance, radius, binVisitor);
+                        if (ring > 0) {
+                            visitBinWithinRadius(cxKey, cyKey, dx, ring, xBinDistance, radius, binVisitor);
+                        }
+                    }
+                }
+                // The left and right columns of the ring, without the corners
+                if (ring > 0 && ring <= maxDx) {
+                    long yRange = Math.min(ring - 1, maxDy);
+                    for (long dy = -yRange; dy <= yRange; dy++) {
+                        visitBinWithinRadius(cxKey, cyKey, -ring, dy, xBinDistance, radius, binVisitor);
+                        visitBinWithinRadius(cxKey, cyKey, ring, dy, xBinDistance, radius, binVisitor);
+                    }
+                }
+                // Stop when the k closest objects found are closer than all objects not visited
+                double minDistanceNotVisited = ring * binDistance;
+                if (minDistanceNotVisited > radius || (
+                        candidates.size() == k && candidates.peek().distance <= minDistanceNotVisited
+                )) {
+                    break;
+                }
+            }
+        } finally {
+            visited.release();
+        }
+
+        List<DistanceTo<T>> result = new ArrayList<>(candidates);
+        result.sort(closestFirst);
+        for (DistanceTo<T> it : result) {
+            visitor.accept(it.item, it.distance);
         }
     }
 
@@ -138,19 +332,17 @@ public class HashGridSpatialIndex<T> implements SpatialIndex, Serializable {
         // This iterates over the entire rectangular envelope of the edge rather than the segments making it up.
         // It will be inefficient for very long edges, but creating a new remove method mirroring the more efficient
         // insert logic is not trivial and would require additional testing of the spatial index.
-        // TODO determine why this is an atomic integer when nEntries is not. Is this intended to be threadsafe?
-        // Perhaps so it can be final and used inside a lambda function?
         final AtomicInteger removedCount = new AtomicInteger();
-        visit(envelope, false, (bin, mapKey) -> {
+        visit(envelope, true, false, (bin, mapKey) -> {
             boolean removed = bin.remove(item);
             if (removed) {
-                nEntries--;
+                nEntries.decrementAndGet();
                 removedCount.addAndGet(1);
             }
             return removed;
         });
         if (removedCount.get() > 0) {
-            nObjects--;
+            nObjects.decrementAndGet();
             return true;
         } else {
             return false;
@@ -165,6 +357,156 @@ public class HashGridSpatialIndex<T> implements SpatialIndex, Serializable {
         boolean visit(List<T> bin, long mapKey);
     }
 
+    /**
+     * Visit the bin at (dx, dy) bins from the bin of the center, if a point in the bin can be
+     * within the radius from the center.
+     */
+    private void visitBinWithinRadius(
+            long cxKey,
+            long cyKey,
+            long dx,
+            long dy,
+            double xBinDistance,
+            double radius,
+            BinVisitor<T> binVisitor
+    ) {
+        double minDistance = Math.max(
+                (Math.abs(dx) - 1) * xBinDistance,
+                (Math.abs(dy) - 1) * yBinSize
+        );
+        if (minDistance <= radius) {
+            visitBin(mapKey(cxKey + dx, cyKey + dy), false, false, binVisitor);
+        }
+    }
+
+    /** The bins of one lock stripe, guarded by the lock of the stripe. */
+    private static final class Stripe<T> implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final TLongObjectHashMap<List<T>> bins = new TLongObjectHashMap<>();
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        /** The write lock must be held by the caller. */
+        private List<T> getOrCreateBin(long mapKey, AtomicInteger nBins) {
+            List<T> bin = bins.get(mapKey);
+            if (bin == null) {
+                bin = new ArrayList<>();
+                bins.put(mapKey, bin);
+                nBins.incrementAndGet();
+            }
+            return bin;
+        }
+    }
+
+    private static final class DistanceTo<T> {
+        private final T item;
+        private final double distance;
+        /** The number of objects found before this one. */
+        private final int order;
+
+        private DistanceTo(T item, double distance, int order) {
+            this.item = item;
+            this.distance = distance;
+            this.order = order;
+        }
+    }
+
+    /**
+     * The objects already visited by a query, compared by identity. An object is in all the bins
+     * it touches, so a query finds it several times. Each thread reuses its marker, so queries do
+     * not allocate a set. The marked slots are remembered, so releasing the marker costs time
+     * proportional to the number of objects visited, not the size of the table. A query started
+     * by the visitor of another query on the same thread gets a new marker.
+     */
+    private static final class VisitedMarker {
+
+        private static final ThreadLocal<VisitedMarker> THREAD_MARKER =
+                ThreadLocal.withInitial(VisitedMarker::new);
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        /** A larger table is dropped on release, so an idle thread does not keep it in memory. */
+        private static final int MAX_RETAINED_CAPACITY = 1 << 16;
+
+        /** Open addressing with linear probing, the capacity is a power of two. */
+        private Object[] table = new Object[INITIAL_CAPACITY];
+        private int[] marked = new int[INITIAL_CAPACITY / 2];
+        private int size = 0;
+        private boolean inUse = false;
+
+        static VisitedMarker acquire() {
+            VisitedMarker marker = THREAD_MARKER.get();
+            if (marker.inUse) {
+                marker = new VisitedMarker();
+            }
+            marker.inUse = true;
+            return marker;
+        }
+
+        void release() {
+            if (table.length > MAX_RETAINED_CAPACITY) {
+                table = new Object[INITIAL_CAPACITY];
+                marked = new int[INITIAL_CAPACITY / 2];
+            }
+            else {
+                for (int i = 0; i < size; i++) {
+                    table[marked[i]] = null;
+                }
+            }
+            size = 0;
+            inUse = false;
+        }
+
+        /** Mark the object, return true if it was not marked before. */
+        boolean mark(Object o) {
+            if (size == marked.length) {
+                grow();
+            }
+            int mask = table.length - 1;
+            int i = slot(o, mask);
+            while (table[i] != null) {
+                if (table[i] == o) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = o;
+            marked[size++] = i;
+            return true;
+        }
+
+        /** The number of objects marked. */
+        int size() {
+            return size;
+        }
+
+        /** Double the table, keeping it at most half full. */
+        private void grow() {
+            Object[] oldTable = table;
+            int[] oldMarked = marked;
+            table = new Object[2 * oldTable.length];
+            marked = new int[2 * oldMarked.length];
+            int mask = table.length - 1;
+            for (int j = 0; j < size; j++) {
+                Object o = oldTable[oldMarked[j]];
+                int i = slot(o, mask);
+                while (table[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = o;
+                marked[j] = i;
+            }
+        }
+
+        private static int slot(Object o, int mask) {
+            // Fibonacci hashing, identity hash codes are not spread well enough by themselves
+            int hash = System.identityHashCode(o) * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+    }
+
     /** Clamp a coordinate to allowable lat/lon values */
     private static Coordinate clamp (Coordinate coord) {
         if (Math.abs(coord.x) > 180 || Math.abs(coord.y) > 90) {
@@ -182,14 +524,37 @@ public class HashGridSpatialIndex<T> implements SpatialIndex, Serializable {
         return coord;
     }
 
+    /** The keys of the bins touching the segments of the line string. */
+    private TLongSet keys(LineString geom) {
+        Coordinate[] coord = geom.getCoordinates();
+        final TLongSet keys = new TLongHashSet(coord.length * 8);
+        for (int i = 0; i < coord.length - 1; i++) {
+            // TODO Cut the segment if longer than bin size
+            // to reduce the number of wrong bins
+            visitKeys(new Envelope(coord[i], coord[i + 1]), keys::add);
+        }
+        return keys;
+    }
+
     /**
      * Visit each bin touching the envelope.
      * 
      * @param envelope Self-descripting.
-     * @param createIfEmpty Create a new bin if not existing.
+     * @param write Take the write lock of the bins, the visitor may modify them.
+     * @param createIfEmpty Create a new bin if not existing, requires the write lock.
      * @param binVisitor The callback to call for each visited bin.
      */
-    private void visit(Envelope envelope, boolean createIfEmpty, final BinVisitor<T> binVisitor) {
+    private void visit(
+            Envelope envelope,
+            boolean write,
+            boolean createIfEmpty,
+            final BinVisitor<T> binVisitor
+    ) {
+        visitKeys(envelope, mapKey -> visitBin(mapKey, write, createIfEmpty, binVisitor));
+    }
+
+    /** Visit the key of each bin touching the envelope. */
+    private void visitKeys(Envelope envelope, LongConsumer keyVisitor) {
         Coordinate min = new Coordinate(envelope.getMinX(), envelope.getMinY());
         Coordinate max = new Coordinate(envelope.getMaxX(), envelope.getMaxY());
 
@@ -203,34 +568,60 @@ public class HashGridSpatialIndex<T> implements SpatialIndex, Serializable {
         long maxYKey = Math.round(max.y / yBinSize);
         for (long xKey = minXKey; xKey <= maxXKey; xKey++) {
             for (long yKey = minYKey; yKey <= maxYKey; yKey++) {
-                /*
-                 * For all known use, the average absolute value of x/y keys will be rather small
-                 * compared to Integer.MAX_VALUE. We need to swap the two words (MSB and LSB) of
-                 * xKey in order to have a well-behaving long hash, fitting in an int, because the
-                 * default implementation is: hashInt = (int)(value ^ (value >>> 32));
-                 */
-                long mapKey = (yKey << 32) | ((xKey & 0xFFFF) << 16) | ((xKey >> 16) & 0xFFFF);
-                List<T> bin = bins.get(mapKey);
-                if (createIfEmpty && bin == null) {
-                    bin = new ArrayList<>();
-                    bins.put(mapKey, bin);
-                    nBins++;
-                }
-                if (bin != null) {
-                    boolean modified = binVisitor.visit(bin, mapKey);
-                    if (modified && bin.isEmpty()) {
-                        bins.remove(mapKey);
-                        nBins--;
-                    }
+                keyVisitor.accept(mapKey(xKey, yKey));
+            }
+        }
+    }
+
+    /** Visit a bin while holding the read or write lock of its stripe, see visit(). */
+    private void visitBin(
+            long mapKey,
+            boolean write,
+            boolean createIfEmpty,
+            BinVisitor<T> binVisitor
+    ) {
+        Stripe<T> stripe = stripe(mapKey);
+        Lock lock = write ? stripe.lock.writeLock() : stripe.lock.readLock();
+        lock.lock();
+        try {
+            List<T> bin = createIfEmpty
+                    ? stripe.getOrCreateBin(mapKey, nBins)
+                    : stripe.bins.get(mapKey);
+            if (bin != null) {
+                boolean modified = binVisitor.visit(bin, mapKey);
+                if (modified && bin.isEmpty()) {
+                    stripe.bins.remove(mapKey);
+                    nBins.decrementAndGet();
                 }
             }
+        } finally {
+            lock.unlock();
         }
     }
 
+    /**
+     * For all known use, the average absolute value of x/y keys will be rather small compared to
+     * Integer.MAX_VALUE. We need to swap the two words (MSB and LSB) of xKey in order to have a
+     * well-behaving long hash, fitting in an int, because the default implementation is:
+     * hashInt = (int)(value ^ (value >>> 32));
+     */
+    private static long mapKey(long xKey, long yKey) {
+        return (yKey << 32) | ((xKey & 0xFFFF) << 16) | ((xKey >> 16) & 0xFFFF);
+    }
+
+    private Stripe<T> stripe(long mapKey) {
+        int hash = (int) (mapKey ^ (mapKey >>> 32));
+        // Fibonacci hashing, neighbouring bins are spread over different stripes
+        return stripes[(hash * 0x9E3779B9) >>> (32 - STRIPE_BITS)];
+    }
+
     public String toString() {
+        int nBins = this.nBins.get();
+        int nObjects = this.nObjects.get();
+        int nEntries = this.nEntries.get();
         return String
                 .format("HashGridSpatialIndex %f x %f, %d bins allocated, %d objs, %d entries (avg %.2f entries/bin, %.2f entries/object)",
-                        this.xBinSize, this.yBinSize, this.nBins, this.nObjects, this.nEntries,
-                        this.nEntries * 1.0 / this.nBins, this.nEntries * 1.0 / this.nObjects);
+                        this.xBinSize, this.yBinSize, nBins, nObjects, nEntries,
+                        nEntries * 1.0 / nBins, nEntries * 1.0 / nObjects);
     }
 }
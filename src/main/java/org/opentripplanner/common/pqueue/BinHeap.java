@@ -77,13 +77,22 @@ public class BinHeap<T> {
     }
 
     /**
-     * FOR TESTING
+     * Empty the queue, so it can be reused by the next search.
      */
     public void reset() {
         // empties the queue in one operation
         size=0;
     }
 
+    /**
+     * Empty the queue and release the elements, so they can be garbage collected while the queue
+     * is kept for reuse.
+     */
+    public void clear() {
+        Arrays.fill(elem, null);
+        size = 0;
+    }
+
     public void insert(T e, double p) {
         int i;
         size += 1;
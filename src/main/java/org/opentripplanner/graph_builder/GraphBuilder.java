@@ -90,7 +90,9 @@ public class GraphBuilder implements Runnable {
         if ( hasOsm ) {
             List<BinaryOpenStreetMapProvider> osmProviders = Lists.newArrayList();
             for (DataSource osmFile : dataSources.get(OSM)) {
-                osmProviders.add(new BinaryOpenStreetMapProvider(osmFile));
+                osmProviders.add(
+                        new BinaryOpenStreetMapProvider(osmFile, config.graphBuildThreads)
+                );
             }
             OpenStreetMapModule osmModule = new OpenStreetMapModule(osmProviders);
             DefaultStreetEdgeFactory streetEdgeFactory = new DefaultStreetEdgeFactory();
@@ -125,13 +127,16 @@ public class GraphBuilder implements Runnable {
 
         // This module is outside the hasGTFS conditional block because it also links things like bike rental
         // which need to be handled even when there's no transit.
-        StreetLinkerModule streetLinkerModule = new StreetLinkerModule();
+        StreetLinkerModule streetLinkerModule = new StreetLinkerModule(config.graphBuildThreads);
         graphBuilder.addModule(streetLinkerModule);
 
         if (hasGtfs) {
             // The stops can be linked to each other once they are already linked to the street network.
             // This module will use streets or straight line distance depending on whether OSM data is found in the graph.
-            graphBuilder.addModule(new DirectTransferGenerator(config.maxTransferDistance));
+            graphBuilder.addModule(new DirectTransferGenerator(
+                    config.maxTransferDistance,
+                    config.graphBuildThreads
+            ));
         }
         return graphBuilder;
     }
@@ -1,6 +1,7 @@
 package org.opentripplanner.graph_builder.linking;
 
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.GeometryFactory;
@@ -49,8 +50,19 @@ import org.opentripplanner.util.ProgressTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -100,6 +112,14 @@ public class SimpleStreetSplitter {
 
     private Boolean addExtraEdgesToAreas = false;
 
+    private int numberOfThreads = 1;
+
+    /**
+     * The edges split while linking a batch of vertices, and the two edges each of them was split
+     * into. Null when not linking a batch.
+     */
+    private Map<StreetEdge, P2<StreetEdge>> splitEdges = null;
+
     /**
      * Construct a new SimpleStreetSplitter.
      * NOTE: Only one SimpleStreetSplitter should be active on a graph at any given time.
@@ -121,9 +141,10 @@ public class SimpleStreetSplitter {
         if (hashGridSpatialIndex == null) {
             // build a nice private spatial index, since we're adding and removing edges
             idx = new HashGridSpatialIndex<>();
-            for (StreetEdge se : Iterables.filter(graph.getEdges(), StreetEdge.class)) {
-                idx.insert(se.getGeometry(), se);
-            }
+            idx.insertAll(
+                    Lists.newArrayList(Iterables.filter(graph.getEdges(), StreetEdge.class)),
+                    Edge::getGeometry
+            );
         } else {
             idx = hashGridSpatialIndex;
         }
@@ -174,6 +195,7 @@ public class SimpleStreetSplitter {
         ProgressTracker progress = ProgressTracker.track(actionName, 500, vertices.size());
         LOG.info(progress.startMessage());
 
+        List<T> verticesToLink = new ArrayList<>(vertices.size());
         for (T v : vertices) {
             // Do not link vertices, which are already linked by TransitToTaggedStopsModule
             boolean alreadyLinked = v.getOutgoing().stream().anyMatch(e -> e instanceof StreetTransitLink);
@@ -183,16 +205,136 @@ public class SimpleStreetSplitter {
             if (v instanceof TransitStopVertex && ((TransitStopVertex) v).hasPathways()) {
                 continue;
             }
+            verticesToLink.add(v);
+        }
 
-            if (!link(v)) {
-                issueStore.add(unlinkedIssueMapper.apply(v));
+        // Find the closest edges of all vertices in parallel, the graph is only read. Then split
+        // the edges one vertex at a time in the order of the vertices, so the graph does not
+        // depend on the number of threads.
+        List<DistanceTo<StreetEdge>>[] closestEdges = findClosestEdges(verticesToLink);
+
+        splitEdges = new IdentityHashMap<>();
+        try {
+            for (int i = 0; i < verticesToLink.size(); ++i) {
+                T v = verticesToLink.get(i);
+                if (closestEdges[i].isEmpty()) {
+                    issueStore.add(unlinkedIssueMapper.apply(v));
+                }
+                else {
+                    linkToClosestEdges(v, closestEdges[i]);
+                }
+                // Keep lambda! A method-ref would cause incorrect class and line number to be logged
+                progress.step(m -> LOG.info(m));
             }
-            // Keep lambda! A method-ref would cause incorrect class and line number to be logged
-            progress.step(m -> LOG.info(m));
+        }
+        finally {
+            splitEdges = null;
         }
         LOG.info(progress.completeMessage());
     }
 
+    /**
+     * Find the closest walkable edges of each vertex, using the same expanding search as
+     * {@link #link(Vertex)}. The vertices are handed out one at a time to the worker threads.
+     *
+     * @return the closest edges, in the same order as the given vertices. The list is empty if
+     *         no edge is found within the maximum search radius.
+     */
+    @SuppressWarnings("unchecked")
+    private List<DistanceTo<StreetEdge>>[] findClosestEdges(List<? extends Vertex> vertices) {
+        List<DistanceTo<StreetEdge>>[] result = new List[vertices.size()];
+        AtomicInteger nextIndex = new AtomicInteger();
+        TraverseModeSet traverseModeSet = new TraverseModeSet(TraverseMode.WALK);
+
+        Runnable worker = () -> {
+            for (int i = nextIndex.getAndIncrement(); i < vertices.size(); i = nextIndex.getAndIncrement()) {
+                Vertex v = vertices.get(i);
+                List<DistanceTo<StreetEdge>> edges = findClosestEdges(v, traverseModeSet, INITIAL_SEARCH_RADIUS_METERS);
+                if (edges.isEmpty()) {
+                    edges = findClosestEdges(v, traverseModeSet, MAX_SEARCH_RADIUS_METERS);
+                }
+                result[i] = edges;
+            }
+        };
+
+        int nThreads = Math.min(numberOfThreads, Math.max(vertices.size(), 1));
+        if (nThreads == 1) {
+            worker.run();
+            return result;
+        }
+
+        LOG.info("Searching for the closest edges using {} threads.", nThreads);
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < nThreads; ++i) {
+                futures.add(executor.submit(worker));
+            }
+            for (Future<?> it : futures) {
+                it.get();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while linking to the street network.", e);
+        }
+        catch (ExecutionException e) {
+            // Stop the other workers, the graph build fails
+            nextIndex.set(vertices.size());
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        return result;
+    }
+
+    /**
+     * Link the vertex to the closest edges found before any vertex was linked. An edge may have
+     * been split by another vertex since, then the edge is replaced by the fragments it was split
+     * into. Splitting does not change the geometry of the street, so the closest distance does not
+     * change, and the fragments within {@link #DUPLICATE_WAY_EPSILON_METERS} of it are the edges
+     * the vertex would have found if it had searched after the split.
+     */
+    private void linkToClosestEdges(Vertex vertex, List<DistanceTo<StreetEdge>> closestEdges) {
+        final double DUPLICATE_WAY_EPSILON_DEGREES = SphericalDistanceLibrary.metersToDegrees(DUPLICATE_WAY_EPSILON_METERS);
+        final double xscale = xscale(vertex);
+
+        List<DistanceTo<StreetEdge>> candidateEdges = new ArrayList<>();
+        Deque<StreetEdge> stack = new ArrayDeque<>();
+        for (DistanceTo<StreetEdge> it : closestEdges) {
+            if (!splitEdges.containsKey(it.item)) {
+                candidateEdges.add(it);
+                continue;
+            }
+            stack.push(it.item);
+            while (!stack.isEmpty()) {
+                StreetEdge edge = stack.pop();
+                P2<StreetEdge> fragments = splitEdges.get(edge);
+                if (fragments == null) {
+                    candidateEdges.add(new DistanceTo<>(edge, distance(vertex, edge, xscale)));
+                }
+                else {
+                    stack.push(fragments.second);
+                    stack.push(fragments.first);
+                }
+            }
+        }
+
+        double closestDistance = candidateEdges.stream()
+                .mapToDouble(ce -> ce.distanceDegreesLat)
+                .min().getAsDouble();
+
+        candidateEdges.stream()
+                .filter(ce -> ce.distanceDegreesLat <= closestDistance + DUPLICATE_WAY_EPSILON_DEGREES)
+                .sorted(CLOSEST_EDGE_ORDER)
+                .forEachOrdered(ce -> link(vertex, ce.item, xscale, null));
+        warnIfLinkedTooFar(vertex, closestDistance);
+    }
+
     /** Link this vertex into the graph to the closest walkable edge */
     public boolean link (Vertex vertex) {
         return link(vertex, TraverseMode.WALK, null);
@@ -212,6 +354,15 @@ public class SimpleStreetSplitter {
         return linkToStreetEdges(vertex, traverseMode, options, MAX_SEARCH_RADIUS_METERS);
     }
 
+    /**
+     * Sort the closest edges of a vertex, so the edges are split in the same order on every
+     * build. The spatial index returns them in no particular order.
+     */
+    private static final Comparator<DistanceTo<StreetEdge>> CLOSEST_EDGE_ORDER = Comparator
+            .<DistanceTo<StreetEdge>>comparingDouble(it -> it.distanceDegreesLat)
+            .thenComparing(it -> it.item.getFromVertex().getLabel())
+            .thenComparing(it -> it.item.getToVertex().getLabel());
+
     private static class DistanceTo<T> {
         T item;
         // Possible optimization: store squared lat to skip thousands of sqrt operations
@@ -227,13 +378,7 @@ public class SimpleStreetSplitter {
 
         final double radiusDeg = SphericalDistanceLibrary.metersToDegrees(radiusMeters);
 
-        Envelope env = new Envelope(vertex.getCoordinate());
-
-        // Perform a simple local equirectangular projection, so distances are expressed in degrees latitude.
-        final double xscale = Math.cos(vertex.getLat() * Math.PI / 180);
-
-        // Expand more in the longitude direction than the latitude direction to account for converging meridians.
-        env.expandBy(radiusDeg / xscale, radiusDeg);
+        final double xscale = xscale(vertex);
 
         final double DUPLICATE_WAY_EPSILON_DEGREES = SphericalDistanceLibrary.metersToDegrees(DUPLICATE_WAY_EPSILON_METERS);
 
@@ -243,44 +388,11 @@ public class SimpleStreetSplitter {
         }
         // Scope block to avoid confusing edge-related local variables with stop-related variables below.
         {
-            // Perform several transformations at once on the edges returned by the index.
-            // Only consider street edges traversable by the given mode and still present in the graph.
-            // Calculate a distance to each of those edges, and keep only the ones within the search radius.
-            List<DistanceTo<StreetEdge>> candidateEdges = idx.query(env).stream()
-                    .filter(StreetEdge.class::isInstance)
-                    .map(StreetEdge.class::cast)
-                    .filter(e -> e.canTraverse(traverseModeSet) && edgeReachableFromGraph(e))
-                    .map(e -> new DistanceTo<>(e, distance(vertex, e, xscale)))
-                    .filter(ead -> ead.distanceDegreesLat < radiusDeg)
-                    .collect(Collectors.toList());
-
-            // The following logic has gone through several different versions using different approaches.
-            // The core idea is to find all edges that are roughly the same distance from the given vertex, which will
-            // catch things like superimposed edges going in opposite directions.
-            // First, all edges within DUPLICATE_WAY_EPSILON_METERS of of the best distance were selected.
-            // More recently, the edges were sorted in order of increasing distance, and all edges in the list were selected
-            // up to the point where a distance increase of DUPLICATE_WAY_EPSILON_DEGREES from one edge to the next.
-            // This was in response to concerns about arbitrary cutoff distances: at any distance, it's always possible
-            // one half of a dual carriageway (or any other pair of edges in opposite directions) will be caught and the
-            // other half lost. It seems like this was based on some incorrect premises about floating point calculations
-            // being non-deterministic.
-            if (!candidateEdges.isEmpty()) {
+            List<DistanceTo<StreetEdge>> closestEdges = findClosestEdges(vertex, traverseModeSet, radiusDeg, xscale);
+            if (!closestEdges.isEmpty()) {
                 // There is at least one appropriate edge within range.
-                double closestDistance = candidateEdges.stream()
-                        .mapToDouble(ce -> ce.distanceDegreesLat)
-                        .min().getAsDouble();
-
-                candidateEdges.stream()
-                        .filter(ce -> ce.distanceDegreesLat <= closestDistance + DUPLICATE_WAY_EPSILON_DEGREES)
-                        .forEach(ce -> link(vertex, ce.item, xscale, options));
-
-                // Warn if a linkage was made for a transit stop, but the linkage was suspiciously long.
-                if (vertex instanceof TransitStopVertex) {
-                    int distanceMeters = (int)SphericalDistanceLibrary.degreesLatitudeToMeters(closestDistance);
-                    if (distanceMeters > WARNING_DISTANCE_METERS) {
-                        issueStore.add(new StopLinkedTooFar((TransitStopVertex)vertex, distanceMeters));
-                    }
-                }
+                closestEdges.forEach(ce -> link(vertex, ce.item, xscale, options));
+                warnIfLinkedTooFar(vertex, closestEdges.get(0).distanceDegreesLat);
                 return true;
             }
         }
@@ -291,6 +403,7 @@ public class SimpleStreetSplitter {
                 return false;
             }
             LOG.debug("No street edge was found for {}, checking transit stop vertices.", vertex);
+            Envelope env = searchEnvelope(vertex, radiusDeg, xscale);
             List<TransitStopVertex> transitStopVertices = transitStopIndex.query(env);
             List<DistanceTo<TransitStopVertex>> candidateStops = transitStopVertices.stream()
                     .map(tsv -> new DistanceTo<>(tsv, distance(vertex, tsv, xscale)))
@@ -319,6 +432,84 @@ public class SimpleStreetSplitter {
         return false;
     }
 
+    /**
+     * Find the closest street edges within the search radius, see
+     * {@link #findClosestEdges(Vertex, TraverseModeSet, double, double)}.
+     */
+    private List<DistanceTo<StreetEdge>> findClosestEdges(
+            Vertex vertex,
+            TraverseModeSet traverseModeSet,
+            int radiusMeters
+    ) {
+        double radiusDeg = SphericalDistanceLibrary.metersToDegrees(radiusMeters);
+        return findClosestEdges(vertex, traverseModeSet, radiusDeg, xscale(vertex));
+    }
+
+    /**
+     * Find the street edges traversable by the given modes that are closest to the vertex, within
+     * the search radius. All edges roughly the same distance from the vertex as the closest edge
+     * are returned, sorted by distance and then by the labels of their vertices, so the edges
+     * are split in the same order on every build. The graph is only read.
+     */
+    private List<DistanceTo<StreetEdge>> findClosestEdges(
+            Vertex vertex,
+            TraverseModeSet traverseModeSet,
+            double radiusDeg,
+            double xscale
+    ) {
+        final double DUPLICATE_WAY_EPSILON_DEGREES = SphericalDistanceLibrary.metersToDegrees(DUPLICATE_WAY_EPSILON_METERS);
+
+        // Only consider street edges traversable by the given mode and still present in the graph.
+        // The index skips the other edges and the edges outside the search radius, and returns
+        // the edges ordered by distance.
+        List<DistanceTo<StreetEdge>> candidateEdges = new ArrayList<>();
+        idx.nearest(
+                vertex.getCoordinate(),
+                radiusDeg,
+                Integer.MAX_VALUE,
+                e -> e instanceof StreetEdge
+                        && ((StreetEdge) e).canTraverse(traverseModeSet)
+                        && edgeReachableFromGraph(e)
+                        ? distance(vertex, (StreetEdge) e, xscale)
+                        : Double.POSITIVE_INFINITY,
+                (e, distance) -> {
+                    if (distance < radiusDeg) {
+                        candidateEdges.add(new DistanceTo<>((StreetEdge) e, distance));
+                    }
+                }
+        );
+
+        // The following logic has gone through several different versions using different approaches.
+        // The core idea is to find all edges that are roughly the same distance from the given vertex, which will
+        // catch things like superimposed edges going in opposite directions.
+        // First, all edges within DUPLICATE_WAY_EPSILON_METERS of of the best distance were selected.
+        // More recently, the edges were sorted in order of increasing distance, and all edges in the list were selected
+        // up to the point where a distance increase of DUPLICATE_WAY_EPSILON_DEGREES from one edge to the next.
+        // This was in response to concerns about arbitrary cutoff distances: at any distance, it's always possible
+        // one half of a dual carriageway (or any other pair of edges in opposite directions) will be caught and the
+        // other half lost. It seems like this was based on some incorrect premises about floating point calculations
+        // being non-deterministic.
+        if (candidateEdges.isEmpty()) {
+            return candidateEdges;
+        }
+        double closestDistance = candidateEdges.get(0).distanceDegreesLat;
+
+        return candidateEdges.stream()
+                .filter(ce -> ce.distanceDegreesLat <= closestDistance + DUPLICATE_WAY_EPSILON_DEGREES)
+                .sorted(CLOSEST_EDGE_ORDER)
+                .collect(Collectors.toList());
+    }
+
+    /** Warn if a linkage was made for a transit stop, but the linkage was suspiciously long. */
+    private void warnIfLinkedTooFar(Vertex vertex, double closestDistanceDegreesLat) {
+        if (vertex instanceof TransitStopVertex) {
+            int distanceMeters = (int)SphericalDistanceLibrary.degreesLatitudeToMeters(closestDistanceDegreesLat);
+            if (distanceMeters > WARNING_DISTANCE_METERS) {
+                issueStore.add(new StopLinkedTooFar((TransitStopVertex)vertex, distanceMeters));
+            }
+        }
+    }
+
     /**
      * While in destructive splitting mode (during graph construction rather than handling routing requests), we remove
      * edges that have been split and may then re-split the resulting segments recursively, so parts of them are also
@@ -411,6 +602,9 @@ public class SimpleStreetSplitter {
         P2<StreetEdge> edges = edge.split(v, !temporarySplit);
 
         if (destructiveSplitting) {
+            if (splitEdges != null) {
+                splitEdges.put(edge, edges);
+            }
             // update indices of new edges
             idx.insert(edges.first.getGeometry(), edges.first);
             idx.insert(edges.second.getGeometry(), edges.second);
@@ -523,6 +717,22 @@ public class SimpleStreetSplitter {
         new StreetBikeRentalLink(to, from);
     }
 
+    /**
+     * The scale of a simple local equirectangular projection around the vertex, so distances are
+     * expressed in degrees latitude.
+     */
+    private static double xscale(Vertex vertex) {
+        return Math.cos(vertex.getLat() * Math.PI / 180);
+    }
+
+    /** The envelope of the edges within the search radius around the vertex. */
+    private static Envelope searchEnvelope(Vertex vertex, double radiusDeg, double xscale) {
+        Envelope env = new Envelope(vertex.getCoordinate());
+        // Expand more in the longitude direction than the latitude direction to account for converging meridians.
+        env.expandBy(radiusDeg / xscale, radiusDeg);
+        return env;
+    }
+
     /** projected distance from stop to edge, in latitude degrees */
     private static double distance (Vertex tstop, StreetEdge edge, double xscale) {
         // Despite the fact that we want to use a fast somewhat inaccurate projection, still use JTS library tools
@@ -614,4 +824,12 @@ public class SimpleStreetSplitter {
     public void setAddExtraEdgesToAreas(Boolean addExtraEdgesToAreas) {
         this.addExtraEdgesToAreas = addExtraEdgesToAreas;
     }
+
+    /**
+     * Set the number of threads searching for the closest edges in {@link #link()}. The edges
+     * are split by the calling thread, the result does not depend on the number of threads.
+     */
+    public void setNumberOfThreads(int numberOfThreads) {
+        this.numberOfThreads = Math.max(numberOfThreads, 1);
+    }
 }
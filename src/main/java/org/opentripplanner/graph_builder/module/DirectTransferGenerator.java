@@ -1,6 +1,7 @@
 package org.opentripplanner.graph_builder.module;
 
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import org.opentripplanner.graph_builder.DataImportIssueStore;
 import org.opentripplanner.graph_builder.issues.StopNotLinkedForTransfers;
 import org.opentripplanner.graph_builder.services.GraphBuilderModule;
@@ -14,7 +15,15 @@ import org.opentripplanner.util.ProgressTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * {@link org.opentripplanner.graph_builder.services.GraphBuilderModule} module that links up the stops of a transit
@@ -29,10 +38,26 @@ public class DirectTransferGenerator implements GraphBuilderModule {
 
     private static Logger LOG = LoggerFactory.getLogger(DirectTransferGenerator.class);
 
+    /** Sort the transfers of a stop, so the graph is the same for each build. */
+    private static final Comparator<StopAtDistance> TRANSFER_ORDER = Comparator
+            .<StopAtDistance>comparingDouble(sd -> sd.distance)
+            .thenComparing(sd -> sd.stop.getId());
+
     final double radiusMeters;
 
+    private final int numberOfThreads;
+
     public DirectTransferGenerator (double radiusMeters) {
+        this(radiusMeters, 1);
+    }
+
+    /**
+     * @param numberOfThreads the number of threads searching for nearby stops, each thread has
+     *                        its own {@link NearbyStopFinder}.
+     */
+    public DirectTransferGenerator (double radiusMeters, int numberOfThreads) {
         this.radiusMeters = radiusMeters;
+        this.numberOfThreads = Math.max(numberOfThreads, 1);
     }
 
     @Override
@@ -43,29 +68,35 @@ public class DirectTransferGenerator implements GraphBuilderModule {
         }
 
         /* The linker will use streets if they are available, or straight-line distance otherwise. */
-        NearbyStopFinder nearbyStopFinder = new NearbyStopFinder(graph, radiusMeters);
-        if (nearbyStopFinder.useStreets) {
+        if (graph.hasStreets) {
             LOG.info("Creating direct transfer edges between stops using the street network from OSM...");
         } else {
             LOG.info("Creating direct transfer edges between stops using straight line distance (not streets)...");
         }
 
-        Iterable<TransitStopVertex> stops = Iterables.filter(graph.getVertices(), TransitStopVertex.class);
+        List<TransitStopVertex> stops = Lists.newArrayList(
+                Iterables.filter(graph.getVertices(), TransitStopVertex.class)
+        );
 
         ProgressTracker progress = ProgressTracker.track(
-                "Create transfer edges", 1000, Iterables.size(stops)
+                "Create transfer edges", 1000, stops.size()
         );
+
+        // Find the nearby stops in parallel, the graph is only read. An AStar instance should
+        // only be used by one thread, so each thread has its own NearbyStopFinder.
+        List<StopAtDistance>[] nearbyStops = findNearbyStops(graph, stops, progress);
+
+        // Add the transfers to the graph in the order of the stops, the result does not
+        // depend on the number of threads.
         int nTransfersTotal = 0;
         int nLinkableStops = 0;
-
-        // This could be multi-threaded, in which case we'd need to be careful about the lifecycle of NearbyStopFinder instances.
-        for (TransitStopVertex ts0 : stops) {
+        for (int i = 0; i < stops.size(); ++i) {
+            TransitStopVertex ts0 = stops.get(i);
             Stop stop = ts0.getStop();
-            LOG.debug("Linking stop '{}' {}", stop, ts0);
 
             /* Make transfers to each nearby stop that is the closest stop on some trip pattern. */
             int n = 0;
-            for (StopAtDistance sd : nearbyStopFinder.findNearbyStopsConsideringPatterns(ts0, false)) {
+            for (StopAtDistance sd : nearbyStops[i]) {
                 // Skip the origin stop, loop transfers are not needed.
                 if (sd.stop == stop) { continue; }
                 graph.transfersByStop.put(
@@ -77,9 +108,9 @@ public class DirectTransferGenerator implements GraphBuilderModule {
             LOG.debug("Linked stop {} to {} nearby stops on other patterns.", stop, n);
             if (n == 0) {
                 issueStore.add(new StopNotLinkedForTransfers(ts0));
+            } else {
+                nLinkableStops += 1;
             }
-            //Keep lambda! A method-ref would causes incorrect class and line number to be logged
-            progress.step(m -> LOG.info(m));
             nTransfersTotal += n;
         }
         LOG.info(progress.completeMessage());
@@ -92,5 +123,69 @@ public class DirectTransferGenerator implements GraphBuilderModule {
         // No inputs
     }
 
+    /**
+     * Find the nearby stops that are the closest stop on some trip pattern for each of the given
+     * stops. The stops are handed out one at a time to the worker threads, so the load is balanced
+     * even if the searches take very different time.
+     *
+     * @return the sorted nearby stops, in the same order as the given stops.
+     */
+    @SuppressWarnings("unchecked")
+    private List<StopAtDistance>[] findNearbyStops(
+            Graph graph,
+            List<TransitStopVertex> stops,
+            ProgressTracker progress
+    ) {
+        List<StopAtDistance>[] result = new List[stops.size()];
+        AtomicInteger nextIndex = new AtomicInteger();
+
+        Runnable worker = () -> {
+            NearbyStopFinder nearbyStopFinder = new NearbyStopFinder(graph, radiusMeters);
+            for (int i = nextIndex.getAndIncrement(); i < stops.size(); i = nextIndex.getAndIncrement()) {
+                TransitStopVertex ts0 = stops.get(i);
+                LOG.debug("Linking stop '{}' {}", ts0.getStop(), ts0);
+                List<StopAtDistance> nearby = new ArrayList<>(
+                        nearbyStopFinder.findNearbyStopsConsideringPatterns(ts0, false)
+                );
+                nearby.sort(TRANSFER_ORDER);
+                result[i] = nearby;
+                //Keep lambda! A method-ref would causes incorrect class and line number to be logged
+                progress.step(m -> LOG.info(m));
+            }
+        };
 
+        int nThreads = Math.min(numberOfThreads, Math.max(stops.size(), 1));
+        if (nThreads == 1) {
+            worker.run();
+            return result;
+        }
+
+        LOG.info("Searching for nearby stops using {} threads.", nThreads);
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < nThreads; ++i) {
+                futures.add(executor.submit(worker));
+            }
+            for (Future<?> it : futures) {
+                it.get();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while creating transfers.", e);
+        }
+        catch (ExecutionException e) {
+            // Stop the other workers, the graph build fails
+            nextIndex.set(stops.size());
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        return result;
+    }
 }
@@ -13,6 +13,7 @@ import org.opentripplanner.model.Stop;
 import org.opentripplanner.model.StopLocation;
 import org.opentripplanner.model.TripPattern;
 import org.opentripplanner.routing.algorithm.astar.AStar;
+import org.opentripplanner.routing.algorithm.astar.AStarSearchContext;
 import org.opentripplanner.routing.algorithm.astar.strategies.TrivialRemainingWeightHeuristic;
 import org.opentripplanner.routing.api.request.RoutingRequest;
 import org.opentripplanner.routing.core.State;
@@ -157,22 +158,33 @@ public class NearbyStopFinder {
         routingRequest.disableRemainingWeightHeuristic = true;
         routingRequest.rctx.remainingWeightHeuristic = new TrivialRemainingWeightHeuristic();
         routingRequest.dominanceFunction = new DominanceFunction.MinimumWeight();
-        ShortestPathTree spt = astar.getShortestPathTree(routingRequest);
+        // The search tree is only used within this method, so the search state can be reused
+        AStarSearchContext searchContext = AStarSearchContext.forCurrentThread();
+        astar.setSearchContext(searchContext);
 
         List<StopAtDistance> stopsFound = Lists.newArrayList();
 
         Multimap<FlexStopLocation, State> locationsMap = ArrayListMultimap.create();
 
-        if (spt != null) {
-            // TODO use GenericAStar and a traverseVisitor? Add an earliestArrival switch to genericAStar?
-            for (State state : spt.getAllStates()) {
-                Vertex targetVertex = state.getVertex();
-                if (originVertices.contains(targetVertex)) continue;
-                if (targetVertex instanceof TransitStopVertex && state.isFinal()) {
-                    stopsFound.add(StopAtDistance.stopAtDistanceForState(state, ((TransitStopVertex) targetVertex).getStop()));
+        try {
+            ShortestPathTree spt = astar.getShortestPathTree(routingRequest);
+
+            if (spt != null) {
+                // TODO use GenericAStar and a traverseVisitor? Add an earliestArrival switch to genericAStar?
+                // The tree only iterates over the vertices visited by this search, not the whole graph
+                for (State state : spt.getAllStates()) {
+                    Vertex targetVertex = state.getVertex();
+                    if (originVertices.contains(targetVertex)) continue;
+                    if (targetVertex instanceof TransitStopVertex && state.isFinal()) {
+                        stopsFound.add(StopAtDistance.stopAtDistanceForState(state, ((TransitStopVertex) targetVertex).getStop()));
+                    }
                 }
             }
         }
+        finally {
+            // The stops found keep their own states, release the rest of the search tree
+            searchContext.clear();
+        }
 
         for (var locationStates : locationsMap.asMap().entrySet()) {
             FlexStopLocation flexStopLocation = locationStates.getKey();
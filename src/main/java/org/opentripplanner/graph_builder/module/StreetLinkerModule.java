@@ -21,6 +21,20 @@ public class StreetLinkerModule implements GraphBuilderModule {
 
     private Boolean addExtraEdgesToAreas = true;
 
+    private final int numberOfThreads;
+
+    public StreetLinkerModule() {
+        this(1);
+    }
+
+    /**
+     * @param numberOfThreads the number of threads searching for the closest street edges of the
+     *                        vertices, see {@link SimpleStreetSplitter#setNumberOfThreads(int)}.
+     */
+    public StreetLinkerModule(int numberOfThreads) {
+        this.numberOfThreads = numberOfThreads;
+    }
+
     @Override
     public void buildGraph(
             Graph graph,
@@ -31,6 +45,7 @@ public class StreetLinkerModule implements GraphBuilderModule {
             LOG.info("Linking transit stops, bike rental stations, bike parking areas, and park-and-rides to graph . . .");
             SimpleStreetSplitter linker = new SimpleStreetSplitter(graph, issueStore);
             linker.setAddExtraEdgesToAreas(this.addExtraEdgesToAreas);
+            linker.setNumberOfThreads(this.numberOfThreads);
             linker.link();
         }
         //Calculates convex hull of a graph which is shown in routerInfo API point
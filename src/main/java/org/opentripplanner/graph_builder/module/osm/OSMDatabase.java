@@ -60,7 +60,7 @@ public class OSMDatabase {
     private DataImportIssueStore issueStore;
 
     /* Map of all nodes used in ways/areas keyed by their OSM ID */
-    private TLongObjectMap<OSMNode> nodesById = new TLongObjectHashMap<>();
+    private OSMNodeStore nodesById = new OSMNodeStore();
 
     /* Map of all bike-rental nodes, keyed by their OSM ID */
     private TLongObjectMap<OSMNode> bikeRentalNodes = new TLongObjectHashMap<>();
@@ -214,7 +214,24 @@ public class OSMDatabase {
         if (nodesById.containsKey(node.getId()))
             return;
 
-        nodesById.put(node.getId(), node);
+        nodesById.put(node);
+
+        if (nodesById.size() % 100000 == 0)
+            LOG.debug("nodes=" + nodesById.size());
+    }
+
+    /**
+     * Add a node without tags. This is the same as {@link #addNode(OSMNode)}, but the node is
+     * stored as a packed coordinate and no object is created for it.
+     */
+    public void addNode(long id, long latNanodegrees, long lonNanodegrees) {
+        if (!(waysNodeIds.contains(id) || areaNodeIds.contains(id)))
+            return;
+
+        if (nodesById.containsKey(id))
+            return;
+
+        nodesById.put(id, latNanodegrees, lonNanodegrees);
 
         if (nodesById.size() % 100000 == 0)
             LOG.debug("nodes=" + nodesById.size());
@@ -589,7 +606,7 @@ public class OSMDatabase {
         node.setId(virtualNodeId);
         virtualNodeId--;
         waysNodeIds.add(node.getId());
-        nodesById.put(node.getId(), node);
+        nodesById.put(node);
         return node;
     }
 
@@ -0,0 +1,82 @@
+package org.opentripplanner.graph_builder.module.osm;
+
+import gnu.trove.map.TLongLongMap;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongLongHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import org.opentripplanner.openstreetmap.model.OSMNode;
+
+/**
+ * The OSM nodes kept for the graph build, indexed by id. Most nodes are only a coordinate on a
+ * way, without any tags. These nodes are stored as a packed coordinate, a single primitive long,
+ * instead of an {@link OSMNode} object. The object is created when the node is requested, two
+ * requests for the same node return equal, but not identical, objects.
+ * <p>
+ * The coordinate is packed as two ints of 100 nanodegrees, the default resolution of the PBF
+ * format. Coordinates that can not be stored exactly are kept as objects.
+ */
+class OSMNodeStore {
+
+    private static final long NANODEGREES_PER_UNIT = 100;
+
+    private final TLongObjectMap<OSMNode> nodes = new TLongObjectHashMap<>();
+
+    private final TLongLongMap coordinates = new TLongLongHashMap();
+
+    OSMNode get(long id) {
+        OSMNode node = nodes.get(id);
+        if (node != null || !coordinates.containsKey(id)) {
+            return node;
+        }
+        long packed = coordinates.get(id);
+        node = new OSMNode();
+        node.setId(id);
+        node.lat = toDegrees(packed >> 32);
+        node.lon = toDegrees((int) packed);
+        return node;
+    }
+
+    boolean containsKey(long id) {
+        return nodes.containsKey(id) || coordinates.containsKey(id);
+    }
+
+    int size() {
+        return nodes.size() + coordinates.size();
+    }
+
+    void put(OSMNode node) {
+        coordinates.remove(node.getId());
+        nodes.put(node.getId(), node);
+    }
+
+    /**
+     * Add a node without tags, given the coordinate in nanodegrees.
+     */
+    void put(long id, long latNanodegrees, long lonNanodegrees) {
+        if (isPackable(latNanodegrees) && isPackable(lonNanodegrees)) {
+            nodes.remove(id);
+            coordinates.put(
+                    id,
+                    (latNanodegrees / NANODEGREES_PER_UNIT) << 32
+                            | ((lonNanodegrees / NANODEGREES_PER_UNIT) & 0xFFFFFFFFL)
+            );
+        }
+        else {
+            OSMNode node = new OSMNode();
+            node.setId(id);
+            node.lat = latNanodegrees * .000000001;
+            node.lon = lonNanodegrees * .000000001;
+            put(node);
+        }
+    }
+
+    private static boolean isPackable(long nanodegrees) {
+        long units = nanodegrees / NANODEGREES_PER_UNIT;
+        return nanodegrees % NANODEGREES_PER_UNIT == 0 && units == (int) units;
+    }
+
+    /** Same arithmetic as the PBF parser, so the coordinate is the same as an object would get. */
+    private static double toDegrees(long units) {
+        return (NANODEGREES_PER_UNIT * units) * .000000001;
+    }
+}
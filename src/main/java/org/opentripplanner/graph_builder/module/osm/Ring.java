@@ -1,7 +1,6 @@
 package org.opentripplanner.graph_builder.module.osm;
 
 import gnu.trove.list.TLongList;
-import gnu.trove.map.TLongObjectMap;
 import org.locationtech.jts.geom.*;
 import org.opentripplanner.common.geometry.GeometryUtils;
 import org.opentripplanner.openstreetmap.model.OSMNode;
@@ -37,7 +36,7 @@ public class Ring {
         geometry = new VLPolygon(vertices);
     }
 
-    public Ring(TLongList osmNodes, TLongObjectMap<OSMNode> _nodes) {
+    Ring(TLongList osmNodes, OSMNodeStore _nodes) {
         ArrayList<VLPoint> vertices = new ArrayList<VLPoint>();
         nodes = new ArrayList<>(osmNodes.size());
         osmNodes.forEach(nodeId -> {
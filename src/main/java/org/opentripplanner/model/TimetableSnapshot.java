@@ -1,17 +1,14 @@
 package org.opentripplanner.model;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
 import org.opentripplanner.model.calendar.ServiceDate;
 import org.opentripplanner.routing.algorithm.raptor.transit.mappers.TransitLayerUpdater;
 import org.opentripplanner.routing.trippattern.TripTimes;
+import org.opentripplanner.util.ShardedHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.Map.Entry;
 
 // this is only currently in edgetype because that's where Trippattern is.
 // move these classes elsewhere.
@@ -24,7 +21,11 @@ import java.util.Map.Entry;
  * for that duration to provide a consistent view not only of trips that have been boarded, but of
  * relative arrival and departure times of other trips that have not necessarily been boarded.
  *
- * At this point, only one writing thread at a time is supported.
+ * At this point, only one writing thread at a time is supported. The maps of the buffer are
+ * {@link ShardedHashMap}s, a commit shares all shards of the maps with the new snapshot, and the
+ * buffer copies a shard the first time it modifies it after the commit. The cost of a commit is
+ * proportional to the number of shards modified since the previous commit, not to the size of
+ * the maps.
  *
  *  TODO OTP2 - Move this to package: org.opentripplanner.model
  *            - after ass Entur NeTEx PRs are merged.
@@ -88,11 +89,10 @@ public class TimetableSnapshot {
      * we have an updated Timetable. The keys include both TripPatterns from the scheduled GTFS, and TripPatterns added
      * by realtime messages and tracked by the TripPatternCache. Note that the keys will not include all scheduled
      * TripPatterns, only those for which we've got an update.
-     * We use a HashMap rather than a Map so we can clone it. If this turns out to be slow/spacious we can use an array
-     * with integer pattern indexes. The SortedSet members are copy-on-write.
+     * The SortedSet members are copy-on-write.
      * FIXME: this could be made into a flat hashtable with compound keys.
      */
-    private HashMap<TripPattern, SortedSet<Timetable>> timetables = new HashMap();
+    private ShardedHashMap<TripPattern, SortedSet<Timetable>> timetables = new ShardedHashMap<>();
 
     /**
      * <p>
@@ -100,21 +100,19 @@ public class TimetableSnapshot {
      * service date as a result of a call to {@link #update(TripPattern, TripTimes, ServiceDate)}
      * with trip times of a trip that didn't exist yet in the trip pattern.
      * </p>
-     * <p>
-     * This is a HashMap and not a Map so the clone function is available.
-     * </p>
      * TODO clarify what it means to say "last" added trip pattern. There can be more than one? What happens to the older ones?
      */
-    private HashMap<TripIdAndServiceDate, TripPattern> lastAddedTripPattern = new HashMap<>();
+    private ShardedHashMap<TripIdAndServiceDate, TripPattern> lastAddedTripPattern =
+            new ShardedHashMap<>();
 
     /**
      * This maps contains all of the new or updated TripPatterns added by realtime data indexed on
      * stop. This has to be kept in order for them to be included in the stop times api call on a
-     * specific stop.
+     * specific stop. The sets are copy-on-write.
      *
      * TODO Find a generic way to keep all realtime indexes.
      */
-    private Multimap<Stop, TripPattern> patternsForStop = ArrayListMultimap.create();
+    private ShardedHashMap<Stop, Set<TripPattern>> patternsForStop = new ShardedHashMap<>();
     
     /**
      * Boolean value indicating that timetable snapshot is read only if true. Once it is true, it shouldn't
@@ -247,7 +245,6 @@ public class TimetableSnapshot {
         return commit(null, false);
     }
 
-    @SuppressWarnings("unchecked")
     public TimetableSnapshot commit(TransitLayerUpdater transitLayerUpdater, boolean force) {
         if (readOnly) {
             throw new ConcurrentModificationException("This TimetableSnapshot is read-only.");
@@ -258,9 +255,8 @@ public class TimetableSnapshot {
         for (Timetable tt : dirtyTimetables) {
             tt.finish(); // summarize, index, etc. the new timetables
         }
-        ret.timetables = (HashMap<TripPattern, SortedSet<Timetable>>) this.timetables.clone();
-        ret.lastAddedTripPattern = (HashMap<TripIdAndServiceDate, TripPattern>)
-                this.lastAddedTripPattern.clone();
+        ret.timetables = this.timetables.snapshot();
+        ret.lastAddedTripPattern = this.lastAddedTripPattern.snapshot();
 
         if (transitLayerUpdater != null) {
             transitLayerUpdater.update(dirtyTimetables);
@@ -269,7 +265,7 @@ public class TimetableSnapshot {
         this.dirtyTimetables.clear();
         this.dirty = false;
 
-        ret.setPatternsForStop(HashMultimap.create(this.patternsForStop));
+        ret.patternsForStop = this.patternsForStop.snapshot();
 
         ret.readOnly = true; // mark the snapshot as henceforth immutable
         return ret;
@@ -301,7 +297,7 @@ public class TimetableSnapshot {
      * @return true if the timetable changed as a result of the call
      */
     protected boolean clearTimetable(String feedId) {
-        return timetables.keySet().removeIf(tripPattern -> feedId.equals(tripPattern.getFeedId()));
+        return timetables.removeIf((tripPattern, ignore) -> feedId.equals(tripPattern.getFeedId()));
     }
 
     /**
@@ -311,8 +307,8 @@ public class TimetableSnapshot {
      * @return true if the lastAddedTripPattern changed as a result of the call
      */
     protected boolean clearLastAddedTripPattern(String feedId) {
-        return lastAddedTripPattern.keySet().removeIf(
-            lastAddedTripPattern ->
+        return lastAddedTripPattern.removeIf(
+            (lastAddedTripPattern, ignore) ->
                 feedId.equals(lastAddedTripPattern.getTripId().getFeedId())
         );
     }
@@ -325,35 +321,27 @@ public class TimetableSnapshot {
             throw new ConcurrentModificationException("This TimetableSnapshot is read-only.");
         }
 
-        boolean modified = false;
-        for (Iterator<TripPattern> it = timetables.keySet().iterator(); it.hasNext();){
-            TripPattern pattern = it.next();
-            SortedSet<Timetable> sortedTimetables = timetables.get(pattern);
+        // Only the timetables that are purged are copied
+        boolean modified = timetables.replaceAll((pattern, sortedTimetables) -> {
             SortedSet<Timetable> toKeepTimetables =
                     new TreeSet<Timetable>(new SortedTimetableComparator());
             for(Timetable timetable : sortedTimetables) {
                 if(serviceDate.compareTo(timetable.serviceDate) < 0) {
                     toKeepTimetables.add(timetable);
-                } else {
-                    modified = true;
                 }
             }
-
-            if(toKeepTimetables.isEmpty()) {
-                it.remove();
-            } else {
-                timetables.put(pattern, toKeepTimetables);
+            if(toKeepTimetables.size() == sortedTimetables.size()) {
+                return sortedTimetables;
             }
-        }
+            return toKeepTimetables.isEmpty() ? null : toKeepTimetables;
+        });
         
         // Also remove last added trip pattern for days that are purged
-        for (Iterator<Entry<TripIdAndServiceDate, TripPattern>> iterator = lastAddedTripPattern
-                .entrySet().iterator(); iterator.hasNext();) {
-            TripIdAndServiceDate tripIdAndServiceDate = iterator.next().getKey();
-            if (serviceDate.compareTo(tripIdAndServiceDate.getServiceDate()) >= 0) {
-                iterator.remove();
-                modified = true;
-            }
+        if (lastAddedTripPattern.removeIf(
+                (tripIdAndServiceDate, ignore) ->
+                        serviceDate.compareTo(tripIdAndServiceDate.getServiceDate()) >= 0
+        )) {
+            modified = true;
         }
 
         return modified;
@@ -371,7 +359,13 @@ public class TimetableSnapshot {
 
     private void addPatternToIndex(TripPattern tripPattern) {
         for (Stop stop: tripPattern.getStops()) {
-            patternsForStop.put(stop, tripPattern);
+            Set<TripPattern> patterns = patternsForStop.get(stop);
+            if (patterns == null || !patterns.contains(tripPattern)) {
+                // Copy-on-write, the set may be part of a committed snapshot
+                Set<TripPattern> copy = patterns == null ? new HashSet<>() : new HashSet<>(patterns);
+                copy.add(tripPattern);
+                patternsForStop.put(stop, copy);
+            }
         }
     }
 
@@ -381,10 +375,22 @@ public class TimetableSnapshot {
      * @return
      */
     public Collection<TripPattern> getPatternsForStop(Stop stop) {
-        return patternsForStop.get(stop);
+        Set<TripPattern> patterns = patternsForStop.get(stop);
+        return patterns == null ? Collections.emptySet() : Collections.unmodifiableSet(patterns);
+    }
+
+    /**
+     * The number of timetable map shards copied since the last commit, a measure of the cost of
+     * the next commit.
+     */
+    public int copiedShards() {
+        return timetables.copiedShards()
+                + lastAddedTripPattern.copiedShards()
+                + patternsForStop.copiedShards();
     }
 
-    public void setPatternsForStop(Multimap<Stop, TripPattern> patternsForStop) {
-        this.patternsForStop = patternsForStop;
+    /** The number of trip patterns with updated timetables. */
+    public int size() {
+        return timetables.size();
     }
 }
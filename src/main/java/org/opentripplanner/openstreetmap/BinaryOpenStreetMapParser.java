@@ -25,6 +25,10 @@ public class BinaryOpenStreetMapParser extends BinaryParser {
     private OsmParserPhase parsePhase;
     private Map<String, String> stringTable = new HashMap<String, String>();
 
+    /* The coordinate encoding of the current block, used to get the nanodegrees of a node. */
+    private long latOffset;
+    private long lonOffset;
+
     public BinaryOpenStreetMapParser(OSMDatabase osmdb) {
         this.osmdb = osmdb;
     }
@@ -42,6 +46,13 @@ public class BinaryOpenStreetMapParser extends BinaryParser {
         return fromTable;
     }
 
+    @Override
+    public void parse(Osmformat.PrimitiveBlock block) {
+        latOffset = block.getLatOffset();
+        lonOffset = block.getLonOffset();
+        super.parse(block);
+    }
+
     @Override
     public void complete() {
         // Jump in circles
@@ -52,6 +63,10 @@ public class BinaryOpenStreetMapParser extends BinaryParser {
         if(parsePhase != OsmParserPhase.Nodes) { return; }
 
         for (Osmformat.Node i : nodes) {
+            if (i.getKeysCount() == 0) {
+                osmdb.addNode(i.getId(), latNanodegrees(i.getLat()), lonNanodegrees(i.getLon()));
+                continue;
+            }
             OSMNode tmp = new OSMNode();
             tmp.setId(i.getId());
             tmp.lat = parseLat(i.getLat());
@@ -79,14 +94,23 @@ public class BinaryOpenStreetMapParser extends BinaryParser {
         if(parsePhase != OsmParserPhase.Nodes) { return; }
 
         for (int i = 0; i < nodes.getIdCount(); i++) {
-            OSMNode tmp = new OSMNode();
-
             long lat = nodes.getLat(i) + lastLat;
             lastLat = lat;
             long lon = nodes.getLon(i) + lastLon;
             lastLon = lon;
             long id = nodes.getId(i) + lastId;
             lastId = id;
+
+            // Most nodes have no tags, they are stored as a coordinate without creating an object
+            if (nodes.getKeysValsCount() == 0 || nodes.getKeysVals(j) == 0) {
+                osmdb.addNode(id, latNanodegrees(lat), lonNanodegrees(lon));
+                if (nodes.getKeysValsCount() > 0) {
+                    j++; // Skip over the '0' delimiter.
+                }
+                continue;
+            }
+
+            OSMNode tmp = new OSMNode();
             double latf = parseLat(lat), lonf = parseLon(lon);
 
             tmp.setId(id);
@@ -113,6 +137,14 @@ public class BinaryOpenStreetMapParser extends BinaryParser {
         }
     }
 
+    private long latNanodegrees(long lat) {
+        return granularity * lat + latOffset;
+    }
+
+    private long lonNanodegrees(long lon) {
+        return granularity * lon + lonOffset;
+    }
+
     @Override
     protected void parseWays(List<Osmformat.Way> ways) {
         if(parsePhase != OsmParserPhase.Ways) { return; }
@@ -1,6 +1,5 @@
 package org.opentripplanner.openstreetmap;
 
-import org.openstreetmap.osmosis.osmbinary.file.BlockInputStream;
 import org.opentripplanner.datastore.DataSource;
 import org.opentripplanner.datastore.FileType;
 import org.opentripplanner.datastore.file.FileDataSource;
@@ -12,16 +11,23 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Parser for the OpenStreetMap PBF format. Parses files in three passes:
  * First the relations, then the ways, then the nodes are also loaded.
+ * <p>
+ * The blocks of the file are inflated and decoded on a pool of worker threads. The first pass
+ * decodes the whole file and records the entity types in each block, the ways and nodes passes
+ * skip the blocks they do not need without inflating them.
  */
 public class BinaryOpenStreetMapProvider {
     private static final Logger LOG = LoggerFactory.getLogger(BinaryOpenStreetMapProvider.class);
 
     private final DataSource source;
-    private byte[] cachedBytes = null;
+
+    private final int numberOfThreads;
 
 
     /** For tests */
@@ -30,33 +36,52 @@ public class BinaryOpenStreetMapProvider {
     }
 
     public BinaryOpenStreetMapProvider(DataSource source) {
+        this(source, 1);
+    }
+
+    /**
+     * @param numberOfThreads the number of threads inflating and decoding the blocks of the file.
+     */
+    public BinaryOpenStreetMapProvider(DataSource source, int numberOfThreads) {
         this.source = source;
+        this.numberOfThreads = Math.max(numberOfThreads, 1);
     }
 
     public void readOSM(OSMDatabase osmdb) {
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
         try {
             BinaryOpenStreetMapParser parser = new BinaryOpenStreetMapParser(osmdb);
+            PbfBlockReader reader = new PbfBlockReader(executor, numberOfThreads);
 
-            parsePhase(parser, OsmParserPhase.Relations);
+            // The first pass reads all blocks, and indexes the entity types of each block
+            parsePhase(parser, reader, OsmParserPhase.Relations, PbfBlockReader.ALL);
             osmdb.doneFirstPhaseRelations();
 
-            parsePhase(parser, OsmParserPhase.Ways);
+            parsePhase(parser, reader, OsmParserPhase.Ways, PbfBlockReader.WAYS);
             osmdb.doneSecondPhaseWays();
 
-            parsePhase(parser, OsmParserPhase.Nodes);
+            parsePhase(parser, reader, OsmParserPhase.Nodes, PbfBlockReader.NODES);
             osmdb.doneThirdPhaseNodes();
         }
         catch (Exception ex) {
             throw new IllegalStateException("error loading OSM from path " + source.path(), ex);
         }
+        finally {
+            executor.shutdownNow();
+        }
     }
 
-    private void parsePhase(BinaryOpenStreetMapParser parser, OsmParserPhase phase) throws IOException {
+    private void parsePhase(
+            BinaryOpenStreetMapParser parser,
+            PbfBlockReader reader,
+            OsmParserPhase phase,
+            byte entityTypes
+    ) throws IOException {
         parser.setPhase(phase);
-        BlockInputStream in = null;
+        InputStream in = null;
         try {
-            in = new BlockInputStream(createInputStream(phase), parser);
-            in.process();
+            in = createInputStream(phase);
+            reader.read(in, entityTypes, parser);
         }
         finally {
             // Close
@@ -0,0 +1,251 @@
+package org.opentripplanner.openstreetmap;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import gnu.trove.list.TByteList;
+import gnu.trove.list.array.TByteArrayList;
+import org.openstreetmap.osmosis.osmbinary.Fileformat;
+import org.openstreetmap.osmosis.osmbinary.Osmformat;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Read the blocks of an OpenStreetMap PBF file. The blocks are inflated and decoded by a pool of
+ * worker threads, and handed to the parser on the calling thread in the order of the file, so the
+ * parser and the OSM database do not need to be thread-safe.
+ * <p>
+ * The first read of a file decodes all blocks and records the entity types found in each block.
+ * The following reads of the same file skip the blocks without the requested entity types without
+ * inflating them. The PBF files are normally sorted with the nodes first and the relations last,
+ * so each phase of the import only inflates the blocks it needs.
+ */
+class PbfBlockReader {
+
+    static final byte NODES = 1;
+    static final byte WAYS = 2;
+    static final byte RELATIONS = 4;
+    static final byte ALL = NODES | WAYS | RELATIONS;
+
+    /** The header block of the file, it is only parsed by the first read. */
+    private static final byte HEADER = 8;
+
+    /** The PBF specification limits the size of a blob header. */
+    private static final int MAX_BLOB_HEADER_SIZE = 64 * 1024;
+
+    /** The PBF specification limits the size of a blob, compressed or not. */
+    private static final int MAX_BLOB_SIZE = 32 * 1024 * 1024;
+
+    private final ExecutorService executor;
+
+    /** The number of blocks decoded ahead of the parser, limits the memory used. */
+    private final int maxPendingBlocks;
+
+    /** The entity types in each block of the file, empty until the first read is complete. */
+    private final TByteList blockTypes = new TByteArrayList();
+
+    private boolean indexed = false;
+
+    PbfBlockReader(ExecutorService executor, int numberOfThreads) {
+        this.executor = executor;
+        this.maxPendingBlocks = 2 * numberOfThreads;
+    }
+
+    /**
+     * Read the blocks with any of the given entity types and hand them to the parser. Blocks
+     * without these types may also be handed to the parser in the first read.
+     */
+    void read(InputStream input, byte entityTypes, BinaryOpenStreetMapParser parser)
+            throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input, 64 * 1024));
+        Deque<Future<DecodedBlock>> pending = new ArrayDeque<>();
+        int blockIndex = 0;
+        try {
+            while (true) {
+                Fileformat.BlobHeader header = readBlobHeader(in);
+                if (header == null) {
+                    break;
+                }
+                int index = blockIndex++;
+                if (indexed && (blockTypes.get(index) & entityTypes) == 0) {
+                    skipFully(in, header.getDatasize());
+                    continue;
+                }
+                byte[] blob = readBlob(in, header.getDatasize());
+                String type = header.getType();
+                pending.addLast(executor.submit(() -> decode(type, blob)));
+
+                if (pending.size() > maxPendingBlocks) {
+                    handle(pending.removeFirst(), parser);
+                }
+            }
+            while (!pending.isEmpty()) {
+                handle(pending.removeFirst(), parser);
+            }
+            indexed = true;
+        }
+        finally {
+            for (Future<DecodedBlock> it : pending) {
+                it.cancel(true);
+            }
+        }
+    }
+
+    private void handle(Future<DecodedBlock> future, BinaryOpenStreetMapParser parser)
+            throws IOException {
+        DecodedBlock block;
+        try {
+            block = future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading PBF blocks.", e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+
+        if (!indexed) {
+            blockTypes.add(block.types);
+            if (block.header != null) {
+                parser.parse(block.header);
+            }
+        }
+        if (block.data != null) {
+            parser.parse(block.data);
+        }
+    }
+
+    /** Inflate and decode a block, this is done by the worker threads. */
+    private static DecodedBlock decode(String type, byte[] blobBytes)
+            throws IOException {
+        if ("OSMHeader".equals(type)) {
+            Osmformat.HeaderBlock header = Osmformat.HeaderBlock.parseFrom(inflate(blobBytes));
+            return new DecodedBlock(HEADER, header, null);
+        }
+        if ("OSMData".equals(type)) {
+            Osmformat.PrimitiveBlock data = Osmformat.PrimitiveBlock.parseFrom(inflate(blobBytes));
+            return new DecodedBlock(entityTypes(data), null, data);
+        }
+        // Unknown block types are ignored, as required by the PBF specification
+        return new DecodedBlock((byte) 0, null, null);
+    }
+
+    private static byte[] inflate(byte[] blobBytes) throws IOException {
+        Fileformat.Blob blob = Fileformat.Blob.parseFrom(blobBytes);
+        if (blob.hasRaw()) {
+            return blob.getRaw().toByteArray();
+        }
+        if (!blob.hasZlibData()) {
+            throw new IOException("PBF blob uses an unsupported compression.");
+        }
+        ByteString zlibData = blob.getZlibData();
+        byte[] result = new byte[blob.getRawSize()];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(zlibData.toByteArray());
+            int size = inflater.inflate(result);
+            if (size != result.length || !inflater.finished()) {
+                throw new IOException("PBF blob is not the declared size.");
+            }
+        }
+        catch (DataFormatException e) {
+            throw new IOException("PBF blob can not be inflated.", e);
+        }
+        finally {
+            inflater.end();
+        }
+        return result;
+    }
+
+    private static byte entityTypes(Osmformat.PrimitiveBlock block) {
+        byte types = 0;
+        for (Osmformat.PrimitiveGroup group : block.getPrimitivegroupList()) {
+            if (group.hasDense() || group.getNodesCount() > 0) {
+                types |= NODES;
+            }
+            if (group.getWaysCount() > 0) {
+                types |= WAYS;
+            }
+            if (group.getRelationsCount() > 0) {
+                types |= RELATIONS;
+            }
+        }
+        return types;
+    }
+
+    /** @return the header of the next blob, or {@code null} at the end of the file. */
+    private static Fileformat.BlobHeader readBlobHeader(DataInputStream in) throws IOException {
+        int size;
+        try {
+            size = in.readInt();
+        }
+        catch (EOFException e) {
+            return null;
+        }
+        if (size < 0 || size > MAX_BLOB_HEADER_SIZE) {
+            throw new IOException("Invalid PBF blob header size: " + size);
+        }
+        byte[] bytes = new byte[size];
+        in.readFully(bytes);
+        try {
+            return Fileformat.BlobHeader.parseFrom(bytes);
+        }
+        catch (InvalidProtocolBufferException e) {
+            throw new IOException("Invalid PBF blob header.", e);
+        }
+    }
+
+    private static byte[] readBlob(DataInputStream in, int size) throws IOException {
+        if (size < 0 || size > MAX_BLOB_SIZE) {
+            throw new IOException("Invalid PBF blob size: " + size);
+        }
+        byte[] bytes = new byte[size];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static void skipFully(DataInputStream in, int size) throws IOException {
+        int remaining = size;
+        while (remaining > 0) {
+            int skipped = in.skipBytes(remaining);
+            if (skipped <= 0) {
+                // Some streams do not skip, read a byte to make progress or detect the end
+                if (in.read() < 0) {
+                    throw new EOFException("Unexpected end of PBF file.");
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
+    private static class DecodedBlock {
+        final byte types;
+        final Osmformat.HeaderBlock header;
+        final Osmformat.PrimitiveBlock data;
+
+        DecodedBlock(
+                byte types,
+                Osmformat.HeaderBlock header,
+                Osmformat.PrimitiveBlock data
+        ) {
+            this.types = types;
+            this.header = header;
+            this.data = data;
+        }
+    }
+}
@@ -9,6 +9,22 @@ public class OSMNode extends OSMWithTags {
         return "osm node " + id;
     }
 
+    /**
+     * Nodes are equal if they have the same id. The graph builder stores the nodes without tags as
+     * packed coordinates, and may create more than one object for the same node.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) { return true; }
+        if (o == null || getClass() != o.getClass()) { return false; }
+        return id == ((OSMNode) o).id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+
     /**
      * Is this a multi-level node that should be decomposed to multiple coincident nodes? Currently returns true only for elevators.
      * 
@@ -38,8 +38,17 @@ public class RoutingService {
     }
 
     // TODO We should probably not have the Router as a parameter here
+    /**
+     * Route the given request. The request is admitted by the router request scheduler, and may
+     * be queued or rejected if the server is busy.
+     *
+     * @throws org.opentripplanner.routing.error.RoutingRequestRejectedException if the request is
+     *                                                                         rejected.
+     */
     public RoutingResponse route(RoutingRequest request, Router router) {
-        RoutingWorker worker = new RoutingWorker(router.raptorConfig, request);
-        return worker.route(router);
+        return router.requestScheduler.route(request, () -> {
+            RoutingWorker worker = new RoutingWorker(router.raptorConfig, request);
+            return worker.route(router);
+        });
     }
 }
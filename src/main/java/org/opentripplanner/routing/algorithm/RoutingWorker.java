@@ -5,6 +5,7 @@ import org.opentripplanner.routing.algorithm.filterchain.ItineraryFilter;
 import org.opentripplanner.routing.algorithm.mapping.RaptorPathToItineraryMapper;
 import org.opentripplanner.routing.algorithm.mapping.RoutingRequestToFilterChainMapper;
 import org.opentripplanner.routing.algorithm.mapping.TripPlanMapper;
+import org.opentripplanner.routing.algorithm.raptor.router.street.AccessEgressCache;
 import org.opentripplanner.routing.algorithm.raptor.router.street.AccessEgressRouter;
 import org.opentripplanner.routing.algorithm.raptor.router.street.DirectStreetRouter;
 import org.opentripplanner.routing.algorithm.raptor.transit.AccessEgress;
@@ -27,6 +28,7 @@ import org.opentripplanner.transit.raptor.api.path.Path;
 import org.opentripplanner.transit.raptor.api.request.RaptorRequest;
 import org.opentripplanner.transit.raptor.api.response.RaptorResponse;
 import org.opentripplanner.transit.raptor.rangeraptor.configure.RaptorConfig;
+import org.opentripplanner.util.OtpAppException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,10 +37,18 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Does a complete transit search, including access and egress legs.
  * <p>
+ * If the router has a street routing thread pool, the direct street search and the access and
+ * egress street searches are run in parallel with the trip pattern filtering. The access and
+ * egress searches are joined before the Raptor search, while the direct street search is allowed
+ * to overlap the Raptor search and is joined when the transit routing is done.
+ * <p>
  * This class has a request scope, hence the "Worker" name.
  */
 public class RoutingWorker {
@@ -84,20 +94,61 @@ public class RoutingWorker {
 
         this.debugAggregator.finishedPrecalculating();
 
+        ExecutorService threadPool = streetRoutingThreadPool(router);
+        Future<List<Itinerary>> directStreetSearch = null;
+
         // Direct street routing
-        try {
-            itineraries.addAll(DirectStreetRouter.route(router, request));
-        } catch (RoutingValidationException e) {
-            routingErrors.addAll(e.getRoutingErrors());
+        if (threadPool == null) {
+            try {
+                itineraries.addAll(DirectStreetRouter.route(router, request));
+            } catch (RoutingValidationException e) {
+                routingErrors.addAll(e.getRoutingErrors());
+            }
+            this.debugAggregator.finishedDirectStreetRouter();
+        }
+        else {
+            this.debugAggregator.startedParallelRouting();
+            try {
+                // The routing context must be created before the searches are started. The
+                // direct street search runs on its own copy of the request and routing context,
+                // so nothing it sets is seen by the transit routing. The access and egress
+                // searches create their own routing context.
+                request.setRoutingContext(router.graph);
+                RoutingRequest directRequest = request.clone();
+                directRequest.rctx = request.rctx.cloneForRequest(directRequest);
+                directStreetSearch = threadPool.submit(() -> {
+                    try {
+                        return DirectStreetRouter.route(router, directRequest);
+                    }
+                    finally {
+                        debugAggregator.finishedParallelDirectStreetRouter();
+                    }
+                });
+            } catch (RoutingValidationException e) {
+                routingErrors.addAll(e.getRoutingErrors());
+            }
         }
 
-        this.debugAggregator.finishedDirectStreetRouter();
-
-        // Transit routing
         try {
-            itineraries.addAll(routeTransit(router));
-        } catch (RoutingValidationException e) {
-            routingErrors.addAll(e.getRoutingErrors());
+            // Transit routing
+            try {
+                itineraries.addAll(routeTransit(router, threadPool));
+            } catch (RoutingValidationException e) {
+                routingErrors.addAll(e.getRoutingErrors());
+            }
+
+            if (directStreetSearch != null) {
+                try {
+                    // Keep the direct street itineraries first, as in the sequential search
+                    itineraries.addAll(0, join(directStreetSearch));
+                } catch (RoutingValidationException e) {
+                    routingErrors.addAll(0, e.getRoutingErrors());
+                }
+            }
+        }
+        finally {
+            // Do not leave the direct street search running if the transit routing failed
+            cancel(directStreetSearch);
         }
 
         this.debugAggregator.finishedTransitRouter();
@@ -116,7 +167,7 @@ public class RoutingWorker {
         );
     }
 
-    private Collection<Itinerary> routeTransit(Router router) {
+    private Collection<Itinerary> routeTransit(Router router, ExecutorService threadPool) {
         request.setRoutingContext(router.graph);
         if (request.modes.transitModes.isEmpty()) { return Collections.emptyList(); }
 
@@ -130,26 +181,57 @@ public class RoutingWorker {
             ? router.graph.getTransitLayer()
             : router.graph.getRealtimeTransitLayer();
 
-        RaptorRoutingRequestTransitData requestTransitDataProvider;
-        requestTransitDataProvider = new RaptorRoutingRequestTransitData(
-                transitLayer,
-                request.getDateTime().toInstant(),
-                ADDITIONAL_SEARCH_DAYS_BEFORE_TODAY,
-                ADDITIONAL_SEARCH_DAYS_AFTER_TODAY,
-                request.modes.transitModes,
-                request.rctx.bannedRoutes,
-                request.walkSpeed
-        );
+        AccessEgressCache accessEgressCache = router.graph.getAccessEgressCache();
+        Future<Collection<AccessEgress>> accessSearch = null;
+        Future<Collection<AccessEgress>> egressSearch = null;
+
+        // Start the access and egress searches before the trip pattern filtering
+        if (threadPool != null) {
+            accessSearch = threadPool.submit(
+                () -> accessEgressSearch(false, transitLayer, accessEgressCache)
+            );
+            egressSearch = threadPool.submit(
+                () -> accessEgressSearch(true, transitLayer, accessEgressCache)
+            );
+        }
 
-        this.debugAggregator.finishedPatternFiltering();
+        RaptorRoutingRequestTransitData requestTransitDataProvider;
 
         // Prepare access/egress transfers
-        Collection<AccessEgress> accessTransfers = AccessEgressRouter.streetSearch(request, false, 2000, transitLayer.getStopIndex());
-        Collection<AccessEgress> egressTransfers = AccessEgressRouter.streetSearch(request, true, 2000, transitLayer.getStopIndex());
+        Collection<AccessEgress> accessTransfers;
+        Collection<AccessEgress> egressTransfers;
+
+        try {
+            requestTransitDataProvider = new RaptorRoutingRequestTransitData(
+                    transitLayer,
+                    request.getDateTime().toInstant(),
+                    ADDITIONAL_SEARCH_DAYS_BEFORE_TODAY,
+                    ADDITIONAL_SEARCH_DAYS_AFTER_TODAY,
+                    request.modes.transitModes,
+                    request.rctx.bannedRoutes,
+                    request.walkSpeed
+            );
 
-        verifyEgressAccess(accessTransfers, egressTransfers);
+            this.debugAggregator.finishedPatternFiltering();
 
-        this.debugAggregator.finishedAccessEgress();
+            if (threadPool == null) {
+                accessTransfers = accessEgressSearch(false, transitLayer, accessEgressCache);
+                egressTransfers = accessEgressSearch(true, transitLayer, accessEgressCache);
+                verifyEgressAccess(accessTransfers, egressTransfers);
+                this.debugAggregator.finishedAccessEgress();
+            }
+            else {
+                accessTransfers = join(accessSearch);
+                egressTransfers = join(egressSearch);
+                verifyEgressAccess(accessTransfers, egressTransfers);
+                this.debugAggregator.finishedParallelAccessEgress();
+            }
+        }
+        finally {
+            // Do not leave a search running if the other one or the pattern filtering failed
+            cancel(accessSearch);
+            cancel(egressSearch);
+        }
 
         // Prepare transit search
         RaptorRequest<TripSchedule> raptorRequest = RaptorRequestMapper.mapRequest(
@@ -207,6 +289,63 @@ public class RoutingWorker {
         return itineraries;
     }
 
+    private Collection<AccessEgress> accessEgressSearch(
+            boolean fromTarget,
+            TransitLayer transitLayer,
+            AccessEgressCache accessEgressCache
+    ) {
+        return AccessEgressRouter.streetSearch(
+            request,
+            fromTarget,
+            request.getMaxAccessEgressDistanceMeters(
+                fromTarget ? request.modes.egressMode : request.modes.accessMode
+            ),
+            transitLayer.getStopIndex(),
+            accessEgressCache
+        );
+    }
+
+    /**
+     * Return the thread pool to use for the street searches, or {@code null} if the searches
+     * should run in the request thread. There is nothing to run in parallel for requests without
+     * transit.
+     */
+    private ExecutorService streetRoutingThreadPool(Router router) {
+        if (request.modes.transitModes.isEmpty()) { return null; }
+        return router.streetRoutingThreadPool;
+    }
+
+    /**
+     * Wait for the given street search to complete. Exceptions thrown by the search, like the
+     * {@link RoutingValidationException}, are rethrown in the calling thread.
+     */
+    private static <T> T join(Future<T> search) {
+        try {
+            return search.get();
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new OtpAppException("Street search failed. Details: " + e.getMessage());
+        }
+        catch (InterruptedException e) {
+            search.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new OtpAppException("Street search interrupted.");
+        }
+    }
+
+    /** Cancel the given street search, unless it is {@code null} or already done. */
+    private static void cancel(Future<?> search) {
+        if (search != null) {
+            search.cancel(true);
+        }
+    }
+
     private List<Itinerary> filterItineraries(List<Itinerary> itineraries) {
         ItineraryFilter filterChain = RoutingRequestToFilterChainMapper.createFilterChain(
             request, filterOnLatestDepartureTime, it -> firstRemovedItinerary = it
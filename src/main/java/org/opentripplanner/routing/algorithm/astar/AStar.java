@@ -8,7 +8,11 @@ import org.opentripplanner.routing.algorithm.astar.strategies.SkipEdgeStrategy;
 import org.opentripplanner.routing.core.RoutingContext;
 import org.opentripplanner.routing.api.request.RoutingRequest;
 import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.core.TemporaryGraphOverlay;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
 import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.EdgeAdjacency;
 import org.opentripplanner.routing.graph.Vertex;
 import org.opentripplanner.routing.spt.GraphPath;
 import org.opentripplanner.routing.spt.ShortestPathTree;
@@ -18,7 +22,6 @@ import org.opentripplanner.util.monitoring.MonitoringStoreFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -47,6 +50,8 @@ public class AStar {
 
     private SkipEdgeStrategy skipEdgeStrategy;
 
+    private AStarSearchContext searchContext;
+
     /* TODO instead of having a separate class for search state, we should just make one GenericAStar per request. */
     class RunState {
 
@@ -98,7 +103,9 @@ public class AStar {
 
         runState = new RunState( options, terminationStrategy );
         runState.rctx = options.getRoutingContext();
-        runState.spt = options.getNewShortestPathTree();
+        runState.spt = searchContext == null
+                ? options.getNewShortestPathTree()
+                : searchContext.newShortestPathTree(options);
 
         // We want to reuse the heuristic instance in a series of requests for the same target to avoid repeated work.
         runState.heuristic = runState.rctx.remainingWeightHeuristic;
@@ -119,9 +126,16 @@ public class AStar {
         // before reaching its target.
         int initialSize = runState.rctx.graph.getVertices().size();
         initialSize = (int) Math.ceil(2 * (Math.sqrt((double) initialSize + 1)));
-        runState.pq = new BinHeap<>(initialSize);
         runState.nVisited = 0;
-        runState.targetAcceptedStates = Lists.newArrayList();
+
+        if (searchContext == null) {
+            runState.pq = new BinHeap<>(initialSize);
+            runState.targetAcceptedStates = Lists.newArrayList();
+        }
+        else {
+            runState.pq = searchContext.queue(initialSize);
+            runState.targetAcceptedStates = searchContext.targetAcceptedStates();
+        }
         
         if (addToQueue) {
             for (State initialState : State.getStates(options)) {
@@ -163,65 +177,131 @@ public class AStar {
 
         runState.nVisited += 1;
         
-        Collection<Edge> edges = runState.options.arriveBy ? runState.u_vertex.getIncoming() : runState.u_vertex.getOutgoing();
-        for (Edge edge : edges) {
-
-            if (skipEdgeStrategy != null &&
-                    skipEdgeStrategy.shouldSkipEdge(null,null,null, edge,null,null)) {
-                continue;
+        Vertex u = runState.u_vertex;
+        boolean arriveBy = runState.options.arriveBy;
+        TemporaryGraphOverlay overlay = runState.rctx.temporaryEdges;
+        EdgeAdjacency adjacency = runState.rctx.graph.getEdgeAdjacency();
+        if (adjacency != null && adjacency.contains(u)) {
+            // Iterate the edge ids of the compressed adjacency, no collection is allocated, and
+            // the street edges the modes can not use are skipped without reading the edge
+            int modes = permissionCodes(runState.u, runState.options);
+            int index = u.getIndex();
+            if (arriveBy) {
+                for (int i = adjacency.incomingStart(index); i < adjacency.incomingEnd(index); i++) {
+                    traverseEdge(adjacency, adjacency.incomingEdgeId(i), modes);
+                }
+            }
+            else {
+                for (int e = adjacency.outgoingStart(index); e < adjacency.outgoingEnd(index); e++) {
+                    traverseEdge(adjacency, e, modes);
+                }
+            }
+        }
+        else {
+            for (Edge edge : arriveBy ? u.getIncoming() : u.getOutgoing()) {
+                traverseEdge(edge);
+            }
+        }
+        List<Edge> temporaryEdges = arriveBy
+                ? overlay.getTemporaryIncoming(u)
+                : overlay.getTemporaryOutgoing(u);
+        if (temporaryEdges != null) {
+            for (Edge edge : temporaryEdges) {
+                traverseEdge(edge);
             }
+        }
+        
+        return true;
+    }
 
-            // Iterate over traversal results. When an edge leads nowhere (as indicated by
-            // returning NULL), the iteration is over.
-            for (State v = edge.traverse(runState.u); v != null; v = v.getNextResult()) {
-                // Could be: for (State v : traverseEdge...)
+    /**
+     * The {@link org.opentripplanner.routing.edgetype.StreetTraversalPermission} codes of the
+     * modes a street edge may be traversed with from the given state. A bicycle may be walked,
+     * and with car pickup the search may switch between walking and driving on any street edge.
+     */
+    static int permissionCodes(State s, RoutingRequest options) {
+        TraverseMode mode = s.getNonTransitMode();
+        int codes;
+        if (mode == TraverseMode.WALK) {
+            codes = StreetTraversalPermission.PEDESTRIAN.code;
+        }
+        else if (mode == TraverseMode.BICYCLE) {
+            codes = StreetTraversalPermission.PEDESTRIAN_AND_BICYCLE.code;
+        }
+        else if (mode == TraverseMode.CAR) {
+            codes = StreetTraversalPermission.CAR.code;
+        }
+        else {
+            return StreetTraversalPermission.ALL.code;
+        }
+        if (options.carPickup) {
+            codes |= StreetTraversalPermission.PEDESTRIAN_AND_CAR.code;
+        }
+        return codes;
+    }
 
-                if (traverseVisitor != null) {
-                    traverseVisitor.visitEdge(edge, v);
-                }
+    /** Traverse an edge of the adjacency, unless it is a street edge the modes can not use. */
+    private void traverseEdge(EdgeAdjacency adjacency, int edgeId, int modes) {
+        if (adjacency.allows(edgeId, modes)) {
+            traverseEdge(adjacency.edge(edgeId));
+        }
+    }
 
-                double remaining_w = runState.heuristic.estimateRemainingWeight(v);
+    /** Traverse an edge from the current state and enqueue the resulting states. */
+    private void traverseEdge(Edge edge) {
+        if (skipEdgeStrategy != null &&
+                skipEdgeStrategy.shouldSkipEdge(null,null,null, edge,null,null)) {
+            return;
+        }
+
+        // Iterate over traversal results. When an edge leads nowhere (as indicated by
+        // returning NULL), the iteration is over.
+        for (State v = edge.traverse(runState.u); v != null; v = v.getNextResult()) {
+            // Could be: for (State v : traverseEdge...)
+
+            if (traverseVisitor != null) {
+                traverseVisitor.visitEdge(edge, v);
+            }
+
+            double remaining_w = runState.heuristic.estimateRemainingWeight(v);
 
 //                LOG.info("{} {}", v, remaining_w);
 
-                if (remaining_w < 0 || Double.isInfinite(remaining_w) ) {
-                    continue;
-                }
-                double estimate = v.getWeight() + remaining_w;
+            if (remaining_w < 0 || Double.isInfinite(remaining_w) ) {
+                continue;
+            }
+            double estimate = v.getWeight() + remaining_w;
 
-                if (verbose) {
-                    System.out.println("      edge " + edge);
-                    System.out.println("      " + runState.u.getWeight() + " -> " + v.getWeight()
-                            + "(w) + " + remaining_w + "(heur) = " + estimate + " vert = "
-                            + v.getVertex());
-                }
+            if (verbose) {
+                System.out.println("      edge " + edge);
+                System.out.println("      " + runState.u.getWeight() + " -> " + v.getWeight()
+                        + "(w) + " + remaining_w + "(heur) = " + estimate + " vert = "
+                        + v.getVertex());
+            }
 
-                // avoid enqueuing useless branches 
-                if (estimate > runState.options.maxWeight) {
-                    // too expensive to get here
-                    if (verbose)
-                        System.out.println("         too expensive to reach, not enqueued. estimated weight = " + estimate);
-                    continue;
-                }
-                if (isWorstTimeExceeded(v, runState.options)) {
-                    // too much time to get here
-                    if (verbose)
-                        System.out.println("         too much time to reach, not enqueued. time = " + v.getTimeSeconds());
-                    continue;
-                }
-                
-                // spt.add returns true if the state is hopeful; enqueue state if it's hopeful
-                if (runState.spt.add(v)) {
-                    // report to the visitor if there is one
-                    if (traverseVisitor != null)
-                        traverseVisitor.visitEnqueue(v);
-                    //LOG.info("u.w={} v.w={} h={}", runState.u.weight, v.weight, remaining_w);
-                    runState.pq.insert(v, estimate);
-                } 
+            // avoid enqueuing useless branches 
+            if (estimate > runState.options.maxWeight) {
+                // too expensive to get here
+                if (verbose)
+                    System.out.println("         too expensive to reach, not enqueued. estimated weight = " + estimate);
+                continue;
             }
+            if (isWorstTimeExceeded(v, runState.options)) {
+                // too much time to get here
+                if (verbose)
+                    System.out.println("         too much time to reach, not enqueued. time = " + v.getTimeSeconds());
+                continue;
+            }
+            
+            // spt.add returns true if the state is hopeful; enqueue state if it's hopeful
+            if (runState.spt.add(v)) {
+                // report to the visitor if there is one
+                if (traverseVisitor != null)
+                    traverseVisitor.visitEnqueue(v);
+                //LOG.info("u.w={} v.w={} h={}", runState.u.weight, v.weight, remaining_w);
+                runState.pq.insert(v, estimate);
+            } 
         }
-        
-        return true;
     }
     
     void runSearch(long abortTime){
@@ -320,6 +400,16 @@ public class AStar {
         this.traverseVisitor = traverseVisitor;
     }
 
+    /**
+     * Reuse the priority queue and shortest path tree arrays of the given context, instead of
+     * allocating new ones for each search. The shortest path tree and the paths returned are then
+     * only valid until the next search using the same context is started. Set to {@code null}
+     * to allocate new data structures for each search, this is the default.
+     */
+    public void setSearchContext(AStarSearchContext searchContext) {
+        this.searchContext = searchContext;
+    }
+
     public List<GraphPath> getPathsToTarget() {
         if (runState == null) {
             return Collections.emptyList();
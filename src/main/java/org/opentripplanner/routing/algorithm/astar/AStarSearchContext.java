@@ -0,0 +1,105 @@
+package org.opentripplanner.routing.algorithm.astar;
+
+import org.opentripplanner.common.pqueue.BinHeap;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.spt.ShortestPathTree;
+import org.opentripplanner.routing.spt.VertexStateArray;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The data structures used by an {@link AStar} search that can be reused by the next search: the
+ * priority queue, the shortest path tree array and the list of accepted target states. Reusing
+ * these avoids allocating memory proportional to the graph size for every search.
+ * <p>
+ * A context must only be used by one search at the time, and the {@link ShortestPathTree}
+ * returned by a search is only valid until the next search using the same context starts, or
+ * the context is cleared. Use {@link #forCurrentThread()} to get the context of the current
+ * thread, and call {@link #clear()} when done with the result. The context of an idle thread
+ * then does not keep the states of the last search, and the request and temporary vertices they
+ * reference, in memory.
+ * <p>
+ * Each thread running searches keeps one shortest path tree array, sized from the number of
+ * vertices in the graph plus {@link #STATE_ARRAY_HEADROOM} for the vertices added at runtime, for
+ * example by the bike rental updater. The array has one reference per vertex, so it takes about
+ * 5 bytes per vertex of the graph with compressed oops, 10 without: about 20 MB per thread for a
+ * graph of 4 million vertices. The number of threads is bounded by the Grizzly handler threads
+ * plus the street routing thread pool.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class AStarSearchContext {
+
+    private static final ThreadLocal<AStarSearchContext> THREAD_CONTEXT =
+            ThreadLocal.withInitial(AStarSearchContext::new);
+
+    /**
+     * The shortest path tree array is this fraction larger than the graph, so vertices can be
+     * added to the graph without reallocating the array of every thread on its next search.
+     */
+    static final double STATE_ARRAY_HEADROOM = 0.2;
+
+    private BinHeap<State> queue = null;
+    private VertexStateArray states = null;
+    private final List<State> targetAcceptedStates = new ArrayList<>();
+
+    /**
+     * Return the search context of the current thread. The caller must be done with the result of
+     * the previous search in the same thread before starting a new search.
+     */
+    public static AStarSearchContext forCurrentThread() {
+        return THREAD_CONTEXT.get();
+    }
+
+    /** Return an empty priority queue. */
+    BinHeap<State> queue(int initialCapacity) {
+        if (queue == null) {
+            queue = new BinHeap<>(initialCapacity);
+        }
+        else {
+            queue.reset();
+        }
+        return queue;
+    }
+
+    /**
+     * Create a new, empty shortest path tree backed by the array of this context. The tree is
+     * created by the dominance function of the request. The array is replaced when more vertices
+     * are added to the graph than the headroom of the array allows.
+     */
+    ShortestPathTree newShortestPathTree(RoutingRequest options) {
+        int size = options.rctx.graph.getVertexIndexSize();
+        if (states == null || states.size() < size) {
+            states = new VertexStateArray(size + (int) (size * STATE_ARRAY_HEADROOM));
+        }
+        return options.dominanceFunction.getNewShortestPathTree(options, states);
+    }
+
+    /** The size of the shortest path tree array, 0 before the first search. */
+    int stateArraySize() {
+        return states == null ? 0 : states.size();
+    }
+
+    /** Return an empty list for the accepted target states. */
+    List<State> targetAcceptedStates() {
+        targetAcceptedStates.clear();
+        return targetAcceptedStates;
+    }
+
+    /**
+     * Remove the states of the last search. The shortest path tree and the paths returned by the
+     * search must not be used after this. This costs time proportional to the size of the last
+     * search, not the graph size.
+     */
+    public void clear() {
+        if (queue != null) {
+            queue.clear();
+        }
+        if (states != null) {
+            states.clear();
+        }
+        targetAcceptedStates.clear();
+    }
+}
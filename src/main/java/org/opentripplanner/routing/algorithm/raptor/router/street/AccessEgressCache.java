@@ -0,0 +1,240 @@
+package org.opentripplanner.routing.algorithm.raptor.router.street;
+
+import org.opentripplanner.model.base.ToStringBuilder;
+import org.opentripplanner.routing.algorithm.raptor.transit.StopIndexForRaptor;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.vertextype.TemporaryVertex;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Cache the result of the access and egress street searches, so requests starting or ending at
+ * the same place (stations, POIs, city centres) do not need to repeat the search.
+ * <p>
+ * The cache key is the search origin, the street mode, the search direction, the max distance,
+ * the stop index used to map stops to Raptor stop indexes and all {@link RoutingRequest}
+ * parameters used by the street search. Temporary vertices are
+ * created for each request, so these are identified by name and coordinate, not by the vertex
+ * instance. The cached {@link AccessEgressPath}s only reference the permanent street graph, the
+ * states are rebuilt for each request. This way the cache does not keep the routing context or
+ * the temporary edges of the request that performed the search. The result is not time
+ * dependent. Bike rental availability is an exception, so the bike rental results must be
+ * invalidated when the bike rental state change, see {@link #invalidateBikeRental()}.
+ * <p>
+ * The size of the cache is limited by the total number of stops cached, when the limit is
+ * reached the least recently used entries are evicted.
+ * <p>
+ * This class is thread-safe and has GRAPH scope, when the street graph change the cache must be
+ * {@link #clear()}ed.
+ */
+public class AccessEgressCache {
+
+    private final int maxNumberOfStops;
+
+    private final LinkedHashMap<Key, List<AccessEgressPath>> cache =
+            new LinkedHashMap<>(64, 0.75f, true);
+
+    private int numberOfStops = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxNumberOfStops The maximum number of stops (sum of all cached results) to keep in
+     *                         the cache.
+     */
+    public AccessEgressCache(int maxNumberOfStops) {
+        this.maxNumberOfStops = maxNumberOfStops;
+    }
+
+    /**
+     * Create the cache key for a street search.
+     */
+    public static Key key(
+            Set<Vertex> originVertices,
+            boolean fromTarget,
+            StreetMode streetMode,
+            int distanceMeters,
+            StopIndexForRaptor stopIndex,
+            RoutingRequest streetRequest
+    ) {
+        return new Key(
+                originVertices, fromTarget, streetMode, distanceMeters, stopIndex, streetRequest
+        );
+    }
+
+    /**
+     * Return the cached result for the given search, or {@code null} if the result is not cached.
+     */
+    public List<AccessEgressPath> get(Key key) {
+        List<AccessEgressPath> result = getIfPresent(key);
+        if (result == null) {
+            misses.incrementAndGet();
+        }
+        else {
+            hits.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Add the result of a street search to the cache. The search is performed outside the cache
+     * lock, so two threads may perform the same search at the same time.
+     */
+    public void put(Key key, List<AccessEgressPath> result) {
+        putIfSpace(key, List.copyOf(result));
+    }
+
+    /**
+     * Remove all results using bike rental. Call this when the bike rental availability change.
+     */
+    public void invalidateBikeRental() {
+        invalidate(key -> key.streetMode == StreetMode.BIKE_RENTAL);
+    }
+
+    /**
+     * Remove all cached results. Call this when the street graph change.
+     */
+    public synchronized void clear() {
+        cache.clear();
+        numberOfStops = 0;
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public long evictions() {
+        return evictions.get();
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.of(AccessEgressCache.class)
+                .addNum("size", size())
+                .addNum("hits", hits())
+                .addNum("misses", misses())
+                .addNum("evictions", evictions())
+                .toString();
+    }
+
+    private synchronized List<AccessEgressPath> getIfPresent(Key key) {
+        return cache.get(key);
+    }
+
+    private synchronized void putIfSpace(Key key, List<AccessEgressPath> value) {
+        if (value.size() > maxNumberOfStops) { return; }
+
+        List<AccessEgressPath> old = cache.put(key, value);
+        numberOfStops += value.size() - (old == null ? 0 : old.size());
+
+        // Evict the least recently used entries
+        Iterator<List<AccessEgressPath>> it = cache.values().iterator();
+        while (numberOfStops > maxNumberOfStops && it.hasNext()) {
+            numberOfStops -= it.next().size();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private synchronized void invalidate(Predicate<Key> filter) {
+        Iterator<Map.Entry<Key, List<AccessEgressPath>>> it = cache.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, List<AccessEgressPath>> e = it.next();
+            if (filter.test(e.getKey())) {
+                numberOfStops -= e.getValue().size();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * The cache key, see the class documentation. Create it with {@link #key}.
+     */
+    public static final class Key {
+        private final Set<Object> origin;
+        private final boolean fromTarget;
+        private final StreetMode streetMode;
+        private final int distanceMeters;
+        private final StopIndexForRaptor stopIndex;
+        private final List<Object> streetParameters;
+        private final int hashCode;
+
+        private Key(
+                Set<Vertex> originVertices,
+                boolean fromTarget,
+                StreetMode streetMode,
+                int distanceMeters,
+                StopIndexForRaptor stopIndex,
+                RoutingRequest rr
+        ) {
+            this.origin = new HashSet<>();
+            for (Vertex v : originVertices) {
+                origin.add(v instanceof TemporaryVertex
+                        ? Arrays.asList(v.getName(), v.getLat(), v.getLon())
+                        : v
+                );
+            }
+            this.fromTarget = fromTarget;
+            this.streetMode = streetMode;
+            this.distanceMeters = distanceMeters;
+            this.stopIndex = stopIndex;
+            this.streetParameters = Arrays.asList(
+                    rr.walkSpeed, rr.bikeSpeed, rr.carSpeed,
+                    rr.wheelchairAccessible, rr.maxWheelchairSlope,
+                    rr.walkReluctance, rr.stairsReluctance, rr.turnReluctance,
+                    rr.elevatorBoardTime, rr.elevatorBoardCost,
+                    rr.elevatorHopTime, rr.elevatorHopCost,
+                    rr.bikeSwitchTime, rr.bikeSwitchCost,
+                    rr.bikeRentalPickupTime, rr.bikeRentalPickupCost,
+                    rr.bikeRentalDropoffTime, rr.bikeRentalDropoffCost,
+                    rr.bikeParkTime, rr.bikeParkCost, rr.carDropoffTime,
+                    rr.optimize, rr.bikeTriangleTimeFactor,
+                    rr.bikeTriangleSlopeFactor, rr.bikeTriangleSafetyFactor,
+                    rr.useBikeRentalAvailabilityInformation, rr.driveOnRight,
+                    rr.carDecelerationSpeed, rr.carAccelerationSpeed
+            );
+            this.hashCode = Objects.hash(
+                    origin, fromTarget, streetMode, distanceMeters, streetParameters
+            );
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) { return true; }
+            if (o == null || getClass() != o.getClass()) { return false; }
+            Key key = (Key) o;
+            return fromTarget == key.fromTarget
+                    && distanceMeters == key.distanceMeters
+                    && streetMode == key.streetMode
+                    && stopIndex == key.stopIndex
+                    && origin.equals(key.origin)
+                    && streetParameters.equals(key.streetParameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.opentripplanner.routing.algorithm.raptor.router.street;
+
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.edgetype.TemporaryEdge;
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.vertextype.TemporaryVertex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The street path from the origin of an access/egress search to a stop, without the states of the
+ * request that found it. The path only reference the permanent street graph, so it can be cached
+ * with GRAPH scope, see {@link AccessEgressCache}.
+ * <p>
+ * The temporary vertices and edges at the origin are created for each request, so the path start
+ * at the first permanent vertex. The states are rebuilt for each request by traversing the
+ * temporary edges of the request to the first permanent vertex, and then the edges of the path.
+ */
+public final class AccessEgressPath {
+
+    /** Limit the search through the temporary edges at the origin. */
+    private static final int MAX_TEMPORARY_EDGES = 4;
+
+    private final int stop;
+
+    /** The first permanent vertex of the path, in search order. */
+    private final Vertex entryVertex;
+
+    /** The edges from the entry vertex to the stop, in search order. */
+    private final Edge[] edges;
+
+    /** The mode used to traverse each edge, to select the same state when the traversal fork. */
+    private final TraverseMode[] modes;
+
+    AccessEgressPath(int stop, Vertex entryVertex, Edge[] edges, TraverseMode[] modes) {
+        this.stop = stop;
+        this.entryVertex = entryVertex;
+        this.edges = edges;
+        this.modes = modes;
+    }
+
+    /**
+     * Create a path from the state of a street search reaching the stop. The state must be in
+     * search order - not reversed.
+     *
+     * @return {@code null} if the path use temporary edges after the first permanent vertex, the
+     * path can not be rebuilt by other requests.
+     */
+    public static AccessEgressPath of(int stop, State state) {
+        List<State> states = new ArrayList<>();
+        for (State s = state; s != null; s = s.getBackState()) {
+            states.add(s);
+        }
+        Collections.reverse(states);
+
+        int entry = 0;
+        while (entry < states.size() && states.get(entry).getVertex() instanceof TemporaryVertex) {
+            ++entry;
+        }
+        if (entry == states.size()) { return null; }
+
+        int n = states.size() - entry - 1;
+        Edge[] edges = new Edge[n];
+        TraverseMode[] modes = new TraverseMode[n];
+        for (int i = 0; i < n; ++i) {
+            State s = states.get(entry + i + 1);
+            if (s.getBackEdge() instanceof TemporaryEdge) { return null; }
+            edges[i] = s.getBackEdge();
+            modes[i] = s.getBackMode();
+        }
+        return new AccessEgressPath(stop, states.get(entry).getVertex(), edges, modes);
+    }
+
+    /** The Raptor stop index of the stop. */
+    public int stop() {
+        return stop;
+    }
+
+    /**
+     * Traverse the path from one of the origin vertices, using the given request. The request
+     * routing context must be set up for the search, the same way as for the street search.
+     *
+     * @return the state at the stop, in search order, or {@code null} if the path can not be
+     * traversed.
+     */
+    public State rebuild(RoutingRequest request, Set<Vertex> originVertices) {
+        for (Vertex origin : originVertices) {
+            State s = traverseToEntryVertex(new State(origin, request), 0);
+            if (s == null) { continue; }
+            s = traverseEdges(s);
+            if (s != null) { return s; }
+        }
+        return null;
+    }
+
+    private State traverseToEntryVertex(State s, int depth) {
+        Vertex v = s.getVertex();
+        if (v == entryVertex) { return s; }
+        if (!(v instanceof TemporaryVertex) || depth == MAX_TEMPORARY_EDGES) { return null; }
+
+        RoutingRequest request = s.getOptions();
+        Collection<Edge> next = request.arriveBy
+                ? request.rctx.temporaryEdges.getIncoming(v)
+                : request.rctx.temporaryEdges.getOutgoing(v);
+
+        for (Edge e : next) {
+            if (!(e instanceof TemporaryEdge)) { continue; }
+            for (State r = e.traverse(s); r != null; r = r.getNextResult()) {
+                State result = traverseToEntryVertex(r, depth + 1);
+                if (result != null) { return result; }
+            }
+        }
+        return null;
+    }
+
+    private State traverseEdges(State s) {
+        for (int i = 0; i < edges.length && s != null; ++i) {
+            State r = edges[i].traverse(s);
+            while (r != null && !Objects.equals(r.getBackMode(), modes[i])) {
+                r = r.getNextResult();
+            }
+            s = r;
+        }
+        return s;
+    }
+}
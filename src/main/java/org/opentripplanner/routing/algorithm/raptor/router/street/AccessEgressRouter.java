@@ -4,6 +4,8 @@ import org.opentripplanner.graph_builder.module.NearbyStopFinder;
 import org.opentripplanner.routing.algorithm.raptor.transit.AccessEgress;
 import org.opentripplanner.routing.algorithm.raptor.transit.StopIndexForRaptor;
 import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.core.State;
 import org.opentripplanner.routing.graph.Vertex;
 import org.opentripplanner.routing.graphfinder.StopAtDistance;
 import org.slf4j.Logger;
@@ -28,13 +30,15 @@ public class AccessEgressRouter {
      * @param fromTarget whether to route from or towards the point provided in the routing request
      *                   (access or egress)
      * @param distanceMeters the maximum street distance to search for access/egress stops
+     * @param cache the cache to use for the street search results, may be {@code null}
      * @return Transfer objects by access/egress stop
      */
     public static Collection<AccessEgress> streetSearch (
         RoutingRequest rr,
         boolean fromTarget,
         int distanceMeters,
-        StopIndexForRaptor stopIndex
+        StopIndexForRaptor stopIndex,
+        AccessEgressCache cache
     ) {
         // TODO OTP2 This has to be done because we have not separated the main RoutingRequest from
         //      the subrequest for street searches. From/to vertices are already set based on the main
@@ -43,34 +47,111 @@ public class AccessEgressRouter {
         //      main request.
         Set<Vertex> vertices = fromTarget ^ rr.arriveBy ? rr.rctx.toVertices : rr.rctx.fromVertices;
 
-        RoutingRequest nonTransitRoutingRequest = rr.getStreetSearchRequest(
-            fromTarget ? rr.modes.egressMode : rr.modes.accessMode
-        );
+        StreetMode streetMode = fromTarget ? rr.modes.egressMode : rr.modes.accessMode;
+        RoutingRequest nonTransitRoutingRequest = rr.getStreetSearchRequest(streetMode);
 
-        NearbyStopFinder nearbyStopFinder = new NearbyStopFinder(rr.rctx.graph, distanceMeters, true);
-        // We set removeTempEdges to false because this is a sub-request - the temporary edges for the origin and
-        // target vertex will be cleaned up at the end of the super-request, and we don't want that to happen twice.
-        List<StopAtDistance> stopAtDistanceList =
-                nearbyStopFinder.findNearbyStopsViaStreets(
-                    vertices,
-                    fromTarget,
-                    false,
-                    nonTransitRoutingRequest
-                );
+        AccessEgressCache.Key key = null;
+        List<AccessEgress> result = null;
 
-        Collection<AccessEgress> result = new ArrayList<>();
-        for (StopAtDistance stopAtDistance : stopAtDistanceList) {
-            result.add(
-                new AccessEgress(
-                    stopIndex.indexByStop.get(stopAtDistance.stop),
-                    (int)stopAtDistance.state.getElapsedTimeSeconds(),
-                    fromTarget ? stopAtDistance.state.reverse() : stopAtDistance.state
-                )
+        if (cache != null) {
+            key = AccessEgressCache.key(
+                vertices,
+                fromTarget,
+                streetMode,
+                distanceMeters,
+                stopIndex,
+                nonTransitRoutingRequest
             );
+            List<AccessEgressPath> paths = cache.get(key);
+            if (paths != null) {
+                result = rebuild(rr, fromTarget, vertices, nonTransitRoutingRequest, paths);
+            }
+        }
+
+        if (result == null) {
+            List<StopAtDistance> stopAtDistanceList = streetSearch(
+                rr,
+                fromTarget,
+                distanceMeters,
+                vertices,
+                nonTransitRoutingRequest
+            );
+            result = new ArrayList<>();
+            List<AccessEgressPath> paths = new ArrayList<>();
+            for (StopAtDistance stopAtDistance : stopAtDistanceList) {
+                int stop = stopIndex.indexByStop.get(stopAtDistance.stop);
+                result.add(accessEgress(stop, stopAtDistance.state, fromTarget));
+                if (cache != null) {
+                    paths.add(AccessEgressPath.of(stop, stopAtDistance.state));
+                }
+            }
+            // Do not cache the result if one of the paths can not be rebuilt
+            if (cache != null && !paths.contains(null)) {
+                cache.put(key, paths);
+            }
         }
 
         LOG.debug("Found {} {} stops", result.size(), fromTarget ? "egress" : "access");
 
         return result;
     }
+
+    private static List<StopAtDistance> streetSearch(
+        RoutingRequest rr,
+        boolean fromTarget,
+        int distanceMeters,
+        Set<Vertex> vertices,
+        RoutingRequest nonTransitRoutingRequest
+    ) {
+        NearbyStopFinder nearbyStopFinder = new NearbyStopFinder(rr.rctx.graph, distanceMeters, true);
+        // We set removeTempEdges to false because this is a sub-request - the temporary edges for the origin and
+        // target vertex will be cleaned up at the end of the super-request, and we don't want that to happen twice.
+        return nearbyStopFinder.findNearbyStopsViaStreets(
+            vertices,
+            fromTarget,
+            false,
+            nonTransitRoutingRequest
+        );
+    }
+
+    /**
+     * Create the states of the cached paths for this request. The routing context is set up the
+     * same way as for the street search.
+     *
+     * @return {@code null} if one of the paths can not be traversed, the street search must be
+     * performed.
+     */
+    private static List<AccessEgress> rebuild(
+        RoutingRequest rr,
+        boolean fromTarget,
+        Set<Vertex> vertices,
+        RoutingRequest nonTransitRoutingRequest,
+        List<AccessEgressPath> paths
+    ) {
+        nonTransitRoutingRequest.arriveBy = fromTarget;
+        if (!fromTarget) {
+            nonTransitRoutingRequest.setRoutingContext(rr.rctx.graph, vertices, null);
+        } else {
+            nonTransitRoutingRequest.setRoutingContext(rr.rctx.graph, null, vertices);
+        }
+        List<AccessEgress> result = new ArrayList<>(paths.size());
+        for (AccessEgressPath path : paths) {
+            State state = path.rebuild(nonTransitRoutingRequest, vertices);
+            if (state == null) {
+                LOG.warn("Failed to rebuild cached {} path, the street search is performed.",
+                    fromTarget ? "egress" : "access");
+                return null;
+            }
+            result.add(accessEgress(path.stop(), state, fromTarget));
+        }
+        return result;
+    }
+
+    private static AccessEgress accessEgress(int stop, State state, boolean fromTarget) {
+        return new AccessEgress(
+            stop,
+            (int) state.getElapsedTimeSeconds(),
+            fromTarget ? state.reverse() : state
+        );
+    }
 }
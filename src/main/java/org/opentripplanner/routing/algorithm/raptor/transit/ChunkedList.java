@@ -0,0 +1,140 @@
+package org.opentripplanner.routing.algorithm.raptor.transit;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list stored in fixed size chunks. A modified copy is created with a
+ * {@link Builder}, the copy shares all chunks that are not changed with the original list. This
+ * makes replacing a few elements in a large list cheap: only the array of chunk references and
+ * the changed chunks are copied.
+ * <p>
+ * The {@link TransitLayer} keeps the trip patterns for each date in a list like this, so a
+ * realtime update only copies the chunks containing the updated trip patterns.
+ * <p>
+ * This class is thread-safe, the builder is not.
+ */
+public final class ChunkedList<T> extends AbstractList<T> implements RandomAccess {
+
+  static final int CHUNK_SIZE = 64;
+
+  private static final ChunkedList<?> EMPTY = new ChunkedList<>(new Object[0][], 0);
+
+  private final Object[][] chunks;
+  private final int size;
+
+  private ChunkedList(Object[][] chunks, int size) {
+    this.chunks = chunks;
+    this.size = size;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <T> ChunkedList<T> empty() {
+    return (ChunkedList<T>) EMPTY;
+  }
+
+  /**
+   * Return the given collection if it is a chunked list, if not a chunked list with the same
+   * elements is created.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> ChunkedList<T> copyOf(Collection<? extends T> elements) {
+    if (elements instanceof ChunkedList) {
+      return (ChunkedList<T>) elements;
+    }
+    Builder<T> builder = ChunkedList.<T>empty().toBuilder();
+    for (T it : elements) {
+      builder.add(it);
+    }
+    return builder.build();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    return (T) chunks[index / CHUNK_SIZE][index % CHUNK_SIZE];
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /** Create a builder for a modified copy of this list. This list is not changed. */
+  public Builder<T> toBuilder() {
+    return new Builder<>(this);
+  }
+
+  public static class Builder<T> {
+    private Object[][] chunks;
+    private int size;
+
+    /** The chunks array and the chunks copied by this builder can be modified in place. */
+    private boolean chunksOwned = false;
+    private boolean[] owned;
+    private int chunksCopied = 0;
+
+    private Builder(ChunkedList<T> original) {
+      this.chunks = original.chunks;
+      this.size = original.size;
+      this.owned = new boolean[chunks.length];
+    }
+
+    public Builder<T> set(int index, T value) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      }
+      ownedChunk(index / CHUNK_SIZE)[index % CHUNK_SIZE] = value;
+      return this;
+    }
+
+    public Builder<T> add(T value) {
+      int c = size / CHUNK_SIZE;
+      if (c == chunks.length) {
+        chunks = Arrays.copyOf(chunks, Math.max(4, 2 * chunks.length));
+        owned = Arrays.copyOf(owned, chunks.length);
+        chunksOwned = true;
+      }
+      if (chunks[c] == null) {
+        chunks[c] = new Object[CHUNK_SIZE];
+        owned[c] = true;
+      }
+      ownedChunk(c)[size % CHUNK_SIZE] = value;
+      ++size;
+      return this;
+    }
+
+    /** The number of existing chunks copied so far, the cost of the modifications. */
+    public int chunksCopied() {
+      return chunksCopied;
+    }
+
+    /**
+     * Create the modified list. The builder must not be used after this, the new list share the
+     * chunks with the builder.
+     */
+    public ChunkedList<T> build() {
+      int n = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+      Object[][] result = chunks.length == n ? chunks : Arrays.copyOf(chunks, n);
+      return new ChunkedList<>(result, size);
+    }
+
+    private Object[] ownedChunk(int c) {
+      if (!owned[c]) {
+        if (!chunksOwned) {
+          chunks = chunks.clone();
+          chunksOwned = true;
+        }
+        chunks[c] = chunks[c].clone();
+        owned[c] = true;
+        ++chunksCopied;
+      }
+      return chunks[c];
+    }
+  }
+}
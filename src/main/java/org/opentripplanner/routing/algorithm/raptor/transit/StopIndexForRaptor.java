@@ -6,6 +6,7 @@ import org.opentripplanner.transit.raptor.api.transit.RaptorCostConverter;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -21,6 +22,12 @@ import java.util.Map;
  * stops, it does not need to. The returned itineraries from Raptor contain stop indexes, not
  * references to stops, so OTP must maintain the stop index.
  * <p>
+ * If {@link TransitTuningParameters#localityAwareStopIndex()} is enabled the stops are ordered
+ * along a Hilbert space-filling curve, so stops close to each other, like the stops of a station
+ * or the consecutive stops of a pattern, get close indexes. The arrays Raptor index by stop are
+ * then accessed in a more cache friendly order. The stops are mapped to and from the index with
+ * {@link #stopsByIndex} and {@link #indexByStop} in both cases.
+ * <p>
  * The index also holds a pre-calculated board/alight cost for each stop used by Raptor during
  * routing.
  * <p>
@@ -28,12 +35,17 @@ import java.util.Map;
  * stored in the {@link TransitLayer}.
  */
 public class StopIndexForRaptor {
+    /** The number of bits per axis of the Hilbert curve, the grid is 2^16 x 2^16 cells. */
+    private static final int HILBERT_ORDER = 16;
+
     public final List<Stop> stopsByIndex;
     public final Map<Stop, Integer> indexByStop = new HashMap<>();
     public final int[] stopBoardAlightCosts;
 
     public StopIndexForRaptor(Collection<Stop> stops, TransitTuningParameters tuningParameters) {
-        this.stopsByIndex = new ArrayList<>(stops);
+        this.stopsByIndex = tuningParameters.localityAwareStopIndex()
+                ? sortAlongHilbertCurve(stops)
+                : new ArrayList<>(stops);
         initializeIndexByStop();
         this.stopBoardAlightCosts = createStopBoardAlightCosts(stopsByIndex, tuningParameters);
     }
@@ -59,6 +71,61 @@ public class StopIndexForRaptor {
         return stopIndex;
     }
 
+    /**
+     * Sort the stops by their position along a Hilbert curve covering the bounding box of the
+     * stops. Stops in the same cell keep their original order.
+     */
+    static List<Stop> sortAlongHilbertCurve(Collection<Stop> stops) {
+        List<Stop> result = new ArrayList<>(stops);
+        if (result.size() < 2) {
+            return result;
+        }
+        double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+        double minLon = Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
+        for (Stop it : result) {
+            minLat = Math.min(minLat, it.getLat());
+            maxLat = Math.max(maxLat, it.getLat());
+            minLon = Math.min(minLon, it.getLon());
+            maxLon = Math.max(maxLon, it.getLon());
+        }
+        int cells = 1 << HILBERT_ORDER;
+        double latScale = (cells - 1) / Math.max(maxLat - minLat, 1e-9);
+        double lonScale = (cells - 1) / Math.max(maxLon - minLon, 1e-9);
+
+        Map<Stop, Long> keys = new HashMap<>();
+        for (Stop it : result) {
+            int x = (int) ((it.getLon() - minLon) * lonScale);
+            int y = (int) ((it.getLat() - minLat) * latScale);
+            keys.put(it, hilbertIndex(cells, x, y));
+        }
+        result.sort(Comparator.comparing(keys::get));
+        return result;
+    }
+
+    /**
+     * The distance along a Hilbert curve filling a {@code n x n} grid, {@code n} is a power of
+     * two, for the cell {@code (x, y)}.
+     */
+    static long hilbertIndex(int n, int x, int y) {
+        long d = 0;
+        for (int s = n / 2; s > 0; s /= 2) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ ry);
+            // Rotate the quadrant
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = s - 1 - x;
+                    y = s - 1 - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return d;
+    }
+
     /**
      * Create static board/alight cost for Raptor to include for each stop.
      */
@@ -1,13 +1,16 @@
 package org.opentripplanner.routing.algorithm.raptor.transit;
 
 import org.opentripplanner.model.Stop;
+import org.opentripplanner.routing.algorithm.raptor.transit.request.RaptorRoutingRequestTransitDataCache;
 
+import javax.annotation.Nullable;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -18,6 +21,13 @@ public class TransitLayer {
    */
   private final HashMap<LocalDate, List<TripPatternForDate>> tripPatternsForDate;
 
+  /**
+   * The range of dates kept in {@link #tripPatternsForDate}, dates outside the window are mapped
+   * on demand. If {@code null} all service dates are mapped when the transit layer is created.
+   */
+  @Nullable
+  private final TripPatternForDateWindow window;
+
   /**
    * Index of outer list is from stop index, inner list index has no specific meaning. To stop index
    * is a field of the Transfer object.
@@ -31,6 +41,12 @@ public class TransitLayer {
 
   private final ZoneId transitDataZoneId;
 
+  /**
+   * Cache for request data derived from this transit layer. A copy of the transit layer get a new
+   * empty cache.
+   */
+  private final RaptorRoutingRequestTransitDataCache requestTransitDataCache;
+
   /**
    * Makes a shallow copy of the TransitLayer, except for the tripPatternsForDate, where a shallow
    * copy of the HashMap is made. This is sufficient, as the TransitLayerUpdater will replace
@@ -41,7 +57,8 @@ public class TransitLayer {
         transitLayer.tripPatternsForDate,
         transitLayer.transferByStopIndex,
         transitLayer.stopIndex,
-        transitLayer.transitDataZoneId
+        transitLayer.transitDataZoneId,
+        transitLayer.window
     );
   }
 
@@ -50,11 +67,23 @@ public class TransitLayer {
       List<List<Transfer>> transferByStopIndex,
       StopIndexForRaptor stopIndex,
       ZoneId transitDataZoneId
+  ) {
+    this(tripPatternsForDate, transferByStopIndex, stopIndex, transitDataZoneId, null);
+  }
+
+  public TransitLayer(
+      Map<LocalDate, List<TripPatternForDate>> tripPatternsForDate,
+      List<List<Transfer>> transferByStopIndex,
+      StopIndexForRaptor stopIndex,
+      ZoneId transitDataZoneId,
+      @Nullable TripPatternForDateWindow window
   ) {
     this.tripPatternsForDate = new HashMap<>(tripPatternsForDate);
+    this.window = window;
     this.transferByStopIndex = transferByStopIndex;
     this.stopIndex = stopIndex;
     this.transitDataZoneId = transitDataZoneId;
+    this.requestTransitDataCache = new RaptorRoutingRequestTransitDataCache(this);
   }
 
   /**
@@ -75,8 +104,13 @@ public class TransitLayer {
     return this.stopIndex;
   }
 
+  /**
+   * Return the trip patterns running on the given date. If the date is outside the window of
+   * this transit layer, the trip patterns are mapped on demand.
+   */
   public Collection<TripPatternForDate> getTripPatternsForDate(LocalDate date) {
-    return tripPatternsForDate.getOrDefault(date, Collections.emptyList());
+    List<TripPatternForDate> tripPatterns = getTripPatternsForDateOrNull(date);
+    return tripPatterns != null ? tripPatterns : Collections.emptyList();
   }
 
   /**
@@ -95,22 +129,85 @@ public class TransitLayer {
   }
 
   public List<TripPatternForDate> getTripPatternsForDateCopy(LocalDate date) {
-    List<TripPatternForDate> tripPatternForDate = tripPatternsForDate.get(date);
-    return tripPatternForDate != null ? new ArrayList<>(tripPatternsForDate.get(date)) : null;
+    List<TripPatternForDate> tripPatternForDate = getTripPatternsForDateOrNull(date);
+    return tripPatternForDate != null ? new ArrayList<>(tripPatternForDate) : null;
   }
 
   public List<List<Transfer>> getTransferByStopIndex() {
     return this.transferByStopIndex;
   }
 
+  public RaptorRoutingRequestTransitDataCache getRequestTransitDataCache() {
+    return requestTransitDataCache;
+  }
+
+  @Nullable
+  public TripPatternForDateWindow getWindow() {
+    return window;
+  }
+
   /**
    * Replaces all the TripPatternForDates for a single date. This is an atomic operation according
-   * to the HashMap implementation.
+   * to the HashMap implementation. The request transit data cache is cleared.
+   * <p>
+   * If this transit layer has a window, a date outside the window is added, so the update is
+   * kept until the date is in the past.
    */
   public void replaceTripPatternsForDate(
       LocalDate date,
       List<TripPatternForDate> tripPatternForDates
   ) {
-    this.tripPatternsForDate.replace(date, tripPatternForDates);
+    if (window == null) {
+      this.tripPatternsForDate.replace(date, tripPatternForDates);
+    }
+    else {
+      this.tripPatternsForDate.put(date, tripPatternForDates);
+    }
+    this.requestTransitDataCache.clear();
+  }
+
+  /**
+   * Move the window of this transit layer to the given date. Dates before the window are removed
+   * and the missing dates inside the window are mapped. Like {@link #replaceTripPatternsForDate},
+   * this should only be called on a copy of the transit layer that is not yet published.
+   *
+   * @return the removed dates.
+   */
+  public List<LocalDate> slideWindow(LocalDate today) {
+    if (window == null) {
+      throw new IllegalStateException("The transit layer does not have a window.");
+    }
+    LocalDate firstDate = window.firstDate(today);
+    LocalDate lastDate = window.lastDate(today);
+    List<LocalDate> removedDates = new ArrayList<>();
+
+    Iterator<LocalDate> it = tripPatternsForDate.keySet().iterator();
+    while (it.hasNext()) {
+      LocalDate date = it.next();
+      if (date.isBefore(firstDate)) {
+        removedDates.add(date);
+        it.remove();
+      }
+    }
+    for (LocalDate date = firstDate; !date.isAfter(lastDate); date = date.plusDays(1)) {
+      if (!tripPatternsForDate.containsKey(date)) {
+        tripPatternsForDate.put(date, window.get(date));
+      }
+    }
+    this.requestTransitDataCache.clear();
+    return removedDates;
+  }
+
+  /**
+   * Return the trip patterns running on the given date, without copying the list, or
+   * {@code null} if the date is not part of this transit layer. The list must not be modified.
+   */
+  @Nullable
+  public List<TripPatternForDate> getTripPatternsForDateOrNull(LocalDate date) {
+    List<TripPatternForDate> tripPatterns = tripPatternsForDate.get(date);
+    if (tripPatterns == null && window != null) {
+      tripPatterns = window.get(date);
+    }
+    return tripPatterns;
   }
 }
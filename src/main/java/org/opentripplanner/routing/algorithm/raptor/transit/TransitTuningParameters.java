@@ -39,4 +39,30 @@ public interface TransitTuningParameters {
    * boarding and alighting all stops with the given priority.
    */
   Integer stopTransferCost(TransferPriority key);
+
+  /**
+   * The number of days before today to keep in the transit layer, when
+   * {@link #transitLayerDaysAfterToday()} is set. Requests search one day before the search
+   * date, so this should be at least 1.
+   */
+  default int transitLayerDaysBeforeToday() { return 1; }
+
+  /**
+   * The number of days after today to keep in the transit layer. Other dates are mapped on
+   * demand when a request ask for them, and the window is moved forward every night. Use -1 to
+   * map all service dates when the transit layer is created.
+   */
+  default int transitLayerDaysAfterToday() { return -1; }
+
+  /**
+   * The maximum number of dates outside the transit layer window to keep in memory after they
+   * are mapped on demand.
+   */
+  default int transitLayerMaxOnDemandDates() { return 10; }
+
+  /**
+   * Return {@code true} to number the stops in the transit layer by location, so stops close to
+   * each other get close stop indexes in Raptor. See {@link StopIndexForRaptor}.
+   */
+  default boolean localityAwareStopIndex() { return false; }
 }
@@ -0,0 +1,124 @@
+package org.opentripplanner.routing.algorithm.raptor.transit;
+
+import org.opentripplanner.model.base.ToStringBuilder;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * The range of service dates kept in a {@link TransitLayer}, relative to today. Only the dates
+ * inside the window are mapped when the transit layer is created, and the window is moved
+ * forward once a day by the
+ * {@link org.opentripplanner.routing.algorithm.raptor.transit.mappers.TransitLayerUpdater}.
+ * <p>
+ * Dates outside the window are mapped on demand when a request ask for them. The on demand
+ * dates are kept in a small cache, when the cache is full the least recently used date is
+ * evicted.
+ * <p>
+ * The window is shared by all copies of a transit layer, including the realtime transit layer.
+ * The on demand dates are mapped from the scheduled timetables, so realtime updates are only
+ * visible for dates inside the window, or for dates added to the realtime transit layer by an
+ * update.
+ * <p>
+ * This class is thread-safe.
+ */
+public class TripPatternForDateWindow {
+
+  private final int daysBeforeToday;
+
+  private final int daysAfterToday;
+
+  private final int maxOnDemandDates;
+
+  /**
+   * Map all trip patterns running on the given date. The returned list is empty if there is no
+   * service on the date.
+   */
+  private final Function<LocalDate, List<TripPatternForDate>> mapper;
+
+  private final LinkedHashMap<LocalDate, List<TripPatternForDate>> onDemandDates =
+      new LinkedHashMap<>(16, 0.75f, true);
+
+  private final AtomicLong onDemandMisses = new AtomicLong();
+
+  /**
+   * @param daysBeforeToday  The number of days before today to keep in the transit layer.
+   * @param daysAfterToday   The number of days after today to keep in the transit layer.
+   * @param maxOnDemandDates The maximum number of dates outside the window to cache.
+   * @param mapper           Map all trip patterns running on a given date.
+   */
+  public TripPatternForDateWindow(
+      int daysBeforeToday,
+      int daysAfterToday,
+      int maxOnDemandDates,
+      Function<LocalDate, List<TripPatternForDate>> mapper
+  ) {
+    if (daysBeforeToday < 0 || daysAfterToday < 0) {
+      throw new IllegalArgumentException(
+          "The number of days before and after today must be zero or more."
+      );
+    }
+    this.daysBeforeToday = daysBeforeToday;
+    this.daysAfterToday = daysAfterToday;
+    this.maxOnDemandDates = maxOnDemandDates;
+    this.mapper = mapper;
+  }
+
+  /** The first date in the window. */
+  public LocalDate firstDate(LocalDate today) {
+    return today.minusDays(daysBeforeToday);
+  }
+
+  /** The last date in the window (inclusive). */
+  public LocalDate lastDate(LocalDate today) {
+    return today.plusDays(daysAfterToday);
+  }
+
+  /**
+   * Return the trip patterns for the given date, using the on demand cache. The mapping is
+   * done outside the cache lock, so two threads may map the same date at the same time.
+   */
+  public List<TripPatternForDate> get(LocalDate date) {
+    List<TripPatternForDate> result = getIfPresent(date);
+    if (result == null) {
+      onDemandMisses.incrementAndGet();
+      result = List.copyOf(mapper.apply(date));
+      put(date, result);
+    }
+    return result;
+  }
+
+  /** The number of dates mapped on demand since the window was created. */
+  public long onDemandMisses() {
+    return onDemandMisses.get();
+  }
+
+  @Override
+  public String toString() {
+    return ToStringBuilder.of(TripPatternForDateWindow.class)
+        .addNum("daysBeforeToday", daysBeforeToday)
+        .addNum("daysAfterToday", daysAfterToday)
+        .addNum("maxOnDemandDates", maxOnDemandDates)
+        .addNum("onDemandMisses", onDemandMisses())
+        .toString();
+  }
+
+  private synchronized List<TripPatternForDate> getIfPresent(LocalDate date) {
+    return onDemandDates.get(date);
+  }
+
+  private synchronized void put(LocalDate date, List<TripPatternForDate> value) {
+    onDemandDates.put(date, value);
+
+    // Evict the least recently used dates
+    Iterator<LocalDate> it = onDemandDates.keySet().iterator();
+    while (onDemandDates.size() > maxOnDemandDates && it.hasNext()) {
+      it.next();
+      it.remove();
+    }
+  }
+}
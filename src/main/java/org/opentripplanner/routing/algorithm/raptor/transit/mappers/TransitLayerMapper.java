@@ -1,5 +1,6 @@
 package org.opentripplanner.routing.algorithm.raptor.transit.mappers;
 
+import gnu.trove.set.TIntSet;
 import org.opentripplanner.model.Timetable;
 import org.opentripplanner.model.TripPattern;
 import org.opentripplanner.model.calendar.ServiceDate;
@@ -8,6 +9,7 @@ import org.opentripplanner.routing.algorithm.raptor.transit.Transfer;
 import org.opentripplanner.routing.algorithm.raptor.transit.TransitLayer;
 import org.opentripplanner.routing.algorithm.raptor.transit.TransitTuningParameters;
 import org.opentripplanner.routing.algorithm.raptor.transit.TripPatternForDate;
+import org.opentripplanner.routing.algorithm.raptor.transit.TripPatternForDateWindow;
 import org.opentripplanner.routing.algorithm.raptor.transit.TripPatternWithRaptorStopIndexes;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.trippattern.TripTimes;
@@ -34,6 +36,10 @@ import static org.opentripplanner.routing.algorithm.raptor.transit.mappers.TripP
  * only TripSchedules running on that particular date. This makes it faster to filter out
  * TripSchedules when doing Range Raptor searches.
  *
+ * If the {@link TransitTuningParameters#transitLayerDaysAfterToday()} is set, only the service
+ * dates inside the window around today are mapped, the other dates are mapped on demand by the
+ * {@link TripPatternForDateWindow}.
+ *
  * CONCURRENCY: This mapper run part of the mapping in parallel using parallel streams. This
  *              improve startup time on the Norwegian graph by 20 seconds; reducing the this
  *              mapper from 36 seconds to 15 seconds, and the total startup time from 80 seconds
@@ -57,11 +63,33 @@ public class TransitLayerMapper {
         StopIndexForRaptor stopIndex;
         HashMap<LocalDate, List<TripPatternForDate>> tripPatternsByStopByDate;
         List<List<Transfer>> transferByStopIndex;
+        TripPatternForDateWindow window = null;
 
         LOG.info("Mapping transitLayer from Graph...");
 
         stopIndex =  new StopIndexForRaptor(graph.index.getAllStops(), tuningParameters);
-        tripPatternsByStopByDate = mapTripPatterns(stopIndex);
+        TripPatternsForDateMapper tripPatternsMapper = new TripPatternsForDateMapper(stopIndex);
+        Set<ServiceDate> serviceDates = graph.index.getServiceCodesRunningForDate().keySet();
+
+        if (tuningParameters.transitLayerDaysAfterToday() >= 0) {
+            window = new TripPatternForDateWindow(
+                tuningParameters.transitLayerDaysBeforeToday(),
+                tuningParameters.transitLayerDaysAfterToday(),
+                tuningParameters.transitLayerMaxOnDemandDates(),
+                date -> tripPatternsMapper.map(new ServiceDate(date))
+            );
+            LocalDate today = LocalDate.now(graph.getTimeZone().toZoneId());
+            LocalDate firstDate = window.firstDate(today);
+            LocalDate lastDate = window.lastDate(today);
+            serviceDates = serviceDates.stream()
+                .filter(d -> {
+                    LocalDate date = ServiceCalendarMapper.localDateFromServiceDate(d);
+                    return !date.isBefore(firstDate) && !date.isAfter(lastDate);
+                })
+                .collect(Collectors.toSet());
+            LOG.info("Mapping trip patterns from {} to {}.", firstDate, lastDate);
+        }
+        tripPatternsByStopByDate = tripPatternsMapper.mapAll(serviceDates);
         transferByStopIndex = mapTransfers(stopIndex, graph.transfersByStop);
 
         LOG.info("Mapping complete.");
@@ -70,66 +98,94 @@ public class TransitLayerMapper {
             tripPatternsByStopByDate,
             transferByStopIndex,
             stopIndex,
-            graph.getTimeZone().toZoneId()
+            graph.getTimeZone().toZoneId(),
+            window
         );
     }
 
     /**
-     * Map pre-Raptor TripPatterns and Trips to the corresponding Raptor classes.
-     * <p>
-     * Part of this method runs IN PARALLEL.
-     * <p>
+     * Map pre-Raptor TripPatterns and Trips to the corresponding Raptor classes. The Raptor trip
+     * patterns are created once, and then used to map the {@link TripPatternForDate}s for each
+     * service date. The mapper is kept by the {@link TripPatternForDateWindow} to map dates on
+     * demand.
      */
-    private HashMap<LocalDate, List<TripPatternForDate>> mapTripPatterns (
-        StopIndexForRaptor stopIndex
-    ) {
-        Collection<TripPattern> allTripPatterns = graph.tripPatternForId.values();
-
-        final Map<TripPattern, TripPatternWithRaptorStopIndexes> newTripPatternForOld =
-            mapOldTripPatternToRaptorTripPattern(stopIndex, allTripPatterns);
-
-
-        TripPatternForDateMapper tripPatternForDateMapper = new TripPatternForDateMapper(
-            graph.index.getServiceCodesRunningForDate(),
-            newTripPatternForOld
-        );
-
-        Set<ServiceDate> allServiceDates = graph.index.getServiceCodesRunningForDate().keySet();
-
-        // The return value of this entire process.
-        ConcurrentHashMap<LocalDate, List<TripPatternForDate>> result = new ConcurrentHashMap<>();
-
-
-        // THIS CODE RUNS IN PARALLEL
-        allServiceDates
-            .parallelStream()
-            .forEach(serviceDate -> {
-                // Create LocalDate equivalent to the OTP/GTFS ServiceDate object, serving as the key of
-                // the return Map.
-                LocalDate localDate = ServiceCalendarMapper.localDateFromServiceDate(serviceDate);
-
-                // Create a List to hold the values for one entry in the return Map.
-                List<TripPatternForDate> values = new ArrayList<>();
-
-                // This nested loop could be quite inefficient.
-                // Maybe determine in advance which patterns are running on each service and day.
-                for (org.opentripplanner.model.TripPattern oldTripPattern : allTripPatterns) {
-                    TripPatternForDate tripPatternForDate =
-                        tripPatternForDateMapper.map(
-                            oldTripPattern.scheduledTimetable,
-                            serviceDate
-                    );
-                    if (tripPatternForDate != null) {
-                        values.add(tripPatternForDate);
+    private class TripPatternsForDateMapper {
+
+        private final Collection<TripPattern> allTripPatterns;
+
+        private final Map<ServiceDate, TIntSet> serviceCodesRunningForDate;
+
+        private final TripPatternForDateMapper tripPatternForDateMapper;
+
+        private TripPatternsForDateMapper(StopIndexForRaptor stopIndex) {
+            this.allTripPatterns = graph.tripPatternForId.values();
+            this.serviceCodesRunningForDate = graph.index.getServiceCodesRunningForDate();
+
+            final Map<TripPattern, TripPatternWithRaptorStopIndexes> newTripPatternForOld =
+                mapOldTripPatternToRaptorTripPattern(stopIndex, allTripPatterns);
+
+            this.tripPatternForDateMapper = new TripPatternForDateMapper(
+                serviceCodesRunningForDate,
+                newTripPatternForOld
+            );
+        }
+
+        /**
+         * Map the trip patterns for all the given service dates. Dates without any trip patterns
+         * are not included in the result.
+         * <p>
+         * Part of this method runs IN PARALLEL.
+         */
+        private HashMap<LocalDate, List<TripPatternForDate>> mapAll(
+            Collection<ServiceDate> serviceDates
+        ) {
+            // The return value of this entire process.
+            ConcurrentHashMap<LocalDate, List<TripPatternForDate>> result = new ConcurrentHashMap<>();
+
+            // THIS CODE RUNS IN PARALLEL
+            serviceDates
+                .parallelStream()
+                .forEach(serviceDate -> {
+                    // Create LocalDate equivalent to the OTP/GTFS ServiceDate object, serving as
+                    // the key of the return Map.
+                    LocalDate localDate = ServiceCalendarMapper.localDateFromServiceDate(serviceDate);
+
+                    List<TripPatternForDate> values = map(serviceDate);
+
+                    if (!values.isEmpty()) {
+                        result.put(localDate, values);
                     }
+                });
+            // END PARALLEL CODE
+
+            return new HashMap<>(result);
+        }
+
+        /**
+         * Map the trip patterns running on the given date. This method is THREAD SAFE.
+         */
+        private List<TripPatternForDate> map(ServiceDate serviceDate) {
+            // Create a List to hold the values for one entry in the return Map.
+            List<TripPatternForDate> values = new ArrayList<>();
+
+            if (!serviceCodesRunningForDate.containsKey(serviceDate)) {
+                return values;
+            }
+
+            // This nested loop could be quite inefficient.
+            // Maybe determine in advance which patterns are running on each service and day.
+            for (TripPattern oldTripPattern : allTripPatterns) {
+                TripPatternForDate tripPatternForDate =
+                    tripPatternForDateMapper.map(
+                        oldTripPattern.scheduledTimetable,
+                        serviceDate
+                );
+                if (tripPatternForDate != null) {
+                    values.add(tripPatternForDate);
                 }
-                if (!values.isEmpty()) {
-                    result.put(localDate, values);
-                }
-            });
-        // END PARALLEL CODE
-
-        return new HashMap<>(result);
+            }
+            return values;
+        }
     }
 
     // TODO We can save time by either pre-sorting these or use a sorting algorithm that is
@@ -0,0 +1,72 @@
+package org.opentripplanner.routing.algorithm.raptor.transit.mappers;
+
+import org.opentripplanner.model.base.ToStringBuilder;
+import org.opentripplanner.util.monitoring.DurationMetrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for the realtime updates applied by the {@link TransitLayerUpdater}, one update for
+ * each commit of the timetable snapshot. The counters are updated by the updater thread and may
+ * be read by any thread, a snapshot of the values is not guaranteed to be consistent. The metrics
+ * are logged by the updater at debug level.
+ */
+public class TransitLayerUpdateMetrics {
+
+  private final AtomicLong timetables = new AtomicLong();
+  private final AtomicLong patternsReplaced = new AtomicLong();
+  private final AtomicLong patternsAdded = new AtomicLong();
+  private final AtomicLong chunksCopied = new AtomicLong();
+  private final DurationMetrics updateTime = new DurationMetrics();
+
+  /** The number of updates applied. */
+  public long commits() {
+    return updateTime.count();
+  }
+
+  /** The total number of updated timetables. */
+  public long timetables() {
+    return timetables.get();
+  }
+
+  /** The total number of trip patterns replaced. */
+  public long patternsReplaced() {
+    return patternsReplaced.get();
+  }
+
+  /** The total number of trip patterns added, trip patterns created by realtime updates. */
+  public long patternsAdded() {
+    return patternsAdded.get();
+  }
+
+  /** The total number of trip pattern list chunks copied, a measure of the garbage created. */
+  public long chunksCopied() {
+    return chunksCopied.get();
+  }
+
+  /** The time used to apply the updates. */
+  public DurationMetrics updateTime() {
+    return updateTime;
+  }
+
+  @Override
+  public String toString() {
+    return ToStringBuilder.of(TransitLayerUpdateMetrics.class)
+        .addNum("timetables", timetables())
+        .addNum("patternsReplaced", patternsReplaced())
+        .addNum("patternsAdded", patternsAdded())
+        .addNum("chunksCopied", chunksCopied())
+        .addObj("updateTime", updateTime)
+        .toString();
+  }
+
+  /* package local methods used by the updater */
+
+  void commit(int timetables, int replaced, int added, int chunksCopied, long timeMillis) {
+    this.timetables.addAndGet(timetables);
+    this.patternsReplaced.addAndGet(replaced);
+    this.patternsAdded.addAndGet(added);
+    this.chunksCopied.addAndGet(chunksCopied);
+    this.updateTime.record(timeMillis);
+  }
+}
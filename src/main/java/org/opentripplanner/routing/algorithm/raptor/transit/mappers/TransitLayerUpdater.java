@@ -5,6 +5,7 @@ import com.google.common.collect.Multimaps;
 import gnu.trove.set.TIntSet;
 import org.opentripplanner.model.Timetable;
 import org.opentripplanner.model.calendar.ServiceDate;
+import org.opentripplanner.routing.algorithm.raptor.transit.ChunkedList;
 import org.opentripplanner.routing.algorithm.raptor.transit.TransitLayer;
 import org.opentripplanner.routing.algorithm.raptor.transit.TripPatternWithRaptorStopIndexes;
 import org.opentripplanner.routing.algorithm.raptor.transit.TripPatternForDate;
@@ -13,8 +14,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,8 +26,13 @@ import static org.opentripplanner.routing.algorithm.raptor.transit.mappers.TripP
  * Update the TransitLayer from a set of TimeTables. A shallow copy is made of the TransitLayer
  * (this also includes a shallow copy of the TripPatternsForDate map). TripPatterns are matched on
  * id and replaced by their updated versions. The realtime TransitLayer is then switched out
- * with the updated copy in an atomic operation. This ensures that any TransitLayer that is
+ * with the updated copy in an atomic operation, exactly once for each commit of the timetable
+ * snapshot, whatever the number of updated dates. This ensures that any TransitLayer that is
  * referenced from the Graph is never changed.
+ * <p>
+ * The trip patterns for each updated date are kept in a {@link ChunkedList}, and the position of
+ * each trip pattern in the list is cached. An update only copies the chunks containing the updated
+ * trip patterns, the rest is shared with the previous TransitLayer.
  */
 public class TransitLayerUpdater {
 
@@ -39,11 +43,14 @@ public class TransitLayerUpdater {
   private final Map<ServiceDate, TIntSet> serviceCodesRunningForDate;
 
   /**
-   * Cache the TripPatternForDates indexed on the original TripPatterns in order to avoid
-   * this expensive operation being done each time the update method is called.
+   * Cache the position of each TripPatternForDate in the list for each date, indexed on the
+   * original TripPatterns, in order to avoid this expensive operation being done each time the
+   * update method is called. The lists only grow, so the positions stay valid.
    */
-  private final Map<LocalDate, Map<org.opentripplanner.model.TripPattern, TripPatternForDate>>
-                tripPatternForDateMapCache = new HashMap<>();
+  private final Map<LocalDate, Map<org.opentripplanner.model.TripPattern, Integer>>
+                tripPatternPositionCache = new HashMap<>();
+
+  private final TransitLayerUpdateMetrics metrics = new TransitLayerUpdateMetrics();
 
   public TransitLayerUpdater(
       Graph graph,
@@ -53,15 +60,19 @@ public class TransitLayerUpdater {
     this.serviceCodesRunningForDate = serviceCodesRunningForDate;
   }
 
+  public TransitLayerUpdateMetrics getMetrics() {
+    return metrics;
+  }
+
   public void update(Set<Timetable> updatedTimetables) {
     if (!graph.hasRealtimeTransitLayer()) { return; }
 
+    long startTime = System.currentTimeMillis();
+
     // Make a shallow copy of the realtime transit layer. Only the objects that are copied will be
     // changed during this update process.
     TransitLayer realtimeTransitLayer = new TransitLayer(graph.getRealtimeTransitLayer());
 
-    double startTime = System.currentTimeMillis();
-
     // Map TripPatterns for this update to Raptor TripPatterns
     final Map<org.opentripplanner.model.TripPattern, TripPatternWithRaptorStopIndexes>
         newTripPatternForOld = mapOldTripPatternToRaptorTripPattern(
@@ -82,45 +93,102 @@ public class TransitLayerUpdater {
         t -> ServiceCalendarMapper.localDateFromServiceDate(t.serviceDate)
     );
 
-    for (LocalDate date : timetablesByDate.keySet()) {
-      Collection<Timetable> timetablesForDate = timetablesByDate.get(date);
+    int replaced = 0;
+    int added = 0;
+    int chunksCopied = 0;
 
+    for (LocalDate date : timetablesByDate.keySet()) {
       List<TripPatternForDate> patternsForDate =
-          realtimeTransitLayer.getTripPatternsForDateCopy(date);
+          realtimeTransitLayer.getTripPatternsForDateOrNull(date);
 
       if (patternsForDate == null) {
         continue;
       }
 
-      Map<org.opentripplanner.model.TripPattern, TripPatternForDate> patternsForDateMap =
-          tripPatternForDateMapCache.computeIfAbsent(date, p -> patternsForDate
-          .stream()
-          .collect(Collectors.toMap(t -> t.getTripPattern().getPattern(), t -> t)));
+      ChunkedList<TripPatternForDate> current = ChunkedList.copyOf(patternsForDate);
+      Map<org.opentripplanner.model.TripPattern, Integer> positions =
+          tripPatternPositionCache.computeIfAbsent(date, d -> indexPositions(current));
+      ChunkedList.Builder<TripPatternForDate> builder = current.toBuilder();
+      int size = current.size();
 
-      for (Timetable timetable : timetablesForDate) {
+      for (Timetable timetable : timetablesByDate.get(date)) {
         TripPatternForDate tripPatternForDate = tripPatternForDateMapper.map(
             timetable,
             timetable.serviceDate
         );
-        if (tripPatternForDate != null) {
-          patternsForDateMap.put(timetable.pattern, tripPatternForDate);
+        if (tripPatternForDate == null) {
+          continue;
+        }
+        Integer position = positions.get(timetable.pattern);
+        if (position != null) {
+          builder.set(position, tripPatternForDate);
+          ++replaced;
+        }
+        else {
+          positions.put(timetable.pattern, size++);
+          builder.add(tripPatternForDate);
+          ++added;
         }
       }
+      chunksCopied += builder.chunksCopied();
+      realtimeTransitLayer.replaceTripPatternsForDate(date, builder.build());
+    }
+
+    // Switch out the reference with the updated realtimeTransitLayer. This is synchronized to
+    // guarantee that the reference is set after all the fields have been updated.
+    graph.setRealtimeTransitLayer(realtimeTransitLayer);
+
+    long time = System.currentTimeMillis() - startTime;
+    metrics.commit(updatedTimetables.size(), replaced, added, chunksCopied, time);
+
+    LOG.debug(
+        "UPDATING {} tripPatterns on {} dates took {} ms: {} replaced, {} added, {} chunks copied. {}",
+        updatedTimetables.size(),
+        timetablesByDate.keySet().size(),
+        time,
+        replaced,
+        added,
+        chunksCopied,
+        metrics
+    );
+  }
+
+  /**
+   * Move the window of the scheduled and the realtime transit layer to the given date, see
+   * {@link TransitLayer#slideWindow(LocalDate)}. New copies of the transit layers are published,
+   * so this must run in the same thread as the realtime updates.
+   */
+  public void slideWindow(LocalDate today) {
+    if (graph.getTransitLayer() == null || graph.getTransitLayer().getWindow() == null) {
+      return;
+    }
+    double startTime = System.currentTimeMillis();
 
-      realtimeTransitLayer.replaceTripPatternsForDate(
-          date,
-          new ArrayList<>(patternsForDateMap.values())
-      );
+    TransitLayer transitLayer = new TransitLayer(graph.getTransitLayer());
+    transitLayer.slideWindow(today);
+    graph.setTransitLayer(transitLayer);
 
-      // Switch out the reference with the updated realtimeTransitLayer. This is synchronized to
-      // guarantee that the reference is set after all the fields have been updated.
+    if (graph.hasRealtimeTransitLayer()) {
+      TransitLayer realtimeTransitLayer = new TransitLayer(graph.getRealtimeTransitLayer());
+      List<LocalDate> removedDates = realtimeTransitLayer.slideWindow(today);
+      tripPatternPositionCache.keySet().removeAll(removedDates);
       graph.setRealtimeTransitLayer(realtimeTransitLayer);
+    }
+
+    LOG.info(
+        "Moved transit layer window to {}, took {} ms",
+        today,
+        System.currentTimeMillis() - startTime
+    );
+  }
 
-      LOG.debug(
-          "UPDATING {} tripPatterns took {} ms",
-          updatedTimetables.size(),
-          System.currentTimeMillis() - startTime
-      );
+  private static Map<org.opentripplanner.model.TripPattern, Integer> indexPositions(
+      List<TripPatternForDate> patternsForDate
+  ) {
+    Map<org.opentripplanner.model.TripPattern, Integer> positions = new HashMap<>();
+    for (int i = 0; i < patternsForDate.size(); ++i) {
+      positions.put(patternsForDate.get(i).getTripPattern().getPattern(), i);
     }
+    return positions;
   }
 }
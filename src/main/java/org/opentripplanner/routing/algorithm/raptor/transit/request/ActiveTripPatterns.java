@@ -0,0 +1,79 @@
+package org.opentripplanner.routing.algorithm.raptor.transit.request;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The trip patterns active in the search date range. Each pattern is given a dense integer index
+ * from {@code 0} to {@code numberOfPatterns() - 1}, and for each stop the patterns visiting the
+ * stop are listed by pattern index in increasing order. This allow the route iterator to mark the
+ * patterns visited in a {@link java.util.BitSet}, instead of collecting pattern objects in a hash
+ * set.
+ * <p>
+ * This class is immutable and shared between requests, see
+ * {@link RaptorRoutingRequestTransitDataCache}.
+ */
+public class ActiveTripPatterns {
+
+  private static final int[] EMPTY = new int[0];
+
+  private final TripPatternForDates[] patterns;
+
+  private final int[][] patternIndexesByStop;
+
+  ActiveTripPatterns(List<TripPatternForDates> patterns, int numberOfStops) {
+    this.patterns = patterns.toArray(new TripPatternForDates[0]);
+    this.patternIndexesByStop = createPatternIndexesByStop(this.patterns, numberOfStops);
+  }
+
+  public int numberOfPatterns() {
+    return patterns.length;
+  }
+
+  public TripPatternForDates pattern(int patternIndex) {
+    return patterns[patternIndex];
+  }
+
+  /**
+   * The indexes of all patterns visiting the given stop, in increasing order.
+   */
+  public int[] patternIndexesForStop(int stopIndex) {
+    return patternIndexesByStop[stopIndex];
+  }
+
+  private static int[][] createPatternIndexesByStop(
+      TripPatternForDates[] patterns,
+      int numberOfStops
+  ) {
+    int[] size = new int[numberOfStops];
+    int[] lastPatternAdded = new int[numberOfStops];
+
+    // Count the patterns for each stop, a pattern visiting the same stop twice is counted once
+    Arrays.fill(lastPatternAdded, -1);
+    for (int p = 0; p < patterns.length; ++p) {
+      for (int stop : patterns[p].getTripPattern().getStopIndexes()) {
+        if (lastPatternAdded[stop] != p) {
+          lastPatternAdded[stop] = p;
+          ++size[stop];
+        }
+      }
+    }
+
+    int[][] result = new int[numberOfStops][];
+    for (int stop = 0; stop < numberOfStops; ++stop) {
+      result[stop] = size[stop] == 0 ? EMPTY : new int[size[stop]];
+      size[stop] = 0;
+    }
+
+    Arrays.fill(lastPatternAdded, -1);
+    for (int p = 0; p < patterns.length; ++p) {
+      for (int stop : patterns[p].getTripPattern().getStopIndexes()) {
+        if (lastPatternAdded[stop] != p) {
+          lastPatternAdded[stop] = p;
+          result[stop][size[stop]++] = p;
+        }
+      }
+    }
+    return result;
+  }
+}
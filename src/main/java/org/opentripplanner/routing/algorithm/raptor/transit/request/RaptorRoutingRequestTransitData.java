@@ -5,13 +5,12 @@ import org.opentripplanner.routing.algorithm.raptor.transit.TransitLayer;
 import org.opentripplanner.routing.algorithm.raptor.transit.TripSchedule;
 import org.opentripplanner.model.TransitMode;
 import org.opentripplanner.transit.raptor.api.transit.IntIterator;
-import org.opentripplanner.transit.raptor.api.transit.RaptorRoute;
+import org.opentripplanner.transit.raptor.api.transit.RaptorRouteIterator;
 import org.opentripplanner.transit.raptor.api.transit.RaptorTransfer;
 import org.opentripplanner.transit.raptor.api.transit.RaptorTransitDataProvider;
 
 import java.time.Instant;
 import java.time.ZonedDateTime;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -21,15 +20,18 @@ import java.util.Set;
  * This is the data provider for the Range Raptor search engine. It uses data from the TransitLayer,
  * but filters it by dates and modes per request. Transfers durations are pre-calculated per request
  * based on walk speed.
+ * <p>
+ * The filtered trip patterns and the transfers are cached in the
+ * {@link RaptorRoutingRequestTransitDataCache} of the TransitLayer and shared between requests.
  */
 public class RaptorRoutingRequestTransitData implements RaptorTransitDataProvider<TripSchedule> {
 
   private final TransitLayer transitLayer;
 
   /**
-   * Active trip patterns by stop index
+   * Active trip patterns, with the patterns by stop index
    */
-  private final List<List<TripPatternForDates>> activeTripPatternsPerStop;
+  private final ActiveTripPatterns activeTripPatterns;
 
   /**
    * Transfers by stop index
@@ -56,15 +58,26 @@ public class RaptorRoutingRequestTransitData implements RaptorTransitDataProvide
         departureTime
     );
 
+    RaptorRoutingRequestTransitDataCache cache = transitLayer.getRequestTransitDataCache();
+
     this.transitLayer = transitLayer;
     this.startOfTime = creator.getSearchStartTime();
-    this.activeTripPatternsPerStop = creator.createTripPatternsPerStop(
+
+    // The trip patterns and transfers are immutable and shared with other requests
+    this.activeTripPatterns = cache.activeTripPatterns(
+        creator.getDepartureDate(),
         additionalPastSearchDays,
         additionalFutureSearchDays,
         transitModes,
-        bannedRoutes
+        bannedRoutes,
+        () -> creator.createActiveTripPatterns(
+            additionalPastSearchDays,
+            additionalFutureSearchDays,
+            transitModes,
+            bannedRoutes
+        )
     );
-    this.transfers = creator.calculateTransferDuration(walkSpeed);
+    this.transfers = cache.transfers(walkSpeed, creator::calculateTransferDuration);
   }
 
   /**
@@ -76,15 +89,12 @@ public class RaptorRoutingRequestTransitData implements RaptorTransitDataProvide
   }
 
   /**
-   * Gets all the unique trip patterns touching a set of stops
+   * Gets all the unique trip patterns touching a set of stops. The patterns are returned in
+   * pattern index order.
    */
   @Override
-  public Iterator<? extends RaptorRoute<TripSchedule>> routeIterator(IntIterator stops) {
-    Set<RaptorRoute<TripSchedule>> activeTripPatternsForGivenStops = new HashSet<>();
-    while (stops.hasNext()) {
-      activeTripPatternsForGivenStops.addAll(activeTripPatternsPerStop.get(stops.next()));
-    }
-    return activeTripPatternsForGivenStops.iterator();
+  public RaptorRouteIterator<TripSchedule> routeIterator(IntIterator stops) {
+    return new TripPatternForDatesIterator(activeTripPatterns, numberOfStops(), stops);
   }
 
   @Override
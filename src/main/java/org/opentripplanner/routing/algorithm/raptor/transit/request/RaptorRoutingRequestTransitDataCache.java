@@ -0,0 +1,235 @@
+package org.opentripplanner.routing.algorithm.raptor.transit.request;
+
+import org.opentripplanner.model.FeedScopedId;
+import org.opentripplanner.model.TransitMode;
+import org.opentripplanner.routing.algorithm.raptor.transit.TransitLayer;
+import org.opentripplanner.transit.raptor.api.transit.RaptorTransfer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.DoubleFunction;
+import java.util.function.Supplier;
+
+
+/**
+ * Cache the request independent parts of the {@link RaptorRoutingRequestTransitData}; The active
+ * trip patterns for a given search date, modes and banned routes, and the transfers for a
+ * given walk speed. These data structures are immutable after they are created and are shared
+ * between all requests using the same {@link TransitLayer}.
+ * <p>
+ * There is one cache for each {@link TransitLayer} instance. The {@link
+ * org.opentripplanner.routing.algorithm.raptor.transit.mappers.TransitLayerUpdater} publish a new
+ * transit layer for each realtime update, and the new layer start with an empty cache. Hence, the
+ * cache is invalidated when the transit data change.
+ * <p>
+ * THREAD SAFETY - This class is thread safe. Two requests asking for the same key at the same
+ * time will only create the data once, the second request waits for the first to finish. The
+ * data is created outside the lock of the cache, so requests for other keys are not blocked.
+ */
+public class RaptorRoutingRequestTransitDataCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RaptorRoutingRequestTransitDataCache.class);
+
+  /**
+   * The maximum number of entries in each of the caches. The number of distinct keys is small
+   * in practise; most requests search today or tomorrow with the default modes and walk speed.
+   * If the limit is reached the least recently used entry is removed.
+   */
+  private static final int MAX_ENTRIES = 64;
+
+  /**
+   * The walk speed is rounded to the closest 1/100 m/s to avoid creating a new set of transfers
+   * for insignificant differences in walk speed.
+   */
+  private static final double WALK_SPEED_BUCKETS_PER_METER_PER_SECOND = 100.0;
+
+  private final TransitLayer transitLayer;
+
+  private final LruCache<TripPatternsKey, ActiveTripPatterns> activeTripPatterns =
+      new LruCache<>();
+
+  private final LruCache<Integer, List<List<RaptorTransfer>>> transfersByWalkSpeed =
+      new LruCache<>();
+
+  public RaptorRoutingRequestTransitDataCache(TransitLayer transitLayer) {
+    this.transitLayer = transitLayer;
+  }
+
+  ActiveTripPatterns activeTripPatterns(
+      LocalDate departureDate,
+      int additionalPastSearchDays,
+      int additionalFutureSearchDays,
+      Set<TransitMode> transitModes,
+      Set<FeedScopedId> bannedRoutes,
+      Supplier<ActiveTripPatterns> create
+  ) {
+    TripPatternsKey key = new TripPatternsKey(
+        departureDate,
+        additionalPastSearchDays,
+        additionalFutureSearchDays,
+        transitModes,
+        bannedRoutes
+    );
+    return activeTripPatterns.get(key, create);
+  }
+
+  List<List<RaptorTransfer>> transfers(
+      double walkSpeed,
+      DoubleFunction<List<List<RaptorTransfer>>> create
+  ) {
+    int bucket = walkSpeedBucket(walkSpeed);
+    return transfersByWalkSpeed.get(
+        bucket,
+        () -> create.apply(bucket / WALK_SPEED_BUCKETS_PER_METER_PER_SECOND)
+    );
+  }
+
+  /**
+   * Remove all cached entries. This must be called if the transit layer is changed after it is
+   * created.
+   */
+  public void clear() {
+    activeTripPatterns.clear();
+    transfersByWalkSpeed.clear();
+  }
+
+  static int walkSpeedBucket(double walkSpeed) {
+    return (int) Math.round(walkSpeed * WALK_SPEED_BUCKETS_PER_METER_PER_SECOND);
+  }
+
+  @Override
+  public String toString() {
+    return "RaptorRoutingRequestTransitDataCache{"
+        + "transitLayer=" + Integer.toHexString(System.identityHashCode(transitLayer))
+        + ", activeTripPatterns=" + activeTripPatterns.size()
+        + ", transfersByWalkSpeed=" + transfersByWalkSpeed.size()
+        + '}';
+  }
+
+  /**
+   * A cache holding at most {@link #MAX_ENTRIES} entries, removing the least recently used entry
+   * when full. Each entry is a future, the lock is only held while looking up the future, and the
+   * value is created by the first thread asking for the key.
+   */
+  private static final class LruCache<K, V> {
+
+    private final Map<K, CompletableFuture<V>> entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, CompletableFuture<V>> eldest) {
+        if (size() > MAX_ENTRIES) {
+          LOG.debug("Raptor request transit data cache is full, removing least recently used entry.");
+          return true;
+        }
+        return false;
+      }
+    };
+
+    V get(K key, Supplier<V> create) {
+      CompletableFuture<V> future;
+      boolean created = false;
+      synchronized (entries) {
+        future = entries.get(key);
+        if (future == null) {
+          future = new CompletableFuture<>();
+          entries.put(key, future);
+          created = true;
+        }
+      }
+      if (created) {
+        try {
+          future.complete(create.get());
+        }
+        catch (RuntimeException | Error e) {
+          // Do not cache the failure, the next request will try again
+          remove(key, future);
+          future.completeExceptionally(e);
+          throw e;
+        }
+      }
+      try {
+        return future.join();
+      }
+      catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
+      }
+    }
+
+    int size() {
+      synchronized (entries) {
+        return entries.size();
+      }
+    }
+
+    void clear() {
+      synchronized (entries) {
+        entries.clear();
+      }
+    }
+
+    private void remove(K key, CompletableFuture<V> future) {
+      synchronized (entries) {
+        entries.remove(key, future);
+      }
+    }
+  }
+
+  private static final class TripPatternsKey {
+    private final LocalDate departureDate;
+    private final int additionalPastSearchDays;
+    private final int additionalFutureSearchDays;
+    private final Set<TransitMode> transitModes;
+    private final Set<FeedScopedId> bannedRoutes;
+
+    private TripPatternsKey(
+        LocalDate departureDate,
+        int additionalPastSearchDays,
+        int additionalFutureSearchDays,
+        Set<TransitMode> transitModes,
+        Set<FeedScopedId> bannedRoutes
+    ) {
+      this.departureDate = departureDate;
+      this.additionalPastSearchDays = additionalPastSearchDays;
+      this.additionalFutureSearchDays = additionalFutureSearchDays;
+      // Make defensive copies, the request sets are mutable
+      this.transitModes = transitModes.isEmpty()
+          ? EnumSet.noneOf(TransitMode.class)
+          : EnumSet.copyOf(transitModes);
+      this.bannedRoutes = Set.copyOf(bannedRoutes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) { return true; }
+      if (o == null || getClass() != o.getClass()) { return false; }
+      TripPatternsKey that = (TripPatternsKey) o;
+      return additionalPastSearchDays == that.additionalPastSearchDays
+          && additionalFutureSearchDays == that.additionalFutureSearchDays
+          && departureDate.equals(that.departureDate)
+          && transitModes.equals(that.transitModes)
+          && bannedRoutes.equals(that.bannedRoutes);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(
+          departureDate,
+          additionalPastSearchDays,
+          additionalFutureSearchDays,
+          transitModes,
+          bannedRoutes
+      );
+    }
+  }
+}
@@ -16,7 +16,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
@@ -48,7 +47,11 @@ class RaptorRoutingRequestTransitDataCreator {
     return searchStartTime;
   }
 
-  List<List<TripPatternForDates>> createTripPatternsPerStop(
+  LocalDate getDepartureDate() {
+    return departureDate;
+  }
+
+  ActiveTripPatterns createActiveTripPatterns(
       int additionalPastSearchDays,
       int additionalFutureSearchDays,
       Set<TransitMode> transitModes,
@@ -64,7 +67,7 @@ class RaptorRoutingRequestTransitDataCreator {
 
     List<TripPatternForDates> tripPatternForDateList = merge(searchStartTime, tripPatternForDates);
 
-    return createTripPatternsPerStop(tripPatternForDateList, transitLayer.getStopCount());
+    return new ActiveTripPatterns(tripPatternForDateList, transitLayer.getStopCount());
   }
 
   private List<Map<FeedScopedId, TripPatternForDate>> getTripPatternsForDateRange(
@@ -128,22 +131,6 @@ class RaptorRoutingRequestTransitDataCreator {
     return combinedList;
   }
 
-  private static List<List<TripPatternForDates>> createTripPatternsPerStop(
-      List<TripPatternForDates> tripPatternsForDate, int numberOfStops
-  ) {
-    List<List<TripPatternForDates>> result = Stream
-        .generate(ArrayList<TripPatternForDates>::new)
-        .limit(numberOfStops)
-        .collect(Collectors.toList());
-
-    for (TripPatternForDates tripPatternForDateList : tripPatternsForDate) {
-      for (int i : tripPatternForDateList.getTripPattern().getStopIndexes()) {
-        result.get(i).add(tripPatternForDateList);
-      }
-    }
-    return result;
-  }
-
   private static Map<FeedScopedId, TripPatternForDate> filterActiveTripPatterns(
       TransitLayer transitLayer,
       LocalDate date,
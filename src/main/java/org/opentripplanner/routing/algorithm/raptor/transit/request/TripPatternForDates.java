@@ -3,6 +3,7 @@ package org.opentripplanner.routing.algorithm.raptor.transit.request;
 import org.opentripplanner.routing.algorithm.raptor.transit.TripPatternForDate;
 import org.opentripplanner.routing.algorithm.raptor.transit.TripPatternWithRaptorStopIndexes;
 import org.opentripplanner.routing.algorithm.raptor.transit.TripSchedule;
+import org.opentripplanner.routing.trippattern.TripTimes;
 import org.opentripplanner.transit.raptor.api.transit.RaptorRoute;
 import org.opentripplanner.transit.raptor.api.transit.RaptorTimeTable;
 import org.opentripplanner.transit.raptor.api.transit.RaptorTripPattern;
@@ -13,6 +14,10 @@ import java.util.List;
 /**
  * A collection of all the TripSchedules active on a range of consecutive days. The outer list of tripSchedulesByDay
  * refers to days in order.
+ * <p>
+ * The arrival and departure times of all trips are copied into a packed time-table when this class
+ * is created, with the day offset applied. This allow Raptor to search for trips without creating
+ * a {@link TripSchedule} for each trip visited.
  */
 public class TripPatternForDates implements RaptorRoute<TripSchedule>,
         RaptorTimeTable<TripSchedule>, RaptorTripPattern {
@@ -25,11 +30,60 @@ public class TripPatternForDates implements RaptorRoute<TripSchedule>,
 
     private final int numberOfTripSchedules;
 
+    /**
+     * The day index ({@code tripPatternForDates} and {@code offsets}) for each trip index.
+     */
+    private final int[] dayIndexByTripIndex;
+
+    /**
+     * The trip index within the {@link TripPatternForDate} of the day, for each trip index.
+     */
+    private final int[] tripIndexInDayByTripIndex;
+
+    /**
+     * The departure times with the day offset applied. The times are stored column by column,
+     * one column per stop position in pattern, with all trips in order. The time for a given
+     * trip is at index {@code stopPositionInPattern * numberOfTripSchedules + tripIndex}. This
+     * keep the times the trip search step through next to each other in memory.
+     */
+    private final int[] departureTimes;
+
+    /**
+     * The arrival times, see {@link #departureTimes} for the layout.
+     */
+    private final int[] arrivalTimes;
+
     TripPatternForDates(TripPatternWithRaptorStopIndexes tripPattern, List<TripPatternForDate> tripPatternForDates, List<Integer> offsets) {
         this.tripPattern = tripPattern;
         this.tripPatternForDates = tripPatternForDates.toArray(new TripPatternForDate[]{});
         this.offsets = offsets.stream().mapToInt(i -> i).toArray();
         this.numberOfTripSchedules = Arrays.stream(this.tripPatternForDates).mapToInt(TripPatternForDate::numberOfTripSchedules).sum();
+
+        this.dayIndexByTripIndex = new int[numberOfTripSchedules];
+        this.tripIndexInDayByTripIndex = new int[numberOfTripSchedules];
+
+        final int nStops = tripPattern.getStopIndexes().length;
+        this.departureTimes = new int[nStops * numberOfTripSchedules];
+        this.arrivalTimes = new int[nStops * numberOfTripSchedules];
+
+        int tripIndex = 0;
+        for (int d = 0; d < this.tripPatternForDates.length; d++) {
+            TripPatternForDate tripPatternForDate = this.tripPatternForDates[d];
+            int offset = this.offsets[d];
+
+            for (int i = 0; i < tripPatternForDate.numberOfTripSchedules(); i++) {
+                dayIndexByTripIndex[tripIndex] = d;
+                tripIndexInDayByTripIndex[tripIndex] = i;
+
+                TripTimes tripTimes = tripPatternForDate.getTripTimes(i);
+                for (int stopPos = 0; stopPos < nStops; stopPos++) {
+                    int index = stopPos * numberOfTripSchedules + tripIndex;
+                    departureTimes[index] = tripTimes.getDepartureTime(stopPos) + offset;
+                    arrivalTimes[index] = tripTimes.getArrivalTime(stopPos) + offset;
+                }
+                ++tripIndex;
+            }
+        }
     }
 
     public TripPatternWithRaptorStopIndexes getTripPattern() {
@@ -75,20 +129,36 @@ public class TripPatternForDates implements RaptorRoute<TripSchedule>,
 
     // Implementing RaptorTimeTable
 
+    /**
+     * Create a new trip schedule for the trip with the given index. Raptor only call this for
+     * trips boarded, the trip search use {@link #departure(int, int)} and
+     * {@link #arrival(int, int)}.
+     */
     @Override public TripSchedule getTripSchedule(int index) {
-        for (int i = 0; i < tripPatternForDates.length; i++) {
-            TripPatternForDate tripPatternForDate = tripPatternForDates[i];
-
-            if (index < tripPatternForDate.numberOfTripSchedules()) {
-                return new TripScheduleWithOffset(this, tripPatternForDate.getLocalDate(),
-                        tripPatternForDate.getTripTimes(index), offsets[i]);
-            }
-            index -= tripPatternForDate.numberOfTripSchedules();
+        if (index < 0 || index >= numberOfTripSchedules) {
+            throw new IndexOutOfBoundsException("Index out of bound: " + index);
         }
-        throw new IndexOutOfBoundsException("Index out of bound: " + index);
+        int day = dayIndexByTripIndex[index];
+        TripPatternForDate tripPatternForDate = tripPatternForDates[day];
+
+        return new TripScheduleWithOffset(
+                this,
+                index,
+                tripPatternForDate.getLocalDate(),
+                tripPatternForDate.getTripTimes(tripIndexInDayByTripIndex[index]),
+                offsets[day]
+        );
     }
 
     @Override public int numberOfTripSchedules() {
         return numberOfTripSchedules;
     }
+
+    @Override public int departure(int tripIndex, int stopPositionInPattern) {
+        return departureTimes[stopPositionInPattern * numberOfTripSchedules + tripIndex];
+    }
+
+    @Override public int arrival(int tripIndex, int stopPositionInPattern) {
+        return arrivalTimes[stopPositionInPattern * numberOfTripSchedules + tripIndex];
+    }
 }
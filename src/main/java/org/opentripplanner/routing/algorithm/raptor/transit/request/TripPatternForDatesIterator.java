@@ -0,0 +1,72 @@
+package org.opentripplanner.routing.algorithm.raptor.transit.request;
+
+import org.opentripplanner.routing.algorithm.raptor.transit.TripSchedule;
+import org.opentripplanner.transit.raptor.api.transit.IntIterator;
+import org.opentripplanner.transit.raptor.api.transit.RaptorRoute;
+import org.opentripplanner.transit.raptor.api.transit.RaptorRouteIterator;
+
+import java.util.BitSet;
+
+/**
+ * Mark the stops and the patterns visiting the stops in bit sets, and iterate over the marked
+ * patterns. The bit sets are created for each iterator (once per Raptor round), since the
+ * transit data is shared by the heuristic searches running in parallel.
+ */
+class TripPatternForDatesIterator implements RaptorRouteIterator<TripSchedule> {
+  private final ActiveTripPatterns activeTripPatterns;
+  private final BitSet stopsVisited;
+  private final BitSet patternsVisited;
+  private int nextPatternIndex;
+  private int firstStopPos;
+  private int lastStopPos;
+
+  TripPatternForDatesIterator(
+      ActiveTripPatterns activeTripPatterns,
+      int numberOfStops,
+      IntIterator stops
+  ) {
+    this.activeTripPatterns = activeTripPatterns;
+    this.stopsVisited = new BitSet(numberOfStops);
+    this.patternsVisited = new BitSet(activeTripPatterns.numberOfPatterns());
+
+    while (stops.hasNext()) {
+      int stop = stops.next();
+      stopsVisited.set(stop);
+      for (int patternIndex : activeTripPatterns.patternIndexesForStop(stop)) {
+        patternsVisited.set(patternIndex);
+      }
+    }
+    this.nextPatternIndex = patternsVisited.nextSetBit(0);
+  }
+
+  @Override
+  public boolean hasNext() {
+    return nextPatternIndex != -1;
+  }
+
+  @Override
+  public RaptorRoute<TripSchedule> next() {
+    TripPatternForDates pattern = activeTripPatterns.pattern(nextPatternIndex);
+    nextPatternIndex = patternsVisited.nextSetBit(nextPatternIndex + 1);
+
+    int[] stopIndexes = pattern.getTripPattern().getStopIndexes();
+
+    firstStopPos = 0;
+    while (!stopsVisited.get(stopIndexes[firstStopPos])) { ++firstStopPos; }
+
+    lastStopPos = stopIndexes.length - 1;
+    while (!stopsVisited.get(stopIndexes[lastStopPos])) { --lastStopPos; }
+
+    return pattern;
+  }
+
+  @Override
+  public int firstStopPositionVisited() {
+    return firstStopPos;
+  }
+
+  @Override
+  public int lastStopPositionVisited() {
+    return lastStopPos;
+  }
+}
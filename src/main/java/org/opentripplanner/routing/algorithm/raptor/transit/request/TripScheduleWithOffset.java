@@ -16,11 +16,13 @@ public class TripScheduleWithOffset implements TripSchedule {
 
     private final int secondsOffset;
     private final TripPatternForDates pattern;
+    private final int tripIndex;
     private final TripTimes tripTimes;
     private final LocalDate serviceDate;
 
-    TripScheduleWithOffset(TripPatternForDates pattern, LocalDate localDate, TripTimes tripTimes, int offset) {
+    TripScheduleWithOffset(TripPatternForDates pattern, int tripIndex, LocalDate localDate, TripTimes tripTimes, int offset) {
         this.pattern = pattern;
+        this.tripIndex = tripIndex;
         this.tripTimes = tripTimes;
         this.secondsOffset = offset;
         this.serviceDate = localDate;
@@ -28,12 +30,12 @@ public class TripScheduleWithOffset implements TripSchedule {
 
     @Override
     public int arrival(int stopPosInPattern) {
-        return this.tripTimes.getArrivalTime(stopPosInPattern) + secondsOffset;
+        return pattern.arrival(tripIndex, stopPosInPattern);
     }
 
     @Override
     public int departure(int stopPosInPattern) {
-        return this.tripTimes.getDepartureTime(stopPosInPattern) + secondsOffset;
+        return pattern.departure(tripIndex, stopPosInPattern);
     }
 
     @Override
@@ -117,6 +117,23 @@ public class RoutingRequest implements Cloneable, Serializable {
     @Deprecated
     public double maxWalkDistance = Double.MAX_VALUE;
 
+    /**
+     * The maximum street distance (in meters) used when searching for access and egress stops.
+     * The distance is converted to a time limit using the default walk speed.
+     * <p>
+     * Default value is 2000 meters.
+     */
+    public int maxAccessEgressDistanceMeters = 2000;
+
+    /**
+     * The maximum street distance used when searching for access and egress stops for the given
+     * street mode. If set, this override the more general {@link #maxAccessEgressDistanceMeters}.
+     * This allows a longer search radius for bike and car access than for walking.
+     * <p>
+     * Unit is meters. Default value is not-set(empty map).
+     */
+    public Map<StreetMode, Integer> maxAccessEgressDistanceForMode = new HashMap<>();
+
     /**
      * The maximum distance (in meters) the user is willing to walk for transfer legs.
      * Defaults to unlimited. Currently set to be the same value as maxWalkDistance.
@@ -1106,6 +1123,7 @@ public class RoutingRequest implements Cloneable, Serializable {
             clone.unpreferredRoutes = unpreferredRoutes.clone();
 
             clone.bannedTrips = (HashMap<FeedScopedId, BannedStopSet>) bannedTrips.clone();
+            clone.maxAccessEgressDistanceForMode = new HashMap<>(maxAccessEgressDistanceForMode);
 
             if (this.bikeWalkingOptions != this) {
                 clone.bikeWalkingOptions = this.bikeWalkingOptions.clone();
@@ -1219,6 +1237,14 @@ public class RoutingRequest implements Cloneable, Serializable {
         throw new IllegalArgumentException("getSpeed(): Invalid mode " + mode);
     }
 
+    /**
+     * @return The maximum street distance in meters to search for access and egress stops using
+     *         the given street mode.
+     */
+    public int getMaxAccessEgressDistanceMeters(StreetMode mode) {
+        return maxAccessEgressDistanceForMode.getOrDefault(mode, maxAccessEgressDistanceMeters);
+    }
+
     /** @return The highest speed for all possible road-modes. */
     public double getStreetSpeedUpperBound() {
         // Assume carSpeed > bikeSpeed > walkSpeed
@@ -54,6 +54,9 @@ public class RoutingContext implements Cloneable {
     public final Set<Vertex> toVertices;
 
     public final Set<FeedScopedId> bannedRoutes;
+
+    /** The temporary edges of this request connected to permanent vertices. */
+    public final TemporaryGraphOverlay temporaryEdges;
     
     // The back edge associated with the origin - i.e. continuing a previous search.
     // NOTE: not final so that it can be modified post-construction for testing.
@@ -105,8 +108,11 @@ public class RoutingContext implements Cloneable {
      * {@link Vertex#getIncoming()} and {@link Vertex#getIncoming()} edges.
      * Edges of other types are ignored.
      */
-    private static Set<StreetEdge> getConnectedParentEdges(Vertex loc) {
-        return Stream.concat(loc.getIncoming().stream(), loc.getOutgoing().stream())
+    private Set<StreetEdge> getConnectedParentEdges(Vertex loc) {
+        return Stream.concat(
+                temporaryEdges.getIncoming(loc).stream(),
+                temporaryEdges.getOutgoing(loc).stream()
+            )
                 .filter(it -> it instanceof TemporaryPartialStreetEdge)
                 .map(it -> ((TemporaryPartialStreetEdge)it).getParentEdge())
                 .collect(Collectors.toSet());
@@ -131,7 +137,9 @@ public class RoutingContext implements Cloneable {
 
             //TODO: localize this
             String name = from.getLabel() + " to " + to.getLabel();
-            new TemporaryPartialStreetEdge(streetEdge, from, to, partial, new NonLocalizedString(name), length);
+            temporaryEdges.add(new TemporaryPartialStreetEdge(
+                streetEdge, from, to, partial, new NonLocalizedString(name), length
+            ));
         }
     }
 
@@ -186,6 +194,8 @@ public class RoutingContext implements Cloneable {
             this.bannedRoutes = Collections.emptySet();
         }
 
+        this.temporaryEdges = TemporaryGraphOverlay.of(this.fromVertices, this.toVertices);
+
         adjustForSameFromToEdge();
 
         remainingWeightHeuristic = new EuclideanRemainingWeightHeuristic();
@@ -216,11 +226,11 @@ public class RoutingContext implements Cloneable {
             Set<StreetVertex> fromStreetVertices = new HashSet<>();
             for (Vertex from : fromVertices) {
                 if (from == null) { continue; }
-                for (Edge outgoing : from.getOutgoing()) {
+                for (Edge outgoing : temporaryEdges.getOutgoing(from)) {
                     Vertex toVertex = outgoing.getToVertex();
                     if (outgoing instanceof TemporaryFreeEdge && toVertex instanceof StreetVertex
-                        && toVertex
-                        .getOutgoing()
+                        && temporaryEdges
+                        .getOutgoing(toVertex)
                         .stream()
                         .anyMatch(edge -> edge instanceof TemporaryPartialStreetEdge)) {
                         // The vertex is connected with an TemporaryFreeEdge connector to the
@@ -237,11 +247,11 @@ public class RoutingContext implements Cloneable {
             Set<StreetVertex> toStreetVertices = new HashSet<>();
             for (Vertex to : toVertices) {
                 if (to == null) { continue; }
-                for (Edge incoming : to.getIncoming()) {
+                for (Edge incoming : temporaryEdges.getIncoming(to)) {
                     Vertex fromVertex = incoming.getFromVertex();
                     if (incoming instanceof TemporaryFreeEdge && fromVertex instanceof StreetVertex
-                        && fromVertex
-                        .getIncoming()
+                        && temporaryEdges
+                        .getIncoming(fromVertex)
                         .stream()
                         .anyMatch(edge -> edge instanceof TemporaryPartialStreetEdge)) {
                         // The vertex is connected with an TemporaryFreeEdge connector to the
@@ -270,6 +280,25 @@ public class RoutingContext implements Cloneable {
 
     /* INSTANCE METHODS */
 
+    /**
+     * Create a routing context for another search of the same request, run in parallel with the
+     * search using this context. The origin and destination vertices and the temporary edges are
+     * shared, while the fields set by the search, like the heuristic and the aborted flag, are not.
+     */
+    public RoutingContext cloneForRequest(RoutingRequest routingRequest) {
+        try {
+            RoutingContext clone = (RoutingContext) super.clone();
+            clone.opt = routingRequest;
+            clone.remainingWeightHeuristic = new EuclideanRemainingWeightHeuristic();
+            clone.aborted = false;
+            clone.slopeRestrictionRemoved = false;
+            return clone;
+        } catch (CloneNotSupportedException e) {
+            /* this will never happen since our super is the cloneable object */
+            throw new RuntimeException(e);
+        }
+    }
+
     public void checkIfVerticesFound() {
         List<RoutingError> routingErrors = new ArrayList<>();
 
@@ -293,9 +322,9 @@ public class RoutingContext implements Cloneable {
     }
 
     /**
-     * Tear down this routing context, removing any temporary edges from
-     * the "permanent" graph objects. This enables all temporary objects
-     * for garbage collection.
+     * Tear down this routing context. The temporary edges are not attached to the
+     * "permanent" graph objects, see {@link TemporaryGraphOverlay}, but the temporary
+     * subgraph is still cut off to make sure no permanent vertex holds on to it.
      */
     public void destroy() {
         if (fromVertices != null) {
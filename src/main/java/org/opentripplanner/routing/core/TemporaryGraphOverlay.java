@@ -0,0 +1,127 @@
+package org.opentripplanner.routing.core;
+
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.vertextype.TemporaryVertex;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The temporary edges of a single request, indexed by the permanent vertices they connect to.
+ * <p>
+ * Temporary edges are only added to the edge lists of their temporary vertices, see
+ * {@link Edge}. The permanent graph is shared by all requests and is never modified while
+ * routing, so the requests do not contend for the vertex locks, and a request never sees the
+ * temporary edges of another request. The search looks up the edges of a vertex through this
+ * overlay, which adds the temporary edges of the request to the edges of the permanent vertex.
+ * <p>
+ * This class is not thread-safe, it is built and used by the thread routing the request.
+ */
+public class TemporaryGraphOverlay {
+
+    private final Map<Vertex, List<Edge>> outgoing = new HashMap<>();
+
+    private final Map<Vertex, List<Edge>> incoming = new HashMap<>();
+
+    /**
+     * Collect the temporary edges reachable from the given vertices, following temporary
+     * vertices only. Vertices that are not temporary are ignored.
+     */
+    @SafeVarargs
+    public static TemporaryGraphOverlay of(Collection<Vertex>... vertices) {
+        TemporaryGraphOverlay overlay = new TemporaryGraphOverlay();
+        // Temporary street locations are equal if they have the same coordinate
+        Set<Vertex> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Vertex> queue = new ArrayDeque<>();
+        for (Collection<Vertex> it : vertices) {
+            if (it == null) { continue; }
+            for (Vertex v : it) {
+                if (v instanceof TemporaryVertex && visited.add(v)) {
+                    queue.add(v);
+                }
+            }
+        }
+        while (!queue.isEmpty()) {
+            Vertex v = queue.poll();
+            for (Edge e : v.getOutgoing()) {
+                Vertex other = e.getToVertex();
+                if (other instanceof TemporaryVertex) {
+                    if (visited.add(other)) { queue.add(other); }
+                }
+                else {
+                    overlay.addIncoming(other, e);
+                }
+            }
+            for (Edge e : v.getIncoming()) {
+                Vertex other = e.getFromVertex();
+                if (other instanceof TemporaryVertex) {
+                    if (visited.add(other)) { queue.add(other); }
+                }
+                else {
+                    overlay.addOutgoing(other, e);
+                }
+            }
+        }
+        return overlay;
+    }
+
+    /**
+     * Add a temporary edge created after the overlay. The edge is added to the endpoints that
+     * are not temporary vertices, the temporary vertices already hold their edges.
+     */
+    public void add(Edge edge) {
+        if (!(edge.getFromVertex() instanceof TemporaryVertex)) {
+            addOutgoing(edge.getFromVertex(), edge);
+        }
+        if (!(edge.getToVertex() instanceof TemporaryVertex)) {
+            addIncoming(edge.getToVertex(), edge);
+        }
+    }
+
+    /** The outgoing temporary edges of this request from a permanent vertex, or null if none. */
+    public List<Edge> getTemporaryOutgoing(Vertex v) {
+        return outgoing.get(v);
+    }
+
+    /** The incoming temporary edges of this request to a permanent vertex, or null if none. */
+    public List<Edge> getTemporaryIncoming(Vertex v) {
+        return incoming.get(v);
+    }
+
+    /** The outgoing edges of the vertex, including the temporary edges of this request. */
+    public Collection<Edge> getOutgoing(Vertex v) {
+        return merge(v.getOutgoing(), outgoing.get(v));
+    }
+
+    /** The incoming edges of the vertex, including the temporary edges of this request. */
+    public Collection<Edge> getIncoming(Vertex v) {
+        return merge(v.getIncoming(), incoming.get(v));
+    }
+
+    private void addOutgoing(Vertex v, Edge e) {
+        outgoing.computeIfAbsent(v, k -> new ArrayList<>(2)).add(e);
+    }
+
+    private void addIncoming(Vertex v, Edge e) {
+        incoming.computeIfAbsent(v, k -> new ArrayList<>(2)).add(e);
+    }
+
+    private static Collection<Edge> merge(Collection<Edge> edges, List<Edge> temporaryEdges) {
+        if (temporaryEdges == null) {
+            return edges;
+        }
+        List<Edge> result = new ArrayList<>(edges.size() + temporaryEdges.size());
+        result.addAll(edges);
+        result.addAll(temporaryEdges);
+        return result;
+    }
+}
@@ -19,6 +19,7 @@ import org.opentripplanner.routing.core.TraverseMode;
 import org.opentripplanner.routing.core.TraverseModeSet;
 import org.opentripplanner.routing.graph.Edge;
 import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
 import org.opentripplanner.routing.vertextype.BarrierVertex;
 import org.opentripplanner.routing.vertextype.IntersectionVertex;
 import org.opentripplanner.routing.vertextype.OsmVertex;
@@ -33,6 +34,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
@@ -72,6 +74,7 @@ public class StreetEdge extends Edge implements Cloneable {
     private static final int STAIRS_FLAG_INDEX = 4;
     private static final int SLOPEOVERRIDE_FLAG_INDEX = 5;
     private static final int WHEELCHAIR_ACCESSIBLE_FLAG_INDEX = 6;
+    private static final int TURN_RESTRICTIONS_FLAG_INDEX = 7;
 
     /** back, roundabout, stairs, ... */
     private byte flags;
@@ -596,6 +599,10 @@ public class StreetEdge extends Edge implements Cloneable {
     }
     
     public boolean canTurnOnto(Edge e, State state, TraverseMode mode) {
+        // Most edges have no turn restrictions, avoid the lookup in the graph
+        if (!hasTurnRestrictions()) {
+            return true;
+        }
         for (TurnRestriction turnRestriction : getTurnRestrictions(state.getOptions().rctx.graph)) {
             /* FIXME: This is wrong for trips that end in the middle of turnRestriction.to
              */
@@ -626,6 +633,15 @@ public class StreetEdge extends Edge implements Cloneable {
 		return this.name.toString(locale);
 	}
 
+	public I18NString getI18nName() {
+		return this.name;
+	}
+
+	/** The geometry packed with {@link CompactLineString}, shared with the reverse edge. */
+	public byte[] getCompactGeometry() {
+		return compactGeometry;
+	}
+
 	public LineString getGeometry() {
 		return CompactLineString.uncompactLineString(fromv.getLon(), fromv.getLat(), tov.getLon(), tov.getLat(), compactGeometry, isBack());
 	}
@@ -746,6 +762,18 @@ public class StreetEdge extends Edge implements Cloneable {
         return graph.getTurnRestrictions(this);
     }
 
+    /**
+     * @return false if the graph has no turn restrictions starting on this edge. The flag is kept
+     *         up to date by the {@link Graph} when turn restrictions are added or removed.
+     */
+    public boolean hasTurnRestrictions() {
+        return BitSetUtils.get(flags, TURN_RESTRICTIONS_FLAG_INDEX);
+    }
+
+    public void setHasTurnRestrictions(boolean hasTurnRestrictions) {
+        flags = BitSetUtils.set(flags, TURN_RESTRICTIONS_FLAG_INDEX, hasTurnRestrictions);
+    }
+
     /** calculate the length of this street segement from its geometry */
     protected void calculateLengthFromGeometry () {
         double accumulatedMeters = 0;
@@ -863,4 +891,68 @@ public class StreetEdge extends Edge implements Cloneable {
         else
             return -1;
     }
+
+    /* GRAPH FILE, see org.opentripplanner.routing.graph.mapped.StreetEdgeWriter */
+
+    /** The size of the record written by {@link #writeRecord}, a multiple of 8 bytes. */
+    public static final int RECORD_SIZE = 40;
+
+    /**
+     * Write the state of this edge as a record of {@link #RECORD_SIZE} bytes at the position of
+     * the buffer. The name and the geometry are written as the given indexes, the vertices are
+     * not written.
+     */
+    public void writeRecord(ByteBuffer buffer, int nameIndex, int geometryIndex) {
+        int start = buffer.position();
+        buffer.putLong(wayId);
+        buffer.putInt(length_mm);
+        buffer.putFloat(carSpeed);
+        buffer.putFloat(bicycleSafetyFactor);
+        buffer.putInt(streetClass);
+        buffer.putInt(nameIndex);
+        buffer.putInt(geometryIndex);
+        buffer.put((byte) permission.code);
+        buffer.put(flags);
+        buffer.put(inAngle);
+        buffer.put(outAngle);
+        while (buffer.position() - start < RECORD_SIZE) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    /** The name index written at the given offset of a record, see {@link #writeRecord}. */
+    public static int recordNameIndex(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset + 24);
+    }
+
+    public static int recordGeometryIndex(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset + 28);
+    }
+
+    /**
+     * Set the state of an edge created by the deserializer without running a constructor, from
+     * the record at the given offset. The edge is not added to the edge lists of the vertices.
+     */
+    public void readRecord(
+            ByteBuffer buffer,
+            int offset,
+            Vertex from,
+            Vertex to,
+            I18NString name,
+            byte[] compactGeometry
+    ) {
+        this.fromv = from;
+        this.tov = to;
+        this.name = name;
+        this.compactGeometry = compactGeometry;
+        this.wayId = buffer.getLong(offset);
+        this.length_mm = buffer.getInt(offset + 8);
+        this.carSpeed = buffer.getFloat(offset + 12);
+        this.bicycleSafetyFactor = buffer.getFloat(offset + 16);
+        this.streetClass = buffer.getInt(offset + 20);
+        this.permission = StreetTraversalPermission.get(buffer.get(offset + 32));
+        this.flags = buffer.get(offset + 33);
+        this.inAngle = buffer.get(offset + 34);
+        this.outAngle = buffer.get(offset + 35);
+    }
 }
@@ -91,6 +91,11 @@ final public class TemporaryPartialStreetEdge extends StreetWithElevationEdge im
         return graph.getTurnRestrictions(parentEdge);
     }
 
+    @Override
+    public boolean hasTurnRestrictions() {
+        return parentEdge.hasTurnRestrictions();
+    }
+
     /**
      * This implementation makes it so that TurnRestrictions on the parent edge are applied to this edge as well.
      */
@@ -0,0 +1,22 @@
+package org.opentripplanner.routing.error;
+
+/**
+ * The routing request is rejected because the server is busy, the client should try again
+ * later. This is mapped to a HTTP 503 Service Unavailable response with the
+ * {@code Retry-After} header set.
+ */
+public class RoutingRequestRejectedException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final int retryAfterSeconds;
+
+  public RoutingRequestRejectedException(String message, int retryAfterSeconds) {
+    super(message);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public int getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
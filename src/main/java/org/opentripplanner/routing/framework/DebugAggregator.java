@@ -8,6 +8,9 @@ import org.slf4j.LoggerFactory;
 /**
  * Keeps account of timing information within the different parts of the routing process, and is
  * responsible of logging that information.
+ * <p>
+ * If the street searches are run in parallel with the transit router, the phases overlap and the
+ * sum of the phase timings may be larger than the total time.
  */
 public class DebugAggregator {
   private static final Logger LOG = LoggerFactory.getLogger(DebugAggregator.class);
@@ -15,6 +18,7 @@ public class DebugAggregator {
   private long startedCalculating;
   private long finishedPrecalculating;
   private long finishedDirectStreetRouter;
+  private long startedTransitRouter;
 
   private long finishedPatternFiltering;
   private long finishedAccessEgress;
@@ -55,15 +59,35 @@ public class DebugAggregator {
   public void finishedDirectStreetRouter() {
     finishedDirectStreetRouter = System.currentTimeMillis();
     directStreetRouterTime = finishedDirectStreetRouter - finishedPrecalculating;
+    startedTransitRouter = finishedDirectStreetRouter;
     LOG.debug("Direct street routing took {} ms", directStreetRouterTime);
   }
 
+  /**
+   * Record the time when the direct street router and the transit router are started in
+   * parallel. Used instead of {@link #finishedDirectStreetRouter()}.
+   */
+  public void startedParallelRouting() {
+    startedTransitRouter = System.currentTimeMillis();
+  }
+
+  /**
+   * Record the time when we finished the direct street router search, when run in parallel with
+   * the transit router. This may be called from another thread, the caller is responsible for
+   * joining the thread before the timings are read.
+   */
+  public void finishedParallelDirectStreetRouter() {
+    finishedDirectStreetRouter = System.currentTimeMillis();
+    directStreetRouterTime = finishedDirectStreetRouter - startedTransitRouter;
+    LOG.debug("Direct street routing (parallel) took {} ms", directStreetRouterTime);
+  }
+
   /**
    * Record the time when we are finished with the creation of the raptor data models.
    */
   public void finishedPatternFiltering() {
     finishedPatternFiltering = System.currentTimeMillis();
-    tripPatternFilterTime = finishedPatternFiltering - finishedDirectStreetRouter;
+    tripPatternFilterTime = finishedPatternFiltering - startedTransitRouter;
     LOG.debug("Filtering tripPatterns took {} ms", tripPatternFilterTime);
   }
 
@@ -76,6 +100,17 @@ public class DebugAggregator {
     LOG.debug("Access/egress routing took {} ms", accessEgressTime);
   }
 
+  /**
+   * Record the time when we are finished with the access and egress routing, when the access
+   * and egress searches are run in parallel with the trip pattern filtering. The access/egress
+   * time is measured from the start of the transit router.
+   */
+  public void finishedParallelAccessEgress() {
+    finishedAccessEgress = System.currentTimeMillis();
+    accessEgressTime = finishedAccessEgress - startedTransitRouter;
+    LOG.debug("Access/egress routing (parallel) took {} ms", accessEgressTime);
+  }
+
   /**
    * Record the time when we are finished with the raptor search.
    */
@@ -96,7 +131,7 @@ public class DebugAggregator {
   /** Record the time when we finished the tranist router search */
   public void finishedTransitRouter() {
     finishedTransitRouter = System.currentTimeMillis();
-    transitRouterTime = finishedTransitRouter - finishedDirectStreetRouter;
+    transitRouterTime = finishedTransitRouter - startedTransitRouter;
     LOG.debug("Transit routing took total {} ms", transitRouterTime);
   }
 
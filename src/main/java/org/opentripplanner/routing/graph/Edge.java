@@ -5,6 +5,8 @@ import org.opentripplanner.model.Trip;
 import org.opentripplanner.common.MavenVersion;
 import org.opentripplanner.routing.api.request.RoutingRequest;
 import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.edgetype.TemporaryEdge;
+import org.opentripplanner.routing.vertextype.TemporaryVertex;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
@@ -32,8 +34,21 @@ public abstract class Edge implements Serializable {
         }
         this.fromv = v1;
         this.tov = v2;
-        fromv.addOutgoing(this);
-        tov.addIncoming(this);
+        if (isAttachedTo(fromv)) {
+            fromv.addOutgoing(this);
+        }
+        if (isAttachedTo(tov)) {
+            tov.addIncoming(this);
+        }
+    }
+
+    /**
+     * Temporary edges are only added to the edge lists of temporary vertices. The permanent
+     * vertices are shared by all requests, the search finds the temporary edges connected to
+     * them in the {@link org.opentripplanner.routing.core.TemporaryGraphOverlay} of the request.
+     */
+    private boolean isAttachedTo(Vertex v) {
+        return !(this instanceof TemporaryEdge) || v instanceof TemporaryVertex;
     }
 
     public Vertex getFromVertex() {
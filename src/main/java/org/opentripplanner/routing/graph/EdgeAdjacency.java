@@ -0,0 +1,284 @@
+package org.opentripplanner.routing.graph;
+
+import org.opentripplanner.routing.edgetype.StreetEdge;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The edges of all vertices in the graph, in compressed sparse row form, indexed by the dense
+ * vertex index, see {@link Vertex#getIndex()}. The outgoing edges of all vertices are numbered in
+ * vertex order, so the edge ids of the outgoing edges of a vertex are the range from
+ * {@code outgoingStart(v)} inclusive to {@code outgoingEnd(v)} exclusive. The incoming edges of
+ * a vertex are the edge ids stored from {@code incomingStart(v)} to {@code incomingEnd(v)}.
+ * <p>
+ * The attributes the search needs before it reads the edge object are stored in parallel
+ * primitive arrays indexed by edge id: the index of the to vertex, the length and the
+ * permissions of street edges. A search can skip a street edge the current mode can not
+ * traverse without reading the edge object, see {@link #allows(int, int)}.
+ * <p>
+ * The adjacency is the only storage of the edges of the vertices it contains: the edge lists
+ * of such a vertex are derived from it, see {@link Vertex#getOutgoing()}. It is built when the
+ * streets are indexed, and is immutable. A vertex that has an edge added or removed after that
+ * copies its edges back into its own edge lists and leaves the adjacency, see
+ * {@link #contains(Vertex)}. A vertex added later is never part of the adjacency.
+ * <p>
+ * With compressed oops an edge costs 17 bytes: the reference to the edge object, the incoming
+ * edge id, the to vertex, the length and the permissions. A vertex costs 8 bytes of offsets. The
+ * two edge arrays of each vertex, 16 bytes of header each plus 4 bytes per edge, are released.
+ */
+public final class EdgeAdjacency {
+
+    /** The permissions of an edge that is not a street edge, it is never skipped. */
+    private static final byte NOT_A_STREET = (byte) 0xFF;
+
+    private final int[] outgoingOffsets;
+
+    private final int[] incomingOffsets;
+
+    private final int[] incomingEdgeIds;
+
+    private final Edge[] edges;
+
+    private final int[] toVertex;
+
+    private final int[] lengthMm;
+
+    private final byte[] permissions;
+
+    private EdgeAdjacency(
+            int[] outgoingOffsets,
+            int[] incomingOffsets,
+            int[] incomingEdgeIds,
+            Edge[] edges,
+            int[] toVertex,
+            int[] lengthMm,
+            byte[] permissions
+    ) {
+        this.outgoingOffsets = outgoingOffsets;
+        this.incomingOffsets = incomingOffsets;
+        this.incomingEdgeIds = incomingEdgeIds;
+        this.edges = edges;
+        this.toVertex = toVertex;
+        this.lengthMm = lengthMm;
+        this.permissions = permissions;
+    }
+
+    /**
+     * Build the adjacency of the given vertices, and move their edges into it. The vertex indexes
+     * must be dense and less than {@code vertexIndexSize}. A vertex with an incoming edge from a
+     * vertex that is not in the graph keeps its own edge lists. Do not call this while the edges
+     * are modified or searched.
+     */
+    static EdgeAdjacency build(Collection<Vertex> vertices, int vertexIndexSize) {
+        Vertex[] byIndex = new Vertex[vertexIndexSize];
+        int nEdges = 0;
+        int nIncoming = 0;
+        for (Vertex v : vertices) {
+            v.detach();
+            byIndex[v.getIndex()] = v;
+            nEdges += v.getDegreeOut();
+            nIncoming += v.getDegreeIn();
+        }
+
+        int[] outgoingOffsets = new int[vertexIndexSize + 1];
+        Edge[] edges = new Edge[nEdges];
+        int[] toVertex = new int[nEdges];
+        int[] lengthMm = new int[nEdges];
+        byte[] permissions = new byte[nEdges];
+        int e = 0;
+        for (int index = 0; index < vertexIndexSize; index++) {
+            outgoingOffsets[index] = e;
+            Vertex v = byIndex[index];
+            if (v == null) {
+                continue;
+            }
+            for (Edge edge : v.getOutgoing()) {
+                edges[e] = edge;
+                toVertex[e] = indexInGraph(edge.getToVertex(), byIndex);
+                lengthMm[e] = (int) Math.round(edge.getDistanceMeters() * 1000);
+                permissions[e] = edge instanceof StreetEdge
+                        ? (byte) ((StreetEdge) edge).getPermission().code
+                        : NOT_A_STREET;
+                e++;
+            }
+        }
+        outgoingOffsets[vertexIndexSize] = e;
+
+        // The id of an incoming edge is found among the outgoing edges of its from vertex
+        boolean[] contained = new boolean[vertexIndexSize];
+        int[] incomingOffsets = new int[vertexIndexSize + 1];
+        int[] incomingEdgeIds = new int[nIncoming];
+        int i = 0;
+        for (int index = 0; index < vertexIndexSize; index++) {
+            incomingOffsets[index] = i;
+            Vertex v = byIndex[index];
+            if (v == null) {
+                continue;
+            }
+            int start = i;
+            contained[index] = true;
+            for (Edge edge : v.getIncoming()) {
+                int id = outgoingEdgeId(edge, byIndex, outgoingOffsets, edges);
+                if (id < 0) {
+                    contained[index] = false;
+                    i = start;
+                    break;
+                }
+                incomingEdgeIds[i++] = id;
+            }
+        }
+        incomingOffsets[vertexIndexSize] = i;
+
+        EdgeAdjacency adjacency = new EdgeAdjacency(
+                outgoingOffsets,
+                incomingOffsets,
+                i == nIncoming ? incomingEdgeIds : Arrays.copyOf(incomingEdgeIds, i),
+                edges,
+                toVertex,
+                lengthMm,
+                permissions
+        );
+        for (int index = 0; index < vertexIndexSize; index++) {
+            if (contained[index]) {
+                byIndex[index].setEdgeAdjacency(adjacency);
+            }
+        }
+        return adjacency;
+    }
+
+    /**
+     * @return true if the edges of the vertex are in this adjacency and have not changed since
+     *         it was built.
+     */
+    public boolean contains(Vertex v) {
+        return v.getEdgeAdjacency() == this;
+    }
+
+    /** The id of the first outgoing edge of the vertex with the given index. */
+    public int outgoingStart(int vertexIndex) {
+        return outgoingOffsets[vertexIndex];
+    }
+
+    /** The id after the last outgoing edge of the vertex with the given index. */
+    public int outgoingEnd(int vertexIndex) {
+        return outgoingOffsets[vertexIndex + 1];
+    }
+
+    /** The position of the first incoming edge id of the vertex, see {@link #incomingEdgeId(int)}. */
+    public int incomingStart(int vertexIndex) {
+        return incomingOffsets[vertexIndex];
+    }
+
+    public int incomingEnd(int vertexIndex) {
+        return incomingOffsets[vertexIndex + 1];
+    }
+
+    /** The id of the incoming edge at the given position. */
+    public int incomingEdgeId(int position) {
+        return incomingEdgeIds[position];
+    }
+
+    public Edge edge(int edgeId) {
+        return edges[edgeId];
+    }
+
+    /** The index of the to vertex of the edge, or -1 if that vertex is not in the graph. */
+    public int toVertex(int edgeId) {
+        return toVertex[edgeId];
+    }
+
+    public double distanceMeters(int edgeId) {
+        return lengthMm[edgeId] / 1000.0;
+    }
+
+    /**
+     * @param permissionCodes the {@link org.opentripplanner.routing.edgetype.StreetTraversalPermission}
+     *                        codes of the modes, or-ed together.
+     * @return false if the edge is a street edge that allows none of the given modes. The
+     *         barriers at the ends of the street are not taken into account.
+     */
+    public boolean allows(int edgeId, int permissionCodes) {
+        return (permissions[edgeId] & permissionCodes) != 0;
+    }
+
+    /** The number of edges, the edge ids are less than this number. */
+    public int edgeCount() {
+        return edges.length;
+    }
+
+    /* The edge lists of the vertices, see Vertex */
+
+    List<Edge> outgoingEdges(int vertexIndex) {
+        return new EdgeList(null, outgoingStart(vertexIndex), outgoingEnd(vertexIndex));
+    }
+
+    List<Edge> incomingEdges(int vertexIndex) {
+        return new EdgeList(incomingEdgeIds, incomingStart(vertexIndex), incomingEnd(vertexIndex));
+    }
+
+    int degreeOut(int vertexIndex) {
+        return outgoingEnd(vertexIndex) - outgoingStart(vertexIndex);
+    }
+
+    int degreeIn(int vertexIndex) {
+        return incomingEnd(vertexIndex) - incomingStart(vertexIndex);
+    }
+
+    private static int indexInGraph(Vertex v, Vertex[] byIndex) {
+        if (v == null) {
+            return -1;
+        }
+        int index = v.getIndex();
+        return index >= 0 && index < byIndex.length && byIndex[index] == v ? index : -1;
+    }
+
+    /** The id of the edge among the outgoing edges of its from vertex, or -1 if not found. */
+    private static int outgoingEdgeId(
+            Edge edge,
+            Vertex[] byIndex,
+            int[] outgoingOffsets,
+            Edge[] edges
+    ) {
+        int from = indexInGraph(edge.getFromVertex(), byIndex);
+        if (from < 0) {
+            return -1;
+        }
+        for (int e = outgoingOffsets[from]; e < outgoingOffsets[from + 1]; e++) {
+            if (edges[e] == edge) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    /** A read-only view of a range of edge ids, or of edge ids stored in a range of an array. */
+    private final class EdgeList extends AbstractList<Edge> implements RandomAccess {
+
+        private final int[] ids;
+        private final int start;
+        private final int end;
+
+        private EdgeList(int[] ids, int start, int end) {
+            this.ids = ids;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public Edge get(int i) {
+            if (i < 0 || i >= end - start) {
+                throw new IndexOutOfBoundsException("Index: " + i + ", size: " + size());
+            }
+            return edges[ids == null ? start + i : ids[start + i]];
+        }
+
+        @Override
+        public int size() {
+            return end - start;
+        }
+    }
+}
@@ -20,6 +20,7 @@ import org.opentripplanner.model.calendar.CalendarService;
 import org.opentripplanner.model.calendar.CalendarServiceData;
 import org.opentripplanner.model.calendar.ServiceDate;
 import org.opentripplanner.model.calendar.impl.CalendarServiceImpl;
+import org.opentripplanner.routing.algorithm.raptor.router.street.AccessEgressCache;
 import org.opentripplanner.routing.algorithm.raptor.transit.TransitLayer;
 import org.opentripplanner.routing.algorithm.raptor.transit.mappers.TransitLayerUpdater;
 import org.opentripplanner.routing.core.TransferTable;
@@ -78,10 +79,16 @@ public class Graph implements Serializable {
     /* Ideally we could just get rid of vertex labels, but they're used in tests and graph building. */
     private Map<String, Vertex> vertices = new ConcurrentHashMap<>();
 
+    /** The number of vertex indexes handed out, see {@link Vertex#getIndex()}. */
+    private volatile int vertexIndexSize;
+
     private transient CalendarService calendarService;
 
     public transient StreetVertexIndex streetIndex;
 
+    /** The edges of the vertices in compressed form, built by {@link #indexStreets()}. */
+    private transient EdgeAdjacency edgeAdjacency;
+
     public transient GraphIndex index;
 
     public final transient Deduplicator deduplicator = new Deduplicator();
@@ -184,8 +191,11 @@ public class Graph implements Serializable {
     /** Interlining relationships between trips. */
     public final BiMap<Trip,Trip> interlinedTrips = HashBiMap.create();
 
-    /** Pre-generated transfers between all stops. */
-    public final Multimap<StopLocation, SimpleTransfer> transfersByStop = HashMultimap.create();
+    /**
+     * Pre-generated transfers between all stops. Saved in the transfer sections of the graph
+     * file, not with the rest of the graph, see {@link SerializedGraphObject}.
+     */
+    public final transient Multimap<StopLocation, SimpleTransfer> transfersByStop = HashMultimap.create();
 
     /** Flex locations are generated by GTFS graph builder, but consumed only after the street graph
      *  is built
@@ -208,6 +218,9 @@ public class Graph implements Serializable {
 
     private transient TransitAlertService transitAlertService;
 
+    /** Cache of access/egress street search results, {@code null} if caching is disabled. */
+    private transient AccessEgressCache accessEgressCache;
+
 
     /**
      * Hack. I've tried three different ways of generating unique labels.
@@ -254,11 +267,50 @@ public class Graph implements Serializable {
     public void addVertex(Vertex v) {
         Vertex old = vertices.put(v.getLabel(), v);
         if (old != null) {
-            if (old == v)
+            if (old == v) {
                 LOG.error("repeatedly added the same vertex: {}", v);
-            else
-                LOG.error("duplicate vertex label in graph (added vertex to graph anyway): {}", v);
+                return;
+            }
+            LOG.error("duplicate vertex label in graph (added vertex to graph anyway): {}", v);
+        }
+        v.setIndex(nextVertexIndex());
+    }
+
+    private synchronized int nextVertexIndex() {
+        return vertexIndexSize++;
+    }
+
+    /**
+     * All vertices in the graph have an index less than this number, see
+     * {@link Vertex#getIndex()}. Use this to size arrays indexed by vertex.
+     */
+    public int getVertexIndexSize() {
+        return vertexIndexSize;
+    }
+
+    /**
+     * Give all vertices in the graph a dense index, removing the gaps left by removed vertices.
+     * This is done when the graph is indexed, vertices added later get the next free index. Do
+     * not call this while searches are running, the vertex indexes are used by the search.
+     */
+    void indexVertices() {
+        for (Vertex v : vertices.values()) {
+            v.detach();
         }
+        int index = 0;
+        for (Vertex v : vertices.values()) {
+            v.setIndex(index++);
+        }
+        vertexIndexSize = index;
+    }
+
+    /**
+     * The edges of the vertices in compressed form, or {@code null} if the graph is not indexed.
+     * The edge lists of the vertices are read from it. Vertices modified after the graph is
+     * indexed are not part of it, see {@link EdgeAdjacency#contains(Vertex)}.
+     */
+    public EdgeAdjacency getEdgeAdjacency() {
+        return edgeAdjacency;
     }
 
     /**
@@ -268,6 +320,7 @@ public class Graph implements Serializable {
     public void removeEdge(Edge e) {
         if (e != null) {
             turnRestrictions.remove(e);
+            setHasTurnRestrictions(e, false);
             streetNotesService.removeStaticNotes(e);
 
             if (e instanceof EdgeWithCleanup) ((EdgeWithCleanup) e).detach();
@@ -311,7 +364,11 @@ public class Graph implements Serializable {
      * Return all the edges in the graph. Derived from vertices on demand.
      */
     public Collection<Edge> getEdges() {
-        Set<Edge> edges = new HashSet<>();
+        int n = 0;
+        for (Vertex v : this.getVertices()) {
+            n += v.getDegreeOut();
+        }
+        Set<Edge> edges = new HashSet<>(Math.max(16, (int) (n / .75f) + 1));
         for (Vertex v : this.getVertices()) {
             edges.addAll(v.getOutgoing());
         }
@@ -332,6 +389,7 @@ public class Graph implements Serializable {
             this.turnRestrictions.put(edge, turnRestrictions);
         }
         turnRestrictions.add(turnRestriction);
+        setHasTurnRestrictions(edge, true);
     }
 
     /**
@@ -346,12 +404,23 @@ public class Graph implements Serializable {
         if (turnRestrictions != null && turnRestrictions.contains(turnRestriction)) {
             if (turnRestrictions.size() < 2) {
                 this.turnRestrictions.remove(edge);
+                setHasTurnRestrictions(edge, false);
             } else {
                 turnRestrictions.remove(turnRestriction);
             }
         }
     }
 
+    /**
+     * Mark the street edges with turn restrictions, so the search only looks up the turn
+     * restrictions of these edges, see {@link StreetEdge#hasTurnRestrictions()}.
+     */
+    private static void setHasTurnRestrictions(Edge edge, boolean hasTurnRestrictions) {
+        if (edge instanceof StreetEdge) {
+            ((StreetEdge) edge).setHasTurnRestrictions(hasTurnRestrictions);
+        }
+    }
+
     /**
      * Get the {@link TurnRestriction} {@link List} that belongs to an {@link Edge} and return an
      * immutable copy. This method is thread-safe when used by itself, but not if addTurnRestriction
@@ -390,6 +459,14 @@ public class Graph implements Serializable {
         this.transitLayer = transitLayer;
     }
 
+    public AccessEgressCache getAccessEgressCache() {
+        return accessEgressCache;
+    }
+
+    public void setAccessEgressCache(AccessEgressCache accessEgressCache) {
+        this.accessEgressCache = accessEgressCache;
+    }
+
     public TransitLayer getRealtimeTransitLayer() {
         return realtimeTransitLayer.get();
     }
@@ -535,7 +612,28 @@ public class Graph implements Serializable {
      */
     public void index () {
         LOG.info("Index graph...");
+        indexStreets();
+        indexTransit();
+        LOG.info("Index graph complete.");
+    }
+
+    /**
+     * Renumber the vertices, build the edge adjacency and the street spatial index. The edge
+     * lists of the vertices must be complete. This is independent of {@link #indexTransit()}, and
+     * the two can run at the same time in different threads.
+     */
+    public void indexStreets() {
+        indexVertices();
+        edgeAdjacency = EdgeAdjacency.build(vertices.values(), getVertexIndexSize());
         streetIndex = new StreetVertexIndex(this);
+        LOG.info("Street index complete.");
+    }
+
+    /**
+     * Finish the scheduled timetables and build the {@link GraphIndex}. This does not use the
+     * edge lists of the vertices, see {@link #indexStreets()}.
+     */
+    public void indexTransit() {
         LOG.debug("Rebuilding edge and vertex indices.");
         for (TripPattern tp : tripPatternForId.values()) {
             // Skip frequency-based patterns which have no timetable (null)
@@ -543,7 +641,6 @@ public class Graph implements Serializable {
         }
         // TODO: Move this ^ stuff into the graph index
         this.index = new GraphIndex(this);
-        LOG.info("Index graph complete.");
     }
     
     /**
@@ -19,9 +19,19 @@ import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.hash.TIntIntHashMap;
 import org.objenesis.strategy.SerializingInstantiatorStrategy;
 import org.opentripplanner.datastore.DataSource;
+import org.opentripplanner.datastore.FileType;
+import org.opentripplanner.datastore.file.FileDataSource;
 import org.opentripplanner.kryo.BuildConfigSerializer;
 import org.opentripplanner.kryo.HashBiMapSerializer;
 import org.opentripplanner.kryo.RouterConfigSerializer;
+import org.opentripplanner.model.StopLocation;
+import org.opentripplanner.routing.graph.mapped.GraphFile;
+import org.opentripplanner.routing.graph.mapped.GraphFileWriter;
+import org.opentripplanner.routing.graph.mapped.StreetEdgeReader;
+import org.opentripplanner.routing.graph.mapped.StreetEdgeSerializer;
+import org.opentripplanner.routing.graph.mapped.StreetEdgeWriter;
+import org.opentripplanner.routing.graph.mapped.TransferReader;
+import org.opentripplanner.routing.graph.mapped.TransferWriter;
 import org.opentripplanner.standalone.config.BuildConfig;
 import org.opentripplanner.standalone.config.RouterConfig;
 import org.opentripplanner.util.OtpAppException;
@@ -31,14 +41,14 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.BitSet;
-import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 /**
  * This is the class that get serialized/deserialized into/from the file <em>graph.obj</em>.
@@ -50,13 +60,23 @@ import java.util.Collection;
  * serializer to know that vertices referenced by the edges are the same vertices stored in the
  * graph itself. The easiest way to do this is to make only one serialization call, serializing a
  * single object that contains both the graph and the edge collection.
+ * <p>
+ * The file is a versioned graph file with flat sections, see
+ * {@link org.opentripplanner.routing.graph.mapped.GraphFile}. The street edges and the transfers
+ * between stops are written to sections that are memory mapped when the graph is read, and this
+ * object is serialized with Kryo after them. Kryo writes a street edge as its number in the
+ * street edge section and its vertices, and the street names referenced from that section are
+ * written before this object.
  */
 public class SerializedGraphObject implements Serializable {
     private static final Logger LOG = LoggerFactory.getLogger(SerializedGraphObject.class);
 
     public final Graph graph;
 
-    private final Collection<Edge> edges;
+    private final List<Edge> edges;
+
+    /** The stops, referenced by index from the transfer section. */
+    private List<StopLocation> transferStops;
 
     /** The config JSON used to build this graph. Allows checking whether the configuration has changed. */
     public final BuildConfig buildConfig;
@@ -66,7 +86,7 @@ public class SerializedGraphObject implements Serializable {
 
     public SerializedGraphObject(Graph graph, BuildConfig buildConfig, RouterConfig routerConfig) {
         this.graph = graph;
-        this.edges = graph.getEdges();
+        this.edges = new ArrayList<>(graph.getEdges());
         this.buildConfig = buildConfig;
         this.routerConfig = routerConfig;
     }
@@ -85,37 +105,99 @@ public class SerializedGraphObject implements Serializable {
     }
 
     public static SerializedGraphObject load(DataSource source) {
-        return load(source.asInputStream(), source.path());
+        SerializedGraphObject serObj = read(source);
+        if (serObj != null) {
+            serObj.reconstructEdgeLists();
+            serObj.logGraphSize();
+        }
+        return serObj;
+    }
+
+    /**
+     * Read the graph without reconstructing the edge lists of the vertices, so the caller can
+     * report the two steps separately. Call {@link #reconstructEdgeLists()} before the graph is
+     * used.
+     */
+    public static SerializedGraphObject read(DataSource source) {
+        LOG.info("Reading graph from '{}'", source.path());
+        try (GraphFile file = GraphFile.open(source)) {
+            StreetEdgeReader streets = new StreetEdgeReader(file);
+            Kryo kryo = makeKryo();
+            StreetEdgeSerializer.register(kryo, streets);
+            Input input = new Input(file.objects());
+            streets.readNames(kryo, input);
+            SerializedGraphObject serObj = (SerializedGraphObject) kryo.readClassAndObject(input);
+            Graph graph = serObj.graph;
+            LOG.debug("Graph read.");
+            if (graph.graphVersionMismatch()) {
+                throw new RuntimeException("Graph version mismatch detected.");
+            }
+            TransferReader.read(file, serObj.transferStops, serObj.edges, graph.transfersByStop);
+            return serObj;
+        }
+        catch (IOException e) {
+            LOG.error("Exception while loading graph: {}", e.getLocalizedMessage(), e);
+            return null;
+        }
+        catch (KryoException ke) {
+            LOG.warn("Exception while loading graph: {}\n{}", source.path(), ke.getLocalizedMessage());
+            throw new OtpAppException("Unable to load graph. The deserialization failed. Is the "
+                    + "loaded graph build with the same OTP version as you are using to load it? "
+                    + "Graph: " + source.path());
+        }
     }
 
     public static Graph load(File file) {
-        try {
-            SerializedGraphObject serObj = load(
-                    new FileInputStream(file),
-                    file.getAbsolutePath()
-            );
-            return serObj == null ? null : serObj.graph;
-        } catch (FileNotFoundException e) {
-            LOG.error("Graph file not found: " + file, e);
-            throw new OtpAppException(e.getMessage());
+        if (!file.exists()) {
+            LOG.error("Graph file not found: " + file);
+            throw new OtpAppException("Graph file not found: " + file);
         }
+        SerializedGraphObject serObj = load(new FileDataSource(file, FileType.GRAPH));
+        return serObj == null ? null : serObj.graph;
     }
 
     /**
      * After deserialization, the vertices will all have null outgoing and incoming edge lists
      * because those edge lists are marked transient, to prevent excessive recursion depth while
      * serializing. This method will reconstruct all those edge lists after deserialization.
+     * <p>
+     * The vertices are split in partitions, and the edge lists of each partition are
+     * reconstructed IN PARALLEL. The edges are added in the same order as in the serialized
+     * edge collection, so the result does not depend on the number of partitions.
      */
     public void reconstructEdgeLists() {
-        for (Vertex v : graph.getVertices()) {
-            v.initEdgeLists();
+        long startTime = System.currentTimeMillis();
+        int nPartitions = Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+
+        List<List<Edge>> outgoing = new ArrayList<>(nPartitions);
+        List<List<Edge>> incoming = new ArrayList<>(nPartitions);
+        for (int i = 0; i < nPartitions; ++i) {
+            outgoing.add(new ArrayList<>());
+            incoming.add(new ArrayList<>());
         }
         for (Edge e : edges) {
-            Vertex fromVertex = e.getFromVertex();
-            Vertex toVertex = e.getToVertex();
-            fromVertex.addOutgoing(e);
-            toVertex.addIncoming(e);
+            outgoing.get(partition(e.getFromVertex(), nPartitions)).add(e);
+            incoming.get(partition(e.getToVertex(), nPartitions)).add(e);
         }
+
+        graph.getVertices().parallelStream().forEach(Vertex::initEdgeLists);
+
+        // THIS CODE RUNS IN PARALLEL
+        IntStream.range(0, nPartitions).parallel().forEach(p -> {
+            for (Edge e : outgoing.get(p)) {
+                e.getFromVertex().addOutgoing(e);
+            }
+            for (Edge e : incoming.get(p)) {
+                e.getToVertex().addIncoming(e);
+            }
+        });
+        // END PARALLEL CODE
+
+        LOG.info(
+            "Edge lists reconstructed in {} partitions, took {} ms.",
+            nPartitions,
+            System.currentTimeMillis() - startTime
+        );
     }
 
     /**
@@ -183,46 +265,51 @@ public class SerializedGraphObject implements Serializable {
 
     /* private methods */
 
-    private static SerializedGraphObject load(InputStream inputStream, String sourceDescription) {
-        // TODO store version information, halt load if versions mismatch
-        try(inputStream) {
-            LOG.info("Reading graph from '{}'", sourceDescription);
-            Input input = new Input(inputStream);
-            Kryo kryo = makeKryo();
-            SerializedGraphObject serObj = (SerializedGraphObject) kryo.readClassAndObject(input);
-            Graph graph = serObj.graph;
-            LOG.debug("Graph read.");
-            if (graph.graphVersionMismatch()) {
-                throw new RuntimeException("Graph version mismatch detected.");
-            }
-            serObj.reconstructEdgeLists();
-            LOG.info("Graph read. |V|={} |E|={}", graph.countVertices(), graph.countEdges());
-            return serObj;
-        }
-        catch (IOException e) {
-            LOG.error("Exception while loading graph: {}", e.getLocalizedMessage(), e);
-            return null;
-        }
-        catch (KryoException ke) {
-            LOG.warn("Exception while loading graph: {}\n{}", sourceDescription, ke.getLocalizedMessage());
-            throw new OtpAppException("Unable to load graph. The deserialization failed. Is the "
-                    + "loaded graph build with the same OTP version as you are using to load it? "
-                    + "Graph: " + sourceDescription);
-        }
+    /** The number of edges is only known once the edge lists are reconstructed. */
+    public void logGraphSize() {
+        LOG.info("Graph read. |V|={} |E|={}", graph.countVertices(), graph.countEdges());
     }
 
     private void save(OutputStream outputStream, String graphName, long size) {
         LOG.info("Writing graph " + graphName + " ...");
         outputStream = wrapOutputStreamWithProgressTracker(outputStream, size);
-        Kryo kryo = makeKryo();
-        Output output = new Output(outputStream);
-        kryo.writeClassAndObject(output, this);
-        output.close();
+        // The street edges are numbered by vertex index, which must be dense
+        graph.indexVertices();
+        StreetEdgeWriter streets = new StreetEdgeWriter(graph);
+        TransferWriter transfers = new TransferWriter(graph.transfersByStop, edges);
+        this.transferStops = transfers.stops();
+        LOG.info(
+            "Writing {} street edges and {} transfer stops to the graph file sections.",
+            streets.edgeCount(),
+            transferStops.size()
+        );
+        try {
+            GraphFileWriter file = new GraphFileWriter(outputStream);
+            streets.write(file);
+            transfers.write(file);
+            Kryo kryo = makeKryo();
+            StreetEdgeSerializer.register(kryo, streets);
+            Output output = new Output(file.beginObjects());
+            streets.writeNames(kryo, output);
+            kryo.writeClassAndObject(output, this);
+            output.close();
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Failed to write graph " + graphName + ": " + e.getMessage(), e);
+        }
         LOG.info("Graph written: {}", graphName);
         // Summarize serialized classes and associated serializers to stdout:
         // ((InstanceCountingClassResolver) kryo.getClassResolver()).summarize();
     }
 
+    /**
+     * All edges of a vertex must be in the same partition. The vertex index is stable across
+     * serialization, so use that.
+     */
+    private static int partition(Vertex v, int nPartitions) {
+        return Math.floorMod(v.getIndex(), nPartitions);
+    }
+
     @SuppressWarnings("Convert2MethodRef")
     private static OutputStream wrapOutputStreamWithProgressTracker(OutputStream outputStream, long size) {
         return ProgressTracker.track(
@@ -42,10 +42,22 @@ public abstract class Vertex implements Serializable, Cloneable {
 
     private final double y;
     
+    /**
+     * Dense index of this vertex in the graph, see {@link #getIndex()}.
+     */
+    private int index = -1;
+
     private transient Edge[] incoming = new Edge[0];
 
     private transient Edge[] outgoing = new Edge[0];
 
+    /**
+     * The adjacency holding the edges of this vertex, or null if the edges are in the arrays
+     * above. Volatile because it is cleared by the updater threads and read by the routing threads
+     * without a lock, see {@link #detach()}.
+     */
+    private transient volatile EdgeAdjacency adjacency = null;
+
     /* CONSTRUCTORS */
 
     protected Vertex(Graph g, String label, double x, double y) {
@@ -81,6 +93,49 @@ public abstract class Vertex implements Serializable, Cloneable {
     public void initEdgeLists() {
         this.outgoing = new Edge[0];
         this.incoming = new Edge[0];
+        this.adjacency = null;
+    }
+
+    /**
+     * A dense index in the range {@code [0, Graph#getVertexIndexSize())}, used to store search
+     * state for a vertex in an array instead of a map. The index is set when the vertex is added to
+     * the graph and the vertices are renumbered when the graph is indexed at load time. Temporary
+     * vertices are not part of the graph and have no index ({@code -1}).
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
+    EdgeAdjacency getEdgeAdjacency() {
+        return adjacency;
+    }
+
+    /** Move the edges of this vertex into the adjacency, which must have the same edges. */
+    void setEdgeAdjacency(EdgeAdjacency adjacency) {
+        synchronized (this) {
+            this.adjacency = adjacency;
+            this.outgoing = null;
+            this.incoming = null;
+        }
+    }
+
+    /**
+     * Copy the edges of this vertex out of the adjacency into the arrays of this vertex, before
+     * they are modified or the vertex is renumbered.
+     */
+    synchronized void detach() {
+        EdgeAdjacency a = adjacency;
+        if (a == null) {
+            return;
+        }
+        outgoing = a.outgoingEdges(index).toArray(new Edge[0]);
+        incoming = a.incomingEdges(index).toArray(new Edge[0]);
+        // Written last, a routing thread that sees null also sees the arrays
+        adjacency = null;
     }
 
     /* EDGE UTILITY METHODS (use arrays to eliminate copy-on-write set objects) */
@@ -130,6 +185,7 @@ public abstract class Vertex implements Serializable, Cloneable {
 
     public void addOutgoing(Edge edge) {
         synchronized (this) {
+            detach();
             outgoing = addEdge(outgoing, edge);
         }
     }
@@ -137,6 +193,7 @@ public abstract class Vertex implements Serializable, Cloneable {
     /** @return whether the edge was found and removed. */
     public boolean removeOutgoing(Edge edge) {
         synchronized (this) {
+            detach();
             int n = outgoing.length;
             outgoing = removeEdge(outgoing, edge);
             return (outgoing.length < n);
@@ -146,6 +203,7 @@ public abstract class Vertex implements Serializable, Cloneable {
 
     public void addIncoming(Edge edge) {
         synchronized (this) {
+            detach();
             incoming = addEdge(incoming, edge);
         }
     }
@@ -153,6 +211,7 @@ public abstract class Vertex implements Serializable, Cloneable {
     /** @return whether the edge was found and removed. */
     public boolean removeIncoming(Edge edge) {
         synchronized (this) {
+            detach();
             int n = incoming.length;
             incoming = removeEdge(incoming, edge);
             return (incoming.length < n);
@@ -165,20 +224,24 @@ public abstract class Vertex implements Serializable, Cloneable {
      * allows filtering and combining edge lists using stock Collection-based methods.
      */
     public Collection<Edge> getOutgoing() {
-        return Arrays.asList(outgoing);
+        EdgeAdjacency a = adjacency;
+        return a != null ? a.outgoingEdges(index) : Arrays.asList(outgoing);
     }
 
     /** Get a collection containing all the edges leading from other vertices to this vertex. */
     public Collection<Edge> getIncoming() {
-        return Arrays.asList(incoming);
+        EdgeAdjacency a = adjacency;
+        return a != null ? a.incomingEdges(index) : Arrays.asList(incoming);
     }
 
     public int getDegreeOut() {
-        return outgoing.length;
+        EdgeAdjacency a = adjacency;
+        return a != null ? a.degreeOut(index) : outgoing.length;
     }
 
     public int getDegreeIn() {
-        return incoming.length;
+        EdgeAdjacency a = adjacency;
+        return a != null ? a.degreeIn(index) : incoming.length;
     }
     
     /** Get the longitude of the vertex */
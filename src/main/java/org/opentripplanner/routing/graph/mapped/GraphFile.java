@@ -0,0 +1,180 @@
+package org.opentripplanner.routing.graph.mapped;
+
+import org.opentripplanner.datastore.DataSource;
+import org.opentripplanner.datastore.file.FileDataSource;
+import org.opentripplanner.util.OtpAppException;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static org.opentripplanner.routing.graph.mapped.GraphFileFormat.*;
+
+/**
+ * The sections of a graph file, see {@link GraphFileFormat}. A graph file in the local file
+ * system is memory mapped: opening it does not read the sections, the data stays off-heap and
+ * the pages are shared with other processes mapping the same file. A graph file in another data
+ * store is read from a stream, and the sections are read into heap buffers.
+ * <p>
+ * The sections stay valid after the file is closed. Close the file after reading the
+ * {@link #objects()}.
+ */
+public class GraphFile implements Closeable {
+
+    private final Map<Integer, ByteBuffer> sections = new HashMap<>();
+    private final String source;
+    private final Closeable closeable;
+    private InputStream objects;
+
+    private GraphFile(String source, Closeable closeable) {
+        this.source = source;
+        this.closeable = closeable;
+    }
+
+    /**
+     * Open a graph file and read the section headers, the file is positioned at the start of
+     * the {@link #objects()}.
+     *
+     * @throws OtpAppException if the source is not a graph file or the schema version is not
+     *                         supported.
+     */
+    public static GraphFile open(DataSource source) throws IOException {
+        if (source instanceof FileDataSource) {
+            return map(source.path());
+        }
+        return read(source.path(), source.asInputStream());
+    }
+
+    /** The section with the given id, positioned at the start of the data. */
+    ByteBuffer section(int id) {
+        ByteBuffer section = sections.get(id);
+        if (section == null) {
+            throw new OtpAppException("Graph file section " + id + " is missing: " + source);
+        }
+        return section.duplicate();
+    }
+
+    /** The graph serialized with Kryo, see {@link GraphFileFormat#OBJECTS}. */
+    public InputStream objects() {
+        return objects;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeable.close();
+    }
+
+    private static GraphFile map(String path) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(path), READ);
+        GraphFile file = new GraphFile(path, channel);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0, path);
+            file.checkHeader(header.getInt(0), header.getInt(Integer.BYTES));
+
+            long position = HEADER_SIZE;
+            while (true) {
+                ByteBuffer sectionHeader = ByteBuffer.allocate(SECTION_HEADER_SIZE);
+                readFully(channel, sectionHeader, position, path);
+                int id = sectionHeader.getInt(0);
+                long length = sectionHeader.getLong(2 * Integer.BYTES);
+                position += SECTION_HEADER_SIZE;
+                if (id == OBJECTS) {
+                    channel.position(position);
+                    file.objects = new BufferedInputStream(Channels.newInputStream(channel));
+                    return file;
+                }
+                file.sections.put(
+                    id,
+                    channel.map(FileChannel.MapMode.READ_ONLY, position, file.checkLength(id, length))
+                );
+                position = align(position + length);
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static GraphFile read(String source, InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+        GraphFile file = new GraphFile(source, in);
+        try {
+            file.checkHeader(in.readInt(), in.readInt());
+            long position = HEADER_SIZE;
+            while (true) {
+                int id = in.readInt();
+                in.readInt();
+                long length = in.readLong();
+                position += SECTION_HEADER_SIZE;
+                if (id == OBJECTS) {
+                    file.objects = in;
+                    return file;
+                }
+                byte[] data = new byte[file.checkLength(id, length)];
+                in.readFully(data);
+                file.sections.put(id, ByteBuffer.wrap(data));
+                long end = align(position + length);
+                in.readFully(new byte[(int) (end - position - length)]);
+                position = end;
+            }
+        }
+        catch (EOFException e) {
+            in.close();
+            throw new OtpAppException("The graph file is truncated: " + source);
+        }
+        catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private void checkHeader(int magic, int version) {
+        if (magic != MAGIC) {
+            throw new OtpAppException(
+                "Not a graph file, or a graph file from an older version of OTP. Rebuild the "
+                    + "graph: " + source
+            );
+        }
+        if (version != SCHEMA_VERSION) {
+            throw new OtpAppException(
+                "Unsupported graph file schema version " + version + ", expected "
+                    + SCHEMA_VERSION + ". Rebuild the graph: " + source
+            );
+        }
+    }
+
+    private int checkLength(int id, long length) {
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new OtpAppException(
+                "Graph file section " + id + " has an invalid length " + length + ": " + source
+            );
+        }
+        return (int) length;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position, String path)
+        throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new OtpAppException("The graph file is truncated: " + path);
+            }
+        }
+    }
+
+    private static long align(long position) {
+        long rest = position % SECTION_ALIGNMENT;
+        return rest == 0 ? position : position + SECTION_ALIGNMENT - rest;
+    }
+}
@@ -0,0 +1,89 @@
+package org.opentripplanner.routing.graph.mapped;
+
+/**
+ * The layout of the graph file, <em>graph.obj</em>. The file starts with a header, followed by
+ * the sections:
+ * <pre>
+ * HEADER          int magic, int schema version
+ * SECTION         int section id, int 0, long length, data, padding to 8 bytes
+ * ...
+ * OBJECTS         the last section, length -1, the graph serialized with Kryo to the end of file
+ * </pre>
+ * The data of each section starts at an offset aligned to 8 bytes, so a section can be memory
+ * mapped and read in place. The sections are written and read in order, so the file can also be
+ * read from a stream. All numbers are big-endian.
+ * <p>
+ * The fixed size sections start with an int element count, followed by the records. The variable
+ * size sections have an int count, an int array of {@code count + 1} offsets and the data, so
+ * element {@code i} is the bytes from {@code offsets[i]} to {@code offsets[i+1]}.
+ * <p>
+ * A reader must reject a file with a schema version it does not know. Change the
+ * {@link #SCHEMA_VERSION} when the layout of a section changes, this includes the
+ * {@link org.opentripplanner.routing.edgetype.StreetEdge#RECORD_SIZE street edge record}. New
+ * sections can be added without changing the version, a reader ignores unknown sections.
+ */
+final class GraphFileFormat {
+
+    /** "OTPG" */
+    static final int MAGIC = 0x4F545047;
+
+    static final int SCHEMA_VERSION = 1;
+
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    static final int SECTION_HEADER_SIZE = 2 * Integer.BYTES + Long.BYTES;
+
+    static final int SECTION_ALIGNMENT = 8;
+
+    /** The length of the {@link #OBJECTS} section, which extends to the end of the file. */
+    static final long TO_END_OF_FILE = -1;
+
+
+    /* Section ids */
+
+    /**
+     * The street edges, {@link org.opentripplanner.routing.edgetype.StreetEdge} records. The
+     * names are referenced by index in the street name list at the start of the
+     * {@link #OBJECTS}, and the geometries by index in the {@link #GEOMETRIES}. The vertices
+     * are written with the edge number in the {@link #OBJECTS}.
+     */
+    static final int STREET_EDGES = 1;
+
+    /**
+     * Street edge geometries packed with
+     * {@link org.opentripplanner.common.geometry.CompactLineString}. A geometry shared by an edge
+     * and its reverse edge is written once.
+     */
+    static final int GEOMETRIES = 2;
+
+    /**
+     * The Raptor transfers between stops, see the TRANSFER_* offsets. The stops are referenced by
+     * index in the transfer stop list of the {@link #OBJECTS}.
+     */
+    static final int TRANSFERS = 3;
+
+    /** The edges of the transfers, int indexes in the {@link #TRANSFER_EDGE_TABLE}. */
+    static final int TRANSFER_EDGES = 4;
+
+    /** The distinct edges of the transfers, int indexes in the edge list of the {@link #OBJECTS}. */
+    static final int TRANSFER_EDGE_TABLE = 5;
+
+    /**
+     * The street names, followed by the rest of the graph, serialized with Kryo. The street edges
+     * are written as their number and their vertices.
+     */
+    static final int OBJECTS = 100;
+
+
+    /* Transfer record */
+
+    static final int TRANSFER_FROM_STOP = 0;
+    static final int TRANSFER_TO_STOP = 4;
+    static final int TRANSFER_EFFECTIVE_WALK_DISTANCE = 8;
+    static final int TRANSFER_FIRST_EDGE = 16;
+    /** The number of edges, or -1 if the transfer has no edges. */
+    static final int TRANSFER_EDGE_COUNT = 20;
+    static final int TRANSFER_RECORD_SIZE = 24;
+
+    private GraphFileFormat() {}
+}
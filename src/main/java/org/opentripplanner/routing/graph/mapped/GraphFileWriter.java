@@ -0,0 +1,137 @@
+package org.opentripplanner.routing.graph.mapped;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.opentripplanner.routing.graph.mapped.GraphFileFormat.*;
+
+/**
+ * Write a graph file to a stream, see {@link GraphFileFormat}. The length of each section is
+ * given when the section is started, so the file is written in one pass and nothing is kept in
+ * memory. The {@link #beginObjects() objects} section is the last section.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class GraphFileWriter {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final OutputStream out;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long flushed = 0;
+
+    private int sectionId = -1;
+    private long sectionEnd;
+
+    public GraphFileWriter(OutputStream out) throws IOException {
+        this.out = out;
+        putInt(MAGIC);
+        putInt(SCHEMA_VERSION);
+    }
+
+    /** The number of bytes of a variable size section with the given elements. */
+    static long variableSizeSectionLength(List<byte[]> elements) {
+        long length = Integer.BYTES * (elements.size() + 2L);
+        for (byte[] element : elements) {
+            length += element.length;
+        }
+        return length;
+    }
+
+    /** Start a section, exactly {@code length} bytes of data must be written before the next. */
+    void beginSection(int id, long length) throws IOException {
+        endSection();
+        putInt(id);
+        putInt(0);
+        putLong(length);
+        sectionId = id;
+        sectionEnd = position() + length;
+    }
+
+    /**
+     * A buffer with at least {@code size} bytes remaining, to write the data of the section at
+     * its position. {@code size} must not be larger than 64 KB.
+     */
+    ByteBuffer reserve(int size) throws IOException {
+        if (buffer.remaining() < size) {
+            flush();
+        }
+        return buffer;
+    }
+
+    void putInt(int value) throws IOException {
+        reserve(Integer.BYTES).putInt(value);
+    }
+
+    void putLong(long value) throws IOException {
+        reserve(Long.BYTES).putLong(value);
+    }
+
+    void put(byte[] values) throws IOException {
+        int offset = 0;
+        while (offset < values.length) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int length = Math.min(buffer.remaining(), values.length - offset);
+            buffer.put(values, offset, length);
+            offset += length;
+        }
+    }
+
+    /** Write a variable size section, see {@link GraphFileFormat}. */
+    void writeVariableSizeSection(int id, List<byte[]> elements) throws IOException {
+        beginSection(id, variableSizeSectionLength(elements));
+        putInt(elements.size());
+        long offset = 0;
+        putInt(0);
+        for (byte[] element : elements) {
+            offset += element.length;
+            if (offset > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Section too large: " + offset + " bytes.");
+            }
+            putInt((int) offset);
+        }
+        for (byte[] element : elements) {
+            put(element);
+        }
+    }
+
+    /**
+     * End the last section and start the objects section. The objects are written directly to
+     * the returned stream, which is closed by the caller.
+     */
+    public OutputStream beginObjects() throws IOException {
+        beginSection(OBJECTS, TO_END_OF_FILE);
+        sectionId = -1;
+        flush();
+        return out;
+    }
+
+    private void endSection() throws IOException {
+        if (sectionId < 0) {
+            return;
+        }
+        if (position() != sectionEnd) {
+            throw new IllegalStateException(
+                "Section " + sectionId + " ends at " + position() + ", expected " + sectionEnd
+            );
+        }
+        while (position() % SECTION_ALIGNMENT != 0) {
+            reserve(Byte.BYTES).put((byte) 0);
+        }
+        sectionId = -1;
+    }
+
+    private long position() {
+        return flushed + buffer.position();
+    }
+
+    private void flush() throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+        flushed += buffer.position();
+        buffer.clear();
+    }
+}
@@ -0,0 +1,70 @@
+package org.opentripplanner.routing.graph.mapped;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import org.opentripplanner.common.geometry.CompactLineString;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.util.I18NString;
+import org.opentripplanner.util.OtpAppException;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.opentripplanner.routing.graph.mapped.GraphFileFormat.GEOMETRIES;
+import static org.opentripplanner.routing.graph.mapped.GraphFileFormat.STREET_EDGES;
+
+/**
+ * Read the street edges written by {@link StreetEdgeWriter}. Kryo creates each street edge from
+ * its record when it is first read, see {@link StreetEdgeSerializer}. The street names
+ * must be read with {@link #readNames(Kryo, Input)} before the graph.
+ */
+public class StreetEdgeReader {
+
+    private final ByteBuffer edges;
+    private final VariableSizeSection geometries;
+    private final int edgeCount;
+
+    /** An edge and its reverse edge share the geometry, by geometry index. */
+    private final byte[][] geometryByIndex;
+
+    private List<I18NString> names;
+
+    public StreetEdgeReader(GraphFile file) {
+        this.edges = file.section(STREET_EDGES);
+        this.geometries = new VariableSizeSection(file.section(GEOMETRIES));
+        this.edgeCount = edges.getInt(0);
+        this.geometryByIndex = new byte[geometries.size()][];
+    }
+
+    @SuppressWarnings("unchecked")
+    public void readNames(Kryo kryo, Input input) {
+        this.names = (List<I18NString>) kryo.readClassAndObject(input);
+    }
+
+    /**
+     * Set the state of an edge created without running a constructor from the record with the
+     * given number. The edge is not added to the edge lists of the vertices.
+     */
+    void read(StreetEdge edge, int id, Vertex from, Vertex to) {
+        if (id >= edgeCount) {
+            throw new OtpAppException("Graph file references a missing street edge " + id);
+        }
+        int offset = Integer.BYTES + id * StreetEdge.RECORD_SIZE;
+        int g = StreetEdge.recordGeometryIndex(edges, offset);
+        if (g >= 0 && geometryByIndex[g] == null) {
+            byte[] geometry = geometries.getBytes(g);
+            geometryByIndex[g] = geometry.length == 0
+                ? CompactLineString.STRAIGHT_LINE_PACKED
+                : geometry;
+        }
+        edge.readRecord(
+            edges,
+            offset,
+            from,
+            to,
+            names.get(StreetEdge.recordNameIndex(edges, offset)),
+            g < 0 ? null : geometryByIndex[g]
+        );
+    }
+}
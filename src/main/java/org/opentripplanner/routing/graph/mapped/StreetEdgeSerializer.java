@@ -0,0 +1,64 @@
+package org.opentripplanner.routing.graph.mapped;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.FieldSerializer;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.graph.Vertex;
+
+/**
+ * Serialize a {@link StreetEdge} in the street edge section as its number and its vertices, and
+ * any other street edge field by field. The edge is complete when it is read, so it can be used
+ * as a map key in the rest of the graph. Register it for the {@link StreetEdge} class only, the
+ * subclasses are always serialized field by field.
+ */
+public class StreetEdgeSerializer extends Serializer<StreetEdge> {
+
+    private final FieldSerializer<StreetEdge> fields;
+    private final StreetEdgeWriter writer;
+    private final StreetEdgeReader reader;
+
+    private StreetEdgeSerializer(Kryo kryo, StreetEdgeWriter writer, StreetEdgeReader reader) {
+        this.fields = new FieldSerializer<>(kryo, StreetEdge.class);
+        this.writer = writer;
+        this.reader = reader;
+    }
+
+    public static void register(Kryo kryo, StreetEdgeWriter writer) {
+        kryo.register(StreetEdge.class, new StreetEdgeSerializer(kryo, writer, null));
+    }
+
+    public static void register(Kryo kryo, StreetEdgeReader reader) {
+        kryo.register(StreetEdge.class, new StreetEdgeSerializer(kryo, null, reader));
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, StreetEdge edge) {
+        // 0 is an edge that is not in the section
+        int id = writer.id(edge);
+        output.writeVarInt(id + 1, true);
+        if (id < 0) {
+            fields.write(kryo, output, edge);
+            return;
+        }
+        kryo.writeClassAndObject(output, edge.getFromVertex());
+        kryo.writeClassAndObject(output, edge.getToVertex());
+    }
+
+    @Override
+    public StreetEdge read(Kryo kryo, Input input, Class<StreetEdge> type) {
+        int id = input.readVarInt(true) - 1;
+        if (id < 0) {
+            return fields.read(kryo, input, type);
+        }
+        // Reference the edge before the vertices are read, in case they refer back to it
+        StreetEdge edge = kryo.newInstance(StreetEdge.class);
+        kryo.reference(edge);
+        Vertex from = (Vertex) kryo.readClassAndObject(input);
+        Vertex to = (Vertex) kryo.readClassAndObject(input);
+        reader.read(edge, id, from, to);
+        return edge;
+    }
+}
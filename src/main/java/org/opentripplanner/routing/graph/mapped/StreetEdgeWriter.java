@@ -0,0 +1,135 @@
+package org.opentripplanner.routing.graph.mapped;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Output;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.util.I18NString;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.opentripplanner.routing.graph.mapped.GraphFileFormat.GEOMETRIES;
+import static org.opentripplanner.routing.graph.mapped.GraphFileFormat.STREET_EDGES;
+
+/**
+ * Write the street edges of a graph to the {@link GraphFileFormat#STREET_EDGES} and
+ * {@link GraphFileFormat#GEOMETRIES} sections. Only edges of the class {@link StreetEdge}
+ * between vertices of the graph are written; subclasses, like the edges with an elevation
+ * profile, are serialized with the rest of the graph.
+ * <p>
+ * The edges are numbered in the order of the vertex index and the outgoing edges of each vertex.
+ * The vertex indexes of the graph must be dense. Kryo writes a street edge as its number and its
+ * vertices, see {@link StreetEdgeSerializer}, so the rest of the edge is written once.
+ */
+public class StreetEdgeWriter {
+
+    private final Vertex[] vertexByIndex;
+
+    /** The number of the first street edge of each vertex, by vertex index. */
+    private final int[] firstEdge;
+
+    private final List<I18NString> names = new ArrayList<>();
+    private final Map<I18NString, Integer> nameIndex = new HashMap<>();
+
+    private final List<byte[]> geometries = new ArrayList<>();
+    private final Map<byte[], Integer> geometryIndex = new IdentityHashMap<>();
+
+    public StreetEdgeWriter(Graph graph) {
+        this.vertexByIndex = new Vertex[graph.getVertexIndexSize()];
+        for (Vertex v : graph.getVertices()) {
+            vertexByIndex[v.getIndex()] = v;
+        }
+        this.firstEdge = new int[vertexByIndex.length + 1];
+        int n = 0;
+        for (int i = 0; i < vertexByIndex.length; ++i) {
+            firstEdge[i] = n;
+            if (vertexByIndex[i] == null) { continue; }
+            for (Edge e : vertexByIndex[i].getOutgoing()) {
+                if (isWritten(e)) {
+                    StreetEdge se = (StreetEdge) e;
+                    nameIndex.computeIfAbsent(se.getI18nName(), name -> {
+                        names.add(name);
+                        return names.size() - 1;
+                    });
+                    byte[] geometry = se.getCompactGeometry();
+                    if (geometry != null) {
+                        geometryIndex.computeIfAbsent(geometry, g -> {
+                            geometries.add(g);
+                            return geometries.size() - 1;
+                        });
+                    }
+                    ++n;
+                }
+            }
+        }
+        firstEdge[vertexByIndex.length] = n;
+    }
+
+    /**
+     * Write the street names referenced by index from the edge records. They are written with
+     * Kryo before the graph, so the edges can be created as soon as they are referenced.
+     */
+    public void writeNames(Kryo kryo, Output output) {
+        kryo.writeClassAndObject(output, names);
+    }
+
+    public int edgeCount() {
+        return firstEdge[vertexByIndex.length];
+    }
+
+    /** @return the number of the edge, or -1 if the edge is not written to the sections. */
+    int id(StreetEdge edge) {
+        Vertex from = edge.getFromVertex();
+        if (!isInGraph(from)) {
+            return -1;
+        }
+        int id = firstEdge[from.getIndex()];
+        for (Edge e : from.getOutgoing()) {
+            if (e == edge) {
+                return isWritten(e) ? id : -1;
+            }
+            if (isWritten(e)) {
+                ++id;
+            }
+        }
+        return -1;
+    }
+
+    public void write(GraphFileWriter out) throws IOException {
+        out.beginSection(STREET_EDGES, Integer.BYTES + (long) edgeCount() * StreetEdge.RECORD_SIZE);
+        out.putInt(edgeCount());
+        for (Vertex v : vertexByIndex) {
+            if (v == null) { continue; }
+            for (Edge e : v.getOutgoing()) {
+                if (isWritten(e)) {
+                    StreetEdge se = (StreetEdge) e;
+                    byte[] geometry = se.getCompactGeometry();
+                    ByteBuffer record = out.reserve(StreetEdge.RECORD_SIZE);
+                    se.writeRecord(
+                        record,
+                        nameIndex.get(se.getI18nName()),
+                        geometry == null ? -1 : geometryIndex.get(geometry)
+                    );
+                }
+            }
+        }
+        out.writeVariableSizeSection(GEOMETRIES, geometries);
+    }
+
+    private boolean isWritten(Edge e) {
+        return e.getClass() == StreetEdge.class && isInGraph(e.getToVertex());
+    }
+
+    private boolean isInGraph(Vertex v) {
+        int index = v.getIndex();
+        return index >= 0 && index < vertexByIndex.length && vertexByIndex[index] == v;
+    }
+}
@@ -0,0 +1,98 @@
+package org.opentripplanner.routing.graph.mapped;
+
+import com.google.common.collect.Multimap;
+import org.opentripplanner.model.SimpleTransfer;
+import org.opentripplanner.model.StopLocation;
+import org.opentripplanner.routing.graph.Edge;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import static org.opentripplanner.routing.graph.mapped.GraphFileFormat.*;
+
+/**
+ * Read the transfers written by {@link TransferWriter}. The edge lists of the transfers are
+ * views of the {@link GraphFileFormat#TRANSFER_EDGES} section, which stays off-heap when the
+ * file is memory mapped.
+ */
+public class TransferReader {
+
+    /**
+     * Add the transfers of the file to the given map.
+     *
+     * @param stops the stops referenced by index from the transfer records.
+     * @param edges the edges of the graph, referenced by index from the edge table.
+     */
+    public static void read(
+        GraphFile file,
+        List<StopLocation> stops,
+        List<Edge> edges,
+        Multimap<StopLocation, SimpleTransfer> transfersByStop
+    ) {
+        ByteBuffer transfers = file.section(TRANSFERS);
+        ByteBuffer transferEdges = file.section(TRANSFER_EDGES);
+        ByteBuffer table = file.section(TRANSFER_EDGE_TABLE);
+
+        Edge[] edgeTable = new Edge[table.getInt(0)];
+        for (int i = 0; i < edgeTable.length; ++i) {
+            edgeTable[i] = edges.get(table.getInt(Integer.BYTES * (i + 1)));
+        }
+
+        int n = transfers.getInt(0);
+        for (int i = 0; i < n; ++i) {
+            int offset = Integer.BYTES + i * TRANSFER_RECORD_SIZE;
+            StopLocation from = stops.get(transfers.getInt(offset + TRANSFER_FROM_STOP));
+            StopLocation to = stops.get(transfers.getInt(offset + TRANSFER_TO_STOP));
+            int edgeCount = transfers.getInt(offset + TRANSFER_EDGE_COUNT);
+            List<Edge> transferEdgeList = edgeCount < 0
+                ? null
+                : new EdgeList(
+                    transferEdges,
+                    Integer.BYTES * (1 + transfers.getInt(offset + TRANSFER_FIRST_EDGE)),
+                    edgeCount,
+                    edgeTable
+                );
+            transfersByStop.put(
+                from,
+                new SimpleTransfer(
+                    from,
+                    to,
+                    transfers.getDouble(offset + TRANSFER_EFFECTIVE_WALK_DISTANCE),
+                    transferEdgeList
+                )
+            );
+        }
+    }
+
+    /** A read-only list of edges, stored as int indexes in the edge table. */
+    private static class EdgeList extends AbstractList<Edge> implements RandomAccess {
+
+        private final ByteBuffer buffer;
+        private final int start;
+        private final int size;
+        private final Edge[] edgeTable;
+
+        private EdgeList(ByteBuffer buffer, int start, int size, Edge[] edgeTable) {
+            this.buffer = buffer;
+            this.start = start;
+            this.size = size;
+            this.edgeTable = edgeTable;
+        }
+
+        @Override
+        public Edge get(int i) {
+            if (i < 0 || i >= size) {
+                throw new IndexOutOfBoundsException("Index: " + i + ", size: " + size);
+            }
+            // Absolute reads do not change the buffer, so the list is thread-safe
+            return edgeTable[buffer.getInt(start + Integer.BYTES * i)];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.opentripplanner.routing.graph.mapped;
+
+import com.google.common.collect.Multimap;
+import org.opentripplanner.model.SimpleTransfer;
+import org.opentripplanner.model.StopLocation;
+import org.opentripplanner.routing.graph.Edge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.opentripplanner.routing.graph.mapped.GraphFileFormat.*;
+
+/**
+ * Write the transfers between stops used by Raptor to the {@link GraphFileFormat#TRANSFERS},
+ * {@link GraphFileFormat#TRANSFER_EDGES} and {@link GraphFileFormat#TRANSFER_EDGE_TABLE}
+ * sections. The edges of a transfer are only used to create the legs of an itinerary, they are
+ * referenced by index and read lazily from the mapped file, see {@link TransferReader}.
+ */
+public class TransferWriter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TransferWriter.class);
+
+    private final List<SimpleTransfer> transfers;
+    private final List<StopLocation> stops = new ArrayList<>();
+    private final Map<StopLocation, Integer> stopIndex = new HashMap<>();
+
+    /** The distinct edges of the transfers, and their index in the edge list of the graph. */
+    private final Map<Edge, Integer> edgeTableIndex = new IdentityHashMap<>();
+    private final int[] edgeTable;
+    private final int transferEdgeCount;
+
+    /**
+     * @param edges the edges serialized with the graph, the edges of the transfers are written
+     *              as their index in this list.
+     */
+    public TransferWriter(Multimap<StopLocation, SimpleTransfer> transfersByStop, List<Edge> edges) {
+        this.transfers = new ArrayList<>(transfersByStop.values());
+        int n = 0;
+        for (SimpleTransfer t : transfers) {
+            indexStop(t.from);
+            indexStop(t.to);
+            if (t.getEdges() != null) {
+                for (Edge e : t.getEdges()) {
+                    edgeTableIndex.putIfAbsent(e, edgeTableIndex.size());
+                }
+            }
+        }
+        this.edgeTable = new int[edgeTableIndex.size()];
+        Arrays.fill(edgeTable, -1);
+        for (int i = 0; i < edges.size(); ++i) {
+            Integer t = edgeTableIndex.get(edges.get(i));
+            if (t != null) {
+                edgeTable[t] = i;
+            }
+        }
+        int missing = 0;
+        for (SimpleTransfer t : transfers) {
+            if (hasEdges(t)) {
+                n += t.getEdges().size();
+            }
+            else if (t.getEdges() != null) {
+                ++missing;
+            }
+        }
+        this.transferEdgeCount = n;
+        if (missing > 0) {
+            LOG.warn("{} transfers have edges that are not in the graph, they are saved without edges.", missing);
+        }
+    }
+
+    /** The stops referenced by index from the transfer records, serialized with Kryo. */
+    public List<StopLocation> stops() {
+        return stops;
+    }
+
+    public void write(GraphFileWriter out) throws IOException {
+        out.beginSection(
+            TRANSFERS,
+            Integer.BYTES + (long) transfers.size() * TRANSFER_RECORD_SIZE
+        );
+        out.putInt(transfers.size());
+        int firstEdge = 0;
+        for (SimpleTransfer t : transfers) {
+            ByteBuffer record = out.reserve(TRANSFER_RECORD_SIZE);
+            int edgeCount = hasEdges(t) ? t.getEdges().size() : -1;
+            record.putInt(stopIndex.get(t.from));
+            record.putInt(stopIndex.get(t.to));
+            record.putDouble(t.getEffectiveWalkDistance());
+            record.putInt(firstEdge);
+            record.putInt(edgeCount);
+            firstEdge += Math.max(edgeCount, 0);
+        }
+
+        out.beginSection(TRANSFER_EDGES, Integer.BYTES * (1L + transferEdgeCount));
+        out.putInt(transferEdgeCount);
+        for (SimpleTransfer t : transfers) {
+            if (hasEdges(t)) {
+                for (Edge e : t.getEdges()) {
+                    out.putInt(edgeTableIndex.get(e));
+                }
+            }
+        }
+
+        out.beginSection(TRANSFER_EDGE_TABLE, Integer.BYTES * (1L + edgeTable.length));
+        out.putInt(edgeTable.length);
+        for (int edge : edgeTable) {
+            out.putInt(edge);
+        }
+    }
+
+    private void indexStop(StopLocation stop) {
+        stopIndex.computeIfAbsent(stop, s -> {
+            stops.add(s);
+            return stops.size() - 1;
+        });
+    }
+
+    /** A transfer is written with its edges if all the edges are in the graph. */
+    private boolean hasEdges(SimpleTransfer t) {
+        if (t.getEdges() == null) {
+            return false;
+        }
+        for (Edge e : t.getEdges()) {
+            if (edgeTable[edgeTableIndex.get(e)] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,33 @@
+package org.opentripplanner.routing.graph.mapped;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A section with variable size elements: an int count, {@code count + 1} int offsets and the
+ * data, see {@link GraphFileFormat}. This class is thread-safe.
+ */
+class VariableSizeSection {
+
+    private final ByteBuffer buffer;
+    private final int dataStart;
+
+    VariableSizeSection(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.dataStart = Integer.BYTES * (buffer.getInt(0) + 2);
+    }
+
+    int size() {
+        return buffer.getInt(0);
+    }
+
+    byte[] getBytes(int index) {
+        int start = buffer.getInt(Integer.BYTES * (index + 1));
+        int end = buffer.getInt(Integer.BYTES * (index + 2));
+        byte[] value = new byte[end - start];
+        // Use a duplicate to read, the position of a shared buffer is not thread-safe
+        ByteBuffer b = buffer.duplicate();
+        b.position(dataStart + start);
+        b.get(value);
+        return value;
+    }
+}
@@ -2,6 +2,7 @@ package org.opentripplanner.routing.graphfinder;
 
 import org.opentripplanner.model.GenericLocation;
 import org.opentripplanner.routing.algorithm.astar.AStar;
+import org.opentripplanner.routing.algorithm.astar.AStarSearchContext;
 import org.opentripplanner.routing.algorithm.astar.TraverseVisitor;
 import org.opentripplanner.routing.algorithm.astar.strategies.SearchTerminationStrategy;
 import org.opentripplanner.routing.algorithm.astar.strategies.TrivialRemainingWeightHeuristic;
@@ -49,7 +50,15 @@ public class StreetGraphFinder implements GraphFinder {
     AStar astar = new AStar();
     rr.setNumItineraries(1);
     astar.setTraverseVisitor(visitor);
-    astar.getShortestPathTree(rr, 1, terminationStrategy); // timeout in seconds
+    AStarSearchContext searchContext = AStarSearchContext.forCurrentThread();
+    astar.setSearchContext(searchContext);
+    try {
+      astar.getShortestPathTree(rr, 1, terminationStrategy); // timeout in seconds
+    }
+    finally {
+      // The visitor has collected the result, release the states of the search
+      searchContext.clear();
+    }
     // Destroy the routing context, to clean up the temporary edges & vertices
     rr.rctx.destroy();
   }
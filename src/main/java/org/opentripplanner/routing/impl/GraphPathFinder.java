@@ -1,6 +1,7 @@
 package org.opentripplanner.routing.impl;
 
 import org.opentripplanner.routing.algorithm.astar.AStar;
+import org.opentripplanner.routing.algorithm.astar.AStarSearchContext;
 import org.opentripplanner.routing.algorithm.astar.strategies.EuclideanRemainingWeightHeuristic;
 import org.opentripplanner.routing.algorithm.astar.strategies.RemainingWeightHeuristic;
 import org.opentripplanner.routing.algorithm.astar.strategies.TrivialRemainingWeightHeuristic;
@@ -67,6 +68,9 @@ public class GraphPathFinder {
 
         // Reuse one instance of AStar for all N requests, which are carried out sequentially
         AStar aStar = new AStar();
+        // The search tree is not returned, only the paths, so the search state can be reused
+        AStarSearchContext searchContext = AStarSearchContext.forCurrentThread();
+        aStar.setSearchContext(searchContext);
         if (options.rctx == null) {
             options.setRoutingContext(router.graph);
             // The special long-distance heuristic should be sufficient to constrain the search to the right area.
@@ -107,18 +111,25 @@ public class GraphPathFinder {
             return null;
         }
         // Don't dig through the SPT object, just ask the A star algorithm for the states that reached the target.
-        aStar.getShortestPathTree(options, timeout);
-
-        List<GraphPath> paths = aStar.getPathsToTarget().stream()
-                .filter(path -> {
-                    double duration = options.useRequestedDateTimeInMaxHours
-                        ? options.arriveBy
-                            ? options.dateTime - path.getStartTime()
-                            : path.getEndTime() - options.dateTime
-                        : path.getDuration();
-                    return duration < options.maxHours * 60 * 60;
-                })
-                .collect(Collectors.toList());
+        List<GraphPath> paths;
+        try {
+            aStar.getShortestPathTree(options, timeout);
+
+            paths = aStar.getPathsToTarget().stream()
+                    .filter(path -> {
+                        double duration = options.useRequestedDateTimeInMaxHours
+                            ? options.arriveBy
+                                ? options.dateTime - path.getStartTime()
+                                : path.getEndTime() - options.dateTime
+                            : path.getDuration();
+                        return duration < options.maxHours * 60 * 60;
+                    })
+                    .collect(Collectors.toList());
+        }
+        finally {
+            // The paths do not reference the search tree, release the states of the search
+            searchContext.clear();
+        }
 
         LOG.debug("we have {} paths", paths.size());
         LOG.debug("END SEARCH ({} msec)", System.currentTimeMillis() - searchBeginTime);
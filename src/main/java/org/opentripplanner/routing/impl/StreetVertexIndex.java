@@ -198,8 +198,9 @@ public class StreetVertexIndex {
         return GeometryUtils.splitGeometryAtPoint(geometry, nearestPoint);
     }
 
-    @SuppressWarnings("rawtypes")
+    @SuppressWarnings("unchecked")
     private void postSetup() {
+        List<Edge> edgesWithGeometry = new ArrayList<>();
         for (Vertex gv : graph.getVertices()) {
             Vertex v = gv;
             /*
@@ -216,11 +217,10 @@ public class StreetVertexIndex {
                 if (geometry == null) {
                     continue;
                 }
-                Envelope env = geometry.getEnvelopeInternal();
                 if (edgeTree instanceof HashGridSpatialIndex)
-                    ((HashGridSpatialIndex)edgeTree).insert(geometry, e);
+                    edgesWithGeometry.add(e);
                 else
-                    edgeTree.insert(env, e);
+                    edgeTree.insert(geometry.getEnvelopeInternal(), e);
             }
             if (v instanceof TransitStopVertex) {
                 Envelope env = new Envelope(v.getCoordinate());
@@ -229,6 +229,10 @@ public class StreetVertexIndex {
             Envelope env = new Envelope(v.getCoordinate());
             verticesTree.insert(env, v);
         }
+        if (edgeTree instanceof HashGridSpatialIndex) {
+            // Insert the edges at once, taking the locks of the index only once
+            ((HashGridSpatialIndex<Edge>) edgeTree).insertAll(edgesWithGeometry, Edge::getGeometry);
+        }
     }
 
     /**
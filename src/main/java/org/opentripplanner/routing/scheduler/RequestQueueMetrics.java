@@ -0,0 +1,78 @@
+package org.opentripplanner.routing.scheduler;
+
+import org.opentripplanner.model.base.ToStringBuilder;
+import org.opentripplanner.util.monitoring.DurationMetrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for one request queue in the {@link RoutingRequestScheduler}. The counters are updated
+ * concurrently, a snapshot of the values is not guaranteed to be consistent. The metrics are
+ * logged by the scheduler at debug level.
+ */
+public class RequestQueueMetrics {
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final DurationMetrics queueTime = new DurationMetrics();
+
+    /** The number of requests currently processed. */
+    public int running() {
+        return running.get();
+    }
+
+    /** The number of requests currently waiting in the queue. */
+    public int queued() {
+        return queued.get();
+    }
+
+    /** The total number of requests accepted. */
+    public long accepted() {
+        return queueTime.count();
+    }
+
+    /** The total number of requests rejected. */
+    public long rejected() {
+        return rejected.get();
+    }
+
+    /** The time accepted requests waited in the queue. */
+    public DurationMetrics queueTime() {
+        return queueTime;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.of(RequestQueueMetrics.class)
+                .addNum("running", running())
+                .addNum("queued", queued())
+                .addNum("rejected", rejected())
+                .addObj("queueTime", queueTime)
+                .toString();
+    }
+
+    /* package local methods used by the scheduler */
+
+    int incQueued() {
+        return queued.incrementAndGet();
+    }
+
+    void decQueued() {
+        queued.decrementAndGet();
+    }
+
+    void requestStarted(long queueTimeMillis) {
+        running.incrementAndGet();
+        queueTime.record(queueTimeMillis);
+    }
+
+    void requestFinished() {
+        running.decrementAndGet();
+    }
+
+    void requestRejected() {
+        rejected.incrementAndGet();
+    }
+}
@@ -0,0 +1,166 @@
+package org.opentripplanner.routing.scheduler;
+
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.error.RoutingRequestRejectedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Admission control in front of the {@link org.opentripplanner.routing.algorithm.RoutingWorker}.
+ * The number of requests processed at the same time is limited for each {@link RequestType}.
+ * Requests exceeding the limit wait in a bounded queue, if the queue is full or the request wait
+ * too long the request is rejected with a {@link RoutingRequestRejectedException}. This prevent a
+ * burst of heavy transit requests from starving all other requests.
+ * <p/>
+ * This class has APPLICATION scope and is thread-safe.
+ *
+ * @see RoutingRequestSchedulerParameters
+ */
+public class RoutingRequestScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RoutingRequestScheduler.class);
+
+    public enum RequestType {
+        /** Requests with transit, routed using the multi-criteria Raptor search. */
+        TRANSIT,
+        /** Requests without any transit modes, only the direct street search is performed. */
+        STREET;
+
+        public static RequestType of(RoutingRequest request) {
+            return request.modes.transitModes.isEmpty() ? STREET : TRANSIT;
+        }
+    }
+
+    private final Map<RequestType, RequestQueue> queues = new EnumMap<>(RequestType.class);
+    private final Map<RequestType, RequestQueueMetrics> metrics = new EnumMap<>(RequestType.class);
+
+    public RoutingRequestScheduler(RoutingRequestSchedulerParameters parameters) {
+        for (RequestType type : RequestType.values()) {
+            metrics.put(type, new RequestQueueMetrics());
+        }
+        addQueue(RequestType.TRANSIT, parameters.maxConcurrentTransitRequests(), parameters);
+        addQueue(RequestType.STREET, parameters.maxConcurrentStreetRequests(), parameters);
+    }
+
+    /**
+     * Run the given routing task when the limit for the type of the given request allow it.
+     *
+     * @throws RoutingRequestRejectedException if the request queue is full, or the request
+     *                                         waited too long in the queue.
+     */
+    public <T> T route(RoutingRequest request, Supplier<T> task) {
+        return route(RequestType.of(request), task);
+    }
+
+    /**
+     * @see #route(RoutingRequest, Supplier)
+     */
+    public <T> T route(RequestType type, Supplier<T> task) {
+        RequestQueueMetrics m = metrics.get(type);
+        RequestQueue queue = queues.get(type);
+
+        if (queue == null) {
+            m.requestStarted(0);
+        }
+        else {
+            queue.acquire(type, m);
+        }
+        try {
+            return task.get();
+        }
+        finally {
+            m.requestFinished();
+            if (queue != null) {
+                queue.release();
+            }
+        }
+    }
+
+    public RequestQueueMetrics getMetrics(RequestType type) {
+        return metrics.get(type);
+    }
+
+    private void addQueue(
+            RequestType type,
+            int maxConcurrentRequests,
+            RoutingRequestSchedulerParameters p
+    ) {
+        if (maxConcurrentRequests > 0) {
+            queues.put(
+                    type,
+                    new RequestQueue(
+                            maxConcurrentRequests,
+                            p.maxQueueSize(),
+                            p.maxQueueTimeSeconds(),
+                            p.retryAfterSeconds()
+                    )
+            );
+        }
+    }
+
+    private static class RequestQueue {
+        private final Semaphore permits;
+        private final int maxQueueSize;
+        private final int maxQueueTimeSeconds;
+        private final int retryAfterSeconds;
+
+        private RequestQueue(
+                int maxConcurrentRequests,
+                int maxQueueSize,
+                int maxQueueTimeSeconds,
+                int retryAfterSeconds
+        ) {
+            // Use a fair semaphore, so queued requests are processed in order
+            this.permits = new Semaphore(maxConcurrentRequests, true);
+            this.maxQueueSize = maxQueueSize;
+            this.maxQueueTimeSeconds = maxQueueTimeSeconds;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        void acquire(RequestType type, RequestQueueMetrics m) {
+            long startTime = System.currentTimeMillis();
+            try {
+                // Start right away if a permit is available and no other requests are waiting
+                if (permits.tryAcquire(0, TimeUnit.SECONDS)) {
+                    m.requestStarted(0);
+                    return;
+                }
+                if (m.incQueued() > maxQueueSize) {
+                    m.decQueued();
+                    throw reject(m, type + " request queue is full.");
+                }
+                try {
+                    if (!permits.tryAcquire(maxQueueTimeSeconds, TimeUnit.SECONDS)) {
+                        throw reject(m, type + " request timed out in queue.");
+                    }
+                }
+                finally {
+                    m.decQueued();
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw reject(m, type + " request interrupted in queue.");
+            }
+            long queueTime = System.currentTimeMillis() - startTime;
+            m.requestStarted(queueTime);
+            LOG.debug("{} request started after {} ms in queue. {}", type, queueTime, m);
+        }
+
+        void release() {
+            permits.release();
+        }
+
+        private RoutingRequestRejectedException reject(RequestQueueMetrics m, String message) {
+            m.requestRejected();
+            LOG.debug("{} {}", message, m);
+            return new RoutingRequestRejectedException(message, retryAfterSeconds);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.opentripplanner.routing.scheduler;
+
+/**
+ * Parameters used to limit the number of routing requests processed at the same time, see
+ * {@link RoutingRequestScheduler}.
+ */
+public interface RoutingRequestSchedulerParameters {
+
+    /**
+     * The maximum number of transit requests (multi-criteria Raptor searches) processed
+     * concurrently. Requests exceeding this limit are queued.
+     * <p/>
+     * Default value is 0 - zero. If 0, the number of concurrent transit requests is not limited.
+     */
+    default int maxConcurrentTransitRequests() {
+        return 0;
+    }
+
+    /**
+     * The maximum number of street only requests (no transit modes) processed concurrently.
+     * Requests exceeding this limit are queued.
+     * <p/>
+     * Default value is 0 - zero. If 0, the number of concurrent street requests is not limited.
+     */
+    default int maxConcurrentStreetRequests() {
+        return 0;
+    }
+
+    /**
+     * The maximum number of requests waiting in the queue for each request type. If the queue is
+     * full, new requests are rejected right away.
+     * <p/>
+     * Default value is 100.
+     */
+    default int maxQueueSize() {
+        return 100;
+    }
+
+    /**
+     * The maximum time a request may wait in the queue, before it is rejected.
+     * <p/>
+     * Default value is 10 seconds.
+     */
+    default int maxQueueTimeSeconds() {
+        return 10;
+    }
+
+    /**
+     * The number of seconds the client is asked to wait before retrying a rejected request. This
+     * is returned in the HTTP {@code Retry-After} header.
+     * <p/>
+     * Default value is 5 seconds.
+     */
+    default int retryAfterSeconds() {
+        return 5;
+    }
+}
@@ -0,0 +1,173 @@
+package org.opentripplanner.routing.spt;
+
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.graph.Vertex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A {@link ShortestPathTree} storing the states in an array indexed by the dense vertex index,
+ * see {@link Vertex#getIndex()}. This avoids hashing the vertex and allocating a list for each
+ * visited vertex.
+ * <p>
+ * Each array element is either {@code null}, a single {@link State} or a {@code List<State>}.
+ * Most vertices only have one state, the list is only created for vertices with co-dominant
+ * states, like the states created by turn restrictions and bike rental. Vertices without an index
+ * (temporary vertices), vertices added to the graph after the tree was created and vertices
+ * sharing an index with an already visited vertex are stored in the map of the super class.
+ * <p>
+ * The array has the size of the graph, so it is allocated once and reused by many searches, see
+ * {@link VertexStateArray}. The tree is only valid until the array is cleared or used by the next
+ * search. The array keeps a list of the visited vertex indexes, so creating the tree and
+ * {@link #getAllStates()} only cost time proportional to the number of visited vertices.
+ */
+public class ArrayShortestPathTree extends ShortestPathTree {
+
+    private final VertexStateArray states;
+
+    private int nVertices = 0;
+
+    /**
+     * Create a tree using the given array to store the states. All states stored in the array by
+     * earlier searches are removed.
+     */
+    public ArrayShortestPathTree(
+            RoutingRequest options,
+            DominanceFunction dominanceFunction,
+            VertexStateArray states
+    ) {
+        super(options, dominanceFunction);
+        this.states = states;
+        this.states.clear();
+    }
+
+    @Override
+    public boolean add(State newState) {
+        Vertex vertex = newState.getVertex();
+        int index = index(vertex);
+        if (index < 0) {
+            return super.add(newState);
+        }
+
+        Object value = states.get(index);
+
+        if (value != null && vertex(value) != vertex) {
+            return super.add(newState);
+        }
+
+        if (value == null) {
+            states.set(index, newState);
+            ++nVertices;
+            return true;
+        }
+
+        if (value instanceof State) {
+            State oldState = (State) value;
+            // order is important, because in the case of a tie we want to reject the new state
+            if (dominanceFunction.betterOrEqualAndComparable(oldState, newState)) {
+                return false;
+            }
+            if (dominanceFunction.betterOrEqualAndComparable(newState, oldState)) {
+                states.set(index, newState);
+                return true;
+            }
+            List<State> list = new ArrayList<>(2);
+            list.add(oldState);
+            list.add(newState);
+            states.set(index, list);
+            return true;
+        }
+        return addNonDominated(stateList(value), newState);
+    }
+
+    @Override
+    public State getState(Vertex dest) {
+        int index = index(dest);
+        if (index < 0) {
+            return super.getState(dest);
+        }
+        Object value = states.get(index);
+
+        if (value == null || vertex(value) != dest) {
+            return super.getState(dest);
+        }
+        if (value instanceof State) {
+            State s = (State) value;
+            return s.isFinal() ? s : null;
+        }
+        State ret = null;
+        for (State s : stateList(value)) {
+            if ((ret == null || s.weight < ret.weight) && s.isFinal()) {
+                ret = s;
+            }
+        }
+        return ret;
+    }
+
+    @Override
+    public boolean visit(State state) {
+        int index = index(state.getVertex());
+        if (index < 0) {
+            return super.visit(state);
+        }
+        Object value = states.get(index);
+
+        if (value == null || vertex(value) != state.getVertex()) {
+            return super.visit(state);
+        }
+        if (value instanceof State) {
+            return value == state;
+        }
+        for (State s : stateList(value)) {
+            if (s == state) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Collection<State> getAllStates() {
+        List<State> allStates = new ArrayList<>(super.getAllStates());
+        for (int i = 0; i < states.numberOfTouchedIndexes(); ++i) {
+            Object value = states.get(states.touchedIndex(i));
+            if (value instanceof State) {
+                allStates.add((State) value);
+            }
+            else {
+                allStates.addAll(stateList(value));
+            }
+        }
+        return allStates;
+    }
+
+    @Override
+    public String toString() {
+        return "ArrayShortestPathTree(" + nVertices + " indexed vertices, " + super.toString() + ")";
+    }
+
+    /** Return the array index for the given vertex, or -1 if the vertex is not in the array. */
+    private int index(Vertex v) {
+        int index = v.getIndex();
+        return index < states.size() ? index : -1;
+    }
+
+    /**
+     * The vertex of the states stored in the given array element. Two vertices may share the same
+     * index, if a vertex is replaced or a vertex from another graph is visited, in this case the
+     * states are stored in the map of the super class.
+     */
+    private static Vertex vertex(Object value) {
+        return value instanceof State
+                ? ((State) value).getVertex()
+                : stateList(value).get(0).getVertex();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<State> stateList(Object value) {
+        return (List<State>) value;
+    }
+}
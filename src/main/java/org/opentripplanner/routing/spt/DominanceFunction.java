@@ -79,11 +79,27 @@ public abstract class DominanceFunction implements Serializable {
     /**
      * Create a new shortest path tree using this function, considering whether it allows co-dominant States.
      * MultiShortestPathTree is the general case -- it will work with both single- and multi-state functions.
+     * <p>
+     * The states are stored in a map, allocating an {@link ArrayShortestPathTree} of the graph
+     * size for each search would cost more than it saves. Searches reusing an array call
+     * {@link #getNewShortestPathTree(RoutingRequest, VertexStateArray)} instead, subclasses
+     * selecting another implementation must override both methods.
      */
      public ShortestPathTree getNewShortestPathTree(RoutingRequest routingRequest) {
         return new ShortestPathTree(routingRequest, this);
      }
 
+    /**
+     * Create a new shortest path tree using this function, for a search reusing the given array.
+     * The states of the previous search using the array are removed.
+     */
+    public ShortestPathTree getNewShortestPathTree(
+            RoutingRequest routingRequest,
+            VertexStateArray states
+    ) {
+        return new ArrayShortestPathTree(routingRequest, this, states);
+    }
+
     public static class MinimumWeight extends DominanceFunction {
         /** Return true if the first state has lower weight than the second state. */
         @Override
@@ -71,7 +71,16 @@ public class ShortestPathTree {
             states.add(newState);
             return true;
         }
+        return addNonDominated(states, newState);
+    }
 
+    /**
+     * Add the new state to the given states at the same vertex, unless it is dominated by one of
+     * them. The states dominated by the new state are removed.
+     *
+     * @return {@code true} if the new state is added
+     */
+    protected boolean addNonDominated(List<State> states, State newState) {
         // if the vertex has any states that dominate the new state, don't add the state
         // if the new state dominates any old states, remove them
         Iterator<State> it = states.iterator();
@@ -0,0 +1,63 @@
+package org.opentripplanner.routing.spt;
+
+import java.util.Arrays;
+
+/**
+ * The array used by the {@link ArrayShortestPathTree} to store the states for each vertex. The
+ * array can be reused by many searches, one at the time. The indexes written since the last
+ * {@link #clear()} are kept in a list, so clearing the array and iterating over the values only
+ * cost time proportional to the number of vertices visited by the search, not the graph size.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class VertexStateArray {
+
+    private static final int INITIAL_TOUCHED_CAPACITY = 64;
+
+    private final Object[] values;
+    private int[] touched = new int[INITIAL_TOUCHED_CAPACITY];
+    private int nTouched = 0;
+
+    public VertexStateArray(int size) {
+        this.values = new Object[size];
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Remove all values. Call this when the search result is no longer used, so the array does not
+     * keep the states, and the request they reference, in memory.
+     */
+    public void clear() {
+        for (int i = 0; i < nTouched; ++i) {
+            values[touched[i]] = null;
+        }
+        nTouched = 0;
+    }
+
+    Object get(int index) {
+        return values[index];
+    }
+
+    void set(int index, Object value) {
+        if (values[index] == null) {
+            if (nTouched == touched.length) {
+                touched = Arrays.copyOf(touched, 2 * touched.length);
+            }
+            touched[nTouched++] = index;
+        }
+        values[index] = value;
+    }
+
+    /** The number of indexes with a value. */
+    int numberOfTouchedIndexes() {
+        return nTouched;
+    }
+
+    /** The i-th index with a value, in the order the indexes were first written. */
+    int touchedIndex(int i) {
+        return touched[i];
+    }
+}
@@ -2,20 +2,29 @@ package org.opentripplanner.standalone;
 
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.ParameterException;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.opentripplanner.common.MavenVersion;
 import org.opentripplanner.datastore.DataSource;
 import org.opentripplanner.graph_builder.GraphBuilder;
+import org.opentripplanner.routing.algorithm.raptor.transit.mappers.TransitLayerMapper;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.graph.SerializedGraphObject;
 import org.opentripplanner.standalone.config.CommandLineParameters;
+import org.opentripplanner.standalone.config.RouterConfig;
 import org.opentripplanner.standalone.configure.OTPAppConstruction;
 import org.opentripplanner.standalone.server.GrizzlyServer;
 import org.opentripplanner.standalone.server.Router;
+import org.opentripplanner.standalone.server.StartupProgress;
 import org.opentripplanner.util.OtpAppException;
 import org.opentripplanner.util.ThrowableUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * This is the main entry point to OpenTripPlanner. It allows both building graphs and starting up
  * an OTP server depending on command line options. OTPMain is a concrete class making it possible
@@ -95,17 +104,34 @@ public class OTPMain {
 
         Graph graph = null;
         OTPAppConstruction app = new OTPAppConstruction(params);
+        StartupProgress progress = new StartupProgress();
 
         // Validate data sources, command line arguments and config before loading and
         // processing input data to fail early
         app.validateConfigAndDataSources();
 
+        // Start the web server first, so it can report load/build progress to a load balancer,
+        // the API is deployed when the router is ready.
+        GrizzlyServer grizzlyServer = null;
+        if (params.doServe()) {
+            grizzlyServer = app.createGrizzlyServer(progress);
+            grizzlyServer.start();
+        }
+
         /* Load graph from disk if one is not present from build. */
         if (params.doLoadGraph() || params.doLoadStreetGraph()) {
             DataSource inputGraph = params.doLoadGraph()
                     ? app.store().getGraph()
                     : app.store().getStreetGraph();
-            SerializedGraphObject obj = SerializedGraphObject.load(inputGraph);
+            SerializedGraphObject obj = progress.call(
+                    "Load graph",
+                    () -> SerializedGraphObject.read(inputGraph)
+            );
+            if (obj == null) {
+                throw new OtpAppException("Unable to load graph: " + inputGraph.path());
+            }
+            progress.run("Edge lists", obj::reconstructEdgeLists);
+            obj.logGraphSize();
             graph = obj.graph;
             app.config().updateConfigFromSerializedGraph(obj.buildConfig, obj.routerConfig);
         }
@@ -119,7 +145,7 @@ public class OTPMain {
 
             GraphBuilder graphBuilder = app.createGraphBuilder(graph);
             if (graphBuilder != null) {
-                graphBuilder.run();
+                progress.run("Build graph", graphBuilder::run);
                 // Hand off the graph to the server as the default graph
                 graph = graphBuilder.getGraph();
             } else {
@@ -142,29 +168,76 @@ public class OTPMain {
         }
 
         // Index graph for travel search
-        graph.index();
+        indexGraph(graph, app.config().routerConfig(), progress);
 
         Router router = new Router(graph, app.config().routerConfig());
-        router.startup();
+        progress.run("Router startup", router::startup);
 
-        /* Start web server if requested. */
-        // We could start the server first so it can report build/load progress to a load balancer.
-        // This would also avoid the awkward call to set the router on the appConstruction after it's constructed.
-        // However, currently the server runs in a blocking way and waits for shutdown, so has to run last.
-        if (params.doServe()) {
-            GrizzlyServer grizzlyServer = app.createGrizzlyServer(router);
+        /* Deploy the API and relinquish control to the web server. */
+        try {
             // Loop to restart server on uncaught fatal exceptions.
             while (true) {
                 try {
-                    grizzlyServer.run();
+                    grizzlyServer.deploy(app.createApplication(router));
+                    progress.ready();
+                    grizzlyServer.join();
                     return;
                 } catch (Throwable throwable) {
                     LOG.error(
                         "An uncaught error occurred inside OTP. Restarting server. Error was: {}",
                         ThrowableUtils.detailedString(throwable)
                     );
+                    // The new server must not report ready before the API is deployed again
+                    progress.notReady();
+                    grizzlyServer.stop();
+                    grizzlyServer.start();
                 }
             }
         }
+        finally {
+            router.shutdown();
+        }
+    }
+
+    /**
+     * Index the graph for travel search. The street index and the transit index do not depend
+     * on each other and are created in parallel. The transit layer is mapped as soon as the
+     * transit index is ready.
+     */
+    private static void indexGraph(Graph graph, RouterConfig routerConfig, StartupProgress progress) {
+        ExecutorService executor = Executors.newFixedThreadPool(
+                2,
+                new ThreadFactoryBuilder().setNameFormat("GraphIndex-%d").setDaemon(true).build()
+        );
+        try {
+            CompletableFuture<Void> streets = progress.runAsync(
+                    "Street index",
+                    graph::indexStreets,
+                    executor
+            );
+            CompletableFuture<Void> transit = progress.runAsync(
+                    "Transit index",
+                    graph::indexTransit,
+                    executor
+            ).thenCompose(ignore -> !graph.hasTransit ? CompletableFuture.completedFuture(null) :
+                    progress.runAsync(
+                        "Transit layer",
+                        () -> graph.setTransitLayer(
+                                TransitLayerMapper.map(routerConfig.transitTuningParameters(), graph)
+                        ),
+                        executor
+                    )
+            );
+            CompletableFuture.allOf(streets, transit).join();
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        finally {
+            executor.shutdown();
+        }
     }
 }
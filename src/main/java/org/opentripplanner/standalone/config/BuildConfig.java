@@ -96,6 +96,14 @@ public class BuildConfig {
      */
     public final double maxTransferDistance;
 
+    /**
+     * The number of threads used by the graph build stages that run in parallel, like the
+     * decoding of OSM PBF files, the linking of stops to the streets and the generation of
+     * transfers between stops. The graph is the same for any number of threads.
+     * Optional, defaults to the number of available processors.
+     */
+    public final int graphBuildThreads;
+
     /**
      * Limit the import of transit services to the given START date. Inclusive. If set, any transit
      * service on a day BEFORE the given date is dropped and will not be part of the graph.
@@ -157,6 +165,7 @@ public class BuildConfig {
         // Keep this list of BASIC parameters sorted alphabetically on config PARAMETER name
         banDiscouragedWalking = c.asBoolean("banDiscouragedWalking", false);
         banDiscouragedBiking = c.asBoolean("banDiscouragedBiking", false);
+        graphBuildThreads = c.asInt("graphBuildThreads", Runtime.getRuntime().availableProcessors());
         pruningThresholdIslandWithStops = c.asInt("islandWithStopsMaxSize", 5);
         pruningThresholdIslandWithoutStops = c.asInt("islandWithoutStopsMaxSize", 40);
         maxInterlineDistance = c.asInt("maxInterlineDistance", 200);
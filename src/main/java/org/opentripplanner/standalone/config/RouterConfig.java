@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.MissingNode;
 import org.opentripplanner.routing.algorithm.raptor.transit.TransitTuningParameters;
 import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.scheduler.RoutingRequestSchedulerParameters;
 import org.opentripplanner.transit.raptor.api.request.RaptorTuningParameters;
 import org.opentripplanner.updater.UpdatersParameters;
 import org.slf4j.Logger;
@@ -32,8 +33,11 @@ public class RouterConfig implements Serializable {
     private final String requestLogFile;
     private final boolean transmodelApiHideFeedId;
     private final double streetRoutingTimeoutSeconds;
+    private final int accessEgressCacheMaxStops;
+    private final int streetRoutingThreadPoolSize;
     private final RoutingRequest routingRequestDefaults;
     private final TransitRoutingConfig transitConfig;
+    private final RoutingRequestSchedulerConfig requestSchedulerConfig;
     private final UpdatersParameters updatersParameters;
 
     public RouterConfig(JsonNode node, String source, boolean logUnusedParams) {
@@ -44,7 +48,12 @@ public class RouterConfig implements Serializable {
         this.streetRoutingTimeoutSeconds = adapter.asDouble(
                 "streetRoutingTimeout", DEFAULT_STREET_ROUTING_TIMEOUT
         );
+        this.accessEgressCacheMaxStops = adapter.asInt("accessEgressCacheMaxStops", 0);
+        this.streetRoutingThreadPoolSize = adapter.asInt("streetRoutingThreadPoolSize", 0);
         this.transitConfig = new TransitRoutingConfig(adapter.path("transit"));
+        this.requestSchedulerConfig = new RoutingRequestSchedulerConfig(
+                adapter.path("requestScheduler")
+        );
         this.routingRequestDefaults = mapRoutingRequest(adapter.path("routingDefaults"));
         this.updatersParameters = new UpdatersConfig(adapter);
 
@@ -67,6 +76,25 @@ public class RouterConfig implements Serializable {
         return streetRoutingTimeoutSeconds;
     }
 
+    /**
+     * The maximum number of access/egress stops to keep in the access/egress street search
+     * cache. Each cached search result count as the number of stops found. The default is 0 -
+     * zero, the cache is disabled.
+     */
+    public int accessEgressCacheMaxStops() {
+        return accessEgressCacheMaxStops;
+    }
+
+    /**
+     * The number of threads used to run the direct street search and the access and egress
+     * street searches of a request in parallel. The pool is shared by all requests. If all threads
+     * are busy the searches run in the request thread. The default is 0 - zero, the searches run
+     * one after the other in the request thread.
+     */
+    public int streetRoutingThreadPoolSize() {
+        return streetRoutingThreadPoolSize;
+    }
+
     public RoutingRequest routingRequestDefaults() {
         return routingRequestDefaults;
     }
@@ -79,6 +107,10 @@ public class RouterConfig implements Serializable {
         return transitConfig;
     }
 
+    public RoutingRequestSchedulerParameters requestSchedulerParameters() {
+        return requestSchedulerConfig;
+    }
+
     public UpdatersParameters updaterConfig() { return updatersParameters; }
 
     /**
@@ -64,6 +64,8 @@ public class RoutingRequestMapper {
         request.ignoreRealtimeUpdates = c.asBoolean("ignoreRealtimeUpdates", dft.ignoreRealtimeUpdates);
         request.carPickup = c.asBoolean("kissAndRide", dft.carPickup);
         request.locale = c.asLocale("locale", dft.locale);
+        request.maxAccessEgressDistanceMeters = c.asInt("maxAccessEgressDistanceMeters", dft.maxAccessEgressDistanceMeters);
+        request.maxAccessEgressDistanceForMode = c.asEnumMap("maxAccessEgressDistanceForMode", StreetMode.class, NodeAdapter::asInt);
         request.maxHours = c.asDouble("maxHours", dft.maxHours);
         request.maxPreTransitTime = c.asInt("maxPreTransitTime", dft.maxPreTransitTime);
         request.maxTransferWalkDistance = c.asDouble("maxTransferWalkDistance", dft.maxTransferWalkDistance);
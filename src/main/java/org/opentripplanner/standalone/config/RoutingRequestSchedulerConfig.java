@@ -0,0 +1,56 @@
+package org.opentripplanner.standalone.config;
+
+import org.opentripplanner.routing.scheduler.RoutingRequestSchedulerParameters;
+
+/**
+ * @see RoutingRequestSchedulerParameters for documentation of the parameters.
+ */
+public final class RoutingRequestSchedulerConfig implements RoutingRequestSchedulerParameters {
+
+    private final int maxConcurrentTransitRequests;
+    private final int maxConcurrentStreetRequests;
+    private final int maxQueueSize;
+    private final int maxQueueTimeSeconds;
+    private final int retryAfterSeconds;
+
+    public RoutingRequestSchedulerConfig(NodeAdapter c) {
+        RoutingRequestSchedulerParameters dft = new RoutingRequestSchedulerParameters() {};
+
+        this.maxConcurrentTransitRequests = c.asInt(
+            "maxConcurrentTransitRequests",
+            dft.maxConcurrentTransitRequests()
+        );
+        this.maxConcurrentStreetRequests = c.asInt(
+            "maxConcurrentStreetRequests",
+            dft.maxConcurrentStreetRequests()
+        );
+        this.maxQueueSize = c.asInt("maxQueueSize", dft.maxQueueSize());
+        this.maxQueueTimeSeconds = c.asInt("maxQueueTimeSeconds", dft.maxQueueTimeSeconds());
+        this.retryAfterSeconds = c.asInt("retryAfterSeconds", dft.retryAfterSeconds());
+    }
+
+    @Override
+    public int maxConcurrentTransitRequests() {
+        return maxConcurrentTransitRequests;
+    }
+
+    @Override
+    public int maxConcurrentStreetRequests() {
+        return maxConcurrentStreetRequests;
+    }
+
+    @Override
+    public int maxQueueSize() {
+        return maxQueueSize;
+    }
+
+    @Override
+    public int maxQueueTimeSeconds() {
+        return maxQueueTimeSeconds;
+    }
+
+    @Override
+    public int retryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
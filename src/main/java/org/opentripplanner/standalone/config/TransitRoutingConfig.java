@@ -20,11 +20,21 @@ public final class TransitRoutingConfig
     private final int scheduledTripBinarySearchThreshold;
     private final int iterationDepartureStepInSeconds;
     private final int searchThreadPoolSize;
+    private final boolean searchThreadPoolWorkStealing;
+    private final int searchWindowChunkSizeInSeconds;
     private final Map<TransferPriority, Integer> stopTransferCost;
     private final DynamicSearchWindowCoefficients dynamicSearchWindowCoefficients;
+    private final int transitLayerDaysBeforeToday;
+    private final int transitLayerDaysAfterToday;
+    private final int transitLayerMaxOnDemandDates;
+    private final boolean localityAwareStopIndex;
 
     public TransitRoutingConfig(NodeAdapter c) {
         RaptorTuningParameters dft = new RaptorTuningParameters() {};
+        TransitTuningParameters transitDft = new TransitTuningParameters() {
+            @Override public boolean enableStopTransferPriority() { return false; }
+            @Override public Integer stopTransferCost(TransferPriority key) { return null; }
+        };
 
         this.maxNumberOfTransfers = c.asInt(
             "maxNumberOfTransfers",
@@ -42,10 +52,34 @@ public final class TransitRoutingConfig
             "searchThreadPoolSize",
             dft.searchThreadPoolSize()
         );
+        this.searchThreadPoolWorkStealing = c.asBoolean(
+            "searchThreadPoolWorkStealing",
+            dft.searchThreadPoolWorkStealing()
+        );
+        this.searchWindowChunkSizeInSeconds = c.asInt(
+            "searchWindowChunkSizeInSeconds",
+            dft.searchWindowChunkSizeInSeconds()
+        );
         // Dynamic Search Window
         this.dynamicSearchWindowCoefficients = new DynamicSearchWindowConfig(
             c.path("dynamicSearchWindow")
         );
+        this.transitLayerDaysBeforeToday = c.asInt(
+            "transitLayerDaysBeforeToday",
+            transitDft.transitLayerDaysBeforeToday()
+        );
+        this.transitLayerDaysAfterToday = c.asInt(
+            "transitLayerDaysAfterToday",
+            transitDft.transitLayerDaysAfterToday()
+        );
+        this.transitLayerMaxOnDemandDates = c.asInt(
+            "transitLayerMaxOnDemandDates",
+            transitDft.transitLayerMaxOnDemandDates()
+        );
+        this.localityAwareStopIndex = c.asBoolean(
+            "localityAwareStopIndex",
+            transitDft.localityAwareStopIndex()
+        );
         this.stopTransferCost = c.asEnumMapAllKeysRequired(
             "stopTransferCost",
             TransferPriority.class,
@@ -73,6 +107,16 @@ public final class TransitRoutingConfig
         return searchThreadPoolSize;
     }
 
+    @Override
+    public boolean searchThreadPoolWorkStealing() {
+        return searchThreadPoolWorkStealing;
+    }
+
+    @Override
+    public int searchWindowChunkSizeInSeconds() {
+        return searchWindowChunkSizeInSeconds;
+    }
+
     @Override
     public DynamicSearchWindowCoefficients dynamicSearchWindowCoefficients() {
         return dynamicSearchWindowCoefficients;
@@ -88,6 +132,26 @@ public final class TransitRoutingConfig
         return stopTransferCost.get(key);
     }
 
+    @Override
+    public int transitLayerDaysBeforeToday() {
+        return transitLayerDaysBeforeToday;
+    }
+
+    @Override
+    public int transitLayerDaysAfterToday() {
+        return transitLayerDaysAfterToday;
+    }
+
+    @Override
+    public int transitLayerMaxOnDemandDates() {
+        return transitLayerMaxOnDemandDates;
+    }
+
+    @Override
+    public boolean localityAwareStopIndex() {
+        return localityAwareStopIndex;
+    }
+
     private static class DynamicSearchWindowConfig
             implements DynamicSearchWindowCoefficients
     {
@@ -12,6 +12,7 @@ import org.opentripplanner.standalone.server.GrizzlyServer;
 import org.opentripplanner.standalone.server.OTPApplication;
 import org.opentripplanner.standalone.server.OTPServer;
 import org.opentripplanner.standalone.server.Router;
+import org.opentripplanner.standalone.server.StartupProgress;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -61,10 +62,11 @@ public class OTPAppConstruction {
 
     /**
      * Create a new Grizzly server - call this method once, the new instance is created
-     * every time this method is called.
+     * every time this method is called. The server is started without the API, use
+     * {@link #createApplication(Router)} to create it when the router is ready.
      */
-    public GrizzlyServer createGrizzlyServer(Router router) {
-        return new GrizzlyServer(config.getCli(), createApplication(router));
+    public GrizzlyServer createGrizzlyServer(StartupProgress progress) {
+        return new GrizzlyServer(config.getCli(), progress);
     }
 
     public void validateConfigAndDataSources() {
@@ -129,7 +131,8 @@ public class OTPAppConstruction {
         return graphBuilderDataSources;
     }
 
-    private Application createApplication(Router router) {
+    /** Create the Jersey application serving the OTP API for the given router. */
+    public Application createApplication(Router router) {
         return new OTPApplication(server(router));
     }
 }
@@ -11,6 +11,7 @@ import org.glassfish.grizzly.ssl.SSLEngineConfigurator;
 import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
 import org.glassfish.jersey.server.ContainerFactory;
 import org.opentripplanner.standalone.config.CommandLineParameters;
+import org.opentripplanner.util.OtpAppException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.bridge.SLF4JBridgeHandler;
@@ -34,13 +35,18 @@ public class GrizzlyServer {
     }
 
     /** The command line parameters, including things like port number and content directories. */
-    private CommandLineParameters params;
-    private Application app;
+    private final CommandLineParameters params;
+    private final StartupProgress progress;
+    private HttpServer httpServer;
+    private Thread shutdownThread;
 
-    /** Construct a Grizzly server with the given IoC injector and command line parameters. */
-    public GrizzlyServer (CommandLineParameters params, Application app) {
+    /**
+     * Construct a Grizzly server with the given command line parameters. The progress is reported
+     * by the readiness endpoint, see {@link ReadinessHttpHandler}.
+     */
+    public GrizzlyServer (CommandLineParameters params, StartupProgress progress) {
         this.params = params;
-        this.app = app;
+        this.progress = progress;
     }
 
     /**
@@ -66,13 +72,18 @@ public class GrizzlyServer {
     /**
      * This function goes through roughly the same steps as Jersey's GrizzlyServerFactory, but we instead construct
      * an HttpServer and NetworkListener manually so we can set the number of threads and other details.
+     * <p>
+     * The server is started before the graph is loaded, with only the readiness endpoint and the
+     * static content. The API is added with {@link #deploy(Application)} when the router is ready.
+     *
+     * @throws OtpAppException if the server can not bind to the ports.
      */
-    public void run() {
+    public void start() {
         
         LOG.info("Starting OTP Grizzly server on ports {} (HTTP) and {} (HTTPS) of interface {}",
             params.port, params.securePort, params.bindAddress);
         LOG.info("OTP server base directory is: {}", params.baseDirectory);
-        HttpServer httpServer = new HttpServer();
+        httpServer = new HttpServer();
 
         /* Configure SSL FIXME OTP2 where will we store they keyfile? */
         SSLContextConfigurator sslConfig = new SSLContextConfigurator();
@@ -115,9 +126,11 @@ public class GrizzlyServer {
 
         /* Add a few handlers (~= servlets) to the Grizzly server. */
 
-        /* 1. A Grizzly wrapper around the Jersey Application. */
-        HttpHandler dynamicHandler = ContainerFactory.createContainer(HttpHandler.class, app);
-        httpServer.getServerConfiguration().addHttpHandler(dynamicHandler, "/otp/");
+        /* 1. The readiness endpoint, reporting the startup progress. The Jersey Application is added by deploy(). */
+        httpServer.getServerConfiguration().addHttpHandler(
+                new ReadinessHttpHandler(progress),
+                ReadinessHttpHandler.PATH
+        );
 
         /* 2. A static content handler to serve the client JS apps etc. from the classpath. */
         CLStaticHttpHandler staticHandler = new CLStaticHttpHandler(GrizzlyServer.class.getClassLoader(), "/client/");
@@ -143,22 +156,38 @@ public class GrizzlyServer {
 
         // Add shutdown hook to gracefully shut down Grizzly.
         // Signal handling (sun.misc.Signal) is potentially not available on all JVMs.
-        Thread shutdownThread = new Thread(httpServer::shutdown);
+        shutdownThread = new Thread(httpServer::shutdown);
         Runtime.getRuntime().addShutdownHook(shutdownThread);
 
-        /* RELINQUISH CONTROL TO THE SERVER THREAD */
         try {
             httpServer.start();
-            LOG.info("Grizzly server running.");
-            Thread.currentThread().join();
+            LOG.info("Grizzly server running, waiting for the router to start.");
         } catch (BindException be) {
-            LOG.error("Cannot bind to port {}. Is it already in use?", params.port);
+            throw new OtpAppException("Cannot bind to port " + params.port + ". Is it already in use?");
         } catch (IOException ioe) {
-            LOG.error("IO exception while starting server.");
+            throw new OtpAppException("IO exception while starting server: " + ioe.getMessage());
+        }
+    }
+
+    /** Add the API, a Grizzly wrapper around the Jersey Application, to the running server. */
+    public void deploy(Application app) {
+        HttpHandler dynamicHandler = ContainerFactory.createContainer(HttpHandler.class, app);
+        httpServer.getServerConfiguration().addHttpHandler(dynamicHandler, "/otp/");
+        LOG.info("OTP API deployed.");
+    }
+
+    /** RELINQUISH CONTROL TO THE SERVER THREAD, and shut down the server when interrupted. */
+    public void join() {
+        try {
+            Thread.currentThread().join();
         } catch (InterruptedException ie) {
             LOG.info("Interrupted, shutting down.");
         }
+        stop();
+    }
 
+    /** Shut down the server. It can be started again with {@link #start()}. */
+    public void stop() {
         // Clean up graceful shutdown hook before shutting down Grizzly.
         Runtime.getRuntime().removeShutdownHook(shutdownThread);
         httpServer.shutdown();
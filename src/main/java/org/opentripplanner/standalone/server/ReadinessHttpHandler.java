@@ -0,0 +1,55 @@
+package org.opentripplanner.standalone.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.glassfish.grizzly.http.server.HttpHandler;
+import org.glassfish.grizzly.http.server.Request;
+import org.glassfish.grizzly.http.server.Response;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A plain Grizzly handler reporting if the server is ready to accept requests. The handler is
+ * registered before the graph is loaded, so a load balancer or orchestrator can poll it during
+ * startup. It responds with status 200 when the server is ready and 503 while it is starting,
+ * and the body lists the startup stages with their state and duration:
+ * <pre>
+ * {"ready":false,"stages":[{"name":"Load graph","state":"DONE","durationMillis":5312}, ...]}
+ * </pre>
+ */
+public class ReadinessHttpHandler extends HttpHandler {
+
+    public static final String PATH = "/otp/ready";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final StartupProgress progress;
+
+    public ReadinessHttpHandler(StartupProgress progress) {
+        this.progress = progress;
+    }
+
+    @Override
+    public void service(Request request, Response response) throws Exception {
+        boolean ready = progress.isReady();
+
+        List<Map<String, Object>> stages = new ArrayList<>();
+        for (StartupProgress.Stage stage : progress.stages()) {
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("name", stage.name);
+            s.put("state", stage.state());
+            s.put("durationMillis", stage.durationMillis());
+            stages.add(s);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("ready", ready);
+        body.put("stages", stages);
+
+        response.setStatus(ready ? 200 : 503);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write(MAPPER.writeValueAsString(body));
+    }
+}
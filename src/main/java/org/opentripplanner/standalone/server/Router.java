@@ -5,19 +5,34 @@ import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.FileAppender;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.opentripplanner.routing.algorithm.raptor.router.street.AccessEgressCache;
 import org.opentripplanner.routing.algorithm.raptor.transit.TransitLayer;
 import org.opentripplanner.routing.algorithm.raptor.transit.TripSchedule;
 import org.opentripplanner.routing.algorithm.raptor.transit.mappers.TransitLayerMapper;
 import org.opentripplanner.routing.algorithm.raptor.transit.mappers.TransitLayerUpdater;
 import org.opentripplanner.routing.api.request.RoutingRequest;
 import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.scheduler.RoutingRequestScheduler;
 import org.opentripplanner.standalone.config.RouterConfig;
 import org.opentripplanner.transit.raptor.rangeraptor.configure.RaptorConfig;
 import org.opentripplanner.updater.GraphUpdaterConfigurator;
+import org.opentripplanner.updater.GraphWriterRunnable;
 import org.opentripplanner.util.ElevationUtils;
 import org.opentripplanner.util.WorldEnvelope;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Represents the configuration of a single router (a single graph for a specific geographic area)
  * in an OTP server.
@@ -28,6 +43,16 @@ public class Router {
     public final Graph graph;
     public final RouterConfig routerConfig;
     public final RaptorConfig<TripSchedule> raptorConfig;
+    public final RoutingRequestScheduler requestScheduler;
+
+    /**
+     * Thread pool used to run the street searches of a request in parallel, {@code null} if the
+     * street searches should run in the request thread.
+     */
+    public final ExecutorService streetRoutingThreadPool;
+
+    /** Moves the transit layer window every night, {@code null} if the layer has no window. */
+    private ScheduledExecutorService transitLayerWindowScheduler = null;
 
     /**
      *  Separate logger for incoming requests. This should be handled with a Logback logger
@@ -48,6 +73,12 @@ public class Router {
         this.graph = graph;
         this.routerConfig = routerConfig;
         this.raptorConfig = new RaptorConfig<>(routerConfig.raptorTuningParameters());
+        this.requestScheduler = new RoutingRequestScheduler(
+                routerConfig.requestSchedulerParameters()
+        );
+        this.streetRoutingThreadPool = createStreetRoutingThreadPool(
+                routerConfig.streetRoutingThreadPoolSize()
+        );
     }
 
     /*
@@ -69,16 +100,33 @@ public class Router {
             LOG.info("Incoming requests will not be logged.");
         }
 
+        if (routerConfig.accessEgressCacheMaxStops() > 0) {
+            graph.setAccessEgressCache(
+                new AccessEgressCache(routerConfig.accessEgressCacheMaxStops())
+            );
+            LOG.info(
+                "Caching access/egress street searches, max {} stops.",
+                routerConfig.accessEgressCacheMaxStops()
+            );
+        }
+
         /* Create transit layer for Raptor routing. Here we map the scheduled timetables. */
         /* Realtime updates can be mapped similarly by a recurring operation in a GraphUpdater below. */
-        LOG.info("Creating transit layer for Raptor routing.");
         if (graph.hasTransit && graph.index != null) {
-            graph.setTransitLayer(TransitLayerMapper.map(routerConfig.transitTuningParameters(), graph));
+            // The transit layer may already be mapped in parallel with the street indexing
+            if (graph.getTransitLayer() == null) {
+                LOG.info("Creating transit layer for Raptor routing.");
+                graph.setTransitLayer(TransitLayerMapper.map(routerConfig.transitTuningParameters(), graph));
+            }
             graph.setRealtimeTransitLayer(new TransitLayer(graph.getTransitLayer()));
             graph.transitLayerUpdater = new TransitLayerUpdater(
                 graph,
                 graph.index.getServiceCodesRunningForDate()
             );
+            if (graph.getTransitLayer().getWindow() != null) {
+                LOG.info("Transit layer window: {}", graph.getTransitLayer().getWindow());
+                scheduleTransitLayerWindowSlide();
+            }
         } else {
             LOG.warn("Cannot create Raptor data, that requires the graph to have transit data and be indexed.");
         }
@@ -101,6 +149,91 @@ public class Router {
         }
     }
 
+    /**
+     * Stop the threads started by this router: the real-time updaters, the transit layer window
+     * scheduler and the street routing thread pool. The router can not be used after this.
+     */
+    public void shutdown() {
+        if (graph.updaterManager != null) {
+            LOG.info("Stopping the graph updaters.");
+            graph.updaterManager.stop();
+            graph.updaterManager = null;
+        }
+        if (transitLayerWindowScheduler != null) {
+            transitLayerWindowScheduler.shutdownNow();
+        }
+        if (streetRoutingThreadPool != null) {
+            streetRoutingThreadPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Move the transit layer window forward one minute after midnight every night. The window is
+     * moved by the graph updater thread, if there is one, so it is serialized with the realtime
+     * updates.
+     */
+    private void scheduleTransitLayerWindowSlide() {
+        ZoneId zoneId = graph.getTransitLayer().getTransitDataZoneId();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder()
+                        .setNameFormat("TransitLayerWindow-%d")
+                        .setDaemon(true)
+                        .build()
+        );
+        transitLayerWindowScheduler = scheduler;
+        Runnable slideWindow = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    LocalDate today = LocalDate.now(zoneId);
+                    GraphWriterRunnable task = g -> g.transitLayerUpdater.slideWindow(today);
+                    if (graph.updaterManager != null) {
+                        graph.updaterManager.execute(task);
+                    }
+                    else {
+                        task.run(graph);
+                    }
+                }
+                catch (RuntimeException e) {
+                    LOG.error("Failed to move the transit layer window: " + e.getMessage(), e);
+                }
+                finally {
+                    if (!scheduler.isShutdown()) {
+                        scheduler.schedule(this, millisToNextWindowSlide(zoneId), TimeUnit.MILLISECONDS);
+                    }
+                }
+            }
+        };
+        scheduler.schedule(slideWindow, millisToNextWindowSlide(zoneId), TimeUnit.MILLISECONDS);
+    }
+
+    private static long millisToNextWindowSlide(ZoneId zoneId) {
+        ZonedDateTime now = ZonedDateTime.now(zoneId);
+        ZonedDateTime next = now.toLocalDate().plusDays(1).atStartOfDay(zoneId).plusMinutes(1);
+        return Duration.between(now, next).toMillis();
+    }
+
+    /**
+     * Create a bounded thread pool for the street searches. When the pool and the queue is full
+     * the search is run in the calling (request) thread, so a busy server degrade to the
+     * sequential execution instead of queueing up street searches.
+     */
+    private static ExecutorService createStreetRoutingThreadPool(int size) {
+        if (size <= 0) { return null; }
+        return new ThreadPoolExecutor(
+                size,
+                size,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(size),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("StreetRouting-%d")
+                        .setDaemon(true)
+                        .build(),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
     /**
      * Programmatically (i.e. not in XML) create a Logback logger for requests happening on this router.
      * http://stackoverflow.com/a/17215011/778449
@@ -0,0 +1,140 @@
+package org.opentripplanner.standalone.server;
+
+import org.opentripplanner.model.base.ToStringBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Keep track of the stages of the server startup: loading or building the graph, indexing,
+ * mapping the transit layer and so on. The stages may run in parallel. The progress is
+ * reported by the {@link ReadinessHttpHandler}, and the stage timings are logged when the
+ * server is {@link #ready()}.
+ * <p>
+ * This class is thread-safe.
+ */
+public class StartupProgress {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StartupProgress.class);
+
+    public enum State { RUNNING, DONE, FAILED }
+
+    private final long startTime = System.currentTimeMillis();
+
+    private final Map<String, Stage> stages = new LinkedHashMap<>();
+
+    private volatile boolean ready = false;
+
+    /** Run the given task as a named stage in the current thread. */
+    public void run(String name, Runnable task) {
+        call(name, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /** Run the given task as a named stage in the current thread, and return the result. */
+    public <T> T call(String name, Supplier<T> task) {
+        Stage stage = start(name);
+        try {
+            T result = task.get();
+            stage.finish(State.DONE);
+            return result;
+        }
+        catch (RuntimeException | Error e) {
+            stage.finish(State.FAILED);
+            throw e;
+        }
+    }
+
+    /** Run the given task as a named stage using the given executor. */
+    public CompletableFuture<Void> runAsync(String name, Runnable task, Executor executor) {
+        return CompletableFuture.runAsync(() -> run(name, task), executor);
+    }
+
+    /**
+     * Call this when all stages are done and the server is ready to accept requests. The
+     * stage timings are logged.
+     */
+    public void ready() {
+        this.ready = true;
+        for (Stage stage : stages()) {
+            LOG.info("Startup stage '{}' took {} ms.", stage.name, stage.durationMillis());
+        }
+        LOG.info("Server ready, startup took {} ms.", System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Call this when the server stops accepting requests, for example before it is restarted.
+     * Call {@link #ready()} again once the API is deployed.
+     */
+    public void notReady() {
+        this.ready = false;
+        LOG.info("Server not ready.");
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** Return a copy of the stages, in the order they started. */
+    public synchronized List<Stage> stages() {
+        return new ArrayList<>(stages.values());
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.of(StartupProgress.class)
+                .addBool("ready", ready)
+                .addCol("stages", stages())
+                .toString();
+    }
+
+    private synchronized Stage start(String name) {
+        Stage stage = new Stage(name);
+        stages.put(name, stage);
+        LOG.info("Startup stage '{}' started.", name);
+        return stage;
+    }
+
+    public static class Stage {
+        public final String name;
+        private final long startTime = System.currentTimeMillis();
+        private volatile long endTime = -1;
+        private volatile State state = State.RUNNING;
+
+        private Stage(String name) {
+            this.name = name;
+        }
+
+        public State state() {
+            return state;
+        }
+
+        /** The time spent so far if the stage is running. */
+        public long durationMillis() {
+            return (endTime < 0 ? System.currentTimeMillis() : endTime) - startTime;
+        }
+
+        private void finish(State state) {
+            this.endTime = System.currentTimeMillis();
+            this.state = state;
+        }
+
+        @Override
+        public String toString() {
+            return ToStringBuilder.of(Stage.class)
+                    .addStr("name", name)
+                    .addEnum("state", state)
+                    .addNum("durationMillis", durationMillis())
+                    .toString();
+        }
+    }
+}
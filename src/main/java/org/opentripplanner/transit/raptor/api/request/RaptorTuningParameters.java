@@ -59,6 +59,36 @@ public interface RaptorTuningParameters {
         return 0;
     }
 
+    /**
+     * If {@code true} the search thread pool is created as a work-stealing pool
+     * ({@link java.util.concurrent.ForkJoinPool}) with the {@link #searchThreadPoolSize()} as the
+     * target parallelism. A work-stealing pool is better at keeping all cores busy when many
+     * small tasks, like the heuristic searches and search-window chunks, are submitted from
+     * many requests at the same time.
+     * <p/>
+     * The default value is {@code false}, a fixed size thread pool is used.
+     */
+    default boolean searchThreadPoolWorkStealing() {
+        return false;
+    }
+
+    /**
+     * Split the range-raptor search-window into chunks of this size and search each chunk in
+     * parallel, using the thread pool set by {@link #searchThreadPoolSize()}. The paths found in
+     * each chunk are merged into one pareto set. Each chunk start from scratch, so some work is
+     * done twice, but for long search-windows the response time is reduced. The chunk size is
+     * rounded up to a multiple of {@link #iterationDepartureStepInSeconds()}.
+     * <p/>
+     * The search-window is only split if it is longer than two chunks, the
+     * {@link #searchThreadPoolSize()} is set and the request allow running in parallel
+     * ({@link RaptorRequest#runInParallel()}).
+     * <p/>
+     * The default value is 0 - zero. If 0, the search-window is not split.
+     */
+    default int searchWindowChunkSizeInSeconds() {
+        return 0;
+    }
+
 
     /**
      * Coefficients used to calculate raptor-search-window parameters dynamically  from heuristics.
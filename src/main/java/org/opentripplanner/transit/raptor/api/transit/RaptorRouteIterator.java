@@ -0,0 +1,32 @@
+package org.opentripplanner.transit.raptor.api.transit;
+
+
+import java.util.Iterator;
+
+
+/**
+ * Iterator over all routes visiting a set of stops, returned by
+ * {@link RaptorTransitDataProvider#routeIterator(IntIterator)}. Each route should be returned
+ * only once.
+ * <p/>
+ * In addition to the route, the iterator provide the first and the last stop position in the
+ * pattern of the current route, visiting one of the given stops. Raptor can only board a trip at
+ * one of these stops, so a forward search start scanning the pattern at the first stop position
+ * and a reverse search start at the last stop position.
+ *
+ * @param <T> The TripSchedule type defined by the user of the raptor API.
+ */
+public interface RaptorRouteIterator<T extends RaptorTripSchedule> extends Iterator<RaptorRoute<T>> {
+
+    /**
+     * The first stop position in the pattern of the route returned by the last call to
+     * {@link #next()}, which is visiting one of the given stops.
+     */
+    int firstStopPositionVisited();
+
+    /**
+     * The last stop position in the pattern of the route returned by the last call to
+     * {@link #next()}, which is visiting one of the given stops.
+     */
+    int lastStopPositionVisited();
+}
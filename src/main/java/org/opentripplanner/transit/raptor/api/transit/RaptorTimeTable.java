@@ -24,4 +24,31 @@ public interface RaptorTimeTable<T extends RaptorTripSchedule> {
      * Number of trips in time-table.
      */
     int numberOfTripSchedules();
+
+    /**
+     * The departure time for the trip with the given index at the given stop position in pattern.
+     * <p/>
+     * Raptor use this in the trip search to step through the time-table, and only call
+     * {@link #getTripSchedule(int)} for the trip actually boarded. The default implementation
+     * delegate to the trip schedule, but implementations should override this and look up the
+     * time directly, without creating a trip schedule object.
+     * <p/>
+     * This method needs to be FAST - it is in the most critical line of execution in Raptor.
+     *
+     * @param tripIndex the trip schedule index in pattern starting at 0.
+     * @param stopPositionInPattern stop position number in pattern, starting at 0.
+     */
+    default int departure(int tripIndex, int stopPositionInPattern) {
+        return getTripSchedule(tripIndex).departure(stopPositionInPattern);
+    }
+
+    /**
+     * Same as {@link #departure(int, int)}, but return the arrival time.
+     *
+     * @param tripIndex the trip schedule index in pattern starting at 0.
+     * @param stopPositionInPattern stop position number in pattern, starting at 0.
+     */
+    default int arrival(int tripIndex, int stopPositionInPattern) {
+        return getTripSchedule(tripIndex).arrival(stopPositionInPattern);
+    }
 }
@@ -59,10 +59,14 @@ public interface RaptorTransitDataProvider<T extends RaptorTripSchedule> {
      * <p/>
      * The implementation may implement a lightweight {@link RaptorTripPattern} representation.
      * See {@link #getTransfers(int)} for detail on how to implement this.
+     * <p/>
+     * This method is called once for every round, so it needs to be fast. The same provider is
+     * used by searches running in parallel (heuristics), so the returned iterator must NOT share
+     * mutable state with other iterators.
      *
      * @param stops set of stops for find all patterns for.
      */
-    Iterator<? extends RaptorRoute<T>> routeIterator(IntIterator stops);
+    RaptorRouteIterator<T> routeIterator(IntIterator stops);
 
     /**
      * This is the total number of stops, it should be possible to retrieve transfers and pattern for every stop
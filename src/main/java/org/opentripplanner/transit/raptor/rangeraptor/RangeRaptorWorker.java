@@ -3,6 +3,7 @@ package org.opentripplanner.transit.raptor.rangeraptor;
 import org.opentripplanner.transit.raptor.api.path.Path;
 import org.opentripplanner.transit.raptor.api.transit.IntIterator;
 import org.opentripplanner.transit.raptor.api.transit.RaptorRoute;
+import org.opentripplanner.transit.raptor.api.transit.RaptorRouteIterator;
 import org.opentripplanner.transit.raptor.api.transit.RaptorTimeTable;
 import org.opentripplanner.transit.raptor.api.transit.RaptorTransfer;
 import org.opentripplanner.transit.raptor.api.transit.RaptorTransitDataProvider;
@@ -18,7 +19,6 @@ import org.opentripplanner.transit.raptor.rangeraptor.workerlifecycle.LifeCycleE
 import org.opentripplanner.transit.raptor.util.AvgTimer;
 
 import java.util.Collection;
-import java.util.Iterator;
 
 
 /**
@@ -199,7 +199,7 @@ public final class RangeRaptorWorker<T extends RaptorTripSchedule, S extends Wor
      */
     private void findAllTransitForRound() {
         IntIterator stops = state.stopsTouchedPreviousRound();
-        Iterator<? extends RaptorRoute<T>> routeIterator = transitData.routeIterator(stops);
+        RaptorRouteIterator<T> routeIterator = transitData.routeIterator(stops);
 
         while (routeIterator.hasNext()) {
             RaptorRoute<T> next = routeIterator.next();
@@ -210,7 +210,13 @@ public final class RangeRaptorWorker<T extends RaptorTripSchedule, S extends Wor
             transitWorker.prepareForTransitWith(pattern, tripSearch);
 
             // perform transit - iterate over given pattern and calculate transit for each stop.
-            IntIterator it = calculator.patternStopIterator(pattern.numberOfStopsInPattern());
+            // No trip can be boarded before the first(last in reverse) stop reached in the
+            // previous round, so we skip the stops before that.
+            IntIterator it = calculator.patternStopIterator(
+                routeIterator.firstStopPositionVisited(),
+                routeIterator.lastStopPositionVisited(),
+                pattern.numberOfStopsInPattern()
+            );
             while (it.hasNext()) {
                 transitWorker.routeTransitAtStop(it.next());
             }
@@ -13,6 +13,7 @@ import org.opentripplanner.transit.raptor.rangeraptor.multicriteria.configure.Mc
 import org.opentripplanner.transit.raptor.rangeraptor.standard.configure.StdRangeRaptorConfig;
 import org.opentripplanner.transit.raptor.rangeraptor.standard.heuristics.HeuristicSearch;
 import org.opentripplanner.transit.raptor.service.RaptorSearchWindowCalculator;
+import org.opentripplanner.transit.raptor.service.SearchWindowSplitter;
 import org.opentripplanner.transit.raptor.rangeraptor.transit.SearchContext;
 import org.opentripplanner.transit.raptor.service.WorkerPerformanceTimersCache;
 
@@ -36,8 +37,17 @@ public class RaptorConfig<T extends RaptorTripSchedule> {
 
 
     public RaptorConfig(RaptorTuningParameters tuningParameters) {
+        this(tuningParameters, createNewThreadPool(tuningParameters));
+    }
+
+    /**
+     * Create a new config using the given thread pool to run searches in parallel. The caller is
+     * responsible for shutting down the thread pool. If the thread pool is {@code null} all
+     * searches are done in the calling thread.
+     */
+    public RaptorConfig(RaptorTuningParameters tuningParameters, ExecutorService threadPool) {
         this.tuningParameters = tuningParameters;
-        this.threadPool = createNewThreadPool(tuningParameters.searchThreadPoolSize());
+        this.threadPool = threadPool;
         this.timers = new WorkerPerformanceTimersCache(isMultiThreaded());
     }
 
@@ -85,6 +95,13 @@ public class RaptorConfig<T extends RaptorTripSchedule> {
         return new RaptorSearchWindowCalculator(tuningParameters.dynamicSearchWindowCoefficients());
     }
 
+    public SearchWindowSplitter searchWindowSplitter() {
+        return new SearchWindowSplitter(
+                tuningParameters.searchWindowChunkSizeInSeconds(),
+                tuningParameters.iterationDepartureStepInSeconds()
+        );
+    }
+
     /* private factory methods */
 
     private Worker<T> createWorker(
@@ -104,8 +121,14 @@ public class RaptorConfig<T extends RaptorTripSchedule> {
         );
     }
 
-    private ExecutorService createNewThreadPool(int size) {
-        return size > 0 ? Executors.newFixedThreadPool(size) : null;
+    private static ExecutorService createNewThreadPool(RaptorTuningParameters tuningParameters) {
+        int size = tuningParameters.searchThreadPoolSize();
+        if (size <= 0) {
+            return null;
+        }
+        return tuningParameters.searchThreadPoolWorkStealing()
+                ? Executors.newWorkStealingPool(size)
+                : Executors.newFixedThreadPool(size);
     }
 
 }
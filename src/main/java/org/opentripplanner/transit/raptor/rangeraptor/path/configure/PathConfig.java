@@ -2,6 +2,7 @@ package org.opentripplanner.transit.raptor.rangeraptor.path.configure;
 
 
 import org.opentripplanner.transit.raptor.api.path.Path;
+import org.opentripplanner.transit.raptor.api.request.SearchParams;
 import org.opentripplanner.transit.raptor.api.transit.RaptorTripSchedule;
 import org.opentripplanner.transit.raptor.rangeraptor.path.DestinationArrivalPaths;
 import org.opentripplanner.transit.raptor.rangeraptor.transit.SearchContext;
@@ -47,9 +48,21 @@ public class PathConfig<T extends RaptorTripSchedule> {
     }
 
     private ParetoComparator<Path<T>> paretoComparator(boolean includeCost) {
-        double relaxedCost = ctx.searchParams().relaxCostAtDestination();
+        return paretoComparator(ctx.searchParams(), includeCost);
+    }
+
+    /**
+     * Create the pareto comparator used to collect paths at the destination. This is also used to
+     * merge the paths of searches run in parallel, see
+     * {@link org.opentripplanner.transit.raptor.service.RangRaptorDynamicSearch}.
+     */
+    public static <T extends RaptorTripSchedule> ParetoComparator<Path<T>> paretoComparator(
+            SearchParams searchParams,
+            boolean includeCost
+    ) {
+        double relaxedCost = searchParams.relaxCostAtDestination();
         boolean includeRelaxedCost = includeCost && relaxedCost > 0.0;
-        boolean includeTimetable = ctx.searchParams().timetableEnabled();
+        boolean includeTimetable = searchParams.timetableEnabled();
 
 
         if(includeTimetable && includeRelaxedCost) {
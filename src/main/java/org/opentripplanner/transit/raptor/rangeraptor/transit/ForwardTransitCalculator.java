@@ -113,6 +113,15 @@ final class ForwardTransitCalculator implements TransitCalculator {
         return IntIterators.intIncIterator(0, nStopsInPattern);
     }
 
+    @Override
+    public final IntIterator patternStopIterator(
+            int firstStopPosVisited,
+            int lastStopPosVisited,
+            int nStopsInPattern
+    ) {
+        return IntIterators.intIncIterator(firstStopPosVisited, nStopsInPattern);
+    }
+
     @Override
     public final <T extends RaptorTripSchedule> TripScheduleSearch<T> createTripSearch(
             RaptorTimeTable<T> timeTable
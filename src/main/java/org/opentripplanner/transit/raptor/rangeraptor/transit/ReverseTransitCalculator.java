@@ -129,6 +129,15 @@ final class ReverseTransitCalculator implements TransitCalculator {
         return IntIterators.intDecIterator(nStopsInPattern, 0);
     }
 
+    @Override
+    public final IntIterator patternStopIterator(
+            int firstStopPosVisited,
+            int lastStopPosVisited,
+            int nStopsInPattern
+    ) {
+        return IntIterators.intDecIterator(lastStopPosVisited + 1, 0);
+    }
+
     @Override
     public final <T extends RaptorTripSchedule> TripScheduleSearch<T> createTripSearch(
             RaptorTimeTable<T> timeTable
@@ -118,6 +118,18 @@ public interface TransitCalculator {
      */
     IntIterator patternStopIterator(int nStopsInPattern);
 
+    /**
+     * Return an iterator, iterating over the stop positions in a pattern, skipping the stop
+     * positions where it is not possible to board, because none of the stops visited is reached.
+     * Iterate from 'firstStopPosVisited' to 'nStopsInPattern - 1' in a forward search and from
+     * 'lastStopPosVisited' to '0' in a reverse search.
+     *
+     * @param firstStopPosVisited the first stop position in pattern reached in the previous round
+     * @param lastStopPosVisited the last stop position in pattern reached in the previous round
+     * @param nStopsInPattern the number of stops in the trip pattern
+     */
+    IntIterator patternStopIterator(int firstStopPosVisited, int lastStopPosVisited, int nStopsInPattern);
+
     /**
      * Create a trip search, to use to find the correct trip to board/alight for
      * a given pattern. This is used to to inject a forward or reverse
@@ -20,6 +20,8 @@ import org.opentripplanner.transit.raptor.api.transit.RaptorTripSchedule;
  * @param <T> The TripSchedule type defined by the user of the raptor API.
  */
 public class TripScheduleAlightSearch<T extends RaptorTripSchedule> implements TripScheduleSearch<T> {
+    private static final int NOT_SET = -1;
+
     private final int nTripsBinarySearchThreshold;
     private final RaptorTimeTable<T> timeTable;
     private final int nTrips;
@@ -28,7 +30,7 @@ public class TripScheduleAlightSearch<T extends RaptorTripSchedule> implements T
     private int stopPositionInPattern;
 
     private T candidateTrip;
-    private int candidateTripIndex;
+    private int candidateTripIndex = NOT_SET;
 
     TripScheduleAlightSearch(int scheduledTripBinarySearchThreshold, RaptorTimeTable<T> timeTable) {
         this.nTripsBinarySearchThreshold = scheduledTripBinarySearchThreshold;
@@ -36,8 +38,15 @@ public class TripScheduleAlightSearch<T extends RaptorTripSchedule> implements T
         this.nTrips = timeTable.numberOfTripSchedules();
     }
 
+    /**
+     * The trip schedule is only created when requested, the search itself only operate on
+     * trip indexes.
+     */
     @Override
     public T getCandidateTrip() {
+        if (candidateTrip == null && candidateTripIndex != NOT_SET) {
+            candidateTrip = timeTable.getTripSchedule(candidateTripIndex);
+        }
         return candidateTrip;
     }
 
@@ -48,7 +57,7 @@ public class TripScheduleAlightSearch<T extends RaptorTripSchedule> implements T
 
     @Override
     public int getCandidateTripTime() {
-        return candidateTrip.arrival(stopPositionInPattern);
+        return timeTable.arrival(candidateTripIndex, stopPositionInPattern);
     }
 
     /**
@@ -73,7 +82,7 @@ public class TripScheduleAlightSearch<T extends RaptorTripSchedule> implements T
         this.latestAlightTime = latestAlightTime;
         this.stopPositionInPattern = stopPositionInPattern;
         this.candidateTrip = null;
-        this.candidateTripIndex = -1;
+        this.candidateTripIndex = NOT_SET;
 
         // No previous trip is found
         if (tripIndexLowerBound < 0) {
@@ -118,21 +127,18 @@ public class TripScheduleAlightSearch<T extends RaptorTripSchedule> implements T
      */
     private boolean findBoardingSearchForwardInTime(int tripIndexLowerBound) {
         for (int i = tripIndexLowerBound; i < nTrips;  ++i) {
-            T trip = timeTable.getTripSchedule(i);
-
-            final int arrival = trip.arrival(stopPositionInPattern);
+            final int arrival = timeTable.arrival(i, stopPositionInPattern);
 
             if (arrival <= latestAlightTime) {
-                candidateTrip = trip;
                 candidateTripIndex = i;
             } else {
                 // this trip arrives too early. We can break out of the loop since
                 // trips are sorted by departure time (trips in given schedule)
                 // Trips passing another trip is not accounted for if both are in service.
-                return candidateTrip != null;
+                return candidateTripIndex != NOT_SET;
             }
         }
-        return candidateTrip != null;
+        return candidateTripIndex != NOT_SET;
     }
 
     /**
@@ -143,12 +149,9 @@ public class TripScheduleAlightSearch<T extends RaptorTripSchedule> implements T
      */
     private boolean findBoardingSearchBackwardsInTime(final int tripIndexUpperBound) {
         for (int i = tripIndexUpperBound-1; i >=0; --i) {
-            T trip = timeTable.getTripSchedule(i);
-
-            final int arrival = trip.arrival(stopPositionInPattern);
+            final int arrival = timeTable.arrival(i, stopPositionInPattern);
 
             if (arrival <= latestAlightTime) {
-                candidateTrip = trip;
                 candidateTripIndex = i;
                 return true;
             }
@@ -173,9 +176,7 @@ public class TripScheduleAlightSearch<T extends RaptorTripSchedule> implements T
         while (upper - lower > nTripsBinarySearchThreshold) {
             int m = (lower + upper) / 2;
 
-            RaptorTripSchedule trip = timeTable.getTripSchedule(m);
-
-            int arrival = trip.arrival(stopPositionInPattern);
+            int arrival = timeTable.arrival(m, stopPositionInPattern);
 
             if (arrival <= latestAlightTime) {
                 lower = m;
@@ -38,8 +38,15 @@ public class TripScheduleBoardSearch<T extends RaptorTripSchedule> implements Tr
         this.nTrips = timeTable.numberOfTripSchedules();
     }
 
+    /**
+     * The trip schedule is only created when requested, the search itself only operate on
+     * trip indexes.
+     */
     @Override
     public T getCandidateTrip() {
+        if (candidateTrip == null && candidateTripIndex != NOT_SET) {
+            candidateTrip = timeTable.getTripSchedule(candidateTripIndex);
+        }
         return candidateTrip;
     }
 
@@ -50,7 +57,7 @@ public class TripScheduleBoardSearch<T extends RaptorTripSchedule> implements Tr
 
     @Override
     public int getCandidateTripTime() {
-        return candidateTrip.departure(stopPositionInPattern);
+        return timeTable.departure(candidateTripIndex, stopPositionInPattern);
     }
 
     /**
@@ -124,20 +131,18 @@ public class TripScheduleBoardSearch<T extends RaptorTripSchedule> implements Tr
      */
     private boolean findBoardingBySteppingBackwardsInTime(int tripIndexUpperBound) {
         for (int i = tripIndexUpperBound-1; i >= 0; --i) {
-            T trip = timeTable.getTripSchedule(i);
-            final int boardTime = trip.departure(stopPositionInPattern);
+            final int boardTime = timeTable.departure(i, stopPositionInPattern);
 
             if (boardTime >= earliestBoardTime) {
-                candidateTrip = trip;
                 candidateTripIndex = i;
             } else {
                 // this trip arrives too early. We can break out of the loop since
                 // trips are sorted by departure time (trips in given schedule)
                 // Trips passing another trip is not accounted for if both are in service.
-                return candidateTrip != null;
+                return candidateTripIndex != NOT_SET;
             }
         }
-        return candidateTrip != null;
+        return candidateTripIndex != NOT_SET;
     }
 
     /**
@@ -148,11 +153,9 @@ public class TripScheduleBoardSearch<T extends RaptorTripSchedule> implements Tr
      */
     private boolean findBoardingBySteppingForwardInTime(final int tripIndexLowerBound) {
         for (int i = tripIndexLowerBound; i < nTrips; ++i) {
-            T trip = timeTable.getTripSchedule(i);
-            final int boardTime = trip.departure(stopPositionInPattern);
+            final int boardTime = timeTable.departure(i, stopPositionInPattern);
 
             if (boardTime >= earliestBoardTime) {
-                candidateTrip = trip;
                 candidateTripIndex = i;
                 return true;
             }
@@ -175,9 +178,7 @@ public class TripScheduleBoardSearch<T extends RaptorTripSchedule> implements Tr
         while (upper - lower > nTripsBinarySearchThreshold) {
             int m = (lower + upper) / 2;
 
-            RaptorTripSchedule trip = timeTable.getTripSchedule(m);
-
-            int departure = trip.departure(stopPositionInPattern);
+            int departure = timeTable.departure(m, stopPositionInPattern);
 
             if (departure >= earliestBoardTime) {
                 upper = m;
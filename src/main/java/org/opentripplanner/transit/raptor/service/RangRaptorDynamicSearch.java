@@ -10,10 +10,13 @@ import org.opentripplanner.transit.raptor.api.transit.RaptorTransitDataProvider;
 import org.opentripplanner.transit.raptor.api.view.Heuristics;
 import org.opentripplanner.transit.raptor.api.view.Worker;
 import org.opentripplanner.transit.raptor.rangeraptor.configure.RaptorConfig;
+import org.opentripplanner.transit.raptor.rangeraptor.path.configure.PathConfig;
+import org.opentripplanner.transit.raptor.util.paretoset.ParetoSet;
 import org.opentripplanner.util.OtpAppException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -31,7 +34,9 @@ import static org.opentripplanner.transit.raptor.service.HeuristicToRunResolver.
  * This search help the {@link org.opentripplanner.transit.raptor.RaptorService} to configure
  * heuristics and set dynamic search parameters like EDT, LAT and raptor-search-window.
  * <p>
- * If possible the forward and revers heuristics will be run in parallel.
+ * If possible the forward and revers heuristics will be run in parallel. If configured, the
+ * search-window of the main search is split into chunks and searched in parallel, see
+ * {@link SearchWindowSplitter}.
  * <p>
  * Depending on witch optimization is enabled and witch search parameters is set a forward and/or a
  * revers "singel-iteration" raptor search is performed and heuristics is collected. This is used
@@ -116,23 +121,76 @@ public class RangRaptorDynamicSearch<T extends RaptorTripSchedule> {
     private RaptorResponse<T> createAndRunWorker(RaptorRequest<T> mcRequest) {
 
         LOG.debug("Raptor request: " + mcRequest.toString());
-        Worker<T> worker;
+        Collection<Path<T>> paths;
 
-        // Create worker
-        if (mcRequest.profile().is(MULTI_CRITERIA)) {
-            worker = config.createMcWorker(transitData, mcRequest, getDestinationHeuristics());
+        // Route
+        if (isItPossibleToSplitSearchWindow(mcRequest)) {
+            paths = routeSearchWindowChunksInParallel(mcRequest);
         }
         else {
-            worker = config.createStdWorker(transitData, mcRequest);
+            paths = createWorker(mcRequest).route();
         }
 
-        // Route
-        Collection<Path<T>> paths = worker.route();
-
         // create and return response
         return new RaptorResponse<>(paths, originalRequest, mcRequest);
     }
 
+    private Worker<T> createWorker(RaptorRequest<T> request) {
+        if (request.profile().is(MULTI_CRITERIA)) {
+            return config.createMcWorker(transitData, request, getDestinationHeuristics());
+        }
+        return config.createStdWorker(transitData, request);
+    }
+
+    private boolean isItPossibleToSplitSearchWindow(RaptorRequest<T> mcRequest) {
+        return config.isMultiThreaded()
+                && originalRequest.runInParallel()
+                && config.searchWindowSplitter().isSplit(mcRequest);
+    }
+
+    /**
+     * Split the search-window in chunks and route each chunk in parallel. The first chunk is
+     * routed in the calling thread. The paths found are merged into one pareto set, using the
+     * same pareto comparator as the worker use at the destination. If one chunk fails, the
+     * chunks still running are cancelled.
+     */
+    private Collection<Path<T>> routeSearchWindowChunksInParallel(RaptorRequest<T> mcRequest) {
+        List<RaptorRequest<T>> chunks = config.searchWindowSplitter().split(mcRequest);
+        List<Worker<T>> workers = chunks.stream().map(this::createWorker).collect(Collectors.toList());
+        List<Future<Collection<Path<T>>>> futures = new ArrayList<>();
+
+        try {
+            for (Worker<T> worker : workers.subList(1, workers.size())) {
+                futures.add(config.threadPool().submit(worker::route));
+            }
+            ParetoSet<Path<T>> paths = new ParetoSet<>(
+                    PathConfig.paretoComparator(
+                            mcRequest.searchParams(),
+                            mcRequest.profile().is(MULTI_CRITERIA)
+                    )
+            );
+            paths.addAll(workers.get(0).route());
+
+            for (Future<Collection<Path<T>>> f : futures) {
+                paths.addAll(f.get());
+            }
+            LOG.debug("Route using RangeRaptor - "
+                    + chunks.size() + " search-window chunks searched in parallel.");
+            return new ArrayList<>(paths);
+        }
+        catch (ExecutionException | InterruptedException e) {
+            LOG.error(e.getMessage() + ". Request: " + mcRequest, e);
+            throw new OtpAppException(
+                    "Failed to run search-window chunks in parallel. Details: " + e.getMessage());
+        }
+        finally {
+            // Cancelling a completed future has no effect
+            for (Future<Collection<Path<T>>> f : futures) {
+                f.cancel(true);
+            }
+        }
+    }
+
     private boolean isItPossibleToRunHeuristicsInParallel() {
         SearchParams s = originalRequest.searchParams();
         return config.isMultiThreaded()
@@ -0,0 +1,98 @@
+package org.opentripplanner.transit.raptor.service;
+
+import org.opentripplanner.transit.raptor.api.request.RaptorRequest;
+import org.opentripplanner.transit.raptor.api.request.SearchParams;
+import org.opentripplanner.transit.raptor.api.transit.RaptorTripSchedule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Split a range-raptor request into smaller requests, each covering a chunk of the original
+ * search-window. The chunks can be searched in parallel and the results merged.
+ * <p>
+ * Range raptor iterate backwards from the end of the search-window, so the chunks are aligned with
+ * the end of the search-window and the chunk size is rounded up to a multiple of the iteration
+ * step. The first chunk also include the remaining part of the search-window. This make sure each
+ * chunk iterate over exactly the same departure times as the original search would do for the
+ * same part of the search-window; hence the range-raptor-iteration-departure-time of the paths
+ * found can be compared across chunks.
+ * <p>
+ * The first iteration of each chunk is a "first iteration" - it is not restricted to board within
+ * the iteration time-window, so each chunk is seeded in the same way as a search starting at the
+ * end of the chunk. The paths found in the first iteration
+ * may also be found by the next chunk, duplicates must be removed when the results are merged.
+ * <p>
+ * Only forward searches with the earliest-departure-time and search-window set are split, and
+ * only if the search-window is longer than two chunks. Splitting a shorter search-window does not
+ * pay for the extra work done in the first iteration of each chunk.
+ *
+ * @see org.opentripplanner.transit.raptor.api.request.RaptorTuningParameters#searchWindowChunkSizeInSeconds()
+ */
+public class SearchWindowSplitter {
+
+    private final int chunkSizeInSeconds;
+
+    public SearchWindowSplitter(int chunkSizeInSeconds, int iterationStepInSeconds) {
+        this.chunkSizeInSeconds = chunkSizeInSeconds <= 0
+                ? 0
+                : roundUp(chunkSizeInSeconds, iterationStepInSeconds);
+    }
+
+    /**
+     * Return {@code true} if the search-window of the given request is longer than two chunks,
+     * and is split.
+     */
+    public boolean isSplit(RaptorRequest<?> request) {
+        return numberOfChunks(request) > 1;
+    }
+
+    /**
+     * Split the given request into one request for each chunk of the search-window, ordered by
+     * earliest-departure-time. If the search-window is not split, a list with the given request
+     * is returned.
+     */
+    public <T extends RaptorTripSchedule> List<RaptorRequest<T>> split(RaptorRequest<T> request) {
+        if (!isSplit(request)) {
+            return List.of(request);
+        }
+        int nChunks = numberOfChunks(request);
+        SearchParams s = request.searchParams();
+        int edt = s.earliestDepartureTime();
+        int end = edt + s.searchWindowInSeconds();
+
+        List<RaptorRequest<T>> chunks = new ArrayList<>(nChunks);
+
+        for (int i = nChunks - 1; i >= 0; --i) {
+            int chunkEnd = end - i * chunkSizeInSeconds;
+            // The first chunk start at the EDT, the others start where the previous chunk end
+            int chunkStart = i == nChunks - 1 ? edt : chunkEnd - chunkSizeInSeconds;
+            chunks.add(
+                    request.mutate().searchParams()
+                            .earliestDepartureTime(chunkStart)
+                            .searchWindowInSeconds(chunkEnd - chunkStart)
+                            .build()
+            );
+        }
+        return chunks;
+    }
+
+    private int numberOfChunks(RaptorRequest<?> request) {
+        if (chunkSizeInSeconds == 0 || !request.searchDirection().isForward()) {
+            return 1;
+        }
+        SearchParams s = request.searchParams();
+        if (!s.isEarliestDepartureTimeSet() || !s.isSearchWindowSet()) {
+            return 1;
+        }
+        if (s.searchWindowInSeconds() <= 2 * chunkSizeInSeconds) {
+            return 1;
+        }
+        return s.searchWindowInSeconds() / chunkSizeInSeconds;
+    }
+
+    private static int roundUp(int value, int step) {
+        return step <= 0 ? value : ((value + step - 1) / step) * step;
+    }
+}
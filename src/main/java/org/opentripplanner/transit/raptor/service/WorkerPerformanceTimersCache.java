@@ -3,11 +3,11 @@ package org.opentripplanner.transit.raptor.service;
 import org.opentripplanner.transit.raptor.api.request.RaptorRequest;
 import org.opentripplanner.transit.raptor.rangeraptor.debug.WorkerPerformanceTimers;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class WorkerPerformanceTimersCache {
-    private final Map<String, WorkerPerformanceTimers> timers = new HashMap<>();
+    private final Map<String, WorkerPerformanceTimers> timers = new ConcurrentHashMap<>();
     private final boolean multithreaded;
 
     public WorkerPerformanceTimersCache(boolean multithreaded) {
@@ -152,6 +152,20 @@ public class GraphUpdaterManager {
         });
     }
 
+    /**
+     * Execute the given runnable after the given delay, like {@link #execute(GraphWriterRunnable)}
+     * the runnable is executed after the other graph writer runnables scheduled before it.
+     */
+    public void executeLater(GraphWriterRunnable runnable, long delayMillis) {
+        scheduler.schedule(() -> {
+            try {
+                runnable.run(graph);
+            } catch (Exception e) {
+                LOG.error("Error while running graph writer {}:", runnable.getClass().getName(), e);
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
     public int size() {
         return updaterList.size();
     }
@@ -2,6 +2,7 @@ package org.opentripplanner.updater.bike_rental;
 
 import org.opentripplanner.graph_builder.DataImportIssueStore;
 import org.opentripplanner.graph_builder.linking.SimpleStreetSplitter;
+import org.opentripplanner.routing.algorithm.raptor.router.street.AccessEgressCache;
 import org.opentripplanner.routing.bike_rental.BikeRentalStation;
 import org.opentripplanner.routing.bike_rental.BikeRentalStationService;
 import org.opentripplanner.routing.edgetype.RentABikeOffEdge;
@@ -101,6 +102,7 @@ public class BikeRentalUpdater extends PollingGraphUpdater {
 		@Override
         public void run(Graph graph) {
             // Apply stations to graph
+            boolean streetGraphChanged = false;
             Set<BikeRentalStation> stationSet = new HashSet<>();
             Set<String> defaultNetworks = new HashSet<>(Collections.singletonList(network));
             /* add any new stations and update bike counts for existing stations */
@@ -119,6 +121,7 @@ public class BikeRentalUpdater extends PollingGraphUpdater {
                         LOG.info("BikeRentalStation {} is unlinked", vertex);
                     }
                     verticesByStation.put(station, vertex);
+                    streetGraphChanged = true;
                     new RentABikeOnEdge(vertex, vertex, station.networks);
                     if (station.allowDropoff)
                         new RentABikeOffEdge(vertex, vertex, station.networks);
@@ -138,6 +141,7 @@ public class BikeRentalUpdater extends PollingGraphUpdater {
                     graph.removeVertexAndEdges(vertex);
                 }
                 toRemove.add(station);
+                streetGraphChanged = true;
                 service.removeBikeRentalStation(station);
                 // TODO: need to unsplit any streets that were split
             }
@@ -145,6 +149,20 @@ public class BikeRentalUpdater extends PollingGraphUpdater {
                 // post-iteration removal to avoid concurrent modification
                 verticesByStation.remove(station);
             }
+            invalidateAccessEgressCache(graph, streetGraphChanged);
+        }
+
+        private void invalidateAccessEgressCache(Graph graph, boolean streetGraphChanged) {
+            AccessEgressCache cache = graph.getAccessEgressCache();
+            if (cache == null) { return; }
+
+            // New or removed stations are linked to the street graph, so all results may change
+            if (streetGraphChanged) {
+                cache.clear();
+            }
+            else {
+                cache.invalidateBikeRental();
+            }
         }
     }
 
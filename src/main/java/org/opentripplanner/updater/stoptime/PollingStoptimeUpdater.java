@@ -60,6 +60,11 @@ public class PollingStoptimeUpdater extends PollingGraphUpdater {
 
     private final boolean fuzzyTripMatching;
 
+    /**
+     * Property to set on the RealtimeDataSnapshotSource
+     */
+    private final boolean skipUnchangedTripUpdates;
+
     /**
      * Set only if we should attempt to match the trip_id from other data in TripDescriptor
      */
@@ -82,6 +87,7 @@ public class PollingStoptimeUpdater extends PollingGraphUpdater {
         }
         this.purgeExpiredData = parameters.purgeExpiredData();
         this.fuzzyTripMatching = parameters.fuzzyTripMatching();
+        this.skipUnchangedTripUpdates = parameters.skipUnchangedTripUpdates();
 
         LOG.info("Creating stop time updater running every {} seconds : {}", pollingPeriodSeconds, updateSource);
     }
@@ -114,6 +120,9 @@ public class PollingStoptimeUpdater extends PollingGraphUpdater {
         if (fuzzyTripMatcher != null) {
             snapshotSource.fuzzyTripMatcher = fuzzyTripMatcher;
         }
+        if (skipUnchangedTripUpdates) {
+            snapshotSource.skipUnchangedTripUpdates = true;
+        }
     }
 
     /**
@@ -10,6 +10,7 @@ public class PollingStoptimeUpdaterParameters implements PollingGraphUpdaterPara
   private final int maxSnapshotFrequencyMs;
   private final boolean purgeExpiredData;
   private final boolean fuzzyTripMatching;
+  private final boolean skipUnchangedTripUpdates;
 
   // Source
   private final DataSourceType sourceType;
@@ -24,6 +25,7 @@ public class PollingStoptimeUpdaterParameters implements PollingGraphUpdaterPara
       int maxSnapshotFrequencyMs,
       boolean purgeExpiredData,
       boolean fuzzyTripMatching,
+      boolean skipUnchangedTripUpdates,
       DataSourceType sourceType,
       String feedId,
       String httpSourceUrl,
@@ -35,6 +37,7 @@ public class PollingStoptimeUpdaterParameters implements PollingGraphUpdaterPara
     this.maxSnapshotFrequencyMs = maxSnapshotFrequencyMs;
     this.purgeExpiredData = purgeExpiredData;
     this.fuzzyTripMatching = fuzzyTripMatching;
+    this.skipUnchangedTripUpdates = skipUnchangedTripUpdates;
     this.sourceType = sourceType;
     this.feedId = feedId;
     this.httpSourceUrl = httpSourceUrl;
@@ -71,6 +74,10 @@ public class PollingStoptimeUpdaterParameters implements PollingGraphUpdaterPara
     return fuzzyTripMatching;
   }
 
+  boolean skipUnchangedTripUpdates() {
+    return skipUnchangedTripUpdates;
+  }
+
   public DataSourceType getSourceType() {
     return sourceType;
   }
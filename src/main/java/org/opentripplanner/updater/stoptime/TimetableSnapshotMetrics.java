@@ -0,0 +1,54 @@
+package org.opentripplanner.updater.stoptime;
+
+import org.opentripplanner.model.base.ToStringBuilder;
+import org.opentripplanner.util.monitoring.DurationMetrics;
+
+/**
+ * Counters for the timetable snapshots published by the {@link TimetableSnapshotSource}. The
+ * counters are updated by the updater thread and may be read by any thread, a snapshot of the
+ * values is not guaranteed to be consistent. The metrics are logged by the snapshot source at
+ * debug level.
+ */
+public class TimetableSnapshotMetrics {
+
+    private final DurationMetrics publishTime = new DurationMetrics();
+    private volatile int lastSize = 0;
+    private volatile int lastCopiedShards = 0;
+
+    /** The number of snapshots published. */
+    public long published() {
+        return publishTime.count();
+    }
+
+    /** The number of trip patterns with updated timetables in the last snapshot. */
+    public int lastSize() {
+        return lastSize;
+    }
+
+    /** The number of map shards the last snapshot did not share with the snapshot before it. */
+    public int lastCopiedShards() {
+        return lastCopiedShards;
+    }
+
+    /** The time used to commit and publish the snapshots. */
+    public DurationMetrics publishTime() {
+        return publishTime;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.of(TimetableSnapshotMetrics.class)
+                .addNum("lastSize", lastSize())
+                .addNum("lastCopiedShards", lastCopiedShards())
+                .addObj("publishTime", publishTime)
+                .toString();
+    }
+
+    /* package local methods used by the snapshot source */
+
+    void publish(int size, int copiedShards, long timeMillis) {
+        lastSize = size;
+        lastCopiedShards = copiedShards;
+        publishTime.record(timeMillis);
+    }
+}
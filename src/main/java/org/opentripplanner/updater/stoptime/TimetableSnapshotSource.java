@@ -31,10 +31,13 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Calendar;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 
 /**
  * This class should be used to create snapshots of lookup tables of realtime data. This is
@@ -56,6 +59,12 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
 
     public int logFrequency = 2000;
 
+    /**
+     * Messages with at least this number of trip updates are prepared in parallel, for smaller
+     * messages the overhead is larger than the gain.
+     */
+    public int parallelPrepareThreshold = 64;
+
     private int appliedBlockCount = 0;
 
     /**
@@ -66,7 +75,8 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
     public int maxSnapshotFrequency = 1000; // msec
 
     /**
-     * The last committed snapshot that was handed off to a routing thread. This snapshot may be
+     * The last committed snapshot, published to the routing threads. The routing threads only read
+     * this reference, they never wait for the updater or do commit work. This snapshot may be
      * given to more than one routing thread if the maximum snapshot frequency is exceeded.
      */
     private volatile TimetableSnapshot snapshot = null;
@@ -79,9 +89,17 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
     private final TimetableSnapshot buffer = new TimetableSnapshot();
 
     /**
-     * Lock to indicate that buffer is in use
+     * Lock to indicate that buffer is in use. The updates are normally applied by the single graph
+     * writer thread, so this lock is not contended. The routing threads do not use it.
      */
-    private final ReentrantLock bufferLock = new ReentrantLock(true);
+    private final ReentrantLock bufferLock = new ReentrantLock();
+
+    /** True if a commit of the buffer is postponed because of the maximum snapshot frequency. */
+    private boolean commitScheduled = false;
+
+    private final TimetableSnapshotMetrics snapshotMetrics = new TimetableSnapshotMetrics();
+
+    private final TripUpdateMetrics tripUpdateMetrics = new TripUpdateMetrics();
 
     /**
      * A synchronized cache of trip patterns that are added to the graph due to GTFS-realtime messages.
@@ -102,6 +120,15 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
 
     public GtfsRealtimeFuzzyTripMatcher fuzzyTripMatcher;
 
+    /**
+     * Only apply the trip updates that changed since the previous full dataset of a feed, the
+     * unchanged trip updates are skipped. See {@link TripUpdateFingerprints}.
+     */
+    public boolean skipUnchangedTripUpdates = false;
+
+    /** The fingerprints of the last full dataset for each feed id. */
+    private final Map<String, TripUpdateFingerprints> fingerprints = new HashMap<>();
+
     private TransitLayer realtimeTransitLayer;
 
     private TransitLayerUpdater transitLayerUpdater;
@@ -114,45 +141,65 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
     }
 
     /**
-     * @return an up-to-date snapshot mapping TripPatterns to Timetables. This snapshot and the
+     * @return the last published snapshot mapping TripPatterns to Timetables. This snapshot and the
      *         timetable objects it references are guaranteed to never change, so the requesting
      *         thread is provided a consistent view of all TripTimes. The routing thread need only
-     *         release its reference to the snapshot to release resources.
+     *         release its reference to the snapshot to release resources. This method does not
+     *         block and does not commit the buffer, the updates are published by the updater.
      */
     public TimetableSnapshot getTimetableSnapshot() {
-        TimetableSnapshot snapshotToReturn;
+        return snapshot;
+    }
 
-        // Try to get a lock on the buffer
-        if (bufferLock.tryLock()) {
-            // Make a new snapshot if necessary
-            try {
-                snapshotToReturn = getTimetableSnapshot(false);
-            } finally {
-                bufferLock.unlock();
-            }
-        } else {
-            // No lock could be obtained because there is either a snapshot commit busy or updates
-            // are applied at this moment, just return the current snapshot
-            snapshotToReturn = snapshot;
-        }
+    public TimetableSnapshotMetrics getSnapshotMetrics() {
+        return snapshotMetrics;
+    }
 
-        return snapshotToReturn;
+    public TripUpdateMetrics getTripUpdateMetrics() {
+        return tripUpdateMetrics;
     }
 
-    private TimetableSnapshot getTimetableSnapshot(final boolean force) {
+    /**
+     * Commit and publish the buffer if it has changed and the maximum snapshot frequency allows
+     * it. Updates applied less than {@link #maxSnapshotFrequency} milliseconds after the previous
+     * commit are published by a commit scheduled in the graph writer thread, or by the next call to
+     * this method.
+     */
+    public void flushBuffer() {
+        bufferLock.lock();
+        try {
+            commitBuffer(false, null);
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    private void commitBuffer(final boolean force, final Graph graph) {
         final long now = System.currentTimeMillis();
         if (force || now - lastSnapshotTime > maxSnapshotFrequency) {
             if (force || buffer.isDirty()) {
                 LOG.debug("Committing {}", buffer.toString());
+                int copiedShards = buffer.copiedShards();
                 snapshot = buffer.commit(transitLayerUpdater, force);
+                snapshotMetrics.publish(
+                    snapshot.size(),
+                    copiedShards,
+                    System.currentTimeMillis() - now
+                );
+                LOG.debug("Published snapshot. {}", snapshotMetrics);
             } else {
                 LOG.debug("Buffer was unchanged, keeping old snapshot.");
             }
             lastSnapshotTime = System.currentTimeMillis();
+            commitScheduled = false;
         } else {
             LOG.debug("Snapshot frequency exceeded. Reusing snapshot {}", snapshot);
+            if (!commitScheduled && graph != null && graph.updaterManager != null) {
+                long delay = maxSnapshotFrequency - (now - lastSnapshotTime) + 1;
+                graph.updaterManager.executeLater(g -> flushBuffer(), delay);
+                commitScheduled = true;
+            }
         }
-        return snapshot;
     }
 
     /**
@@ -178,37 +225,68 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
         bufferLock.lock();
 
         try {
-            if (fullDataset) {
-                // Remove all updates from the buffer
-                buffer.clear(feedId);
-            }
-
             LOG.debug("message contains {} trip updates", updates.size());
-            int uIndex = 0;
-            for (TripUpdate tripUpdate : updates) {
-                if (fuzzyTripMatcher != null && tripUpdate.hasTrip()) {
-                    final TripDescriptor trip = fuzzyTripMatcher.match(feedId, tripUpdate.getTrip());
-                    tripUpdate = tripUpdate.toBuilder().setTrip(trip).build();
+            final long startTime = System.currentTimeMillis();
+
+            // With differential processing, only apply the trip updates changed since the
+            // previous full dataset of the feed
+            TripUpdateFingerprints feedFingerprints = null;
+            TripUpdateFingerprints.Diff diff = null;
+            if (fullDataset && skipUnchangedTripUpdates) {
+                final ServiceDate today = new ServiceDate(Calendar.getInstance(timeZone));
+                feedFingerprints = fingerprints.computeIfAbsent(
+                        feedId, it -> new TripUpdateFingerprints()
+                );
+                diff = feedFingerprints.diff(updates, today);
+                if (diff == null) {
+                    feedFingerprints.reset(today);
+                    tripUpdateMetrics.fullReapply();
                 }
+            } else if (!fullDataset) {
+                // Incremental updates are not tracked, the next full dataset is applied in full
+                fingerprints.remove(feedId);
+            }
 
-                if (!tripUpdate.hasTrip()) {
-                    LOG.warn("Missing TripDescriptor in gtfs-rt trip update: \n{}", tripUpdate);
-                    continue;
+            final List<TripUpdate> toApply;
+            if (diff == null) {
+                if (fullDataset) {
+                    // Remove all updates from the buffer
+                    buffer.clear(feedId);
+                }
+                toApply = updates;
+            } else {
+                for (TripUpdateFingerprints.Entry it : diff.reverted) {
+                    if (it.applied) {
+                        revertScheduledTrip(feedId, it.tripId, it.serviceDate);
+                    }
                 }
+                feedFingerprints.remove(diff.removed);
+                tripUpdateMetrics.differential(diff.unchanged.size(), diff.reverted.size());
+                toApply = diff.changed;
+            }
 
-                ServiceDate serviceDate = new ServiceDate();
-                final TripDescriptor tripDescriptor = tripUpdate.getTrip();
+            // Match, parse and validate the updates in parallel, this does not change the buffer
+            // or the graph. The result is in the same order as the updates.
+            final List<PreparedTripUpdate> preparedUpdates = (
+                    toApply.size() >= parallelPrepareThreshold
+                            ? toApply.parallelStream()
+                            : toApply.stream()
+            ).map(u -> prepareTripUpdate(u, feedId)).collect(Collectors.toList());
 
-                if (tripDescriptor.hasStartDate()) {
-                    try {
-                        serviceDate = ServiceDate.parseString(tripDescriptor.getStartDate());
-                    } catch (final ParseException e) {
-                        LOG.warn("Failed to parse start date in gtfs-rt trip update: \n{}", tripUpdate);
-                        continue;
+            // Apply the updates to the buffer, one at a time in the original order
+            int uIndex = 0;
+            int applied = 0;
+            for (int i = 0; i < preparedUpdates.size(); ++i) {
+                final PreparedTripUpdate prepared = preparedUpdates.get(i);
+                final TripUpdate tripUpdate = prepared.tripUpdate;
+
+                if (prepared.rejection == TripUpdateMetrics.Rejection.MISSING_TRIP_DESCRIPTOR
+                        || prepared.rejection == TripUpdateMetrics.Rejection.INVALID_START_DATE) {
+                    tripUpdateMetrics.reject(prepared.rejection);
+                    if (feedFingerprints != null) {
+                        feedFingerprints.add(toApply.get(i), false, null, null, null);
                     }
-                } else {
-                    // TODO: figure out the correct service date. For the special case that a trip
-                    // starts for example at 40:00, yesterday would probably be a better guess.
+                    continue;
                 }
 
                 uIndex += 1;
@@ -216,49 +294,42 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
                         uIndex, tripUpdate.getStopTimeUpdateCount());
                 LOG.trace("{}", tripUpdate);
 
-                // Determine what kind of trip update this is
-                boolean applied = false;
-                final TripDescriptor.ScheduleRelationship tripScheduleRelationship = determineTripScheduleRelationship(
-                        tripUpdate);
-                switch (tripScheduleRelationship) {
-                    case SCHEDULED:
-                        applied = handleScheduledTrip(tripUpdate, feedId, serviceDate);
-                        break;
-                    case ADDED:
-                        applied = validateAndHandleAddedTrip(graph, tripUpdate, feedId, serviceDate);
-                        break;
-                    case UNSCHEDULED:
-                        applied = handleUnscheduledTrip(tripUpdate, feedId, serviceDate);
-                        break;
-                    case CANCELED:
-                        applied = handleCanceledTrip(tripUpdate, feedId, serviceDate);
-                        break;
-                    case MODIFIED:
-                        applied = validateAndHandleModifiedTrip(graph, tripUpdate, feedId, serviceDate);
-                        break;
-                }
+                final TripUpdateMetrics.Rejection rejection = applyTripUpdate(graph, prepared, feedId);
 
-                if (applied) {
+                if (rejection == null) {
                     appliedBlockCount++;
+                    applied++;
                 } else {
-                    LOG.warn("Failed to apply TripUpdate.");
+                    tripUpdateMetrics.reject(rejection);
+                    LOG.warn("Failed to apply TripUpdate: {}", rejection);
                     LOG.trace(" Contents: {}", tripUpdate);
                 }
 
+                if (feedFingerprints != null) {
+                    // Key the fingerprint by the trip as given in the feed, before fuzzy matching
+                    feedFingerprints.add(
+                            toApply.get(i),
+                            rejection == null,
+                            prepared.scheduleRelationship,
+                            tripUpdate.getTrip().hasTripId() ? tripUpdate.getTrip().getTripId() : null,
+                            prepared.serviceDate
+                    );
+                }
+
                 if (appliedBlockCount % logFrequency == 0) {
-                    LOG.info("Applied {} trip updates.", appliedBlockCount);
+                    LOG.info("Applied {} trip updates. {}", appliedBlockCount, tripUpdateMetrics);
                 }
             }
-            LOG.debug("end of update message");
+            tripUpdateMetrics.message(updates.size(), applied, System.currentTimeMillis() - startTime);
+            LOG.debug("end of update message. {}", tripUpdateMetrics);
 
             // Make a snapshot after each message in anticipation of incoming requests
             // Purge data if necessary (and force new snapshot if anything was purged)
-            // Make sure that the public (locking) getTimetableSnapshot function is not called.
             if (purgeExpiredData) {
                 final boolean modified = purgeExpiredData();
-                getTimetableSnapshot(modified);
+                commitBuffer(modified, graph);
             } else {
-                getTimetableSnapshot(false);
+                commitBuffer(false, graph);
             }
         } finally {
             // Always release lock
@@ -266,6 +337,82 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
         }
     }
 
+    /**
+     * Match, parse and validate a trip update. For SCHEDULED trips the updated trip times are
+     * created from the scheduled timetable, this is the expensive part of applying an update.
+     * <p>
+     * This method is THREAD SAFE, it only reads the graph index and the scheduled timetables,
+     * neither are changed by the realtime updates.
+     */
+    private PreparedTripUpdate prepareTripUpdate(TripUpdate tripUpdate, final String feedId) {
+        if (fuzzyTripMatcher != null && tripUpdate.hasTrip()) {
+            final TripDescriptor trip = fuzzyTripMatcher.match(feedId, tripUpdate.getTrip());
+            tripUpdate = tripUpdate.toBuilder().setTrip(trip).build();
+        }
+
+        final PreparedTripUpdate prepared = new PreparedTripUpdate(tripUpdate);
+
+        if (!tripUpdate.hasTrip()) {
+            LOG.warn("Missing TripDescriptor in gtfs-rt trip update: \n{}", tripUpdate);
+            return prepared.reject(TripUpdateMetrics.Rejection.MISSING_TRIP_DESCRIPTOR);
+        }
+
+        final TripDescriptor tripDescriptor = tripUpdate.getTrip();
+
+        if (tripDescriptor.hasStartDate()) {
+            try {
+                prepared.serviceDate = ServiceDate.parseString(tripDescriptor.getStartDate());
+            } catch (final ParseException e) {
+                LOG.warn("Failed to parse start date in gtfs-rt trip update: \n{}", tripUpdate);
+                return prepared.reject(TripUpdateMetrics.Rejection.INVALID_START_DATE);
+            }
+        } else {
+            // TODO: figure out the correct service date. For the special case that a trip
+            // starts for example at 40:00, yesterday would probably be a better guess.
+            prepared.serviceDate = new ServiceDate(Calendar.getInstance(timeZone));
+        }
+
+        // Determine what kind of trip update this is
+        prepared.scheduleRelationship = determineTripScheduleRelationship(tripUpdate);
+
+        if (prepared.scheduleRelationship == TripDescriptor.ScheduleRelationship.SCHEDULED) {
+            prepareScheduledTrip(prepared, feedId);
+        }
+        return prepared;
+    }
+
+    /**
+     * Apply a prepared trip update to the buffer.
+     *
+     * @return the reason the update is rejected, or {@code null} if it is applied.
+     */
+    private TripUpdateMetrics.Rejection applyTripUpdate(
+            final Graph graph,
+            final PreparedTripUpdate prepared,
+            final String feedId
+    ) {
+        final TripUpdate tripUpdate = prepared.tripUpdate;
+        final ServiceDate serviceDate = prepared.serviceDate;
+        switch (prepared.scheduleRelationship) {
+            case SCHEDULED:
+                return applyScheduledTrip(prepared, feedId);
+            case ADDED:
+                return validateAndHandleAddedTrip(graph, tripUpdate, feedId, serviceDate)
+                        ? null : TripUpdateMetrics.Rejection.ADDED_TRIP_NOT_APPLIED;
+            case UNSCHEDULED:
+                return handleUnscheduledTrip(tripUpdate, feedId, serviceDate)
+                        ? null : TripUpdateMetrics.Rejection.UNSCHEDULED_TRIP_NOT_APPLIED;
+            case CANCELED:
+                return handleCanceledTrip(tripUpdate, feedId, serviceDate)
+                        ? null : TripUpdateMetrics.Rejection.CANCELED_TRIP_NOT_APPLIED;
+            case MODIFIED:
+                return validateAndHandleModifiedTrip(graph, tripUpdate, feedId, serviceDate)
+                        ? null : TripUpdateMetrics.Rejection.MODIFIED_TRIP_NOT_APPLIED;
+            default:
+                return TripUpdateMetrics.Rejection.UNSUPPORTED_SCHEDULE_RELATIONSHIP;
+        }
+    }
+
     /**
      * Determine how the trip update should be handled.
      *
@@ -307,39 +454,64 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
         return tripScheduleRelationship;
     }
 
-    private boolean handleScheduledTrip(final TripUpdate tripUpdate, final String feedId, final ServiceDate serviceDate) {
-        final TripDescriptor tripDescriptor = tripUpdate.getTrip();
+    /** Find the pattern and create the updated trip times of a SCHEDULED trip. THREAD SAFE. */
+    private void prepareScheduledTrip(final PreparedTripUpdate prepared, final String feedId) {
+        final TripUpdate tripUpdate = prepared.tripUpdate;
         // This does not include Agency ID or feed ID, trips are feed-unique and we currently assume a single static feed.
-        final String tripId = tripDescriptor.getTripId();
+        final String tripId = tripUpdate.getTrip().getTripId();
         final TripPattern pattern = getPatternForTripId(feedId, tripId);
 
         if (pattern == null) {
             LOG.warn("No pattern found for tripId {}, skipping TripUpdate.", tripId);
-            return false;
+            prepared.reject(TripUpdateMetrics.Rejection.TRIP_NOT_FOUND);
+            return;
         }
 
         if (tripUpdate.getStopTimeUpdateCount() < 1) {
             LOG.warn("TripUpdate contains no updates, skipping.");
-            return false;
+            prepared.reject(TripUpdateMetrics.Rejection.NO_STOP_TIME_UPDATES);
+            return;
         }
+        prepared.pattern = pattern;
 
-        // If this trip_id has been used for previously ADDED/MODIFIED trip message (e.g. when the sequence of stops has
-        // changed, and is now changing back to the originally scheduled one) cancel that previously created trip.
-        cancelPreviouslyAddedTrip(new FeedScopedId(feedId, tripId), serviceDate);
-
-        // Apply update on the *scheduled* time table and set the updated trip times in the buffer
+        // Apply update on the *scheduled* time table
         final TripTimes updatedTripTimes = pattern.scheduledTimetable.createUpdatedTripTimes(tripUpdate,
-                timeZone, serviceDate);
+                timeZone, prepared.serviceDate);
 
         if (updatedTripTimes == null) {
-            return false;
+            prepared.reject(TripUpdateMetrics.Rejection.INVALID_STOP_TIME_UPDATES);
+            return;
         }
 
         // Make sure that updated trip times have the correct real time state
         updatedTripTimes.setRealTimeState(RealTimeState.UPDATED);
+        prepared.updatedTripTimes = updatedTripTimes;
+    }
 
-        final boolean success = buffer.update(pattern, updatedTripTimes, serviceDate);
-        return success;
+    private TripUpdateMetrics.Rejection applyScheduledTrip(
+            final PreparedTripUpdate prepared,
+            final String feedId
+    ) {
+        if (prepared.pattern == null) {
+            return prepared.rejection;
+        }
+
+        // If this trip_id has been used for previously ADDED/MODIFIED trip message (e.g. when the sequence of stops has
+        // changed, and is now changing back to the originally scheduled one) cancel that previously created trip.
+        final String tripId = prepared.tripUpdate.getTrip().getTripId();
+        cancelPreviouslyAddedTrip(new FeedScopedId(feedId, tripId), prepared.serviceDate);
+
+        if (prepared.updatedTripTimes == null) {
+            return prepared.rejection;
+        }
+
+        // Set the updated trip times in the buffer
+        final boolean success = buffer.update(
+                prepared.pattern,
+                prepared.updatedTripTimes,
+                prepared.serviceDate
+        );
+        return success ? null : TripUpdateMetrics.Rejection.NOT_APPLIED;
     }
 
     /**
@@ -756,6 +928,28 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
         return success;
     }
 
+    /**
+     * Revert a scheduled trip in the buffer to the scheduled trip times, used to undo a previous
+     * update of the trip without clearing the buffer.
+     *
+     * @param tripId trip id without agency id
+     * @param serviceDate service date
+     * @return true if the scheduled trip was reverted
+     */
+    private boolean revertScheduledTrip(String feedId, String tripId, final ServiceDate serviceDate) {
+        final TripPattern pattern = getPatternForTripId(feedId, tripId);
+        if (pattern == null) {
+            return false;
+        }
+        final Timetable timetable = pattern.scheduledTimetable;
+        final int tripIndex = timetable.getTripIndex(tripId);
+        if (tripIndex == -1) {
+            LOG.warn("Could not revert scheduled trip {}", tripId);
+            return false;
+        }
+        return buffer.update(pattern, new TripTimes(timetable.getTripTimes(tripIndex)), serviceDate);
+    }
+
     /**
      * Cancel previously added trip from buffer if there is a previously added trip with given trip
      * id (without agency id) on service date. This does not remove the modified/added trip from the buffer, it just
@@ -982,4 +1176,23 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
     private Stop getStopForStopId(String feedId, String stopId) {
         return routingService.getStopForId(new FeedScopedId(feedId, stopId));
     }
+
+    /** A trip update prepared for the buffer, see {@link #prepareTripUpdate(TripUpdate, String)}. */
+    private static class PreparedTripUpdate {
+        private final TripUpdate tripUpdate;
+        private ServiceDate serviceDate;
+        private TripDescriptor.ScheduleRelationship scheduleRelationship;
+        private TripPattern pattern;
+        private TripTimes updatedTripTimes;
+        private TripUpdateMetrics.Rejection rejection;
+
+        private PreparedTripUpdate(TripUpdate tripUpdate) {
+            this.tripUpdate = tripUpdate;
+        }
+
+        private PreparedTripUpdate reject(TripUpdateMetrics.Rejection rejection) {
+            this.rejection = rejection;
+            return this;
+        }
+    }
 }
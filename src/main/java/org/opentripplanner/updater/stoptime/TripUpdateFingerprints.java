@@ -0,0 +1,171 @@
+package org.opentripplanner.updater.stoptime;
+
+import com.google.common.hash.Hashing;
+import com.google.transit.realtime.GtfsRealtime.TripDescriptor;
+import com.google.transit.realtime.GtfsRealtime.TripUpdate;
+import org.opentripplanner.model.calendar.ServiceDate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keep a fingerprint of each trip update applied from a full dataset feed, so the next full
+ * dataset from the same feed can be compared with it. Only the trip updates that are new or
+ * changed since the previous dataset are applied again. The trips of trip updates that have
+ * changed or disappeared are first reverted to the schedule. The fingerprint is a 64 bit hash of
+ * the serialized trip update, the trip update timestamp included. The trip updates are
+ * identified by the {@link TripDescriptor} as given in the feed.
+ * <p>
+ * This class is not thread-safe, it is used by the {@link TimetableSnapshotSource} holding the
+ * buffer lock.
+ */
+class TripUpdateFingerprints {
+
+    /** The service date the fingerprints are made for, they are reset when the date changes. */
+    private ServiceDate today = null;
+
+    private Map<TripDescriptor, Entry> entries = new HashMap<>();
+
+    /**
+     * Compare the given full dataset with the previous one.
+     *
+     * @return the difference, or {@code null} if the dataset can not be applied as a difference
+     *         and must be applied in full.
+     */
+    Diff diff(List<TripUpdate> updates, ServiceDate today) {
+        if (!today.equals(this.today)) {
+            return null;
+        }
+        Diff diff = new Diff();
+        Map<TripDescriptor, Entry> remaining = new HashMap<>(entries);
+        Set<TripDescriptor> seen = new HashSet<>();
+        for (TripUpdate update : updates) {
+            if (update.hasTrip() && !seen.add(update.getTrip())) {
+                // The same trip is updated twice in the dataset, the order of the updates matters
+                return null;
+            }
+            Entry previous = update.hasTrip() ? remaining.remove(update.getTrip()) : null;
+            if (previous == null) {
+                diff.changed.add(update);
+            }
+            else if (previous.fingerprint == fingerprint(update)) {
+                diff.unchanged.add(update);
+            }
+            else if (previous.isRevertible()) {
+                diff.changed.add(update);
+                diff.reverted.add(previous);
+            }
+            else {
+                // Updates of added or modified trips are not applied on top of each other
+                return null;
+            }
+        }
+        for (Entry removed : remaining.values()) {
+            if (!removed.isRevertible()) {
+                return null;
+            }
+            diff.removed.add(removed);
+            diff.reverted.add(removed);
+        }
+        return diff;
+    }
+
+    /** Start a new set of fingerprints for a full dataset. */
+    void reset(ServiceDate today) {
+        this.today = today;
+        this.entries = new HashMap<>();
+    }
+
+    /**
+     * Remember a trip update, call this for every trip update applied or rejected.
+     *
+     * @param applied true if the update changed the buffer, false if it was rejected.
+     */
+    void add(
+            TripUpdate update,
+            boolean applied,
+            TripDescriptor.ScheduleRelationship scheduleRelationship,
+            String tripId,
+            ServiceDate serviceDate
+    ) {
+        if (update.hasTrip()) {
+            entries.put(
+                    update.getTrip(),
+                    new Entry(
+                            update.getTrip(),
+                            fingerprint(update),
+                            applied,
+                            scheduleRelationship,
+                            tripId,
+                            serviceDate
+                    )
+            );
+        }
+    }
+
+    /** Forget the given trip updates, they are reverted and not part of the new dataset. */
+    void remove(List<Entry> removed) {
+        for (Entry it : removed) {
+            entries.remove(it.key);
+        }
+    }
+
+    private static long fingerprint(TripUpdate update) {
+        return Hashing.murmur3_128().hashBytes(update.toByteArray()).asLong();
+    }
+
+    /** The difference between a full dataset and the previous one from the same feed. */
+    static class Diff {
+        final List<TripUpdate> changed = new ArrayList<>();
+        final List<TripUpdate> unchanged = new ArrayList<>();
+        final List<Entry> removed = new ArrayList<>();
+        /** The applied updates to revert, the previous updates of changed and removed trips. */
+        final List<Entry> reverted = new ArrayList<>();
+    }
+
+    /** The fingerprint of an applied trip update, and what is needed to revert it. */
+    static class Entry {
+        final TripDescriptor key;
+        final long fingerprint;
+        final boolean applied;
+        final TripDescriptor.ScheduleRelationship scheduleRelationship;
+        final String tripId;
+        final ServiceDate serviceDate;
+
+        private Entry(
+                TripDescriptor key,
+                long fingerprint,
+                boolean applied,
+                TripDescriptor.ScheduleRelationship scheduleRelationship,
+                String tripId,
+                ServiceDate serviceDate
+        ) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.applied = applied;
+            this.scheduleRelationship = scheduleRelationship;
+            this.tripId = tripId;
+            this.serviceDate = serviceDate;
+        }
+
+        /**
+         * Rejected updates have nothing to revert. Updates of scheduled trips can be reverted by
+         * restoring the scheduled trip times. Updates of trips not in the schedule, or not
+         * identified, require a full update.
+         */
+        boolean isRevertible() {
+            if (!applied) {
+                return true;
+            }
+            if (tripId == null || serviceDate == null || scheduleRelationship == null) {
+                return false;
+            }
+            return scheduleRelationship == TripDescriptor.ScheduleRelationship.SCHEDULED
+                    || scheduleRelationship == TripDescriptor.ScheduleRelationship.CANCELED;
+        }
+    }
+}
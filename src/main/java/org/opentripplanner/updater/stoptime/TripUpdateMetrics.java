@@ -0,0 +1,131 @@
+package org.opentripplanner.updater.stoptime;
+
+import org.opentripplanner.model.base.ToStringBuilder;
+import org.opentripplanner.util.monitoring.DurationMetrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for the GTFS-RT trip updates applied by the {@link TimetableSnapshotSource}. The
+ * counters are updated by the updater thread and may be read by any thread, a snapshot of the
+ * values is not guaranteed to be consistent. The metrics are logged by the snapshot source with
+ * the applied trip updates.
+ */
+public class TripUpdateMetrics {
+
+    /** The reason a trip update is not applied. */
+    public enum Rejection {
+        MISSING_TRIP_DESCRIPTOR,
+        INVALID_START_DATE,
+        TRIP_NOT_FOUND,
+        NO_STOP_TIME_UPDATES,
+        INVALID_STOP_TIME_UPDATES,
+        NOT_APPLIED,
+        ADDED_TRIP_NOT_APPLIED,
+        UNSCHEDULED_TRIP_NOT_APPLIED,
+        CANCELED_TRIP_NOT_APPLIED,
+        MODIFIED_TRIP_NOT_APPLIED,
+        UNSUPPORTED_SCHEDULE_RELATIONSHIP
+    }
+
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong skippedUnchanged = new AtomicLong();
+    private final AtomicLong reverted = new AtomicLong();
+    private final AtomicLong fullReapplies = new AtomicLong();
+    private final Map<Rejection, AtomicLong> rejected = new EnumMap<>(Rejection.class);
+    private final DurationMetrics messageTime = new DurationMetrics();
+
+    public TripUpdateMetrics() {
+        for (Rejection it : Rejection.values()) {
+            rejected.put(it, new AtomicLong());
+        }
+    }
+
+    /** The number of messages applied. */
+    public long messages() {
+        return messageTime.count();
+    }
+
+    /** The total number of trip updates received. */
+    public long updates() {
+        return updates.get();
+    }
+
+    /** The total number of trip updates applied. */
+    public long applied() {
+        return applied.get();
+    }
+
+    /** The total number of unchanged trip updates skipped in full datasets. */
+    public long skippedUnchanged() {
+        return skippedUnchanged.get();
+    }
+
+    /** The total number of trips reverted to the schedule before applying a changed dataset. */
+    public long reverted() {
+        return reverted.get();
+    }
+
+    /** The number of full datasets applied in full, with differential processing enabled. */
+    public long fullReapplies() {
+        return fullReapplies.get();
+    }
+
+    /** The total number of trip updates rejected for the given reason. */
+    public long rejected(Rejection reason) {
+        return rejected.get(reason).get();
+    }
+
+    /** The average number of trip updates processed per second. */
+    public long updatesPerSecond() {
+        long millis = messageTime.totalMillis();
+        return millis == 0 ? 0 : 1000 * updates.get() / millis;
+    }
+
+    /** The time used to apply the messages. */
+    public DurationMetrics messageTime() {
+        return messageTime;
+    }
+
+    @Override
+    public String toString() {
+        ToStringBuilder builder = ToStringBuilder.of(TripUpdateMetrics.class)
+                .addNum("updates", updates())
+                .addNum("applied", applied())
+                .addNum("skippedUnchanged", skippedUnchanged())
+                .addNum("reverted", reverted())
+                .addNum("fullReapplies", fullReapplies())
+                .addNum("updatesPerSecond", updatesPerSecond());
+        for (Rejection it : Rejection.values()) {
+            long n = rejected(it);
+            if (n > 0) {
+                builder.addNum(it.name(), n);
+            }
+        }
+        return builder.addObj("messageTime", messageTime).toString();
+    }
+
+    /* package local methods used by the snapshot source */
+
+    void message(int updates, int applied, long timeMillis) {
+        this.updates.addAndGet(updates);
+        this.applied.addAndGet(applied);
+        this.messageTime.record(timeMillis);
+    }
+
+    void differential(int skippedUnchanged, int reverted) {
+        this.skippedUnchanged.addAndGet(skippedUnchanged);
+        this.reverted.addAndGet(reverted);
+    }
+
+    void fullReapply() {
+        fullReapplies.incrementAndGet();
+    }
+
+    void reject(Rejection reason) {
+        rejected.get(reason).incrementAndGet();
+    }
+}
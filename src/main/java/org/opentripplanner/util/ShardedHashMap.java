@@ -0,0 +1,197 @@
+package org.opentripplanner.util;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+
+/**
+ * A hash map split into a fixed number of shards, made for a single writer publishing immutable
+ * snapshots to many readers. A {@link #snapshot()} shares all shards with this map, and the shards
+ * are copied the first time this map modifies them after the snapshot. The cost of a snapshot is
+ * proportional to the number of shards modified since the previous snapshot, not to the size of
+ * the map.
+ * <p>
+ * A map is either writable or a read-only snapshot. Neither is thread-safe to write, but a
+ * snapshot can be read by any number of threads once it is safely published.
+ */
+public final class ShardedHashMap<K, V> {
+
+    private static final int DEFAULT_NUMBER_OF_SHARDS = 256;
+
+    private final HashMap<K, V>[] shards;
+
+    /** The shards that are not shared with a snapshot, {@code null} if this map is read-only. */
+    private final boolean[] owned;
+
+    private int size;
+
+    private int copiedShards = 0;
+
+    public ShardedHashMap() {
+        this(DEFAULT_NUMBER_OF_SHARDS);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ShardedHashMap(int numberOfShards) {
+        this.shards = new HashMap[numberOfShards];
+        this.owned = new boolean[numberOfShards];
+        this.size = 0;
+    }
+
+    private ShardedHashMap(HashMap<K, V>[] shards, int size) {
+        this.shards = shards;
+        this.owned = null;
+        this.size = size;
+    }
+
+    public V get(Object key) {
+        HashMap<K, V> shard = shards[shardIndex(key)];
+        return shard == null ? null : shard.get(key);
+    }
+
+    public boolean containsKey(Object key) {
+        HashMap<K, V> shard = shards[shardIndex(key)];
+        return shard != null && shard.containsKey(key);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public V put(K key, V value) {
+        HashMap<K, V> shard = ownedShard(shardIndex(key));
+        int before = shard.size();
+        V old = shard.put(key, value);
+        size += shard.size() - before;
+        return old;
+    }
+
+    public V remove(Object key) {
+        int i = shardIndex(key);
+        if (shards[i] == null || !shards[i].containsKey(key)) {
+            checkWritable();
+            return null;
+        }
+        V old = ownedShard(i).remove(key);
+        --size;
+        return old;
+    }
+
+    /** Remove all entries matching the given predicate, only the affected shards are copied. */
+    public boolean removeIf(BiPredicate<? super K, ? super V> predicate) {
+        return replaceAll((k, v) -> predicate.test(k, v) ? null : v);
+    }
+
+    /**
+     * Replace each value with the result of the given function, or remove the entry if the
+     * function returns {@code null}. Only shards with a changed value are copied, a value is
+     * changed if the function returns another instance.
+     *
+     * @return true if any value was replaced or removed.
+     */
+    public boolean replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        checkWritable();
+        boolean modified = false;
+        List<Map.Entry<K, V>> changes = new ArrayList<>();
+        for (int i = 0; i < shards.length; ++i) {
+            if (shards[i] == null) {
+                continue;
+            }
+            for (Map.Entry<K, V> e : shards[i].entrySet()) {
+                V value = function.apply(e.getKey(), e.getValue());
+                if (value != e.getValue()) {
+                    changes.add(new AbstractMap.SimpleEntry<>(e.getKey(), value));
+                }
+            }
+            if (changes.isEmpty()) {
+                continue;
+            }
+            HashMap<K, V> shard = ownedShard(i);
+            for (Map.Entry<K, V> change : changes) {
+                if (change.getValue() == null) {
+                    shard.remove(change.getKey());
+                    --size;
+                }
+                else {
+                    shard.put(change.getKey(), change.getValue());
+                }
+            }
+            changes.clear();
+            modified = true;
+        }
+        return modified;
+    }
+
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (HashMap<K, V> shard : shards) {
+            if (shard != null) {
+                shard.forEach(action);
+            }
+        }
+    }
+
+    /**
+     * Create a read-only snapshot of this map. The snapshot shares the shards with this map, the
+     * next modification of a shard in this map copies it.
+     */
+    public ShardedHashMap<K, V> snapshot() {
+        checkWritable();
+        Arrays.fill(owned, false);
+        copiedShards = 0;
+        return new ShardedHashMap<>(shards.clone(), size);
+    }
+
+    /**
+     * The number of shards copied since the last snapshot, the number of shards the next
+     * snapshot does not share with the previous one.
+     */
+    public int copiedShards() {
+        return copiedShards;
+    }
+
+    public boolean isReadOnly() {
+        return owned == null;
+    }
+
+    @Override
+    public String toString() {
+        Map<K, V> all = new HashMap<>();
+        forEach(all::put);
+        return all.toString();
+    }
+
+    private HashMap<K, V> ownedShard(int i) {
+        checkWritable();
+        if (!owned[i]) {
+            if (shards[i] == null) {
+                shards[i] = new HashMap<>();
+            }
+            else {
+                shards[i] = new HashMap<>(shards[i]);
+                ++copiedShards;
+            }
+            owned[i] = true;
+        }
+        return shards[i];
+    }
+
+    private int shardIndex(Object key) {
+        return Math.floorMod(key == null ? 0 : key.hashCode(), shards.length);
+    }
+
+    private void checkWritable() {
+        if (owned == null) {
+            throw new UnsupportedOperationException("The map is a read-only snapshot.");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.opentripplanner.util.monitoring;
+
+import org.opentripplanner.model.base.ToStringBuilder;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Count an event and the time it takes. This is the common part of the request queue and realtime
+ * update metrics. The values are updated concurrently, a snapshot of the values is not guaranteed
+ * to be consistent.
+ */
+public class DurationMetrics {
+
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMillis = new AtomicLong();
+    private final AtomicLong maxMillis = new AtomicLong();
+    private volatile long lastMillis = 0;
+
+    /** The number of events recorded. */
+    public long count() {
+        return count.get();
+    }
+
+    /** The total time of the events recorded. */
+    public long totalMillis() {
+        return totalMillis.get();
+    }
+
+    /** The average time of the events recorded. */
+    public long avgMillis() {
+        long n = count.get();
+        return n == 0 ? 0 : totalMillis.get() / n;
+    }
+
+    /** The longest time of the events recorded. */
+    public long maxMillis() {
+        return maxMillis.get();
+    }
+
+    /** The time of the last event recorded. */
+    public long lastMillis() {
+        return lastMillis;
+    }
+
+    public void record(long timeMillis) {
+        count.incrementAndGet();
+        totalMillis.addAndGet(timeMillis);
+        maxMillis.accumulateAndGet(timeMillis, Math::max);
+        lastMillis = timeMillis;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.of(DurationMetrics.class)
+                .addNum("count", count())
+                .addNum("avgMillis", avgMillis())
+                .addNum("maxMillis", maxMillis())
+                .addNum("lastMillis", lastMillis())
+                .toString();
+    }
+}
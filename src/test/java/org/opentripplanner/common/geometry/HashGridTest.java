@@ -1,14 +1,22 @@
 package org.opentripplanner.common.geometry;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
 
 import junit.framework.TestCase;
 
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
 import org.locationtech.jts.index.SpatialIndex;
 import org.locationtech.jts.index.strtree.STRtree;
 
@@ -74,4 +82,201 @@ public class HashGridTest extends TestCase {
         }
 
     }
-}
\ No newline at end of file
+
+    /**
+     * Check the k nearest points found by the hash grid against the points found by computing
+     * the distance to all points, for random bin sizes, centers, radiuses and k.
+     */
+    public void testNearestRandom() {
+        final double X0 = -0.05;
+        final double Y0 = 44.0;
+        final double DX = 0.1;
+        final double DY = 0.1;
+        final int N_OBJS = 1000;
+        final int N_QUERIES = 1000;
+
+        Random rand = new Random(42);
+        HashGridSpatialIndex<Coordinate> hashGrid = new HashGridSpatialIndex<>(
+                0.001 + rand.nextDouble() * 0.01, 0.001 + rand.nextDouble() * 0.01
+        );
+        List<Coordinate> points = new ArrayList<>();
+        for (int i = 0; i < N_OBJS; i++) {
+            Coordinate p = new Coordinate(rand.nextDouble() * DX + X0, rand.nextDouble() * DY + Y0);
+            points.add(p);
+            hashGrid.insert(new Envelope(p), p);
+        }
+
+        for (int i = 0; i < N_QUERIES; i++) {
+            Coordinate center = new Coordinate(rand.nextDouble() * DX + X0, rand.nextDouble() * DY + Y0);
+            double radius = rand.nextDouble() * 0.05;
+            int k = 1 + rand.nextInt(20);
+            double xscale = Math.cos(center.y * Math.PI / 180);
+            ToDoubleFunction<Coordinate> distance = p -> Math.hypot((p.x - center.x) * xscale, p.y - center.y);
+
+            List<Double> expected = points.stream()
+                    .map(distance::applyAsDouble)
+                    .filter(d -> d <= radius)
+                    .sorted()
+                    .limit(k)
+                    .collect(Collectors.toList());
+            List<Double> actual = hashGrid.nearest(center, radius, k, distance).stream()
+                    .map(distance::applyAsDouble)
+                    .collect(Collectors.toList());
+            assertEquals(expected, actual);
+        }
+    }
+
+    /**
+     * Near the poles the bins are very narrow, the search must only visit the bins within the
+     * radius and still find the same points as computing the distance to all points.
+     */
+    public void testNearestNearThePole() {
+        final int N_OBJS = 1000;
+        final int N_QUERIES = 20;
+
+        Random rand = new Random(42);
+        HashGridSpatialIndex<Coordinate> hashGrid = new HashGridSpatialIndex<>();
+        List<Coordinate> points = new ArrayList<>();
+        for (int i = 0; i < N_OBJS; i++) {
+            Coordinate p = new Coordinate(rand.nextDouble() * 360 - 180, 89.9 + rand.nextDouble() * 0.1);
+            points.add(p);
+            hashGrid.insert(new Envelope(p), p);
+        }
+
+        for (int i = 0; i < N_QUERIES; i++) {
+            Coordinate center = new Coordinate(rand.nextDouble() * 360 - 180, 89.99 + rand.nextDouble() * 0.01);
+            double radius = rand.nextDouble() * 0.05;
+            int k = 1 + rand.nextInt(20);
+            double xscale = Math.cos(center.y * Math.PI / 180);
+            ToDoubleFunction<Coordinate> distance = p -> Math.hypot((p.x - center.x) * xscale, p.y - center.y);
+
+            List<Double> expected = points.stream()
+                    .map(distance::applyAsDouble)
+                    .filter(d -> d <= radius)
+                    .sorted()
+                    .limit(k)
+                    .collect(Collectors.toList());
+            List<Double> actual = hashGrid.nearest(center, radius, k, distance).stream()
+                    .map(distance::applyAsDouble)
+                    .collect(Collectors.toList());
+            assertEquals(expected, actual);
+        }
+    }
+
+    /**
+     * The visitor query must visit each object once, like the list query, also when the visitor
+     * runs a query on the same index, and when the same thread runs many queries.
+     */
+    public void testQueryVisitor() {
+        Random rand = new Random(42);
+        HashGridSpatialIndex<DummyObject> hashGrid = new HashGridSpatialIndex<>();
+        for (int i = 0; i < 1000; i++) {
+            Coordinate a = new Coordinate(rand.nextDouble() * 0.1, rand.nextDouble() * 0.1 + 44.0);
+            Coordinate b = new Coordinate(a.x + rand.nextDouble() * 0.02, a.y + rand.nextDouble() * 0.02);
+            DummyObject obj = new DummyObject();
+            obj.envelope = new Envelope(a, b);
+            hashGrid.insert(obj.envelope, obj);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            Coordinate a = new Coordinate(rand.nextDouble() * 0.1, rand.nextDouble() * 0.1 + 44.0);
+            Coordinate b = new Coordinate(rand.nextDouble() * 0.1, rand.nextDouble() * 0.1 + 44.0);
+            Envelope searchEnv = new Envelope(a, b);
+            List<Object> visited = new ArrayList<>();
+            List<Object> nestedVisited = new ArrayList<>();
+            hashGrid.query(searchEnv, item -> {
+                if (visited.isEmpty()) {
+                    hashGrid.query(searchEnv, nestedVisited::add);
+                }
+                visited.add(item);
+            });
+
+            Set<DummyObject> expected = new HashSet<>(hashGrid.query(searchEnv));
+            assertEquals(expected.size(), visited.size());
+            assertEquals(expected, new HashSet<>(visited));
+            assertEquals(expected.size(), nestedVisited.size());
+            assertEquals(expected, new HashSet<>(nestedVisited));
+        }
+    }
+
+    /**
+     * Insert and remove objects from several threads, and check that the index contains the
+     * objects that were not removed.
+     */
+    public void testConcurrentInsertAndRemove() throws Exception {
+        final int N_THREADS = 4;
+        final int N_OBJS = 2000;
+        HashGridSpatialIndex<DummyObject> hashGrid = new HashGridSpatialIndex<>();
+        List<DummyObject> kept = new ArrayList<>();
+
+        List<List<DummyObject>> objectsByThread = new ArrayList<>();
+        Random rand = new Random(42);
+        for (int t = 0; t < N_THREADS; t++) {
+            List<DummyObject> objects = new ArrayList<>();
+            for (int i = 0; i < N_OBJS; i++) {
+                Coordinate a = new Coordinate(rand.nextDouble() * 0.1, rand.nextDouble() * 0.1 + 44.0);
+                Coordinate b = new Coordinate(a.x + rand.nextDouble() * 0.01, a.y + rand.nextDouble() * 0.01);
+                DummyObject obj = new DummyObject();
+                obj.envelope = new Envelope(a, b);
+                objects.add(obj);
+                if (i % 2 == 0) {
+                    kept.add(obj);
+                }
+            }
+            objectsByThread.add(objects);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(N_THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<DummyObject> objects : objectsByThread) {
+                futures.add(executor.submit(() -> {
+                    for (DummyObject obj : objects) {
+                        hashGrid.insert(obj.envelope, obj);
+                    }
+                    for (int i = 1; i < objects.size(); i += 2) {
+                        assertTrue(hashGrid.remove(objects.get(i).envelope, objects.get(i)));
+                    }
+                }));
+            }
+            for (Future<?> it : futures) {
+                it.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Set<DummyObject> all = new HashSet<>(hashGrid.query(new Envelope(-1, 1, 43, 45)));
+        assertEquals(new HashSet<>(kept), all);
+    }
+
+    /** Check that inserting line strings at once puts them in the same bins as one at a time. */
+    public void testInsertAll() {
+        GeometryFactory gf = GeometryUtils.getGeometryFactory();
+        Random rand = new Random(42);
+        List<LineString> lines = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Coordinate a = new Coordinate(rand.nextDouble() * 0.1, rand.nextDouble() * 0.1 + 44.0);
+            Coordinate b = new Coordinate(a.x + rand.nextDouble() * 0.02, a.y - rand.nextDouble() * 0.02);
+            Coordinate c = new Coordinate(b.x + rand.nextDouble() * 0.02, b.y + rand.nextDouble() * 0.02);
+            lines.add(gf.createLineString(new Coordinate[] { a, b, c }));
+        }
+        HashGridSpatialIndex<LineString> oneAtATime = new HashGridSpatialIndex<>();
+        for (LineString line : lines) {
+            oneAtATime.insert(line, line);
+        }
+        HashGridSpatialIndex<LineString> atOnce = new HashGridSpatialIndex<>();
+        atOnce.insertAll(lines, line -> line);
+
+        assertEquals(oneAtATime.toString(), atOnce.toString());
+        for (int i = 0; i < 100; i++) {
+            Coordinate a = new Coordinate(rand.nextDouble() * 0.1, rand.nextDouble() * 0.1 + 44.0);
+            Coordinate b = new Coordinate(rand.nextDouble() * 0.1, rand.nextDouble() * 0.1 + 44.0);
+            Envelope searchEnv = new Envelope(a, b);
+            assertEquals(
+                    new HashSet<>(oneAtATime.query(searchEnv)),
+                    new HashSet<>(atOnce.query(searchEnv))
+            );
+        }
+    }
+}
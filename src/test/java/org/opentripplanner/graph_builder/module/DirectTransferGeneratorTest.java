@@ -0,0 +1,105 @@
+package org.opentripplanner.graph_builder.module;
+
+import com.google.common.collect.Iterables;
+import org.junit.Test;
+import org.opentripplanner.graph_builder.DataImportIssueStore;
+import org.opentripplanner.model.Agency;
+import org.opentripplanner.model.FeedScopedId;
+import org.opentripplanner.model.Route;
+import org.opentripplanner.model.SimpleTransfer;
+import org.opentripplanner.model.Stop;
+import org.opentripplanner.model.StopPattern;
+import org.opentripplanner.model.StopTime;
+import org.opentripplanner.model.TransitMode;
+import org.opentripplanner.model.TripPattern;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.vertextype.TransitStopVertex;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class DirectTransferGeneratorTest {
+
+    private static final double MAX_TRANSFER_DISTANCE = 1000;
+
+    /**
+     * The transfers must not depend on the number of threads searching for the nearby stops.
+     */
+    @Test
+    public void transfersAreTheSameWithOneAndManyThreads() {
+        Graph graph = FakeGraph.buildGraphNoTransit();
+        FakeGraph.addRegularStopGrid(graph);
+        FakeGraph.link(graph);
+        addRowPatterns(graph);
+        graph.index();
+
+        Map<String, List<String>> expected = transfers(graph, 1);
+        Map<String, List<String>> result = transfers(graph, 4);
+
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, result);
+    }
+
+    /**
+     * Add a trip pattern for each row of the stop grid, the transfers are only created to the
+     * closest stop of each pattern.
+     */
+    private static void addRowPatterns(Graph graph) {
+        Route route = new Route();
+        route.setId(new FeedScopedId("F", "R"));
+        route.setAgency(new Agency(new FeedScopedId("F", "A"), "Agency", "America/New_York"));
+        route.setMode(TransitMode.BUS);
+
+        Map<Double, List<Stop>> rows = new TreeMap<>();
+        for (TransitStopVertex v : Iterables.filter(graph.getVertices(), TransitStopVertex.class)) {
+            rows.computeIfAbsent(v.getLat(), lat -> new ArrayList<>()).add(v.getStop());
+        }
+
+        int patternIndex = 0;
+        for (List<Stop> row : rows.values()) {
+            row.sort(Comparator.comparingDouble(Stop::getLon));
+            List<StopTime> stopTimes = new ArrayList<>();
+            for (Stop stop : row) {
+                StopTime stopTime = new StopTime();
+                stopTime.setStop(stop);
+                stopTime.setStopSequence(stopTimes.size());
+                stopTimes.add(stopTime);
+            }
+            TripPattern pattern = new TripPattern(route, new StopPattern(stopTimes));
+            pattern.setId(new FeedScopedId("F", "P" + patternIndex++));
+            graph.tripPatternForId.put(pattern.getId(), pattern);
+        }
+    }
+
+    /** Generate the transfers, and return them as sorted strings by the from stop. */
+    private static Map<String, List<String>> transfers(Graph graph, int numberOfThreads) {
+        graph.transfersByStop.clear();
+        new DirectTransferGenerator(MAX_TRANSFER_DISTANCE, numberOfThreads)
+                .buildGraph(graph, new HashMap<>(), new DataImportIssueStore(false));
+
+        Map<String, List<String>> transfers = new TreeMap<>();
+        for (var it : graph.transfersByStop.asMap().entrySet()) {
+            transfers.put(
+                    it.getKey().getId().toString(),
+                    it.getValue().stream()
+                            .map(DirectTransferGeneratorTest::toString)
+                            .sorted()
+                            .collect(Collectors.toList())
+            );
+        }
+        return transfers;
+    }
+
+    private static String toString(SimpleTransfer transfer) {
+        return transfer.to.getId() + " " + transfer.getEffectiveWalkDistance()
+                + " " + transfer.getEdges().size();
+    }
+}
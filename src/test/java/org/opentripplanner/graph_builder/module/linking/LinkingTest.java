@@ -1,6 +1,7 @@
 package org.opentripplanner.graph_builder.module.linking;
 
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import org.junit.Test;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.GeometryFactory;
@@ -8,6 +9,8 @@ import org.locationtech.jts.geom.LineString;
 import org.opentripplanner.common.geometry.GeometryUtils;
 import org.opentripplanner.common.geometry.SphericalDistanceLibrary;
 import org.opentripplanner.common.model.P2;
+import org.opentripplanner.graph_builder.linking.SimpleStreetSplitter;
+import org.opentripplanner.model.Stop;
 import org.opentripplanner.routing.edgetype.StreetEdge;
 import org.opentripplanner.routing.edgetype.StreetTransitLink;
 import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
@@ -106,6 +109,136 @@ public class LinkingTest {
         }
     }
 
+    /**
+     * Test that the stops are linked to the same split vertices when the closest edges are found
+     * using several threads. Stops close to each other split the same edges.
+     */
+    @Test
+    public void testStopsLinkedIdenticallyInParallel () throws UnsupportedEncodingException {
+        Graph g1 = buildGraphNoTransit();
+        addExtraStops(g1);
+        addRegularStopGrid(g1);
+        SimpleStreetSplitter.createForTest(g1).link();
+
+        Graph g2 = buildGraphNoTransit();
+        addExtraStops(g2);
+        addRegularStopGrid(g2);
+        SimpleStreetSplitter linker = SimpleStreetSplitter.createForTest(g2);
+        linker.setNumberOfThreads(4);
+        linker.link();
+
+        assertEquals(g1.getVertices().size(), g2.getVertices().size());
+        assertEquals(g1.getEdges().size(), g2.getEdges().size());
+
+        for (TransitStopVertex ts : Iterables.filter(g1.getVertices(), TransitStopVertex.class)) {
+            List<StreetTransitLink> stls1 = outgoingStls(ts);
+            List<StreetTransitLink> stls2 = outgoingStls((TransitStopVertex) g2.getVertex(ts.getLabel()));
+
+            assertEquals("Unequal number of links from stop " + ts, stls1.size(), stls2.size());
+
+            for (int i = 0; i < stls1.size(); i++) {
+                Vertex v1 = stls1.get(i).getToVertex();
+                Vertex v2 = stls2.get(i).getToVertex();
+                assertEquals(v1.getLabel(), v2.getLabel());
+                assertEquals(v1.getLat(), v2.getLat(), 1e-10);
+                assertEquals(v1.getLon(), v2.getLon(), 1e-10);
+            }
+        }
+    }
+
+    /**
+     * Test that linking all the stops in a batch gives the same graph as linking the stops one at
+     * a time, in the same order. Stops close to each other split the same edges, so the later
+     * stops must be linked to the fragments of the edges split by the earlier ones.
+     */
+    @Test
+    public void testBatchLinkingIsTheSameAsLinkingOneAtATime () throws UnsupportedEncodingException {
+        Graph g1 = buildGraphNoTransit();
+        addExtraStops(g1);
+        addRegularStopGrid(g1);
+        SimpleStreetSplitter.createForTest(g1).link();
+
+        Graph g2 = buildGraphNoTransit();
+        addExtraStops(g2);
+        addRegularStopGrid(g2);
+        SimpleStreetSplitter linker = SimpleStreetSplitter.createForTest(g2);
+        for (TransitStopVertex ts : Iterables.filter(g2.getVertices(), TransitStopVertex.class)) {
+            assertTrue(linker.link(ts));
+        }
+
+        assertEquals(g2.getVertices().size(), g1.getVertices().size());
+        assertEquals(g2.getEdges().size(), g1.getEdges().size());
+
+        for (TransitStopVertex ts : Iterables.filter(g2.getVertices(), TransitStopVertex.class)) {
+            List<StreetTransitLink> expected = outgoingStls(ts);
+            List<StreetTransitLink> result = outgoingStls((TransitStopVertex) g1.getVertex(ts.getLabel()));
+
+            assertEquals("Unequal number of links from stop " + ts, expected.size(), result.size());
+
+            for (int i = 0; i < expected.size(); i++) {
+                Vertex v1 = expected.get(i).getToVertex();
+                Vertex v2 = result.get(i).getToVertex();
+                assertEquals(v1.getLat(), v2.getLat(), 1e-10);
+                assertEquals(v1.getLon(), v2.getLon(), 1e-10);
+            }
+        }
+    }
+
+    /**
+     * A stop between the two legs of a hairpin street is as close to both legs. Before the street
+     * is split it is linked to one of them, but once a stop at the bend has split the street the
+     * stop is linked to both fragments, also when linking a batch.
+     */
+    @Test
+    public void testBatchLinkingToEquallyCloseFragments () {
+        Graph g1 = hairpinGraph();
+        SimpleStreetSplitter.createForTest(g1).link();
+
+        Graph g2 = hairpinGraph();
+        SimpleStreetSplitter linker = SimpleStreetSplitter.createForTest(g2);
+        List<TransitStopVertex> stops = Lists.newArrayList(
+                Iterables.filter(g2.getVertices(), TransitStopVertex.class)
+        );
+        // The batch links the stops in the order of the graph vertices, the bend is split first
+        assertEquals("TEST:BEND", stops.get(0).getLabel());
+        for (TransitStopVertex ts : stops) {
+            assertTrue(linker.link(ts));
+        }
+
+        TransitStopVertex between = (TransitStopVertex) g2.getVertex("TEST:BETWEEN");
+        assertEquals(4, outgoingStls(between).size());
+
+        for (TransitStopVertex ts : stops) {
+            List<StreetTransitLink> expected = outgoingStls(ts);
+            List<StreetTransitLink> result = outgoingStls((TransitStopVertex) g1.getVertex(ts.getLabel()));
+            assertEquals("Unequal number of links from stop " + ts, expected.size(), result.size());
+        }
+    }
+
+    /** A street going east and then back west, 0.0002 degrees further north. */
+    private static Graph hairpinGraph () {
+        Graph graph = new Graph();
+        GeometryFactory gf = GeometryUtils.getGeometryFactory();
+        StreetVertex v0 = new IntersectionVertex(graph, "V0", 10.000, 60.0000);
+        StreetVertex v1 = new IntersectionVertex(graph, "V1", 10.000, 60.0002);
+        LineString geom = gf.createLineString(new Coordinate[] {
+                v0.getCoordinate(),
+                new Coordinate(10.010, 60.0000),
+                new Coordinate(10.010, 60.0002),
+                v1.getCoordinate()
+        });
+        double dist = 0;
+        for (int i = 1; i < geom.getNumPoints(); i++) {
+            dist += SphericalDistanceLibrary.distance(geom.getCoordinateN(i - 1), geom.getCoordinateN(i));
+        }
+        new StreetEdge(v0, v1, geom, "hairpin", dist, StreetTraversalPermission.ALL, false);
+        new StreetEdge(v1, v0, (LineString) geom.reverse(), "hairpin", dist, StreetTraversalPermission.ALL, true);
+
+        new TransitStopVertex(graph, Stop.stopForTest("BEND", 60.0001, 10.0102), null);
+        new TransitStopVertex(graph, Stop.stopForTest("BETWEEN", 60.0001, 10.005), null);
+        return graph;
+    }
+
     private static List<StreetTransitLink> outgoingStls (final TransitStopVertex tsv) {
         List<StreetTransitLink> stls = tsv.getOutgoing().stream()
                 .filter(StreetTransitLink.class::isInstance)
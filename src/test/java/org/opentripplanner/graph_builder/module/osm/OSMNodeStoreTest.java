@@ -0,0 +1,56 @@
+package org.opentripplanner.graph_builder.module.osm;
+
+import org.junit.Test;
+import org.opentripplanner.openstreetmap.model.OSMNode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class OSMNodeStoreTest {
+
+    @Test
+    public void packedCoordinatesAreExact() {
+        OSMNodeStore subject = new OSMNodeStore();
+        long[][] coordinates = {
+                { 523750447 * 100L, 168431974 * 100L },
+                { -899999999 * 100L, -1799999999 * 100L },
+                { 899999999 * 100L, 1799999999 * 100L },
+                { 0, 0 }
+        };
+        for (int i = 0; i < coordinates.length; ++i) {
+            subject.put(i, coordinates[i][0], coordinates[i][1]);
+        }
+        assertEquals(coordinates.length, subject.size());
+
+        for (int i = 0; i < coordinates.length; ++i) {
+            OSMNode node = subject.get(i);
+            assertEquals(i, node.getId());
+            assertEquals(coordinates[i][0] * .000000001, node.lat, 0.0);
+            assertEquals(coordinates[i][1] * .000000001, node.lon, 0.0);
+            assertEquals(node, subject.get(i));
+            assertNotSame(node, subject.get(i));
+        }
+    }
+
+    @Test
+    public void unpackableCoordinatesAndTaggedNodesAreObjects() {
+        OSMNodeStore subject = new OSMNodeStore();
+        subject.put(1, 523750447, 168431974);
+        assertEquals(523750447 * .000000001, subject.get(1).lat, 0.0);
+        assertSame(subject.get(1), subject.get(1));
+
+        OSMNode node = new OSMNode();
+        node.setId(2);
+        node.addTag("highway", "bus_stop");
+        subject.put(node);
+        assertSame(node, subject.get(2));
+
+        assertTrue(subject.containsKey(2));
+        assertFalse(subject.containsKey(3));
+        assertNull(subject.get(3));
+    }
+}
@@ -8,6 +8,8 @@ import java.net.URLDecoder;
 
 import gnu.trove.list.TLongList;
 import org.junit.Test;
+import org.opentripplanner.datastore.FileType;
+import org.opentripplanner.datastore.file.FileDataSource;
 import org.opentripplanner.graph_builder.DataImportIssueStore;
 import org.opentripplanner.openstreetmap.BinaryOpenStreetMapProvider;
 import org.opentripplanner.openstreetmap.model.OSMNode;
@@ -47,4 +49,31 @@ public class OpenStreetMapParserTest {
         assertEquals("Potlatch 0.9a", wayA.getTag("created_by"));
         assertEquals("secondary", wayA.getTag("highway"));
     }
+
+    @Test
+    public void testBinaryParserWithThreads() throws Exception {
+        File osmFile = new File(URLDecoder.decode(
+                getClass().getResource("map.osm.pbf").getPath(),
+                "UTF-8"
+        ));
+        OSMDatabase expected = new OSMDatabase(new DataImportIssueStore(false));
+        new BinaryOpenStreetMapProvider(osmFile).readOSM(expected);
+
+        OSMDatabase osmdb = new OSMDatabase(new DataImportIssueStore(false));
+        new BinaryOpenStreetMapProvider(new FileDataSource(osmFile, FileType.OSM), 4)
+                .readOSM(osmdb);
+
+        assertEquals(expected.nodeCount(), osmdb.nodeCount());
+        assertEquals(expected.wayCount(), osmdb.wayCount());
+        for (OSMWay way : expected.getWays()) {
+            for (long nodeId : way.getNodeRefs().toArray()) {
+                OSMNode a = expected.getNode(nodeId);
+                OSMNode b = osmdb.getNode(nodeId);
+                assertEquals(a, b);
+                assertEquals(a.lat, b.lat, 0.0);
+                assertEquals(a.lon, b.lon, 0.0);
+                assertEquals(a.getTags(), b.getTags());
+            }
+        }
+    }
 }
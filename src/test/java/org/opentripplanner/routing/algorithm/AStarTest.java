@@ -4,6 +4,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.locationtech.jts.geom.Coordinate;
 import org.opentripplanner.routing.algorithm.astar.AStar;
+import org.opentripplanner.routing.algorithm.astar.AStarSearchContext;
 import org.opentripplanner.routing.algorithm.astar.strategies.MultiTargetTerminationStrategy;
 import org.opentripplanner.routing.algorithm.astar.strategies.SearchTerminationStrategy;
 import org.opentripplanner.routing.api.request.RoutingRequest;
@@ -14,16 +15,25 @@ import org.opentripplanner.routing.graph.SimpleConcreteVertex;
 import org.opentripplanner.routing.graph.TemporaryConcreteEdge;
 import org.opentripplanner.routing.graph.Vertex;
 import org.opentripplanner.routing.location.TemporaryStreetLocation;
+import org.opentripplanner.routing.spt.ArrayShortestPathTree;
+import org.opentripplanner.routing.spt.DominanceFunction;
 import org.opentripplanner.routing.spt.GraphPath;
 import org.opentripplanner.routing.spt.ShortestPathTree;
+import org.opentripplanner.routing.spt.VertexStateArray;
 import org.opentripplanner.util.NonLocalizedString;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class AStarTest {
@@ -103,6 +113,105 @@ public class AStarTest {
         assertEquals("leary_20th", states.get(6).getVertex().getLabel());
     }
 
+    @Test
+    public void testForwardWithSearchContext() {
+        AStar aStar = new AStar();
+        aStar.setSearchContext(new AStarSearchContext());
+
+        // The first search fills the reused data structures
+        RoutingRequest first = new RoutingRequest();
+        first.walkSpeed = 1.0;
+        first.setRoutingContext(graph, graph.getVertex("shilshole_20th"), graph.getVertex("56th_20th"));
+        aStar.getShortestPathTree(first);
+
+        RoutingRequest options = new RoutingRequest();
+        options.walkSpeed = 1.0;
+        options.setRoutingContext(graph, graph.getVertex("56th_24th"), graph.getVertex("leary_20th"));
+        ShortestPathTree tree = aStar.getShortestPathTree(options);
+
+        GraphPath path = tree.getPath(graph.getVertex("leary_20th"), false);
+
+        assertEquals(7, path.states.size());
+        assertEquals("56th_24th", path.states.get(0).getVertex().getLabel());
+        assertEquals("leary_20th", path.states.get(6).getVertex().getLabel());
+        assertEquals(1, aStar.getPathsToTarget().size());
+    }
+
+    /**
+     * The array backed tree used with a search context must hold the same states as the map
+     * backed tree of a search without a context.
+     */
+    @Test
+    public void testArrayTreeHasTheSameStatesAsTheMapTree() {
+        RoutingRequest options = new RoutingRequest();
+        options.walkSpeed = 1.0;
+        options.setRoutingContext(graph, graph.getVertex("56th_24th"), graph.getVertex("shilshole_20th"));
+        ShortestPathTree expected = new AStar().getShortestPathTree(options);
+
+        AStar aStar = new AStar();
+        aStar.setSearchContext(new AStarSearchContext());
+        ShortestPathTree tree = aStar.getShortestPathTree(options);
+
+        assertFalse(expected instanceof ArrayShortestPathTree);
+        assertTrue(tree instanceof ArrayShortestPathTree);
+        assertEquals(expected.getAllStates().size(), tree.getAllStates().size());
+        assertEquals(stateWeights(expected), stateWeights(tree));
+
+        for (Vertex v : graph.getVertices()) {
+            State expectedState = expected.getState(v);
+            State state = tree.getState(v);
+            if (expectedState == null) {
+                assertNull(v.getLabel(), state);
+            }
+            else {
+                assertEquals(v.getLabel(), expectedState.weight, state.weight, 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testClearSearchContext() {
+        AStarSearchContext searchContext = new AStarSearchContext();
+        AStar aStar = new AStar();
+        aStar.setSearchContext(searchContext);
+
+        RoutingRequest options = new RoutingRequest();
+        options.walkSpeed = 1.0;
+        options.setRoutingContext(graph, graph.getVertex("56th_24th"), graph.getVertex("leary_20th"));
+        ShortestPathTree tree = aStar.getShortestPathTree(options);
+
+        assertFalse(tree.getAllStates().isEmpty());
+        assertEquals(1, aStar.getPathsToTarget().size());
+
+        searchContext.clear();
+
+        assertTrue(tree.getAllStates().isEmpty());
+        assertTrue(aStar.getPathsToTarget().isEmpty());
+    }
+
+    @Test
+    public void testSearchContextUsesTheTreeOfTheDominanceFunction() {
+        AStar aStar = new AStar();
+        aStar.setSearchContext(new AStarSearchContext());
+
+        RoutingRequest options = new RoutingRequest();
+        options.walkSpeed = 1.0;
+        options.dominanceFunction = new DominanceFunction.MinimumWeight() {
+            @Override
+            public ShortestPathTree getNewShortestPathTree(
+                    RoutingRequest routingRequest,
+                    VertexStateArray states
+            ) {
+                return new ShortestPathTree(routingRequest, this);
+            }
+        };
+        options.setRoutingContext(graph, graph.getVertex("56th_24th"), graph.getVertex("leary_20th"));
+        ShortestPathTree tree = aStar.getShortestPathTree(options);
+
+        assertFalse(tree instanceof ArrayShortestPathTree);
+        assertNotNull(tree.getPath(graph.getVertex("leary_20th"), false));
+    }
+
     @Test
     public void testBack() {
 
@@ -234,6 +343,15 @@ public class AStarTest {
      * Private Methods
      ****/
 
+    private static Map<String, List<Double>> stateWeights(ShortestPathTree tree) {
+        Map<String, List<Double>> weights = new TreeMap<>();
+        for (State s : tree.getAllStates()) {
+            weights.computeIfAbsent(s.getVertex().getLabel(), k -> new ArrayList<>()).add(s.weight);
+        }
+        weights.values().forEach(Collections::sort);
+        return weights;
+    }
+
     private SimpleConcreteVertex vertex(String label, double lat, double lon) {
         SimpleConcreteVertex v = new SimpleConcreteVertex(graph, label, lat, lon);
         return v;
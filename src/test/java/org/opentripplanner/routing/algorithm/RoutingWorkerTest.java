@@ -0,0 +1,122 @@
+package org.opentripplanner.routing.algorithm;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.LineString;
+import org.opentripplanner.common.geometry.GeometryUtils;
+import org.opentripplanner.common.geometry.SphericalDistanceLibrary;
+import org.opentripplanner.model.GenericLocation;
+import org.opentripplanner.model.TransitMode;
+import org.opentripplanner.model.plan.Itinerary;
+import org.opentripplanner.routing.api.request.RequestModes;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.api.response.RoutingErrorCode;
+import org.opentripplanner.routing.api.response.RoutingResponse;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.vertextype.IntersectionVertex;
+import org.opentripplanner.routing.vertextype.StreetVertex;
+import org.opentripplanner.standalone.config.RouterConfig;
+import org.opentripplanner.standalone.server.Router;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.opentripplanner.standalone.config.JsonSupport.jsonNodeForTest;
+
+/**
+ * Test the direct street search run in parallel with the transit routing. The graph has no transit
+ * service, so the transit routing fails with {@link RoutingErrorCode#OUTSIDE_SERVICE_PERIOD} and
+ * the response only contains the direct street itineraries.
+ */
+public class RoutingWorkerTest {
+
+    private final Graph graph = new Graph();
+
+    private Router sequentialRouter;
+
+    private Router parallelRouter;
+
+    @Before
+    public void setUp() {
+        StreetVertex a = new IntersectionVertex(graph, "A", 10.000, 60.000);
+        StreetVertex b = new IntersectionVertex(graph, "B", 10.010, 60.000);
+        StreetVertex c = new IntersectionVertex(graph, "C", 10.010, 60.010);
+        createStreetEdges(a, b);
+        createStreetEdges(b, c);
+        graph.index();
+
+        sequentialRouter = new Router(graph, RouterConfig.DEFAULT);
+        parallelRouter = new Router(graph, new RouterConfig(
+            jsonNodeForTest("{ streetRoutingThreadPoolSize : 2 }"), "Test", false
+        ));
+        assertNotNull(parallelRouter.streetRoutingThreadPool);
+    }
+
+    @After
+    public void tearDown() {
+        parallelRouter.streetRoutingThreadPool.shutdownNow();
+    }
+
+    @Test
+    public void parallelDirectStreetSearchFindsTheSameItinerariesAsTheSequentialSearch() {
+        RoutingResponse expected = route(sequentialRouter, request());
+        RoutingResponse result = route(parallelRouter, request());
+
+        List<Itinerary> expectedItineraries = expected.getTripPlan().itineraries;
+        List<Itinerary> itineraries = result.getTripPlan().itineraries;
+
+        assertFalse(expectedItineraries.isEmpty());
+        assertEquals(expectedItineraries.size(), itineraries.size());
+        for (int i = 0; i < expectedItineraries.size(); i++) {
+            assertEquals(expectedItineraries.get(i).durationSeconds, itineraries.get(i).durationSeconds);
+            assertEquals(expectedItineraries.get(i).legs.size(), itineraries.get(i).legs.size());
+            assertEquals(
+                expectedItineraries.get(i).nonTransitDistanceMeters,
+                itineraries.get(i).nonTransitDistanceMeters,
+                0.001
+            );
+        }
+
+        assertEquals(1, result.getRoutingErrors().size());
+        assertEquals(
+            RoutingErrorCode.OUTSIDE_SERVICE_PERIOD,
+            result.getRoutingErrors().get(0).code
+        );
+    }
+
+    private RoutingResponse route(Router router, RoutingRequest request) {
+        RoutingWorker worker = new RoutingWorker(router.raptorConfig, request);
+        return worker.route(router);
+    }
+
+    private static RoutingRequest request() {
+        RoutingRequest request = new RoutingRequest();
+        request.from = new GenericLocation(60.000, 10.005);
+        request.to = new GenericLocation(60.005, 10.010);
+        request.modes = new RequestModes(
+            StreetMode.WALK,
+            StreetMode.WALK,
+            StreetMode.WALK,
+            Set.of(TransitMode.BUS)
+        );
+        return request;
+    }
+
+    private static void createStreetEdges(StreetVertex v0, StreetVertex v1) {
+        LineString geom = GeometryUtils.getGeometryFactory().createLineString(
+            new Coordinate[] { v0.getCoordinate(), v1.getCoordinate() }
+        );
+        double dist = SphericalDistanceLibrary.distance(v0.getCoordinate(), v1.getCoordinate());
+        String name = v0.getLabel() + " - " + v1.getLabel();
+        new StreetEdge(v0, v1, geom, name, dist, StreetTraversalPermission.ALL, false);
+        new StreetEdge(v1, v0, (LineString) geom.reverse(), name, dist, StreetTraversalPermission.ALL, true);
+    }
+}
@@ -0,0 +1,53 @@
+package org.opentripplanner.routing.algorithm.astar;
+
+import org.junit.Test;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.SimpleConcreteVertex;
+import org.opentripplanner.routing.graph.Vertex;
+
+import static org.junit.Assert.assertEquals;
+
+public class AStarSearchContextTest {
+
+    private final Graph graph = new Graph();
+
+    /**
+     * Vertices added to the graph at runtime use the headroom of the shortest path tree array,
+     * the array is only replaced when the headroom is used up.
+     */
+    @Test
+    public void stateArrayIsOnlyReplacedWhenTheHeadroomIsUsedUp() {
+        addVertices(100);
+        AStarSearchContext context = new AStarSearchContext();
+        assertEquals(0, context.stateArraySize());
+
+        context.newShortestPathTree(request());
+        assertEquals(120, context.stateArraySize());
+
+        addVertices(20);
+        context.clear();
+        context.newShortestPathTree(request());
+        assertEquals(120, context.stateArraySize());
+
+        addVertices(1);
+        context.clear();
+        context.newShortestPathTree(request());
+        assertEquals(121 + 24, context.stateArraySize());
+    }
+
+    private RoutingRequest request() {
+        RoutingRequest request = new RoutingRequest();
+        Vertex from = graph.getVertex("V0");
+        Vertex to = graph.getVertex("V1");
+        request.setRoutingContext(graph, from, to);
+        return request;
+    }
+
+    private void addVertices(int n) {
+        int first = graph.getVertexIndexSize();
+        for (int i = first; i < first + n; i++) {
+            new SimpleConcreteVertex(graph, "V" + i, 47.0, -122.0 + i * 0.001);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.opentripplanner.routing.algorithm.raptor.router.street;
+
+import org.junit.Test;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.vertextype.IntersectionVertex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class AccessEgressCacheTest {
+
+    private static final int DISTANCE = 2000;
+
+    private final Graph graph = new Graph();
+    private final Set<Vertex> origin = Set.of(new IntersectionVertex(graph, "A", 10.0, 10.0));
+    private final Set<Vertex> otherOrigin = Set.of(new IntersectionVertex(graph, "B", 10.1, 10.1));
+    private final RoutingRequest request = new RoutingRequest();
+
+    private int searchCount = 0;
+
+    @Test
+    public void cacheHitForSameOriginAndParameters() {
+        AccessEgressCache subject = new AccessEgressCache(100);
+
+        search(subject, origin, StreetMode.WALK, request, 2);
+        List<AccessEgressPath> cached = search(subject, origin, StreetMode.WALK, request.clone(), 2);
+        assertEquals(1, searchCount);
+        assertEquals(2, cached.size());
+
+        // Different origin, mode and parameters are cached separately
+        search(subject, otherOrigin, StreetMode.WALK, request, 2);
+        search(subject, origin, StreetMode.BIKE, request, 2);
+        RoutingRequest fastWalk = request.clone();
+        fastWalk.walkSpeed = 2.0;
+        search(subject, origin, StreetMode.WALK, fastWalk, 2);
+
+        assertEquals(4, searchCount);
+        assertEquals(1, subject.hits());
+        assertEquals(4, subject.misses());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedWhenFull() {
+        AccessEgressCache subject = new AccessEgressCache(5);
+
+        search(subject, origin, StreetMode.WALK, request, 3);
+        search(subject, otherOrigin, StreetMode.WALK, request, 2);
+        // Use the first entry, so the second is the least recently used
+        search(subject, origin, StreetMode.WALK, request, 3);
+        search(subject, origin, StreetMode.BIKE, request, 2);
+
+        assertEquals(2, subject.size());
+        assertEquals(1, subject.evictions());
+
+        searchCount = 0;
+        search(subject, origin, StreetMode.WALK, request, 3);
+        assertEquals(0, searchCount);
+        search(subject, otherOrigin, StreetMode.WALK, request, 2);
+        assertEquals(1, searchCount);
+    }
+
+    @Test
+    public void invalidateBikeRental() {
+        AccessEgressCache subject = new AccessEgressCache(100);
+
+        search(subject, origin, StreetMode.WALK, request, 1);
+        search(subject, origin, StreetMode.BIKE_RENTAL, request, 1);
+
+        subject.invalidateBikeRental();
+        assertEquals(1, subject.size());
+
+        subject.clear();
+        assertEquals(0, subject.size());
+    }
+
+    private List<AccessEgressPath> search(
+            AccessEgressCache subject,
+            Set<Vertex> origin,
+            StreetMode mode,
+            RoutingRequest request,
+            int numberOfStops
+    ) {
+        AccessEgressCache.Key key = AccessEgressCache.key(origin, false, mode, DISTANCE, null, request);
+        List<AccessEgressPath> result = subject.get(key);
+        if (result != null) {
+            return result;
+        }
+        ++searchCount;
+        result = new ArrayList<>();
+        for (int i = 0; i < numberOfStops; ++i) {
+            result.add(new AccessEgressPath(i, origin.iterator().next(), new Edge[0], new TraverseMode[0]));
+        }
+        subject.put(key, result);
+        return result;
+    }
+}
@@ -0,0 +1,151 @@
+package org.opentripplanner.routing.algorithm.raptor.router.street;
+
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.LineString;
+import org.opentripplanner.common.geometry.GeometryUtils;
+import org.opentripplanner.model.Stop;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.StreetTransitLink;
+import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
+import org.opentripplanner.routing.edgetype.TemporaryFreeEdge;
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.location.TemporaryStreetLocation;
+import org.opentripplanner.routing.vertextype.IntersectionVertex;
+import org.opentripplanner.routing.vertextype.StreetVertex;
+import org.opentripplanner.routing.vertextype.TransitStopVertex;
+import org.opentripplanner.util.NonLocalizedString;
+
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class AccessEgressPathTest {
+
+    private static final int STOP_INDEX = 7;
+
+    private final Graph graph = new Graph();
+
+    // Origin -> A -> B -> S
+    private final IntersectionVertex a = new IntersectionVertex(graph, "A", 10.000, 60.000);
+    private final IntersectionVertex b = new IntersectionVertex(graph, "B", 10.001, 60.001);
+    private final TransitStopVertex s = new TransitStopVertex(
+            graph, Stop.stopForTest("S", 60.001, 10.0015), null
+    );
+
+    private final StreetEdge ab = streetEdge(a, b);
+    private final StreetEdge ba = streetEdge(b, a);
+    private final StreetTransitLink bs = new StreetTransitLink(b, s, true);
+    private final StreetTransitLink sb = new StreetTransitLink(s, b, true);
+
+    @Test
+    public void accessPathIsRebuiltWithTheTemporaryEdgesOfTheNewRequest() {
+        TemporaryStreetLocation origin1 = origin(false);
+        TemporaryFreeEdge e1 = new TemporaryFreeEdge(origin1, a);
+        RoutingRequest request1 = request(false, origin1);
+        State searchState = traverse(new State(origin1, request1), e1, ab, bs);
+
+        AccessEgressPath subject = AccessEgressPath.of(STOP_INDEX, searchState);
+        assertNotNull(subject);
+        assertEquals(STOP_INDEX, subject.stop());
+
+        // A new request create new temporary vertices and edges at the same place
+        TemporaryStreetLocation origin2 = origin(false);
+        TemporaryFreeEdge e2 = new TemporaryFreeEdge(origin2, a);
+        RoutingRequest request2 = request(false, origin2);
+
+        State result = subject.rebuild(request2, Set.of(origin2));
+
+        assertNotNull(result);
+        assertSame(s, result.getVertex());
+        assertEquals(searchState.getElapsedTimeSeconds(), result.getElapsedTimeSeconds());
+        assertEquals(searchState.getWeight(), result.getWeight(), 0.001);
+        assertSame(request2, result.getOptions());
+        assertSame(e2, firstEdge(result));
+    }
+
+    @Test
+    public void egressPathIsRebuiltInReverse() {
+        TemporaryStreetLocation target1 = origin(true);
+        TemporaryFreeEdge e1 = new TemporaryFreeEdge(a, target1);
+        RoutingRequest request1 = request(true, target1);
+        State searchState = traverse(new State(target1, request1), e1, ba, sb);
+
+        AccessEgressPath subject = AccessEgressPath.of(STOP_INDEX, searchState);
+        assertNotNull(subject);
+
+        TemporaryStreetLocation target2 = origin(true);
+        TemporaryFreeEdge e2 = new TemporaryFreeEdge(a, target2);
+        RoutingRequest request2 = request(true, target2);
+
+        State result = subject.rebuild(request2, Set.of(target2));
+
+        assertNotNull(result);
+        assertSame(s, result.getVertex());
+        assertEquals(searchState.getElapsedTimeSeconds(), result.getElapsedTimeSeconds());
+        assertSame(e2, firstEdge(result));
+    }
+
+    @Test
+    public void pathCanNotBeRebuiltWithoutTheTemporaryEdges() {
+        TemporaryStreetLocation origin1 = origin(false);
+        TemporaryFreeEdge e1 = new TemporaryFreeEdge(origin1, a);
+        State searchState = traverse(new State(origin1, request(false, origin1)), e1, ab, bs);
+        AccessEgressPath subject = AccessEgressPath.of(STOP_INDEX, searchState);
+
+        // The new origin is connected to B, not A
+        TemporaryStreetLocation origin2 = origin(false);
+        new TemporaryFreeEdge(origin2, b);
+
+        assertNull(subject.rebuild(request(false, origin2), Set.of(origin2)));
+    }
+
+    private TemporaryStreetLocation origin(boolean endVertex) {
+        return new TemporaryStreetLocation(
+                "Origin", new Coordinate(10.0, 60.0), new NonLocalizedString("Origin"), endVertex
+        );
+    }
+
+    private RoutingRequest request(boolean arriveBy, Vertex origin) {
+        RoutingRequest request = new RoutingRequest();
+        request.arriveBy = arriveBy;
+        if (arriveBy) {
+            request.setRoutingContext(graph, null, Set.of(origin));
+        }
+        else {
+            request.setRoutingContext(graph, Set.of(origin), null);
+        }
+        return request;
+    }
+
+    private static State traverse(State state, Edge... edges) {
+        for (Edge edge : edges) {
+            state = edge.traverse(state);
+            assertNotNull(state);
+        }
+        return state;
+    }
+
+    private static Edge firstEdge(State state) {
+        while (state.getBackState().getBackState() != null) {
+            state = state.getBackState();
+        }
+        return state.getBackEdge();
+    }
+
+    private static StreetEdge streetEdge(StreetVertex from, StreetVertex to) {
+        LineString geometry = GeometryUtils.getGeometryFactory().createLineString(
+                new Coordinate[] { from.getCoordinate(), to.getCoordinate() }
+        );
+        return new StreetEdge(
+                from, to, geometry, "street", 100, StreetTraversalPermission.ALL, false
+        );
+    }
+}
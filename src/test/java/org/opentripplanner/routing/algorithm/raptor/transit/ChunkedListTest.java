@@ -0,0 +1,72 @@
+package org.opentripplanner.routing.algorithm.raptor.transit;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ChunkedListTest {
+
+  private static final int N = 3 * ChunkedList.CHUNK_SIZE + 5;
+
+  @Test
+  public void copyOf() {
+    List<Integer> expected = range(N);
+    ChunkedList<Integer> subject = ChunkedList.copyOf(expected);
+
+    assertEquals(expected, subject);
+    assertSame(subject, ChunkedList.copyOf(subject));
+    assertEquals(List.of(), ChunkedList.copyOf(List.of()));
+  }
+
+  @Test
+  public void modifiedCopyDoesNotChangeTheOriginal() {
+    ChunkedList<Integer> original = ChunkedList.copyOf(range(N));
+
+    ChunkedList.Builder<Integer> builder = original.toBuilder()
+        .set(1, -1)
+        .set(2, -2)
+        .add(-3);
+    ChunkedList<Integer> copy = builder.build();
+
+    // Only the first and the last chunk is copied
+    assertEquals(2, builder.chunksCopied());
+    assertEquals(range(N), original);
+
+    List<Integer> expected = range(N);
+    expected.set(1, -1);
+    expected.set(2, -2);
+    expected.add(-3);
+    assertEquals(expected, copy);
+  }
+
+  @Test
+  public void addNewChunks() {
+    ChunkedList<Integer> original = ChunkedList.copyOf(range(ChunkedList.CHUNK_SIZE));
+    ChunkedList.Builder<Integer> builder = original.toBuilder();
+    for (int i = ChunkedList.CHUNK_SIZE; i < N; ++i) {
+      builder.add(i);
+    }
+    ChunkedList<Integer> copy = builder.build();
+
+    assertEquals(0, builder.chunksCopied());
+    assertEquals(range(ChunkedList.CHUNK_SIZE), original);
+    assertEquals(range(N), copy);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void getOutOfBounds() {
+    ChunkedList.copyOf(range(3)).get(3);
+  }
+
+  private static List<Integer> range(int n) {
+    List<Integer> list = new ArrayList<>();
+    for (int i = 0; i < n; ++i) {
+      list.add(i);
+    }
+    return list;
+  }
+}
@@ -0,0 +1,103 @@
+package org.opentripplanner.routing.algorithm.raptor.transit;
+
+import org.junit.Test;
+import org.opentripplanner.routing.trippattern.TripTimes;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class TransitLayerWindowTest {
+
+  private static final LocalDate TODAY = LocalDate.of(2020, 3, 1);
+  private static final ZoneId ZONE_ID = ZoneId.of("Europe/Oslo");
+
+  private final List<LocalDate> mappedDates = new ArrayList<>();
+
+  private final TripPatternForDateWindow window = new TripPatternForDateWindow(1, 2, 2, date -> {
+    mappedDates.add(date);
+    return List.of(tripPatternForDate(date));
+  });
+
+  @Test
+  public void datesOutsideTheWindowAreMappedOnDemand() {
+    TransitLayer subject = transitLayer(Map.of(TODAY, List.of(tripPatternForDate(TODAY))));
+    LocalDate date = TODAY.plusDays(10);
+
+    assertEquals(TODAY, subject.getTripPatternsForDate(TODAY).iterator().next().getLocalDate());
+    assertEquals(List.of(), mappedDates);
+
+    assertEquals(date, subject.getTripPatternsForDate(date).iterator().next().getLocalDate());
+    assertEquals(date, subject.getTripPatternsForDateCopy(date).get(0).getLocalDate());
+    assertEquals(List.of(date), mappedDates);
+    assertEquals(1, window.onDemandMisses());
+  }
+
+  @Test
+  public void onDemandDatesAreEvicted() {
+    LocalDate d1 = TODAY.plusDays(10);
+    LocalDate d2 = TODAY.plusDays(11);
+    LocalDate d3 = TODAY.plusDays(12);
+
+    List<TripPatternForDate> first = window.get(d1);
+    window.get(d2);
+    assertSame(first, window.get(d1));
+
+    // d2 is the least recently used date
+    window.get(d3);
+    window.get(d2);
+
+    assertEquals(List.of(d1, d2, d3, d2), mappedDates);
+  }
+
+  @Test
+  public void slideWindow() {
+    TransitLayer subject = transitLayer(Map.of(
+        TODAY.minusDays(1), List.of(tripPatternForDate(TODAY.minusDays(1))),
+        TODAY, List.of(tripPatternForDate(TODAY))
+    ));
+
+    List<LocalDate> removed = subject.slideWindow(TODAY.plusDays(1));
+
+    assertEquals(List.of(TODAY.minusDays(1)), removed);
+    assertEquals(List.of(TODAY.plusDays(1), TODAY.plusDays(2), TODAY.plusDays(3)), mappedDates);
+
+    mappedDates.clear();
+    subject.getTripPatternsForDate(TODAY.plusDays(3));
+    assertEquals(List.of(), mappedDates);
+  }
+
+  @Test
+  public void replaceTripPatternsForDateOutsideTheWindow() {
+    TransitLayer subject = transitLayer(Map.of());
+    LocalDate date = TODAY.plusDays(10);
+    List<TripPatternForDate> updated = List.of(tripPatternForDate(date));
+
+    subject.replaceTripPatternsForDate(date, updated);
+
+    assertSame(updated.get(0), subject.getTripPatternsForDate(date).iterator().next());
+    assertEquals(List.of(), mappedDates);
+  }
+
+  @Test
+  public void transitLayerWithoutWindow() {
+    TransitLayer subject = new TransitLayer(Map.of(), List.of(), null, ZONE_ID);
+
+    assertEquals(0, subject.getTripPatternsForDate(TODAY).size());
+    assertNull(subject.getTripPatternsForDateCopy(TODAY));
+  }
+
+  private TransitLayer transitLayer(Map<LocalDate, List<TripPatternForDate>> tripPatternsForDate) {
+    return new TransitLayer(tripPatternsForDate, List.of(), null, ZONE_ID, window);
+  }
+
+  private static TripPatternForDate tripPatternForDate(LocalDate date) {
+    return new TripPatternForDate(null, new TripTimes[0], date);
+  }
+}
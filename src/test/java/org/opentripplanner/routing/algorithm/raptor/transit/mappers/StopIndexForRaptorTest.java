@@ -66,6 +66,34 @@ public class StopIndexForRaptorTest {
         assertEquals("[6000, 360000, 6000, 2000, 0]", Arrays.toString(result));
     }
 
+    @Test public void localityAwareStopIndex() {
+        // Two clusters of stops, given in alternating order
+        Stop a1 = Stop.stopForTest("A1", 60.0, 10.0);
+        Stop b1 = Stop.stopForTest("B1", 61.0, 11.0);
+        Stop a2 = Stop.stopForTest("A2", 60.001, 10.001);
+        Stop b2 = Stop.stopForTest("B2", 61.001, 11.001);
+        List<Stop> stops = Arrays.asList(a1, b1, a2, b2);
+
+        StopIndexForRaptor stopIndex = new StopIndexForRaptor(
+                stops,
+                new TransitTuningParameters() {
+                    @Override public boolean enableStopTransferPriority() { return false; }
+                    @Override public Integer stopTransferCost(TransferPriority key) { return null; }
+                    @Override public boolean localityAwareStopIndex() { return true; }
+                }
+        );
+
+        int a1Index = stopIndex.indexByStop.get(a1);
+        int a2Index = stopIndex.indexByStop.get(a2);
+        int b1Index = stopIndex.indexByStop.get(b1);
+        int b2Index = stopIndex.indexByStop.get(b2);
+        assertEquals(1, Math.abs(a1Index - a2Index));
+        assertEquals(1, Math.abs(b1Index - b2Index));
+        for (Stop it : stops) {
+            assertEquals(it, stopIndex.stopsByIndex.get(stopIndex.indexByStop.get(it)));
+        }
+    }
+
     Station createStation(String name, TransferPriority pri) {
         return new Station(new FeedScopedId("F", name), name, null, null, null, null, null, pri);
     }
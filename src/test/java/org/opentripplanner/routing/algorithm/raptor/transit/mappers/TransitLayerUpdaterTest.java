@@ -0,0 +1,226 @@
+package org.opentripplanner.routing.algorithm.raptor.transit.mappers;
+
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+import org.junit.Before;
+import org.junit.Test;
+import org.opentripplanner.model.FeedScopedId;
+import org.opentripplanner.model.Route;
+import org.opentripplanner.model.Stop;
+import org.opentripplanner.model.StopPattern;
+import org.opentripplanner.model.StopTime;
+import org.opentripplanner.model.TimetableSnapshot;
+import org.opentripplanner.model.Trip;
+import org.opentripplanner.model.TripPattern;
+import org.opentripplanner.model.calendar.ServiceDate;
+import org.opentripplanner.routing.algorithm.raptor.transit.StopIndexForRaptor;
+import org.opentripplanner.routing.algorithm.raptor.transit.TransitLayer;
+import org.opentripplanner.routing.algorithm.raptor.transit.TransitTuningParameters;
+import org.opentripplanner.routing.algorithm.raptor.transit.TripPatternForDate;
+import org.opentripplanner.routing.algorithm.raptor.transit.TripPatternWithRaptorStopIndexes;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.trippattern.Deduplicator;
+import org.opentripplanner.routing.trippattern.TripTimes;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class TransitLayerUpdaterTest {
+
+    private static final int SERVICE_CODE = 0;
+
+    private static final ServiceDate DAY_1 = new ServiceDate(2020, 3, 1);
+    private static final ServiceDate DAY_2 = new ServiceDate(2020, 3, 2);
+
+    private final List<Stop> stops = List.of(
+            Stop.stopForTest("S0", 0.0, 0.0),
+            Stop.stopForTest("S1", 0.0, 0.0),
+            Stop.stopForTest("S2", 0.0, 0.0)
+    );
+
+    private final Route route = new Route();
+
+    private final PublishCountingGraph graph = new PublishCountingGraph();
+
+    private final TimetableSnapshot buffer = new TimetableSnapshot();
+
+    private TripPattern p1;
+    private TripPattern p2;
+    private TransitLayerUpdater subject;
+
+    @Before
+    public void setUp() {
+        route.setId(new FeedScopedId("F", "R"));
+        p1 = tripPattern("P1", 8 * 3600);
+        p2 = tripPattern("P2", 9 * 3600);
+
+        StopIndexForRaptor stopIndex = new StopIndexForRaptor(stops, TransitTuningParameters.FOR_TEST);
+        Map<LocalDate, List<TripPatternForDate>> tripPatternsForDate = new HashMap<>();
+        Map<ServiceDate, TIntSet> serviceCodesRunningForDate = new HashMap<>();
+        for (ServiceDate day : List.of(DAY_1, DAY_2)) {
+            LocalDate date = ServiceCalendarMapper.localDateFromServiceDate(day);
+            tripPatternsForDate.put(date, List.of(
+                    scheduled(stopIndex, p1, date),
+                    scheduled(stopIndex, p2, date)
+            ));
+            serviceCodesRunningForDate.put(day, new TIntHashSet(new int[] { SERVICE_CODE }));
+        }
+
+        graph.setRealtimeTransitLayer(
+                new TransitLayer(tripPatternsForDate, List.of(), stopIndex, ZoneId.of("UTC"))
+        );
+        graph.publishCount = 0;
+        subject = new TransitLayerUpdater(graph, serviceCodesRunningForDate);
+    }
+
+    @Test
+    public void updatedTripPatternReplacesTheScheduledTripPatternInPlace() {
+        TransitLayer before = graph.getRealtimeTransitLayer();
+
+        buffer.update(p2, delayed(p2, 300), DAY_1);
+        buffer.commit(subject, false);
+
+        TransitLayer after = graph.getRealtimeTransitLayer();
+        assertNotSame(before, after);
+        assertEquals(1, graph.publishCount);
+
+        List<TripPatternForDate> patterns = patternsForDate(after, DAY_1);
+        assertEquals(2, patterns.size());
+        assertSame(patternsForDate(before, DAY_1).get(0), patterns.get(0));
+        assertEquals(p2, patterns.get(1).getTripPattern().getPattern());
+        assertEquals(9 * 3600 + 300, patterns.get(1).getTripTimes(0).getDepartureTime(0));
+
+        // The other date and the previous transit layer are not changed
+        assertSame(patternsForDate(before, DAY_2), patternsForDate(after, DAY_2));
+        assertEquals(9 * 3600, patternsForDate(before, DAY_1).get(1).getTripTimes(0).getDepartureTime(0));
+
+        assertEquals(1, subject.getMetrics().commits());
+        assertEquals(1, subject.getMetrics().timetables());
+        assertEquals(1, subject.getMetrics().patternsReplaced());
+        assertEquals(0, subject.getMetrics().patternsAdded());
+    }
+
+    @Test
+    public void cachedPositionIsReusedByLaterUpdates() {
+        buffer.update(p2, delayed(p2, 300), DAY_1);
+        buffer.commit(subject, false);
+        buffer.update(p2, delayed(p2, 600), DAY_1);
+        buffer.commit(subject, false);
+
+        List<TripPatternForDate> patterns = patternsForDate(graph.getRealtimeTransitLayer(), DAY_1);
+        assertEquals(2, patterns.size());
+        assertEquals(p1, patterns.get(0).getTripPattern().getPattern());
+        assertEquals(p2, patterns.get(1).getTripPattern().getPattern());
+        assertEquals(9 * 3600 + 600, patterns.get(1).getTripTimes(0).getDepartureTime(0));
+        assertEquals(2, subject.getMetrics().patternsReplaced());
+    }
+
+    @Test
+    public void tripPatternCreatedByRealtimeUpdateIsAdded() {
+        TripPattern p3 = tripPattern("P3", 10 * 3600);
+
+        buffer.update(p3, p3.scheduledTimetable.getTripTimes(0), DAY_1);
+        buffer.commit(subject, false);
+        buffer.update(p3, delayed(p3, 60), DAY_1);
+        buffer.commit(subject, false);
+
+        List<TripPatternForDate> patterns = patternsForDate(graph.getRealtimeTransitLayer(), DAY_1);
+        assertEquals(3, patterns.size());
+        assertEquals(p3, patterns.get(2).getTripPattern().getPattern());
+        assertEquals(10 * 3600 + 60, patterns.get(2).getTripTimes(0).getDepartureTime(0));
+        assertEquals(1, subject.getMetrics().patternsAdded());
+        assertEquals(1, subject.getMetrics().patternsReplaced());
+    }
+
+    @Test
+    public void updatesForManyDatesArePublishedOncePerCommit() {
+        buffer.update(p1, delayed(p1, 120), DAY_1);
+        buffer.update(p2, delayed(p2, 300), DAY_1);
+        buffer.update(p1, delayed(p1, 180), DAY_2);
+        buffer.commit(subject, false);
+
+        assertEquals(1, graph.publishCount);
+
+        TransitLayer after = graph.getRealtimeTransitLayer();
+        assertEquals(8 * 3600 + 120, patternsForDate(after, DAY_1).get(0).getTripTimes(0).getDepartureTime(0));
+        assertEquals(9 * 3600 + 300, patternsForDate(after, DAY_1).get(1).getTripTimes(0).getDepartureTime(0));
+        assertEquals(8 * 3600 + 180, patternsForDate(after, DAY_2).get(0).getTripTimes(0).getDepartureTime(0));
+
+        assertEquals(1, subject.getMetrics().commits());
+        assertEquals(3, subject.getMetrics().timetables());
+        assertEquals(3, subject.getMetrics().patternsReplaced());
+    }
+
+    private static List<TripPatternForDate> patternsForDate(TransitLayer layer, ServiceDate day) {
+        return layer.getTripPatternsForDateOrNull(ServiceCalendarMapper.localDateFromServiceDate(day));
+    }
+
+    private static TripPatternForDate scheduled(
+            StopIndexForRaptor stopIndex,
+            TripPattern pattern,
+            LocalDate date
+    ) {
+        TripPatternWithRaptorStopIndexes raptorPattern = new TripPatternWithRaptorStopIndexes(
+                stopIndex.listStopIndexesForStops(pattern.stopPattern.stops),
+                pattern
+        );
+        return new TripPatternForDate(
+                raptorPattern,
+                pattern.scheduledTimetable.tripTimes.toArray(TripTimes[]::new),
+                date
+        );
+    }
+
+    /** A trip pattern with a single trip spending 10 minutes between stops. */
+    private TripPattern tripPattern(String id, int departureTime) {
+        Trip trip = new Trip();
+        trip.setId(new FeedScopedId("F", "T-" + id));
+        trip.setRoute(route);
+
+        List<StopTime> stopTimes = new ArrayList<>();
+        for (int i = 0; i < stops.size(); i++) {
+            StopTime stopTime = new StopTime();
+            stopTime.setStop(stops.get(i));
+            stopTime.setArrivalTime(departureTime + i * 600);
+            stopTime.setDepartureTime(departureTime + i * 600);
+            stopTime.setStopSequence(i);
+            stopTimes.add(stopTime);
+        }
+
+        TripPattern pattern = new TripPattern(route, new StopPattern(stopTimes));
+        pattern.setId(new FeedScopedId("F", id));
+        TripTimes tripTimes = new TripTimes(trip, stopTimes, new Deduplicator());
+        tripTimes.serviceCode = SERVICE_CODE;
+        pattern.add(tripTimes);
+        pattern.scheduledTimetable.finish();
+        return pattern;
+    }
+
+    private static TripTimes delayed(TripPattern pattern, int delay) {
+        TripTimes tripTimes = new TripTimes(pattern.scheduledTimetable.getTripTimes(0));
+        for (int i = 0; i < tripTimes.getNumStops(); i++) {
+            tripTimes.updateArrivalDelay(i, delay);
+            tripTimes.updateDepartureDelay(i, delay);
+        }
+        return tripTimes;
+    }
+
+    /** Count the number of times a new realtime transit layer is published. */
+    private static class PublishCountingGraph extends Graph {
+        private int publishCount = 0;
+
+        @Override
+        public void setRealtimeTransitLayer(TransitLayer realtimeTransitLayer) {
+            ++publishCount;
+            super.setRealtimeTransitLayer(realtimeTransitLayer);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.opentripplanner.routing.algorithm.raptor.transit.request;
+
+import org.junit.Test;
+import org.opentripplanner.model.FeedScopedId;
+
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ActiveTripPatternsTest {
+
+  private static final int N_STOPS = 5;
+
+  // Pattern 0: 0 -> 1 -> 2
+  private final TripPatternForDates p0 = pattern("P0", 0, 1, 2);
+  // Pattern 1: 2 -> 3 -> 2 (visit stop 2 twice)
+  private final TripPatternForDates p1 = pattern("P1", 2, 3, 2);
+  // Pattern 2: 3 -> 1
+  private final TripPatternForDates p2 = pattern("P2", 3, 1);
+
+  private final ActiveTripPatterns subject = new ActiveTripPatterns(List.of(p0, p1, p2), N_STOPS);
+
+  @Test
+  public void patternsByIndex() {
+    assertEquals(3, subject.numberOfPatterns());
+    assertSame(p0, subject.pattern(0));
+    assertSame(p1, subject.pattern(1));
+    assertSame(p2, subject.pattern(2));
+  }
+
+  @Test
+  public void patternIndexesForStop() {
+    assertArrayEquals(new int[] { 0 }, subject.patternIndexesForStop(0));
+    assertArrayEquals(new int[] { 0, 2 }, subject.patternIndexesForStop(1));
+    // Pattern 1 visit stop 2 twice, but is only listed once
+    assertArrayEquals(new int[] { 0, 1 }, subject.patternIndexesForStop(2));
+    assertArrayEquals(new int[] { 1, 2 }, subject.patternIndexesForStop(3));
+    assertArrayEquals(new int[] { }, subject.patternIndexesForStop(4));
+  }
+
+  private static TripPatternForDates pattern(String id, int ... stopIndexes) {
+    return new TripPatternForDates(
+        new TripPatternWithId(new FeedScopedId("F", id), stopIndexes, null),
+        List.of(),
+        List.of()
+    );
+  }
+}
@@ -0,0 +1,142 @@
+package org.opentripplanner.routing.algorithm.raptor.transit.request;
+
+import org.junit.Test;
+import org.opentripplanner.model.FeedScopedId;
+import org.opentripplanner.model.TransitMode;
+import org.opentripplanner.transit.raptor.api.transit.RaptorTransfer;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class RaptorRoutingRequestTransitDataCacheTest {
+
+  private static final LocalDate DATE = LocalDate.of(2020, 3, 1);
+  private static final Set<FeedScopedId> NO_BANNED_ROUTES = Set.of();
+
+  private final RaptorRoutingRequestTransitDataCache subject =
+      new RaptorRoutingRequestTransitDataCache(null);
+
+  @Test
+  public void tripPatternsAreSharedForEqualKeys() {
+    Set<TransitMode> modes = EnumSet.of(TransitMode.BUS, TransitMode.RAIL);
+
+    ActiveTripPatterns first = tripPatterns(DATE, modes, NO_BANNED_ROUTES);
+
+    // Same values, but different set instances
+    assertSame(first, tripPatterns(DATE, EnumSet.copyOf(modes), Set.of()));
+
+    assertNotSame(first, tripPatterns(DATE.plusDays(1), modes, NO_BANNED_ROUTES));
+    assertNotSame(first, tripPatterns(DATE, EnumSet.of(TransitMode.BUS), NO_BANNED_ROUTES));
+    assertNotSame(
+        first,
+        tripPatterns(DATE, modes, Set.of(new FeedScopedId("F", "R1")))
+    );
+  }
+
+  @Test
+  public void transfersAreSharedForWalkSpeedsInTheSameBucket() {
+    List<Double> walkSpeedsUsed = new ArrayList<>();
+
+    List<List<RaptorTransfer>> first = subject.transfers(1.333, s -> {
+      walkSpeedsUsed.add(s);
+      return new ArrayList<>();
+    });
+
+    assertSame(first, subject.transfers(1.3349, s -> new ArrayList<>()));
+    assertNotSame(first, subject.transfers(1.4, s -> new ArrayList<>()));
+
+    // The transfers are calculated using the rounded walk speed
+    assertEquals(List.of(1.33), walkSpeedsUsed);
+  }
+
+  @Test
+  public void clear() {
+    Set<TransitMode> modes = EnumSet.of(TransitMode.BUS);
+    ActiveTripPatterns first = tripPatterns(DATE, modes, NO_BANNED_ROUTES);
+
+    subject.clear();
+
+    assertNotSame(first, tripPatterns(DATE, modes, NO_BANNED_ROUTES));
+  }
+
+  @Test
+  public void leastRecentlyUsedEntryIsRemovedWhenFull() {
+    List<List<RaptorTransfer>> first = transfers(0.01);
+    List<List<RaptorTransfer>> second = transfers(0.02);
+    for (int i = 3; i <= 64; i++) {
+      transfers(i / 100.0);
+    }
+    // Use the first entry, so the second is the least recently used
+    assertSame(first, transfers(0.01));
+
+    transfers(0.65);
+
+    assertSame(first, transfers(0.01));
+    assertNotSame(second, transfers(0.02));
+  }
+
+  @Test(timeout = 10000)
+  public void otherKeysAreNotBlockedWhileAnEntryIsCreated() throws Exception {
+    CountDownLatch creating = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<List<List<RaptorTransfer>>> slow = executor.submit(() -> subject.transfers(1.0, s -> {
+        creating.countDown();
+        try {
+          release.await();
+        }
+        catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+        return new ArrayList<>();
+      }));
+      creating.await();
+
+      // Another key is created while the first is still being created
+      transfers(2.0);
+
+      release.countDown();
+      assertSame(slow.get(), transfers(1.0));
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void failedEntryIsNotCached() {
+    try {
+      subject.transfers(1.0, s -> { throw new IllegalStateException("Failed"); });
+    }
+    catch (IllegalStateException expected) { }
+
+    List<List<RaptorTransfer>> created = new ArrayList<>();
+    assertSame(created, subject.transfers(1.0, s -> created));
+  }
+
+  private List<List<RaptorTransfer>> transfers(double walkSpeed) {
+    return subject.transfers(walkSpeed, s -> new ArrayList<>());
+  }
+
+  private ActiveTripPatterns tripPatterns(
+      LocalDate date,
+      Set<TransitMode> modes,
+      Set<FeedScopedId> bannedRoutes
+  ) {
+    return subject.activeTripPatterns(
+        date, 1, 1, modes, bannedRoutes, () -> new ActiveTripPatterns(List.of(), 0)
+    );
+  }
+}
@@ -0,0 +1,91 @@
+package org.opentripplanner.routing.algorithm.raptor.transit.request;
+
+import org.junit.Test;
+import org.opentripplanner.model.FeedScopedId;
+import org.opentripplanner.routing.algorithm.raptor.transit.TripSchedule;
+import org.opentripplanner.transit.raptor.api.transit.RaptorRouteIterator;
+import org.opentripplanner.transit.raptor.util.BitSetIterator;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TripPatternForDatesIteratorTest {
+
+  private static final int N_STOPS = 6;
+
+  // Pattern 0: 0 -> 1 -> 2 -> 3
+  private final TripPatternForDates p0 = pattern("P0", 0, 1, 2, 3);
+  // Pattern 1: 2 -> 3 -> 2 (visit stop 2 twice)
+  private final TripPatternForDates p1 = pattern("P1", 2, 3, 2);
+  // Pattern 2: 3 -> 1
+  private final TripPatternForDates p2 = pattern("P2", 3, 1);
+  // Pattern 3: 4 -> 0
+  private final TripPatternForDates p3 = pattern("P3", 4, 0);
+
+  private final ActiveTripPatterns patterns = new ActiveTripPatterns(
+      List.of(p0, p1, p2, p3),
+      N_STOPS
+  );
+
+  @Test
+  public void patternsAreReturnedOnceInIndexOrder() {
+    RaptorRouteIterator<TripSchedule> it = iterator(3, 1);
+
+    assertTrue(it.hasNext());
+    assertSame(p0, it.next());
+    assertTrue(it.hasNext());
+    assertSame(p1, it.next());
+    assertTrue(it.hasNext());
+    assertSame(p2, it.next());
+    assertFalse(it.hasNext());
+  }
+
+  @Test
+  public void firstAndLastStopPositionVisited() {
+    RaptorRouteIterator<TripSchedule> it = iterator(1, 2);
+
+    // Pattern 0: 0 -> [1] -> [2] -> 3
+    assertSame(p0, it.next());
+    assertEquals(1, it.firstStopPositionVisited());
+    assertEquals(2, it.lastStopPositionVisited());
+
+    // Pattern 1: [2] -> 3 -> [2]
+    assertSame(p1, it.next());
+    assertEquals(0, it.firstStopPositionVisited());
+    assertEquals(2, it.lastStopPositionVisited());
+
+    // Pattern 2: 3 -> [1]
+    assertSame(p2, it.next());
+    assertEquals(1, it.firstStopPositionVisited());
+    assertEquals(1, it.lastStopPositionVisited());
+
+    assertFalse(it.hasNext());
+  }
+
+  @Test
+  public void noPatternsForStopsWithoutPatterns() {
+    assertFalse(iterator(5).hasNext());
+    assertFalse(iterator().hasNext());
+  }
+
+  private RaptorRouteIterator<TripSchedule> iterator(int ... stops) {
+    BitSet stopsTouched = new BitSet(N_STOPS);
+    for (int stop : stops) {
+      stopsTouched.set(stop);
+    }
+    return new TripPatternForDatesIterator(patterns, N_STOPS, new BitSetIterator(stopsTouched));
+  }
+
+  private static TripPatternForDates pattern(String id, int ... stopIndexes) {
+    return new TripPatternForDates(
+        new TripPatternWithId(new FeedScopedId("F", id), stopIndexes, null),
+        List.of(),
+        List.of()
+    );
+  }
+}
@@ -0,0 +1,176 @@
+package org.opentripplanner.routing.algorithm.raptor.transit.request;
+
+import org.junit.Test;
+import org.opentripplanner.model.FeedScopedId;
+import org.opentripplanner.model.Stop;
+import org.opentripplanner.model.StopTime;
+import org.opentripplanner.model.Trip;
+import org.opentripplanner.routing.algorithm.raptor.transit.TripPatternForDate;
+import org.opentripplanner.routing.algorithm.raptor.transit.TripPatternWithRaptorStopIndexes;
+import org.opentripplanner.routing.algorithm.raptor.transit.TripSchedule;
+import org.opentripplanner.routing.trippattern.Deduplicator;
+import org.opentripplanner.routing.trippattern.TripTimes;
+import org.opentripplanner.transit.raptor.api.transit.RaptorTimeTable;
+import org.opentripplanner.transit.raptor.rangeraptor.transit.TransitCalculator;
+import org.opentripplanner.transit.raptor.rangeraptor.transit.TripScheduleSearch;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class TripPatternForDatesTest {
+
+    private static final int N_STOPS = 3;
+
+    private static final LocalDate DAY_1 = LocalDate.of(2020, 2, 3);
+    private static final LocalDate DAY_2 = LocalDate.of(2020, 2, 4);
+
+    private static final int OFFSET_DAY_2 = 24 * 60 * 60;
+
+    private final TripPatternWithRaptorStopIndexes tripPattern = new TripPatternWithId(
+            new FeedScopedId("F", "P1"), new int[] { 0, 1, 2 }, null
+    );
+
+    private final TripTimes[] tripTimesDay1 = {
+            tripTimes("T1", 7 * 3600),
+            tripTimes("T2", 8 * 3600),
+            tripTimes("T3", 9 * 3600)
+    };
+
+    private final TripTimes[] tripTimesDay2 = {
+            tripTimes("T4", 3600),
+            tripTimes("T5", 7 * 3600)
+    };
+
+    private final TripPatternForDates subject = new TripPatternForDates(
+            tripPattern,
+            Arrays.asList(
+                    new TripPatternForDate(tripPattern, tripTimesDay1, DAY_1),
+                    new TripPatternForDate(tripPattern, tripTimesDay2, DAY_2)
+            ),
+            Arrays.asList(0, OFFSET_DAY_2)
+    );
+
+    /**
+     * The packed columns must hold the same times as the trip times of each day, with the day
+     * offset added.
+     */
+    @Test
+    public void packedTimesAreTheTripTimesWithOffset() {
+        assertEquals(5, subject.numberOfTripSchedules());
+
+        List<TripTimes> allTripTimes = new ArrayList<>(Arrays.asList(tripTimesDay1));
+        allTripTimes.addAll(Arrays.asList(tripTimesDay2));
+
+        for (int i = 0; i < subject.numberOfTripSchedules(); i++) {
+            TripScheduleWithOffset schedule = (TripScheduleWithOffset) subject.getTripSchedule(i);
+            TripTimes tripTimes = allTripTimes.get(i);
+            int offset = i < tripTimesDay1.length ? 0 : OFFSET_DAY_2;
+
+            assertSame(tripTimes, schedule.getOriginalTripTimes());
+            assertEquals(offset, schedule.getSecondsOffset());
+            assertEquals(i < tripTimesDay1.length ? DAY_1 : DAY_2, schedule.getServiceDate());
+
+            for (int stopPos = 0; stopPos < N_STOPS; stopPos++) {
+                int departure = tripTimes.getDepartureTime(stopPos) + offset;
+                int arrival = tripTimes.getArrivalTime(stopPos) + offset;
+                assertEquals(departure, subject.departure(i, stopPos));
+                assertEquals(arrival, subject.arrival(i, stopPos));
+                assertEquals(departure, schedule.departure(stopPos));
+                assertEquals(arrival, schedule.arrival(stopPos));
+            }
+        }
+    }
+
+    /**
+     * The board and alight searches must find the same trips in the packed time-table as in a
+     * time-table reading the times from the trip times of each day.
+     */
+    @Test
+    public void tripSearchFindsTheSameTripsAsTheTripTimes() {
+        RaptorTimeTable<TripSchedule> expected = new TripTimesTimeTable(subject);
+
+        for (boolean forward : new boolean[] { true, false }) {
+            TransitCalculator calculator = TransitCalculator.testDummyCalculator(forward);
+            TripScheduleSearch<TripSchedule> packedSearch = calculator.createTripSearch(subject);
+            TripScheduleSearch<TripSchedule> expectedSearch = calculator.createTripSearch(expected);
+
+            for (int stopPos = 0; stopPos < N_STOPS; stopPos++) {
+                for (int time = 0; time < 2 * OFFSET_DAY_2; time += 15 * 60) {
+                    String message = "forward: " + forward + ", stop: " + stopPos + ", time: " + time;
+                    boolean found = expectedSearch.search(time, stopPos);
+                    assertEquals(message, found, packedSearch.search(time, stopPos));
+                    if (found) {
+                        assertEquals(
+                                message,
+                                expectedSearch.getCandidateTripIndex(),
+                                packedSearch.getCandidateTripIndex()
+                        );
+                        assertEquals(
+                                message,
+                                expectedSearch.getCandidateTripTime(),
+                                packedSearch.getCandidateTripTime()
+                        );
+                    }
+                }
+            }
+        }
+    }
+
+    /** A trip that spends 10 minutes between stops and 1 minute at each stop. */
+    private static TripTimes tripTimes(String id, int firstArrival) {
+        Trip trip = new Trip();
+        trip.setId(new FeedScopedId("F", id));
+        List<StopTime> stopTimes = new ArrayList<>();
+        for (int i = 0; i < N_STOPS; i++) {
+            StopTime stopTime = new StopTime();
+            stopTime.setStop(Stop.stopForTest("S" + i, 0.0, 0.0));
+            stopTime.setArrivalTime(firstArrival + i * 11 * 60);
+            stopTime.setDepartureTime(firstArrival + i * 11 * 60 + 60);
+            stopTime.setStopSequence(i);
+            stopTimes.add(stopTime);
+        }
+        return new TripTimes(trip, stopTimes, new Deduplicator());
+    }
+
+    /**
+     * Read the times from the trip times and day offset of each trip schedule, like the
+     * time-table did before the times were packed.
+     */
+    private static class TripTimesTimeTable implements RaptorTimeTable<TripSchedule> {
+
+        private final TripPatternForDates delegate;
+
+        private TripTimesTimeTable(TripPatternForDates delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public TripSchedule getTripSchedule(int index) {
+            return delegate.getTripSchedule(index);
+        }
+
+        @Override
+        public int numberOfTripSchedules() {
+            return delegate.numberOfTripSchedules();
+        }
+
+        @Override
+        public int departure(int tripIndex, int stopPositionInPattern) {
+            TripScheduleWithOffset schedule = (TripScheduleWithOffset) getTripSchedule(tripIndex);
+            return schedule.getOriginalTripTimes().getDepartureTime(stopPositionInPattern)
+                    + schedule.getSecondsOffset();
+        }
+
+        @Override
+        public int arrival(int tripIndex, int stopPositionInPattern) {
+            TripScheduleWithOffset schedule = (TripScheduleWithOffset) getTripSchedule(tripIndex);
+            return schedule.getOriginalTripTimes().getArrivalTime(stopPositionInPattern)
+                    + schedule.getSecondsOffset();
+        }
+    }
+}
@@ -4,8 +4,10 @@ import org.junit.Test;
 import org.opentripplanner.model.FeedScopedId;
 import org.opentripplanner.model.GenericLocation;
 import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
 import java.util.List;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.opentripplanner.routing.core.TraverseMode.CAR;
@@ -36,6 +38,18 @@ public class RoutingRequestTest {
         assertTrue(request.streetSubRequestModes.getWalk());
     }
 
+    @Test
+    public void cloneCopiesTheMaxAccessEgressDistanceForMode() {
+        RoutingRequest request = new RoutingRequest();
+        request.maxAccessEgressDistanceForMode.put(StreetMode.BIKE, 5000);
+
+        RoutingRequest clone = request.clone();
+        clone.maxAccessEgressDistanceForMode.put(StreetMode.BIKE, 3000);
+
+        assertEquals(5000, request.getMaxAccessEgressDistanceMeters(StreetMode.BIKE));
+        assertEquals(3000, clone.getMaxAccessEgressDistanceMeters(StreetMode.BIKE));
+    }
+
     @Test
     public void testIntermediatePlaces() {
         RoutingRequest req = new RoutingRequest();
@@ -0,0 +1,78 @@
+package org.opentripplanner.routing.core;
+
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.opentripplanner.routing.edgetype.FreeEdge;
+import org.opentripplanner.routing.edgetype.TemporaryFreeEdge;
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.location.TemporaryStreetLocation;
+import org.opentripplanner.routing.vertextype.IntersectionVertex;
+import org.opentripplanner.util.NonLocalizedString;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class TemporaryGraphOverlayTest {
+
+    private final Graph graph = new Graph();
+
+    // Given a very simple graph: A -> B
+    private final Vertex a = new IntersectionVertex(graph, "A", 0, 0);
+    private final Vertex b = new IntersectionVertex(graph, "B", 1, 0);
+    private final Edge ab = new FreeEdge(a, b);
+
+    @Test
+    public void temporaryEdgesAreNotAddedToPermanentVertices() {
+        TemporaryStreetLocation origin = location("origin", false);
+        TemporaryStreetLocation destination = location("destination", true);
+        Edge originA = new TemporaryFreeEdge(origin, a);
+        Edge bDestination = new TemporaryFreeEdge(b, destination);
+
+        assertEquals(Collections.singletonList(originA), origin.getOutgoing());
+        assertEquals(Collections.singletonList(bDestination), destination.getIncoming());
+        assertEquals(Collections.emptyList(), a.getIncoming());
+        assertEquals(Collections.emptyList(), b.getOutgoing());
+    }
+
+    @Test
+    public void overlayAddsTemporaryEdgesOfTheRequest() {
+        TemporaryStreetLocation origin = location("origin", false);
+        TemporaryStreetLocation destination = location("destination", true);
+        Edge originA = new TemporaryFreeEdge(origin, a);
+        Edge bDestination = new TemporaryFreeEdge(b, destination);
+
+        // The edges of another request are not visible
+        new TemporaryFreeEdge(b, location("other", true));
+
+        TemporaryGraphOverlay subject = TemporaryGraphOverlay.of(
+                Collections.singleton(origin), Collections.singleton(destination)
+        );
+
+        assertEquals(Collections.singletonList(originA), subject.getIncoming(a));
+        assertEquals(Collections.singletonList(ab), subject.getOutgoing(a));
+        assertEquals(Collections.singletonList(bDestination), subject.getOutgoing(b));
+        assertEquals(Collections.singletonList(ab), subject.getIncoming(b));
+        assertEquals(Collections.singletonList(originA), subject.getOutgoing(origin));
+    }
+
+    @Test
+    public void edgesAddedLaterAreIncluded() {
+        TemporaryGraphOverlay subject = TemporaryGraphOverlay.of(Collections.emptySet());
+        Edge destinationEdge = new TemporaryFreeEdge(a, location("destination", true));
+
+        subject.add(destinationEdge);
+
+        assertEquals(Arrays.asList(ab, destinationEdge), subject.getOutgoing(a));
+        assertEquals(Collections.emptyList(), subject.getIncoming(a));
+    }
+
+    private static TemporaryStreetLocation location(String id, boolean endVertex) {
+        return new TemporaryStreetLocation(
+                id, new Coordinate(0.5, 0), new NonLocalizedString(id), endVertex
+        );
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.Test;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.LineString;
 import org.opentripplanner.common.TurnRestriction;
+import org.opentripplanner.common.TurnRestrictionType;
 import org.opentripplanner.common.geometry.GeometryUtils;
 import org.opentripplanner.routing.api.request.RoutingRequest;
 import org.opentripplanner.routing.core.State;
@@ -254,6 +255,24 @@ public class PlainStreetEdgeTest {
         assertNotNull(e0.traverse(e1.traverse(state)));
     }
 
+    @Test
+    public void testTurnRestrictionFlag() {
+        StreetEdge e0 = edge(v0, v1, 50.0, StreetTraversalPermission.ALL);
+        StreetEdge e1 = edge(v1, v2, 18.4, StreetTraversalPermission.ALL);
+        TurnRestriction restriction = new TurnRestriction(
+                e0, e1, TurnRestrictionType.NO_TURN, TraverseModeSet.allModes()
+        );
+        assertFalse(e0.hasTurnRestrictions());
+
+        graph.addTurnRestriction(e0, restriction);
+        assertTrue(e0.hasTurnRestrictions());
+        assertFalse(e1.hasTurnRestrictions());
+        assertFalse(e0.canTurnOnto(e1, new State(v1, 0, proto.clone()), TraverseMode.CAR));
+
+        graph.removeTurnRestriction(e0, restriction);
+        assertFalse(e0.hasTurnRestrictions());
+    }
+
     /****
      * Private Methods
      ****/
@@ -0,0 +1,117 @@
+package org.opentripplanner.routing.graph;
+
+import org.junit.Test;
+import org.opentripplanner.routing.edgetype.FreeEdge;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
+import org.opentripplanner.routing.vertextype.IntersectionVertex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EdgeAdjacencyTest {
+
+    private final Graph graph = new Graph();
+    private final IntersectionVertex a = new IntersectionVertex(graph, "A", 0, 0);
+    private final IntersectionVertex b = new IntersectionVertex(graph, "B", 1, 0);
+    private final IntersectionVertex c = new IntersectionVertex(graph, "C", 2, 0);
+    private final Edge ab = new StreetEdge(
+            a, b, null, "AB", 12.3456, StreetTraversalPermission.PEDESTRIAN, false
+    );
+    private final Edge ac = new FreeEdge(a, c);
+    private final Edge bc = new StreetEdge(
+            b, c, null, "BC", 20, StreetTraversalPermission.BICYCLE_AND_CAR, false
+    );
+
+    @Test
+    public void vertexEdgesAreReadFromTheAdjacency() {
+        List<Edge> outgoing = new ArrayList<>(a.getOutgoing());
+        List<Edge> incoming = new ArrayList<>(c.getIncoming());
+
+        EdgeAdjacency subject = build();
+
+        for (Vertex v : graph.getVertices()) {
+            assertTrue(subject.contains(v));
+        }
+        assertEquals(outgoing, a.getOutgoing());
+        assertEquals(incoming, c.getIncoming());
+        assertEquals(Arrays.asList(ab, ac), a.getOutgoing());
+        assertEquals(Arrays.asList(ac, bc), c.getIncoming());
+        assertEquals(2, a.getDegreeOut());
+        assertEquals(0, a.getDegreeIn());
+        assertEquals(3, subject.edgeCount());
+    }
+
+    @Test
+    public void edgeIdsAndAttributes() {
+        EdgeAdjacency subject = build();
+
+        assertEquals(Arrays.asList(ab, ac), outgoing(subject, a));
+        assertEquals(Arrays.asList(ab), incoming(subject, b));
+        assertEquals(Arrays.asList(ac, bc), incoming(subject, c));
+
+        int abId = subject.outgoingStart(a.getIndex());
+        int bcId = subject.outgoingStart(b.getIndex());
+        assertEquals(b.getIndex(), subject.toVertex(abId));
+        assertEquals(ab.getDistanceMeters(), subject.distanceMeters(abId), 0.0);
+        assertEquals(20.0, subject.distanceMeters(bcId), 0.0);
+
+        int walk = StreetTraversalPermission.PEDESTRIAN.code;
+        int car = StreetTraversalPermission.CAR.code;
+        assertTrue(subject.allows(abId, walk));
+        assertFalse(subject.allows(abId, car));
+        assertFalse(subject.allows(bcId, walk));
+        assertTrue(subject.allows(bcId, car));
+        // Edges that are not streets allow all modes
+        assertTrue(subject.allows(abId + 1, walk));
+        assertTrue(subject.allows(abId + 1, car));
+    }
+
+    @Test
+    public void modifiedVerticesLeaveTheAdjacency() {
+        EdgeAdjacency subject = build();
+        Vertex d = new IntersectionVertex(graph, "D", 3, 0);
+        Edge cd = new FreeEdge(c, d);
+
+        assertFalse(subject.contains(c));
+        assertFalse(subject.contains(d));
+        assertTrue(subject.contains(a));
+        assertEquals(Arrays.asList(cd), c.getOutgoing());
+        assertEquals(Arrays.asList(ac, bc), c.getIncoming());
+
+        graph.removeEdge(ab);
+        assertFalse(subject.contains(a));
+        assertEquals(Arrays.asList(ac), a.getOutgoing());
+        assertEquals(Arrays.asList(), b.getIncoming());
+
+        EdgeAdjacency rebuilt = build();
+        assertTrue(rebuilt.contains(c));
+        assertTrue(rebuilt.contains(a));
+        assertEquals(Arrays.asList(ac), a.getOutgoing());
+    }
+
+    private EdgeAdjacency build() {
+        return EdgeAdjacency.build(graph.getVertices(), graph.getVertexIndexSize());
+    }
+
+    private static List<Edge> outgoing(EdgeAdjacency subject, Vertex v) {
+        List<Edge> edges = new ArrayList<>();
+        for (int e = subject.outgoingStart(v.getIndex()); e < subject.outgoingEnd(v.getIndex()); e++) {
+            edges.add(subject.edge(e));
+        }
+        return edges;
+    }
+
+    private static List<Edge> incoming(EdgeAdjacency subject, Vertex v) {
+        List<Edge> edges = new ArrayList<>();
+        for (int i = subject.incomingStart(v.getIndex()); i < subject.incomingEnd(v.getIndex()); i++) {
+            edges.add(subject.edge(subject.incomingEdgeId(i)));
+        }
+        return edges;
+    }
+}
@@ -0,0 +1,201 @@
+package org.opentripplanner.routing.graph.mapped;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.opentripplanner.common.TurnRestriction;
+import org.opentripplanner.common.TurnRestrictionType;
+import org.opentripplanner.datastore.DataSource;
+import org.opentripplanner.datastore.FileType;
+import org.opentripplanner.datastore.file.FileDataSource;
+import org.opentripplanner.model.SimpleTransfer;
+import org.opentripplanner.model.Stop;
+import org.opentripplanner.model.StopLocation;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.core.TraverseModeSet;
+import org.opentripplanner.routing.edgetype.FreeEdge;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.SerializedGraphObject;
+import org.opentripplanner.routing.vertextype.IntersectionVertex;
+import org.opentripplanner.standalone.config.BuildConfig;
+import org.opentripplanner.standalone.config.RouterConfig;
+import org.opentripplanner.util.OtpAppException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GraphFileTest {
+
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Graph graph = new Graph();
+    private final IntersectionVertex a = new IntersectionVertex(graph, "A", 10.0, 60.0);
+    private final IntersectionVertex b = new IntersectionVertex(graph, "B", 10.001, 60.001);
+    private final Stop s1 = Stop.stopForTest("S1", 60.0, 10.0);
+    private final Stop s2 = Stop.stopForTest("S2", 60.001, 10.001);
+
+    @Test
+    public void streetEdgesAndTransfersAreRestored() throws Exception {
+        // Leave a gap in the vertex indexes
+        graph.remove(new IntersectionVertex(graph, "X", 0, 0));
+        IntersectionVertex c = new IntersectionVertex(graph, "C", 10.002, 60.0);
+
+        StreetEdge ab = new StreetEdge(
+            a, b,
+            lineString(a.getCoordinate(), new Coordinate(10.0005, 60.0002), b.getCoordinate()),
+            "Øvre gate", 120.5, StreetTraversalPermission.PEDESTRIAN_AND_BICYCLE, false
+        );
+        ab.setStairs(true);
+        ab.setCarSpeed(5.5f);
+        ab.setBicycleSafetyFactor(1.5f);
+        ab.setStreetClass(StreetEdge.CLASS_STREET);
+        ab.wayId = 42;
+        StreetEdge ba = new StreetEdge(
+            b, a,
+            lineString(b.getCoordinate(), new Coordinate(10.0005, 60.0002), a.getCoordinate()),
+            "Øvre gate", 120.5, StreetTraversalPermission.ALL, true
+        );
+        ba.shareData(ab);
+        Edge bc = new FreeEdge(b, c);
+        graph.addTurnRestriction(
+            ab,
+            new TurnRestriction(ab, bc, TurnRestrictionType.NO_TURN, new TraverseModeSet(TraverseMode.WALK))
+        );
+        graph.transfersByStop.put(s1, new SimpleTransfer(s1, s2, 130.5, Arrays.asList(ab, bc)));
+        graph.transfersByStop.put(s2, new SimpleTransfer(s2, s1, 140.0, null));
+
+        Graph copy = saveAndLoad(null);
+
+        StreetEdge ab2 = (StreetEdge) single(copy.getVertex("A").getOutgoing());
+        StreetEdge ba2 = (StreetEdge) single(copy.getVertex("A").getIncoming());
+        Edge bc2 = single(copy.getVertex("C").getIncoming());
+        assertSame(copy.getVertex("B"), ab2.getToVertex());
+        assertEquals("Øvre gate", ab2.getName());
+        assertEquals(120.5, ab2.getDistanceMeters(), 0.0);
+        assertEquals(StreetTraversalPermission.PEDESTRIAN_AND_BICYCLE, ab2.getPermission());
+        assertEquals(StreetEdge.CLASS_STREET, ab2.getStreetClass());
+        assertEquals(5.5f, ab2.getCarSpeed(), 0f);
+        assertEquals(1.5f, ab2.getBicycleSafetyFactor(), 0f);
+        assertEquals(42, ab2.wayId);
+        assertEquals(ab.getInAngle(), ab2.getInAngle());
+        assertEquals(ab.getOutAngle(), ab2.getOutAngle());
+        assertTrue(ab2.isStairs());
+        assertTrue(ab2.hasTurnRestrictions());
+        assertTrue(ab2.isWheelchairAccessible());
+        assertArrayEquals(ab.getGeometry().getCoordinates(), ab2.getGeometry().getCoordinates());
+        assertTrue(ba2.isBack());
+        assertFalse(ba2.isStairs());
+        assertSame(ab2.getCompactGeometry(), ba2.getCompactGeometry());
+        assertTrue(bc2 instanceof FreeEdge);
+
+        // The edges referenced from the rest of the graph are the edges of the vertices
+        TurnRestriction restriction = single(copy.getTurnRestrictions(ab2));
+        assertSame(ab2, restriction.from);
+        assertSame(bc2, restriction.to);
+
+        SimpleTransfer t1 = transferFrom(copy, "S1");
+        assertEquals("S2", t1.to.getId().getId());
+        assertEquals(130.5, t1.getEffectiveWalkDistance(), 0.0);
+        assertEquals(2, t1.getEdges().size());
+        assertSame(ab2, t1.getEdges().get(0));
+        assertSame(bc2, t1.getEdges().get(1));
+        assertNull(transferFrom(copy, "S2").getEdges());
+    }
+
+    @Test
+    public void readFromStream() throws Exception {
+        new StreetEdge(
+            a, b, lineString(a.getCoordinate(), b.getCoordinate()),
+            "Nedre gate", 50, StreetTraversalPermission.ALL, false
+        );
+        graph.transfersByStop.put(s1, new SimpleTransfer(s1, s2, 50, null));
+
+        Graph copy = saveAndLoad(file -> new DataSource() {
+            @Override public String name() { return file.getName(); }
+            @Override public String path() { return "stream:" + file.getPath(); }
+            @Override public FileType type() { return FileType.GRAPH; }
+            @Override public InputStream asInputStream() {
+                try {
+                    return new FileInputStream(file);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+
+        StreetEdge ab2 = (StreetEdge) single(copy.getVertex("A").getOutgoing());
+        assertEquals("Nedre gate", ab2.getName());
+        assertSame(copy.getVertex("B"), ab2.getToVertex());
+        assertEquals(50, transferFrom(copy, "S1").getEffectiveWalkDistance(), 0.0);
+    }
+
+    @Test(expected = OtpAppException.class)
+    public void rejectUnknownSchemaVersion() throws Exception {
+        File file = save();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(Integer.BYTES);
+            raf.writeInt(GraphFileFormat.SCHEMA_VERSION + 1);
+        }
+        SerializedGraphObject.load(file);
+    }
+
+    private File save() throws IOException {
+        File file = folder.newFile("graph.obj");
+        new SerializedGraphObject(graph, BuildConfig.DEFAULT, RouterConfig.DEFAULT)
+            .save(new FileDataSource(file, FileType.GRAPH));
+        return file;
+    }
+
+    private Graph saveAndLoad(DataSourceFactory dataSource) throws IOException {
+        File file = save();
+        if (dataSource == null) {
+            return SerializedGraphObject.load(file);
+        }
+        return SerializedGraphObject.load(dataSource.create(file)).graph;
+    }
+
+    private static SimpleTransfer transferFrom(Graph graph, String stopId) {
+        for (StopLocation stop : graph.transfersByStop.keySet()) {
+            if (stop.getId().getId().equals(stopId)) {
+                return single(graph.transfersByStop.get(stop));
+            }
+        }
+        throw new AssertionError("No transfer from " + stopId);
+    }
+
+    private static <T> T single(Collection<T> values) {
+        assertEquals(1, values.size());
+        return values.iterator().next();
+    }
+
+    private static LineString lineString(Coordinate... coordinates) {
+        return GEOMETRY_FACTORY.createLineString(coordinates);
+    }
+
+    private interface DataSourceFactory {
+        DataSource create(File file);
+    }
+}
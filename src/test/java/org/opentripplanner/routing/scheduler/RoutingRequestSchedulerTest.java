@@ -0,0 +1,90 @@
+package org.opentripplanner.routing.scheduler;
+
+import org.junit.Test;
+import org.opentripplanner.routing.error.RoutingRequestRejectedException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.opentripplanner.routing.scheduler.RoutingRequestScheduler.RequestType.STREET;
+import static org.opentripplanner.routing.scheduler.RoutingRequestScheduler.RequestType.TRANSIT;
+
+public class RoutingRequestSchedulerTest {
+
+    private final RoutingRequestScheduler subject = new RoutingRequestScheduler(
+            new RoutingRequestSchedulerParameters() {
+                @Override public int maxConcurrentTransitRequests() { return 1; }
+                @Override public int maxQueueSize() { return 0; }
+                @Override public int maxQueueTimeSeconds() { return 1; }
+                @Override public int retryAfterSeconds() { return 7; }
+            }
+    );
+
+    @Test
+    public void routeWithinLimit() {
+        assertEquals("OK", subject.route(TRANSIT, () -> "OK"));
+        assertEquals("OK", subject.route(TRANSIT, () -> "OK"));
+
+        RequestQueueMetrics m = subject.getMetrics(TRANSIT);
+        assertEquals(2, m.accepted());
+        assertEquals(0, m.rejected());
+        assertEquals(0, m.running());
+        assertEquals(0, m.queued());
+    }
+
+    @Test
+    public void rejectWhenQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+
+        Thread busy = new Thread(() -> subject.route(TRANSIT, () -> {
+            started.countDown();
+            await(done);
+            return null;
+        }));
+        busy.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        try {
+            subject.route(TRANSIT, () -> "OK");
+            fail("Request should be rejected");
+        }
+        catch (RoutingRequestRejectedException e) {
+            assertEquals(7, e.getRetryAfterSeconds());
+        }
+
+        // Street requests are not limited
+        assertEquals("OK", subject.route(STREET, () -> "OK"));
+
+        done.countDown();
+        busy.join();
+
+        assertEquals(1, subject.getMetrics(TRANSIT).accepted());
+        assertEquals(1, subject.getMetrics(TRANSIT).rejected());
+        assertEquals(1, subject.getMetrics(STREET).accepted());
+    }
+
+    @Test
+    public void permitIsReleasedIfTheRequestFail() {
+        try {
+            subject.route(TRANSIT, () -> { throw new IllegalStateException(); });
+            fail();
+        }
+        catch (IllegalStateException ignore) { }
+
+        assertEquals("OK", subject.route(TRANSIT, () -> "OK"));
+        assertEquals(0, subject.getMetrics(TRANSIT).running());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
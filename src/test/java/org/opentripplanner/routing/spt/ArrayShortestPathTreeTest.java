@@ -0,0 +1,153 @@
+package org.opentripplanner.routing.spt;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.SimpleConcreteVertex;
+import org.opentripplanner.routing.graph.Vertex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ArrayShortestPathTreeTest {
+
+    /**
+     * States with an odd weight are on a separate "plane", and not comparable with states with an
+     * even weight. Within the same plane the state with the lowest weight wins.
+     */
+    private static final DominanceFunction DOMINANCE_FUNCTION = new DominanceFunction() {
+        @Override
+        protected boolean betterOrEqual(State a, State b) {
+            return a.weight <= b.weight;
+        }
+
+        @Override
+        public boolean betterOrEqualAndComparable(State a, State b) {
+            return ((int) a.weight) % 2 == ((int) b.weight) % 2 && betterOrEqual(a, b);
+        }
+    };
+
+    private Graph graph;
+    private Vertex a;
+    private Vertex b;
+    private RoutingRequest options;
+    private ShortestPathTree subject;
+
+    @Before
+    public void setup() {
+        graph = new Graph();
+        a = new SimpleConcreteVertex(graph, "A", 60.0, 10.0);
+        b = new SimpleConcreteVertex(graph, "B", 60.0, 10.1);
+        options = new RoutingRequest();
+        options.setRoutingContext(graph, a, b);
+        subject = new ArrayShortestPathTree(
+                options,
+                DOMINANCE_FUNCTION,
+                new VertexStateArray(graph.getVertexIndexSize())
+        );
+    }
+
+    @Test
+    public void verticesHaveDenseIndexes() {
+        assertEquals(0, a.getIndex());
+        assertEquals(1, b.getIndex());
+        assertEquals(2, graph.getVertexIndexSize());
+        assertTrue(subject instanceof ArrayShortestPathTree);
+    }
+
+    @Test
+    public void addDominatingStates() {
+        State s4 = state(a, 4);
+        State s6 = state(a, 6);
+        State s2 = state(a, 2);
+
+        assertTrue(subject.add(s4));
+        assertFalse(subject.add(s6));
+        assertTrue(subject.add(s2));
+
+        assertFalse(subject.visit(s4));
+        assertTrue(subject.visit(s2));
+        assertSame(s2, subject.getState(a));
+        assertNull(subject.getState(b));
+        assertEquals(1, subject.getAllStates().size());
+    }
+
+    @Test
+    public void addCoDominantStates() {
+        State s4 = state(a, 4);
+        State s5 = state(a, 5);
+        State s3 = state(a, 3);
+
+        assertTrue(subject.add(s4));
+        assertTrue(subject.add(s5));
+        assertTrue(subject.add(s3));
+
+        assertTrue(subject.visit(s4));
+        assertFalse(subject.visit(s5));
+        assertTrue(subject.visit(s3));
+        assertSame(s3, subject.getState(a));
+        assertEquals(2, subject.getAllStates().size());
+    }
+
+    @Test
+    public void verticesWithoutIndexAreSupported() {
+        Vertex temporary = new SimpleConcreteVertex(null, "T", 60.0, 10.2);
+        State s2 = state(temporary, 2);
+        State s4 = state(temporary, 4);
+
+        assertEquals(-1, temporary.getIndex());
+        assertTrue(subject.add(s4));
+        assertTrue(subject.add(s2));
+        assertTrue(subject.add(state(a, 2)));
+
+        assertTrue(subject.visit(s2));
+        assertFalse(subject.visit(s4));
+        assertSame(s2, subject.getState(temporary));
+        assertEquals(2, subject.getAllStates().size());
+    }
+
+    @Test
+    public void reuseStateArray() {
+        VertexStateArray states = new VertexStateArray(graph.getVertexIndexSize());
+        ShortestPathTree first = new ArrayShortestPathTree(options, DOMINANCE_FUNCTION, states);
+        first.add(state(a, 2));
+        first.add(state(b, 2));
+
+        ShortestPathTree second = new ArrayShortestPathTree(options, DOMINANCE_FUNCTION, states);
+        State s4 = state(a, 4);
+
+        assertNull(second.getState(a));
+        assertTrue(second.add(s4));
+        assertSame(s4, second.getState(a));
+        assertEquals(1, second.getAllStates().size());
+    }
+
+    @Test
+    public void clearStateArray() {
+        VertexStateArray states = new VertexStateArray(graph.getVertexIndexSize());
+        ShortestPathTree tree = new ArrayShortestPathTree(options, DOMINANCE_FUNCTION, states);
+        tree.add(state(b, 2));
+        tree.add(state(b, 3));
+
+        assertEquals(1, states.numberOfTouchedIndexes());
+        assertEquals(b.getIndex(), states.touchedIndex(0));
+        assertEquals(2, tree.getAllStates().size());
+
+        states.clear();
+
+        assertEquals(0, states.numberOfTouchedIndexes());
+        assertNull(states.get(b.getIndex()));
+        assertTrue(tree.getAllStates().isEmpty());
+    }
+
+    private State state(Vertex v, double weight) {
+        State s = new State(v, options);
+        s.weight = weight;
+        return s;
+    }
+}
@@ -0,0 +1,24 @@
+package org.opentripplanner.standalone.server;
+
+import org.junit.Test;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.standalone.config.RouterConfig;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.opentripplanner.standalone.config.JsonSupport.jsonNodeForTest;
+
+public class RouterTest {
+
+    @Test
+    public void shutdownStopsTheStreetRoutingThreadPool() {
+        Router router = new Router(new Graph(), new RouterConfig(
+                jsonNodeForTest("{ streetRoutingThreadPoolSize : 2 }"), "Test", false
+        ));
+        assertNotNull(router.streetRoutingThreadPool);
+
+        router.shutdown();
+
+        assertTrue(router.streetRoutingThreadPool.isShutdown());
+    }
+}
@@ -0,0 +1,66 @@
+package org.opentripplanner.standalone.server;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StartupProgressTest {
+
+    @Test
+    public void stagesAreReportedInStartOrder() throws Exception {
+        StartupProgress subject = new StartupProgress();
+
+        assertEquals("A", subject.call("Load", () -> "A"));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            subject.runAsync("Index", () -> {}, executor).join();
+        }
+        finally {
+            executor.shutdown();
+        }
+
+        assertFalse(subject.isReady());
+        subject.ready();
+        assertTrue(subject.isReady());
+
+        List<StartupProgress.Stage> stages = subject.stages();
+        assertEquals(2, stages.size());
+        assertEquals("Load", stages.get(0).name);
+        assertEquals(StartupProgress.State.DONE, stages.get(0).state());
+        assertEquals("Index", stages.get(1).name);
+        assertEquals(StartupProgress.State.DONE, stages.get(1).state());
+    }
+
+    @Test
+    public void failedStage() {
+        StartupProgress subject = new StartupProgress();
+        try {
+            subject.run("Load", () -> { throw new IllegalStateException("Boom"); });
+            fail();
+        }
+        catch (IllegalStateException e) {
+            assertEquals("Boom", e.getMessage());
+        }
+        assertEquals(StartupProgress.State.FAILED, subject.stages().get(0).state());
+        assertFalse(subject.isReady());
+    }
+
+    /** The server is not ready while it restarts, until the API is deployed again. */
+    @Test
+    public void notReadyWhileRestarting() {
+        StartupProgress subject = new StartupProgress();
+        subject.ready();
+        subject.notReady();
+        assertFalse(subject.isReady());
+        subject.ready();
+        assertTrue(subject.isReady());
+    }
+}
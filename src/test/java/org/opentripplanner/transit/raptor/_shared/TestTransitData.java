@@ -0,0 +1,177 @@
+package org.opentripplanner.transit.raptor._shared;
+
+import org.opentripplanner.transit.raptor.api.transit.IntIterator;
+import org.opentripplanner.transit.raptor.api.transit.RaptorRoute;
+import org.opentripplanner.transit.raptor.api.transit.RaptorRouteIterator;
+import org.opentripplanner.transit.raptor.api.transit.RaptorTimeTable;
+import org.opentripplanner.transit.raptor.api.transit.RaptorTransfer;
+import org.opentripplanner.transit.raptor.api.transit.RaptorTransitDataProvider;
+import org.opentripplanner.transit.raptor.api.transit.RaptorTripPattern;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Simple implementation of {@link RaptorTransitDataProvider} for use in unit-tests. Each route
+ * records the stop positions the search engine looks up in the route pattern, so tests can check
+ * which part of a pattern is scanned.
+ */
+public class TestTransitData implements RaptorTransitDataProvider<TestRaptorTripSchedule> {
+
+    private final int numberOfStops;
+    private final List<List<RaptorTransfer>> transfers = new ArrayList<>();
+    private final List<Route> routes = new ArrayList<>();
+
+    public TestTransitData(int numberOfStops) {
+        this.numberOfStops = numberOfStops;
+        for (int i = 0; i < numberOfStops; i++) {
+            transfers.add(new ArrayList<>());
+        }
+    }
+
+    public TestTransitData withRoute(TestRaptorTripSchedule... schedules) {
+        routes.add(new Route(new TestRoute(schedules)));
+        return this;
+    }
+
+    public TestTransitData withTransfer(int fromStop, int toStop, int durationInSeconds) {
+        transfers.get(fromStop).add(new TestRaptorTransfer(toStop, durationInSeconds));
+        return this;
+    }
+
+    /** The stop positions looked up in the pattern of the route with the given index. */
+    public List<Integer> stopPositionsVisited(int routeIndex) {
+        return routes.get(routeIndex).stopPositionsVisited;
+    }
+
+    @Override
+    public Iterator<? extends RaptorTransfer> getTransfers(int fromStop) {
+        return transfers.get(fromStop).iterator();
+    }
+
+    @Override
+    public RaptorRouteIterator<TestRaptorTripSchedule> routeIterator(IntIterator stops) {
+        BitSet stopsVisited = new BitSet(numberOfStops);
+        while (stops.hasNext()) {
+            stopsVisited.set(stops.next());
+        }
+        return new RouteIterator(stopsVisited);
+    }
+
+    @Override
+    public int numberOfStops() {
+        return numberOfStops;
+    }
+
+    @Override
+    public int[] stopBoarAlightCost() {
+        return null;
+    }
+
+    private final class RouteIterator implements RaptorRouteIterator<TestRaptorTripSchedule> {
+        private final BitSet stopsVisited;
+        private int index;
+        private int firstStopPos;
+        private int lastStopPos;
+
+        private RouteIterator(BitSet stopsVisited) {
+            this.stopsVisited = stopsVisited;
+            this.index = nextRoute(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < routes.size();
+        }
+
+        @Override
+        public RaptorRoute<TestRaptorTripSchedule> next() {
+            Route route = routes.get(index);
+            RaptorTripPattern p = route.delegate.pattern();
+
+            firstStopPos = 0;
+            while (!stopsVisited.get(p.stopIndex(firstStopPos))) { ++firstStopPos; }
+
+            lastStopPos = p.numberOfStopsInPattern() - 1;
+            while (!stopsVisited.get(p.stopIndex(lastStopPos))) { --lastStopPos; }
+
+            index = nextRoute(index + 1);
+            return route;
+        }
+
+        @Override
+        public int firstStopPositionVisited() {
+            return firstStopPos;
+        }
+
+        @Override
+        public int lastStopPositionVisited() {
+            return lastStopPos;
+        }
+
+        private int nextRoute(int start) {
+            int i = start;
+            while (i < routes.size() && !visitsAnyStop(routes.get(i).delegate.pattern())) {
+                ++i;
+            }
+            return i;
+        }
+
+        private boolean visitsAnyStop(RaptorTripPattern p) {
+            for (int i = 0; i < p.numberOfStopsInPattern(); i++) {
+                if (stopsVisited.get(p.stopIndex(i))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /** Wrap the route pattern to record the stop positions looked up by the search. */
+    private static final class Route implements RaptorRoute<TestRaptorTripSchedule>, RaptorTripPattern {
+        private final TestRoute delegate;
+        private final List<Integer> stopPositionsVisited = new ArrayList<>();
+
+        private Route(TestRoute delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public RaptorTimeTable<TestRaptorTripSchedule> timetable() {
+            return delegate;
+        }
+
+        @Override
+        public RaptorTripPattern pattern() {
+            return this;
+        }
+
+        @Override
+        public int stopIndex(int stopPositionInPattern) {
+            stopPositionsVisited.add(stopPositionInPattern);
+            return delegate.pattern().stopIndex(stopPositionInPattern);
+        }
+
+        @Override
+        public boolean boardingPossibleAt(int stopPositionInPattern) {
+            return delegate.pattern().boardingPossibleAt(stopPositionInPattern);
+        }
+
+        @Override
+        public boolean alightingPossibleAt(int stopPositionInPattern) {
+            return delegate.pattern().alightingPossibleAt(stopPositionInPattern);
+        }
+
+        @Override
+        public int numberOfStopsInPattern() {
+            return delegate.pattern().numberOfStopsInPattern();
+        }
+
+        @Override
+        public String debugInfo() {
+            return delegate.pattern().debugInfo();
+        }
+    }
+}
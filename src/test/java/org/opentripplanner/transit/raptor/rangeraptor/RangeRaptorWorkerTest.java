@@ -0,0 +1,90 @@
+package org.opentripplanner.transit.raptor.rangeraptor;
+
+import org.junit.Test;
+import org.opentripplanner.transit.raptor.RaptorService;
+import org.opentripplanner.transit.raptor._shared.TestRaptorTransfer;
+import org.opentripplanner.transit.raptor._shared.TestRaptorTripSchedule;
+import org.opentripplanner.transit.raptor._shared.TestTransitData;
+import org.opentripplanner.transit.raptor.api.request.RaptorProfile;
+import org.opentripplanner.transit.raptor.api.request.RaptorRequestBuilder;
+import org.opentripplanner.transit.raptor.api.request.RaptorTuningParameters;
+import org.opentripplanner.transit.raptor.api.request.SearchDirection;
+import org.opentripplanner.transit.raptor.api.response.RaptorResponse;
+import org.opentripplanner.transit.raptor.rangeraptor.configure.RaptorConfig;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class RangeRaptorWorkerTest {
+
+    private static final int T08_00 = 8 * 3600;
+    private static final int T09_00 = 9 * 3600;
+
+    private static final int STOP_A = 2;
+    private static final int STOP_B = 4;
+
+    private final RaptorService<TestRaptorTripSchedule> service = new RaptorService<>(
+            new RaptorConfig<>(new RaptorTuningParameters() {})
+    );
+
+    /**
+     * The route visit stop 1, 2, 3, 4 and 5, but the search start at stop 2. The stop positions
+     * before stop 2 can not be boarded and should not be scanned.
+     */
+    @Test
+    public void forwardSearchSkipsStopsBeforeTheFirstStopReached() {
+        TestTransitData data = transitData();
+
+        RaptorResponse<TestRaptorTripSchedule> response = search(data, SearchDirection.FORWARD);
+
+        assertFalse(response.paths().isEmpty());
+        List<Integer> visited = data.stopPositionsVisited(0);
+        assertEquals(1, (int) Collections.min(visited));
+        assertEquals(4, (int) Collections.max(visited));
+    }
+
+    /**
+     * In a reverse search the stops after the first stop reached (stop 4) should not be scanned.
+     */
+    @Test
+    public void reverseSearchSkipsStopsAfterTheFirstStopReached() {
+        TestTransitData data = transitData();
+
+        RaptorResponse<TestRaptorTripSchedule> response = search(data, SearchDirection.REVERSE);
+
+        assertFalse(response.paths().isEmpty());
+        List<Integer> visited = data.stopPositionsVisited(0);
+        assertEquals(0, (int) Collections.min(visited));
+        assertEquals(3, (int) Collections.max(visited));
+    }
+
+    private static TestTransitData transitData() {
+        return new TestTransitData(6).withRoute(
+                TestRaptorTripSchedule.create("T1")
+                        .withStopIndexes(1, 2, 3, 4, 5)
+                        .withBoardAndAlightTimes(
+                                T08_00 + 300, T08_00 + 600, T08_00 + 900, T08_00 + 1200, T08_00 + 1500
+                        )
+                        .build()
+        );
+    }
+
+    private RaptorResponse<TestRaptorTripSchedule> search(
+            TestTransitData data,
+            SearchDirection direction
+    ) {
+        RaptorRequestBuilder<TestRaptorTripSchedule> b = new RaptorRequestBuilder<>();
+        b.profile(RaptorProfile.STANDARD);
+        b.searchDirection(direction);
+        b.searchParams()
+                .addAccessStop(new TestRaptorTransfer(STOP_A, 60))
+                .addEgressStop(new TestRaptorTransfer(STOP_B, 60))
+                .earliestDepartureTime(T08_00)
+                .latestArrivalTime(T09_00)
+                .searchOneIterationOnly();
+        return service.route(b.build(), data);
+    }
+}
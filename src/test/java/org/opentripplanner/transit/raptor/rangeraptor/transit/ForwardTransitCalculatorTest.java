@@ -105,6 +105,11 @@ public class ForwardTransitCalculatorTest {
         assertIntIterator(create().patternStopIterator(2), 0, 1);
     }
 
+    @Test
+    public void patternStopIteratorStartingAtStopVisited() {
+        assertIntIterator(create().patternStopIterator(1, 2, 4), 1, 2, 3);
+    }
+
 
     private void assertIntIterator(IntIterator it, int ... values) {
         for (int v : values) {
@@ -106,6 +106,11 @@ public class ReverseTransitCalculatorTest {
         assertIntIterator(create().patternStopIterator(2), 1, 0);
     }
 
+    @Test
+    public void patternStopIteratorStartingAtStopVisited() {
+        assertIntIterator(create().patternStopIterator(1, 2, 4), 2, 1, 0);
+    }
+
 
     private void assertIntIterator(IntIterator it, int ... values) {
         for (int v : values) {
@@ -0,0 +1,121 @@
+package org.opentripplanner.transit.raptor.service;
+
+import org.junit.After;
+import org.junit.Test;
+import org.opentripplanner.transit.raptor.RaptorService;
+import org.opentripplanner.transit.raptor._shared.TestRaptorTransfer;
+import org.opentripplanner.transit.raptor._shared.TestRaptorTripSchedule;
+import org.opentripplanner.transit.raptor._shared.TestTransitData;
+import org.opentripplanner.transit.raptor.api.path.Path;
+import org.opentripplanner.transit.raptor.api.request.Optimization;
+import org.opentripplanner.transit.raptor.api.request.RaptorProfile;
+import org.opentripplanner.transit.raptor.api.request.RaptorRequest;
+import org.opentripplanner.transit.raptor.api.request.RaptorRequestBuilder;
+import org.opentripplanner.transit.raptor.api.request.RaptorTuningParameters;
+import org.opentripplanner.transit.raptor.rangeraptor.configure.RaptorConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class RangRaptorDynamicSearchTest {
+
+    private static final int T08_00 = 8 * 3600;
+    private static final int SEARCH_WINDOW = 90 * 60;
+    private static final int CHUNK_SIZE = 20 * 60;
+
+    private final RaptorService<TestRaptorTripSchedule> singleWindowService = new RaptorService<>(
+            new RaptorConfig<>(tuningParameters(0))
+    );
+    private final RaptorService<TestRaptorTripSchedule> chunkedService = new RaptorService<>(
+            new RaptorConfig<>(tuningParameters(CHUNK_SIZE))
+    );
+
+    @After
+    public void tearDown() {
+        singleWindowService.shutdown();
+        chunkedService.shutdown();
+    }
+
+    @Test
+    public void chunkedSearchFindsTheSamePathsAsSingleWindowSearch() {
+        for (RaptorProfile profile : List.of(RaptorProfile.MULTI_CRITERIA, RaptorProfile.STANDARD)) {
+            RaptorRequest<TestRaptorTripSchedule> request = request(profile);
+
+            List<String> expected = paths(singleWindowService, request);
+            List<String> result = paths(chunkedService, request);
+
+            assertFalse(expected.isEmpty());
+            assertEquals(profile.name(), expected, result);
+        }
+    }
+
+    private static List<String> paths(
+            RaptorService<TestRaptorTripSchedule> service,
+            RaptorRequest<TestRaptorTripSchedule> request
+    ) {
+        return service.route(request, transitData()).paths().stream()
+                .map(Path::toString)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * A slow route with frequent departures, an express route with few departures and a transfer
+     * between them.
+     */
+    private static TestTransitData transitData() {
+        List<TestRaptorTripSchedule> slow = new ArrayList<>();
+        for (int t = T08_00; t < T08_00 + 2 * SEARCH_WINDOW; t += 7 * 60) {
+            slow.add(trip(t, 10 * 60, 1, 2, 3, 5));
+        }
+        List<TestRaptorTripSchedule> express = new ArrayList<>();
+        for (int t = T08_00 + 5 * 60; t < T08_00 + 2 * SEARCH_WINDOW; t += 25 * 60) {
+            express.add(trip(t, 6 * 60, 4, 5));
+        }
+        return new TestTransitData(6)
+                .withRoute(slow.toArray(new TestRaptorTripSchedule[0]))
+                .withRoute(express.toArray(new TestRaptorTripSchedule[0]))
+                .withTransfer(2, 4, 120);
+    }
+
+    private static TestRaptorTripSchedule trip(int departure, int timeBetweenStops, int ... stops) {
+        int[] times = new int[stops.length];
+        for (int i = 0; i < stops.length; i++) {
+            times[i] = departure + i * timeBetweenStops;
+        }
+        return TestRaptorTripSchedule.create("T" + departure)
+                .withStopIndexes(stops)
+                .withBoardAndAlightTimes(times)
+                .build();
+    }
+
+    private static RaptorRequest<TestRaptorTripSchedule> request(RaptorProfile profile) {
+        RaptorRequestBuilder<TestRaptorTripSchedule> b = new RaptorRequestBuilder<>();
+        b.profile(profile);
+        b.enableOptimization(Optimization.PARALLEL);
+        b.searchParams()
+                .addAccessStop(new TestRaptorTransfer(1, 60))
+                .addEgressStop(new TestRaptorTransfer(5, 60))
+                .earliestDepartureTime(T08_00)
+                .searchWindowInSeconds(SEARCH_WINDOW);
+        return b.build();
+    }
+
+    private static RaptorTuningParameters tuningParameters(int chunkSize) {
+        return new RaptorTuningParameters() {
+            @Override
+            public int searchThreadPoolSize() {
+                return 2;
+            }
+
+            @Override
+            public int searchWindowChunkSizeInSeconds() {
+                return chunkSize;
+            }
+        };
+    }
+}
@@ -0,0 +1,102 @@
+package org.opentripplanner.transit.raptor.service;
+
+import org.junit.Test;
+import org.opentripplanner.transit.raptor._shared.TestRaptorTripSchedule;
+import org.opentripplanner.transit.raptor.api.request.RaptorProfile;
+import org.opentripplanner.transit.raptor.api.request.RaptorRequest;
+import org.opentripplanner.transit.raptor.api.request.RaptorRequestBuilder;
+import org.opentripplanner.transit.raptor.api.request.SearchDirection;
+import org.opentripplanner.transit.raptor.api.transit.RaptorTransfer;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SearchWindowSplitterTest {
+
+    private static final int EDT = 10_000;
+    private static final int STEP = 60;
+
+
+    @Test
+    public void splitIsAlignedWithTheEndOfTheSearchWindow() {
+        // Chunk size is rounded up to 20 minutes
+        SearchWindowSplitter subject = new SearchWindowSplitter(1150, STEP);
+
+        // 50 minutes search window: the first chunk include the remaining 10 minutes
+        RaptorRequest<TestRaptorTripSchedule> request = request(50 * 60, SearchDirection.FORWARD);
+
+        assertTrue(subject.isSplit(request));
+        assertEquals(
+                "[10000+1800, 11800+1200]",
+                toString(subject.split(request))
+        );
+    }
+
+    @Test
+    public void splitInEqualChunks() {
+        SearchWindowSplitter subject = new SearchWindowSplitter(1200, STEP);
+        RaptorRequest<TestRaptorTripSchedule> request = request(60 * 60, SearchDirection.FORWARD);
+
+        assertEquals(
+                "[10000+1200, 11200+1200, 12400+1200]",
+                toString(subject.split(request))
+        );
+    }
+
+    @Test
+    public void doNotSplitShortSearchWindows() {
+        SearchWindowSplitter subject = new SearchWindowSplitter(1200, STEP);
+        // A search-window of exactly two chunks is not split
+        RaptorRequest<TestRaptorTripSchedule> request = request(2400, SearchDirection.FORWARD);
+
+        assertFalse(subject.isSplit(request));
+        assertSame(request, subject.split(request).get(0));
+        assertEquals(1, subject.split(request).size());
+    }
+
+    @Test
+    public void doNotSplitIfDisabledOrInReverse() {
+        RaptorRequest<TestRaptorTripSchedule> forward = request(7200, SearchDirection.FORWARD);
+        RaptorRequest<TestRaptorTripSchedule> reverse = request(7200, SearchDirection.REVERSE);
+
+        assertFalse(new SearchWindowSplitter(0, STEP).isSplit(forward));
+        assertFalse(new SearchWindowSplitter(1200, STEP).isSplit(reverse));
+    }
+
+    private static String toString(List<RaptorRequest<TestRaptorTripSchedule>> requests) {
+        return requests.stream()
+                .map(it -> it.searchParams().earliestDepartureTime()
+                        + "+" + it.searchParams().searchWindowInSeconds()
+                )
+                .collect(Collectors.toList())
+                .toString();
+    }
+
+    private static RaptorRequest<TestRaptorTripSchedule> request(
+            int searchWindow,
+            SearchDirection direction
+    ) {
+        RaptorRequestBuilder<TestRaptorTripSchedule> b = new RaptorRequestBuilder<>();
+        b.profile(RaptorProfile.MULTI_CRITERIA);
+        b.searchDirection(direction);
+        // Add some dummy legs
+        b.searchParams().accessLegs().add(dummyLeg());
+        b.searchParams().egressLegs().add(dummyLeg());
+        b.searchParams().earliestDepartureTime(EDT);
+        b.searchParams().latestArrivalTime(EDT + 2 * searchWindow);
+        b.searchParams().searchWindowInSeconds(searchWindow);
+        return b.build();
+    }
+
+    private static RaptorTransfer dummyLeg() {
+        return new RaptorTransfer() {
+            @Override public int stop() { return 1; }
+            @Override public int durationInSeconds() { return 10; }
+        };
+    }
+}
@@ -0,0 +1,256 @@
+package org.opentripplanner.updater.stoptime;
+
+import com.google.transit.realtime.GtfsRealtime.TripDescriptor;
+import com.google.transit.realtime.GtfsRealtime.TripUpdate;
+import com.google.transit.realtime.GtfsRealtime.TripUpdate.StopTimeEvent;
+import com.google.transit.realtime.GtfsRealtime.TripUpdate.StopTimeUpdate;
+import org.junit.Before;
+import org.junit.Test;
+import org.opentripplanner.model.Agency;
+import org.opentripplanner.model.FeedScopedId;
+import org.opentripplanner.model.Route;
+import org.opentripplanner.model.Stop;
+import org.opentripplanner.model.StopPattern;
+import org.opentripplanner.model.StopTime;
+import org.opentripplanner.model.Timetable;
+import org.opentripplanner.model.Trip;
+import org.opentripplanner.model.TripPattern;
+import org.opentripplanner.model.calendar.CalendarServiceData;
+import org.opentripplanner.model.calendar.ServiceDate;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.trippattern.Deduplicator;
+import org.opentripplanner.routing.trippattern.RealTimeState;
+import org.opentripplanner.routing.trippattern.TripTimes;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Apply batches of trip updates for SCHEDULED trips to a small graph built without GTFS.
+ */
+public class TimetableSnapshotSourceBatchTest {
+
+    private static final String FEED_ID = "F";
+
+    private static final ServiceDate SERVICE_DATE = new ServiceDate(2020, 3, 2);
+
+    /** The feed time zone is 25 hours behind the JVM time zone used by some of the tests. */
+    private static final TimeZone FEED_TIME_ZONE = TimeZone.getTimeZone("Pacific/Pago_Pago");
+
+    private static final TimeZone JVM_TIME_ZONE = TimeZone.getTimeZone("Pacific/Kiritimati");
+
+    private static final int N_PATTERNS = 4;
+
+    private static final int N_TRIPS_PER_PATTERN = 20;
+
+    private final Graph graph = new Graph();
+
+    private final List<Stop> stops = List.of(
+            Stop.stopForTest("S0", 0.0, 0.0),
+            Stop.stopForTest("S1", 0.0, 0.0),
+            Stop.stopForTest("S2", 0.0, 0.0)
+    );
+
+    private final List<TripPattern> patterns = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        Agency agency = new Agency(new FeedScopedId(FEED_ID, "A"), "Agency", FEED_TIME_ZONE.getID());
+        CalendarServiceData calendarServiceData = new CalendarServiceData();
+        calendarServiceData.putTimeZoneForAgencyId(agency.getId(), FEED_TIME_ZONE);
+        graph.putService(CalendarServiceData.class, calendarServiceData);
+        graph.addAgency(FEED_ID, agency);
+
+        Route route = new Route();
+        route.setId(new FeedScopedId(FEED_ID, "R"));
+        route.setAgency(agency);
+
+        for (int p = 0; p < N_PATTERNS; p++) {
+            List<StopTime> patternStopTimes = stopTimes(0);
+            TripPattern pattern = new TripPattern(route, new StopPattern(patternStopTimes));
+            pattern.setId(new FeedScopedId(FEED_ID, "P" + p));
+            for (int t = 0; t < N_TRIPS_PER_PATTERN; t++) {
+                Trip trip = new Trip();
+                trip.setId(new FeedScopedId(FEED_ID, tripId(p, t)));
+                trip.setRoute(route);
+                pattern.add(new TripTimes(trip, stopTimes(6 * 3600 + t * 600), new Deduplicator()));
+            }
+            graph.tripPatternForId.put(pattern.getId(), pattern);
+            patterns.add(pattern);
+        }
+        graph.indexTransit();
+    }
+
+    /**
+     * A message with enough trip updates is prepared in parallel, the result must be the same as
+     * when the updates are prepared one at a time.
+     */
+    @Test
+    public void parallelPreparationGivesTheSameSnapshotAsSequentialPreparation() {
+        List<TripUpdate> updates = new ArrayList<>();
+        for (int p = 0; p < N_PATTERNS; p++) {
+            for (int t = 0; t < N_TRIPS_PER_PATTERN; t++) {
+                updates.add(tripUpdate(tripId(p, t), 10 * (p * N_TRIPS_PER_PATTERN + t)));
+            }
+        }
+
+        TimetableSnapshotSource parallel = snapshotSource();
+        assertTrue(updates.size() >= parallel.parallelPrepareThreshold);
+        TimetableSnapshotSource sequential = snapshotSource();
+        sequential.parallelPrepareThreshold = Integer.MAX_VALUE;
+
+        parallel.applyTripUpdates(graph, true, updates, FEED_ID);
+        sequential.applyTripUpdates(graph, true, updates, FEED_ID);
+
+        assertEquals(updates.size(), parallel.getTripUpdateMetrics().applied());
+        assertEquals(updates.size(), sequential.getTripUpdateMetrics().applied());
+
+        for (int p = 0; p < N_PATTERNS; p++) {
+            Timetable expected = sequential.getTimetableSnapshot().resolve(patterns.get(p), SERVICE_DATE);
+            Timetable result = parallel.getTimetableSnapshot().resolve(patterns.get(p), SERVICE_DATE);
+            for (int t = 0; t < N_TRIPS_PER_PATTERN; t++) {
+                int delay = 10 * (p * N_TRIPS_PER_PATTERN + t);
+                assertEquals(times(expected, tripId(p, t)), times(result, tripId(p, t)));
+                assertEquals(
+                        6 * 3600 + t * 600 + delay,
+                        result.getTripTimes(result.getTripIndex(tripId(p, t))).getDepartureTime(0)
+                );
+            }
+        }
+    }
+
+    /**
+     * With skipUnchangedTripUpdates, a full dataset is compared with the previous one from the
+     * same feed. Unchanged trip updates are not applied again. Changed trip updates are applied on
+     * top of the schedule. Trips that are no longer in the dataset are reverted to the schedule.
+     */
+    @Test
+    public void unchangedTripUpdatesAreSkippedAndRemovedTripUpdatesAreReverted() {
+        TimetableSnapshotSource source = snapshotSource();
+        source.skipUnchangedTripUpdates = true;
+        String unchanged = tripId(0, 0);
+        String changed = tripId(0, 1);
+        String removed = tripId(0, 2);
+
+        source.applyTripUpdates(
+                graph,
+                true,
+                List.of(tripUpdate(unchanged, 60), tripUpdate(changed, 60), tripUpdate(removed, 60)),
+                FEED_ID
+        );
+        TripTimes unchangedBefore = tripTimes(source, unchanged);
+        TripTimes changedBefore = tripTimes(source, changed);
+        assertEquals(6 * 3600 + 1200 + 60, tripTimes(source, removed).getDepartureTime(0));
+        assertEquals(1, source.getTripUpdateMetrics().fullReapplies());
+
+        source.applyTripUpdates(
+                graph,
+                true,
+                List.of(tripUpdate(unchanged, 60), tripUpdate(changed, 120)),
+                FEED_ID
+        );
+
+        assertSame(unchangedBefore, tripTimes(source, unchanged));
+        assertNotSame(changedBefore, tripTimes(source, changed));
+        assertEquals(6 * 3600 + 600 + 120, tripTimes(source, changed).getDepartureTime(0));
+        assertEquals(RealTimeState.UPDATED, tripTimes(source, changed).getRealTimeState());
+        assertEquals(6 * 3600 + 1200, tripTimes(source, removed).getDepartureTime(0));
+        assertEquals(RealTimeState.SCHEDULED, tripTimes(source, removed).getRealTimeState());
+
+        assertEquals(1, source.getTripUpdateMetrics().fullReapplies());
+        assertEquals(1, source.getTripUpdateMetrics().skippedUnchanged());
+        assertEquals(2, source.getTripUpdateMetrics().reverted());
+    }
+
+    /**
+     * A trip update without a start date is for today in the time zone of the feed, not in the
+     * time zone of the JVM.
+     */
+    @Test
+    public void tripUpdateWithoutStartDateIsForTodayInTheFeedTimeZone() {
+        TimeZone defaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(JVM_TIME_ZONE);
+        try {
+            TimetableSnapshotSource source = snapshotSource();
+            TripUpdate update = tripUpdate(tripId(0, 0), 60);
+            update = update.toBuilder()
+                    .setTrip(update.getTrip().toBuilder().clearStartDate())
+                    .build();
+
+            source.applyTripUpdates(graph, true, List.of(update), FEED_ID);
+
+            ServiceDate today = new ServiceDate(Calendar.getInstance(FEED_TIME_ZONE));
+            Timetable timetable = source.getTimetableSnapshot().resolve(patterns.get(0), today);
+            assertEquals(today, timetable.serviceDate);
+            assertEquals(
+                    6 * 3600 + 60,
+                    timetable.getTripTimes(timetable.getTripIndex(tripId(0, 0))).getDepartureTime(0)
+            );
+        }
+        finally {
+            TimeZone.setDefault(defaultTimeZone);
+        }
+    }
+
+    private TimetableSnapshotSource snapshotSource() {
+        TimetableSnapshotSource source = new TimetableSnapshotSource(graph);
+        source.purgeExpiredData = false;
+        source.maxSnapshotFrequency = -1;
+        return source;
+    }
+
+    private TripTimes tripTimes(TimetableSnapshotSource source, String tripId) {
+        Timetable timetable = source.getTimetableSnapshot().resolve(patterns.get(0), SERVICE_DATE);
+        return timetable.getTripTimes(timetable.getTripIndex(tripId));
+    }
+
+    private static String tripId(int pattern, int trip) {
+        return "T" + pattern + "-" + trip;
+    }
+
+    /** The departure and arrival times of a trip, as a string for easy comparison. */
+    private static String times(Timetable timetable, String tripId) {
+        TripTimes tripTimes = timetable.getTripTimes(timetable.getTripIndex(tripId));
+        StringBuilder buf = new StringBuilder(tripTimes.getRealTimeState().toString());
+        for (int i = 0; i < tripTimes.getNumStops(); i++) {
+            buf.append(' ').append(tripTimes.getArrivalTime(i))
+               .append('-').append(tripTimes.getDepartureTime(i));
+        }
+        return buf.toString();
+    }
+
+    /** A trip update delaying the trip from the first stop. */
+    private static TripUpdate tripUpdate(String tripId, int delay) {
+        return TripUpdate.newBuilder()
+                .setTrip(TripDescriptor.newBuilder()
+                        .setTripId(tripId)
+                        .setStartDate(SERVICE_DATE.asCompactString())
+                        .setScheduleRelationship(TripDescriptor.ScheduleRelationship.SCHEDULED))
+                .addStopTimeUpdate(StopTimeUpdate.newBuilder()
+                        .setStopSequence(0)
+                        .setArrival(StopTimeEvent.newBuilder().setDelay(delay))
+                        .setDeparture(StopTimeEvent.newBuilder().setDelay(delay)))
+                .build();
+    }
+
+    /** Stop times spending 10 minutes between stops. */
+    private List<StopTime> stopTimes(int departureTime) {
+        List<StopTime> stopTimes = new ArrayList<>();
+        for (int i = 0; i < stops.size(); i++) {
+            StopTime stopTime = new StopTime();
+            stopTime.setStop(stops.get(i));
+            stopTime.setArrivalTime(departureTime + i * 600);
+            stopTime.setDepartureTime(departureTime + i * 600);
+            stopTime.setStopSequence(i);
+            stopTimes.add(stopTime);
+        }
+        return stopTimes;
+    }
+}
@@ -98,6 +98,9 @@ public class TimetableSnapshotSourceTest {
         assertSame(snapshot, updater.getTimetableSnapshot());
 
         updater.maxSnapshotFrequency = (-1);
+        // Reading the snapshot does not commit the buffer, the updater publishes it
+        assertSame(snapshot, updater.getTimetableSnapshot());
+        updater.flushBuffer();
         final TimetableSnapshot newSnapshot = updater.getTimetableSnapshot();
         assertNotNull(newSnapshot);
         assertNotSame(snapshot, newSnapshot);
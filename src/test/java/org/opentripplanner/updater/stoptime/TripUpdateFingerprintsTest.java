@@ -0,0 +1,103 @@
+package org.opentripplanner.updater.stoptime;
+
+import com.google.transit.realtime.GtfsRealtime.TripDescriptor;
+import com.google.transit.realtime.GtfsRealtime.TripDescriptor.ScheduleRelationship;
+import com.google.transit.realtime.GtfsRealtime.TripUpdate;
+import org.junit.Test;
+import org.opentripplanner.model.calendar.ServiceDate;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class TripUpdateFingerprintsTest {
+
+    private static final ServiceDate TODAY = new ServiceDate(2020, 3, 1);
+
+    @Test
+    public void firstDatasetIsAppliedInFull() {
+        TripUpdateFingerprints subject = new TripUpdateFingerprints();
+        assertNull(subject.diff(Arrays.asList(delay("A", 60)), TODAY));
+    }
+
+    @Test
+    public void unchangedUpdatesAreSkipped() {
+        TripUpdateFingerprints subject = fingerprints(
+                ScheduleRelationship.SCHEDULED, delay("A", 60), delay("B", 60)
+        );
+
+        TripUpdateFingerprints.Diff diff = subject.diff(
+                Arrays.asList(delay("A", 60), delay("B", 120), delay("C", 0)), TODAY
+        );
+
+        assertNotNull(diff);
+        assertEquals(Arrays.asList(delay("A", 60)), diff.unchanged);
+        assertEquals(Arrays.asList(delay("B", 120), delay("C", 0)), diff.changed);
+        assertEquals(1, diff.reverted.size());
+        assertEquals("B", diff.reverted.get(0).tripId);
+        assertEquals(0, diff.removed.size());
+    }
+
+    @Test
+    public void removedUpdatesAreReverted() {
+        TripUpdateFingerprints subject = fingerprints(
+                ScheduleRelationship.SCHEDULED, delay("A", 60), delay("B", 60)
+        );
+
+        TripUpdateFingerprints.Diff diff = subject.diff(Arrays.asList(delay("A", 60)), TODAY);
+
+        assertNotNull(diff);
+        assertEquals(1, diff.removed.size());
+        assertEquals("B", diff.removed.get(0).tripId);
+        assertEquals(diff.removed, diff.reverted);
+
+        subject.remove(diff.removed);
+        diff = subject.diff(Arrays.asList(delay("A", 60)), TODAY);
+        assertEquals(0, diff.removed.size());
+    }
+
+    @Test
+    public void changedAddedTripIsAppliedInFull() {
+        TripUpdateFingerprints subject = fingerprints(ScheduleRelationship.ADDED, delay("A", 60));
+
+        assertNotNull(subject.diff(Arrays.asList(delay("A", 60)), TODAY));
+        assertNull(subject.diff(Arrays.asList(delay("A", 120)), TODAY));
+        assertNull(subject.diff(Arrays.asList(), TODAY));
+    }
+
+    @Test
+    public void newDateOrDuplicateTripIsAppliedInFull() {
+        TripUpdateFingerprints subject = fingerprints(
+                ScheduleRelationship.SCHEDULED, delay("A", 60)
+        );
+
+        assertNull(subject.diff(Arrays.asList(delay("A", 60)), TODAY.next()));
+        assertNull(subject.diff(Arrays.asList(delay("A", 60), delay("A", 120)), TODAY));
+    }
+
+    private static TripUpdateFingerprints fingerprints(
+            ScheduleRelationship scheduleRelationship,
+            TripUpdate... updates
+    ) {
+        TripUpdateFingerprints fingerprints = new TripUpdateFingerprints();
+        List<TripUpdate> list = Arrays.asList(updates);
+        assertNull(fingerprints.diff(list, TODAY));
+        fingerprints.reset(TODAY);
+        for (TripUpdate it : list) {
+            fingerprints.add(
+                    it, true, scheduleRelationship, it.getTrip().getTripId(), TODAY
+            );
+        }
+        return fingerprints;
+    }
+
+    private static TripUpdate delay(String tripId, int delay) {
+        return TripUpdate.newBuilder()
+                .setTrip(TripDescriptor.newBuilder().setTripId(tripId).setStartDate("20200301"))
+                .setDelay(delay)
+                .build();
+    }
+}
@@ -0,0 +1,65 @@
+package org.opentripplanner.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ShardedHashMapTest {
+
+    @Test
+    public void snapshotIsNotChangedByLaterUpdates() {
+        ShardedHashMap<Integer, String> subject = new ShardedHashMap<>(4);
+        for (int i = 0; i < 8; ++i) {
+            subject.put(i, "v" + i);
+        }
+        ShardedHashMap<Integer, String> snapshot = subject.snapshot();
+        assertEquals(0, subject.copiedShards());
+
+        subject.put(1, "x");
+        subject.put(5, "y");
+        subject.remove(2);
+        subject.put(9, "z");
+
+        // Keys 1, 5 and 9 are in the same shard, key 2 in another one
+        assertEquals(2, subject.copiedShards());
+        assertEquals("x", subject.get(1));
+        assertEquals("y", subject.get(5));
+        assertNull(subject.get(2));
+        assertEquals(8, subject.size());
+
+        assertEquals("v1", snapshot.get(1));
+        assertEquals("v5", snapshot.get(5));
+        assertEquals("v2", snapshot.get(2));
+        assertFalse(snapshot.containsKey(9));
+        assertEquals(8, snapshot.size());
+    }
+
+    @Test
+    public void replaceAllOnlyCopiesChangedShards() {
+        ShardedHashMap<Integer, String> subject = new ShardedHashMap<>(4);
+        for (int i = 0; i < 8; ++i) {
+            subject.put(i, "v" + i);
+        }
+        ShardedHashMap<Integer, String> snapshot = subject.snapshot();
+
+        assertFalse(subject.replaceAll((k, v) -> v));
+        assertEquals(0, subject.copiedShards());
+
+        assertTrue(subject.removeIf((k, v) -> k == 3 || k == 7));
+        assertEquals(1, subject.copiedShards());
+        assertEquals(6, subject.size());
+        assertEquals(8, snapshot.size());
+        assertEquals("v7", snapshot.get(7));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void snapshotIsReadOnly() {
+        ShardedHashMap<Integer, String> subject = new ShardedHashMap<>();
+        ShardedHashMap<Integer, String> snapshot = subject.snapshot();
+        assertTrue(snapshot.isReadOnly());
+        snapshot.put(1, "x");
+    }
+}
@@ -0,0 +1,28 @@
+package org.opentripplanner.util.monitoring;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DurationMetricsTest {
+
+    @Test
+    public void recordEvents() {
+        DurationMetrics subject = new DurationMetrics();
+        assertEquals(0, subject.avgMillis());
+
+        subject.record(30);
+        subject.record(10);
+        subject.record(20);
+
+        assertEquals(3, subject.count());
+        assertEquals(60, subject.totalMillis());
+        assertEquals(20, subject.avgMillis());
+        assertEquals(30, subject.maxMillis());
+        assertEquals(20, subject.lastMillis());
+        assertEquals(
+                "DurationMetrics{count: 3, avgMillis: 20, maxMillis: 30, lastMillis: 20}",
+                subject.toString()
+        );
+    }
+}